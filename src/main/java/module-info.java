@@ -8,4 +8,6 @@ module se.uu.ub.cora.fedora {
 
 	exports se.uu.ub.cora.fedora;
 	exports se.uu.ub.cora.fedora.record;
+	exports se.uu.ub.cora.fedora.cache;
+	exports se.uu.ub.cora.fedora.bulk;
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Uppsala University Library
+ * Copyright 2022, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -18,16 +18,43 @@
  */
 package se.uu.ub.cora.fedora;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
 import se.uu.ub.cora.fedora.record.ResourceMetadata;
 import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
 
 /**
  * FedoraAdapter defines an interface in order to talk to Fedora 6+ hiding the implementation
  * details.
  * <p>
- * Implementation are generally not expected to be thread safe.
+ * Implementations MUST be threadsafe, as one adapter instance is called from many threads at the
+ * same time, by parallel batch operations, exports, imports and the background workers of
+ * wrapping adapters. Adapters wrapping another FedoraAdapter MUST in turn only wrap threadsafe
+ * adapters.
  */
 
 public interface FedoraAdapter {
@@ -51,9 +78,54 @@ public interface FedoraAdapter {
 	 */
 	void createRecord(String dataDivider, String recordId, String recordXml);
 
+	/**
+	 * Creates a batch of records in fedora, creating several records at the same time.
+	 * <p>
+	 * Failures do not stop the batch, instead a result is returned for each record, in the same
+	 * order as the records. The outcome is {@link BatchOutcome#CREATED} if the record was created,
+	 * {@link BatchOutcome#CONFLICT} if a record with the same recordId is already stored in fedora
+	 * and {@link BatchOutcome#ERROR} for any other problem.
+	 * 
+	 * <p>
+	 * The default implementation creates the records one at a time using
+	 * {@link #createRecord(String, String, String)}.
+	 * 
+	 * @param records
+	 *            the records to create
+	 * @param maxParallelCreates
+	 *            the maximum number of records to create at the same time, at least 1
+	 * 
+	 * @return A List with one BatchItemResult for each record
+	 */
+	default List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		List<BatchItemResult> results = new ArrayList<>(records.size());
+		for (RecordToCreate recordToCreate : records) {
+			results.add(createRecordInBatch(recordToCreate));
+		}
+		return results;
+	}
+
+	private BatchItemResult createRecordInBatch(RecordToCreate recordToCreate) {
+		String dataDivider = recordToCreate.dataDivider();
+		String recordId = recordToCreate.recordId();
+		try {
+			createRecord(dataDivider, recordId, recordToCreate.recordXml());
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.CREATED, null);
+		} catch (FedoraConflictException e) {
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.CONFLICT,
+					e.getMessage());
+		} catch (RuntimeException e) {
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.ERROR, e.getMessage());
+		}
+	}
+
 	/**
 	 * Stores a new resource in Fedora
 	 * <p>
+	 * The SHA-512 checksum and size of the resource are calculated while it is sent to Fedora, and
+	 * returned so that they do not have to be read back from Fedora.
+	 * <p>
 	 * If a record with the same recordId is already stored in fedora a
 	 * {@link FedoraConflictException} will be thrown.
 	 * <p>
@@ -67,10 +139,88 @@ public interface FedoraAdapter {
 	 *            It is the resource file to store.
 	 * @param mimeType
 	 *            It is the mimeType of the resource to store.
+	 * 
+	 * @return The ResourceMetadata of the stored resource
 	 */
-	void createResource(String dataDivider, String resourceId, InputStream resource,
+	ResourceMetadata createResource(String dataDivider, String resourceId, InputStream resource,
 			String mimeType);
 
+	/**
+	 * Stores a new resource in Fedora, reading its content from a file.
+	 * <p>
+	 * The size of the file is sent to Fedora as a fixed Content-Length, and the content is
+	 * streamed from the file to the connection, so the resource is never held in memory.
+	 * <p>
+	 * The SHA-512 checksum of the file is calculated before it is uploaded and sent as a Digest
+	 * header, so that Fedora verifies the fixity of the stored content. The checksum and size are
+	 * returned so that they do not have to be read back from Fedora.
+	 * <p>
+	 * If a record with the same recordId is already stored in fedora a
+	 * {@link FedoraConflictException} will be thrown.
+	 * <p>
+	 * For any other problem, including problems reading the file, a {@link FedoraException} will
+	 * be thrown.
+	 * 
+	 * <p>
+	 * The default implementation streams the file to
+	 * {@link #createResource(String, String, InputStream, String)}, without sending its
+	 * size up front.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param resourceId
+	 *            It is the identifier of the resource.
+	 * @param resource
+	 *            It is the path to the file with the resource to store.
+	 * @param mimeType
+	 *            It is the mimeType of the resource to store.
+	 * 
+	 * @return The ResourceMetadata of the stored resource
+	 */
+	default ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		try (InputStream content = Files.newInputStream(resource)) {
+			return createResource(dataDivider, resourceId, content, mimeType);
+		} catch (IOException e) {
+			throw createReadFileException(resourceId, resource, e);
+		}
+	}
+
+	private FedoraException createReadFileException(String resourceId, Path resource,
+			IOException e) {
+		return FedoraException.withMessageAndException(
+				"Error reading file " + resource + " for resource id " + resourceId, e);
+	}
+
+	/**
+	 * Stores a new resource in Fedora whose content is stored outside of Fedora, registering the
+	 * content by its URI instead of sending it to Fedora.
+	 * <p>
+	 * Only the URI, the handling and the mimeType are sent to Fedora, so the content is not
+	 * streamed through this adapter. The URI must be reachable from Fedora, and handling decides
+	 * if Fedora proxies the content, redirects to it or copies it, see
+	 * {@link ExternalContentHandling}.
+	 * <p>
+	 * If a record with the same recordId is already stored in fedora a
+	 * {@link FedoraConflictException} will be thrown.
+	 * <p>
+	 * If there are problems while storing the resource in Fedora, including Fedora not accepting
+	 * the external content, a {@link FedoraException} will be thrown.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param resourceId
+	 *            It is the identifier of the resource.
+	 * @param externalContent
+	 *            It is the URI of the content of the resource.
+	 * @param mimeType
+	 *            It is the mimeType of the resource to store.
+	 * @param handling
+	 *            It is how Fedora handles the external content.
+	 */
+	void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling);
+
 	/**
 	 * Reads a record from fedora using recordId
 	 * <p>
@@ -89,6 +239,138 @@ public interface FedoraAdapter {
 	 */
 	String readRecord(String dataDivider, String recordId);
 
+	/**
+	 * Reads many records from the same dataDivider at once, reading up to maxParallelReads records
+	 * from Fedora at the same time.
+	 * <p>
+	 * Records that are not found in fedora do not cause an exception, instead their recordIds are
+	 * returned as missing ids. If there are other problems while reading the records a
+	 * {@link FedoraException} will be thrown.
+	 * 
+	 * <p>
+	 * The default implementation reads the records one at a time using
+	 * {@link #readRecord(String, String)}.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the records belong
+	 * @param recordIds
+	 *            identifies the records to read
+	 * @param maxParallelReads
+	 *            the maximum number of records to read at the same time, at least 1
+	 * 
+	 * @return A ReadRecordsResult with the found records and the ids of the missing records
+	 */
+	default ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		Map<String, String> records = new HashMap<>();
+		Set<String> missingIds = new HashSet<>();
+		for (String recordId : new LinkedHashSet<>(recordIds)) {
+			try {
+				records.put(recordId, readRecord(dataDivider, recordId));
+			} catch (FedoraNotFoundException e) {
+				missingIds.add(recordId);
+			}
+		}
+		return new ReadRecordsResult(records, missingIds);
+	}
+
+	/**
+	 * Lists the ids of all records and resources stored in fedora for a dataDivider, without the
+	 * dataDivider prefix.
+	 * <p>
+	 * The listing is read from fedora as the returned Stream is consumed, so that memory use does
+	 * not grow with the number of ids. The Stream holds an open connection to fedora until it is
+	 * fully consumed or closed, and should therefore be closed, preferably using
+	 * try-with-resources.
+	 * <p>
+	 * If there are problems while listing the ids in Fedora a {@link FedoraException} will be
+	 * thrown, either when calling this method or while consuming the Stream.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider to list ids for
+	 * 
+	 * @return A Stream with the ids in the order fedora returns them
+	 */
+	Stream<String> listIds(String dataDivider);
+
+	/**
+	 * Lists the ids of the records and resources in a dataDivider that have been modified in
+	 * fedora since the specified instant, asking fedora about up to maxParallelChecks ids at the
+	 * same time.
+	 * <p>
+	 * The modification time of each id is read from the listing of the dataDivider, so no record
+	 * content is transferred and no request is made for each id. Only ids whose modification
+	 * time is not reported in the listing are checked with a conditional request each. Fedora
+	 * reports modification times in whole seconds in its headers, so ids modified up to one
+	 * second before the instant may also be returned, but no id modified after it is left out.
+	 * <p>
+	 * If there are problems while checking the ids in Fedora a {@link FedoraException} will be
+	 * thrown.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider to list modified ids for
+	 * @param since
+	 *            the instant after which ids must have been modified to be listed
+	 * @param maxParallelChecks
+	 *            the maximum number of ids to check at the same time, at least 1
+	 * 
+	 * @return A List with the modified ids in the order fedora lists them
+	 */
+	List<String> listIdsModifiedSince(String dataDivider, Instant since, int maxParallelChecks);
+
+	/**
+	 * Reads a record from fedora using recordId, returning the record together with the ETag of
+	 * the version read.
+	 * <p>
+	 * If a record with the specified recordId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while reading the record in Fedora a {@link FedoraException} will be
+	 * thrown.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param recordId
+	 *            identifies the record to read
+	 * 
+	 * @return A VersionedRecord with the record and its ETag
+	 */
+	VersionedRecord readVersionedRecord(String dataDivider, String recordId);
+
+	/**
+	 * Reads a record from fedora using recordId, but only if the stored version of the record does
+	 * not match the specified etag. If the stored version matches, an empty Optional is returned
+	 * without transferring the record.
+	 * <p>
+	 * If a record with the specified recordId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while reading the record in Fedora a {@link FedoraException} will be
+	 * thrown.
+	 * 
+	 * <p>
+	 * The default implementation always reads the record using
+	 * {@link #readVersionedRecord(String, String)}, and only returns an empty Optional if
+	 * the ETag read matches the specified etag.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param recordId
+	 *            identifies the record to read
+	 * @param etag
+	 *            the ETag of the version of the record already known by the caller
+	 * 
+	 * @return An Optional with a VersionedRecord if the record has changed, else an empty Optional
+	 */
+	default Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		VersionedRecord versionedRecord = readVersionedRecord(dataDivider, recordId);
+		if (etag != null && etag.equals(versionedRecord.etag())) {
+			return Optional.empty();
+		}
+		return Optional.of(versionedRecord);
+	}
+
 	/**
 	 * Reads resource from fedora using recorid as identifier.
 	 * <p>
@@ -105,6 +387,165 @@ public interface FedoraAdapter {
 	 */
 	InputStream readResource(String dataDivider, String resourceId);
 
+	/**
+	 * Reads a resource from fedora using resourceId as identifier, returning a stream that resumes
+	 * the transfer if the connection to fedora fails while the resource is read.
+	 * <p>
+	 * When reading from the returned stream fails, the rest of the resource is requested from the
+	 * first byte not yet delivered, on the condition that the resource still has the ETag it had
+	 * when reading started. Up to maxResumeAttempts attempts are made after each failure, and the
+	 * count starts over once bytes are delivered again. If the resource has been changed or
+	 * removed, or all attempts fail, the original IOException is thrown from the stream with the
+	 * errors from the attempts added as suppressed exceptions.
+	 * <p>
+	 * If fedora does not report an ETag for the resource, or maxResumeAttempts is less than 1, the
+	 * stream is not resumed, as for {@link #readResource(String, String)}.
+	 * <p>
+	 * If the resource with the specified resourceId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while starting to read the resource in Fedora a
+	 * {@link FedoraException} will be thrown.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to read
+	 * @param maxResumeAttempts
+	 *            the maximum number of attempts to resume the transfer after each failure
+	 *
+	 * @return InputStream Representation of the resource read from Fedora
+	 */
+	InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts);
+
+	/**
+	 * Reads a resource from fedora using resourceId as identifier, returning a stream that
+	 * verifies the fixity of the resource while it is read.
+	 * <p>
+	 * The SHA-512 checksum of the bytes read is calculated as the stream is consumed and compared
+	 * with the checksum fedora reports for the resource. The expected checksum is requested
+	 * together with the resource, and only if fedora does not report it with the resource is the
+	 * metadata of the resource read separately. If the bytes read do not match the checksum or the
+	 * file size of the resource a {@link FedoraFixityException} is thrown from the read that
+	 * reaches the end of the stream, instead of the end of the stream being signaled.
+	 * <p>
+	 * If the resource with the specified resourceId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while starting to read the resource in Fedora a
+	 * {@link FedoraException} will be thrown.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to read
+	 *
+	 * @return InputStream Representation of the resource read from Fedora
+	 */
+	InputStream readVerifiedResource(String dataDivider, String resourceId);
+
+	/**
+	 * Reads a resource from fedora using resourceId as identifier, returning a stream that
+	 * verifies the fixity of the resource against already known metadata while it is read.
+	 * <p>
+	 * This works as {@link #readVerifiedResource(String, String)}, but the expected checksum and
+	 * file size are taken from expectedMetadata, such as metadata kept from when the resource was
+	 * stored, instead of being requested from fedora.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to read
+	 * @param expectedMetadata
+	 *            the checksum and file size the resource is expected to have
+	 *
+	 * @return InputStream Representation of the resource read from Fedora
+	 */
+	InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata);
+
+	/**
+	 * Reads a range of bytes of a resource from fedora using resourceId as identifier.
+	 * <p>
+	 * Only the requested bytes are transferred from fedora. If the range reaches past the end of
+	 * the resource, the returned range is shortened to end with the resource.
+	 * <p>
+	 * If the resource with the specified resourceId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If the range starts at or after the end of the resource a
+	 * {@link FedoraRangeNotSatisfiableException} will be thrown.
+	 * <p>
+	 * If offset is negative or length is less than 1, or if there are problems while reading the
+	 * resource in Fedora a {@link FedoraException} will be thrown.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to read
+	 * @param offset
+	 *            the position of the first byte to read, counted from the start of the resource
+	 * @param length
+	 *            the number of bytes to read
+	 *
+	 * @return A ResourceRange with the bytes read and their position in the resource
+	 */
+	ResourceRange readResource(String dataDivider, String resourceId, long offset, long length);
+
+	/**
+	 * Reads several ranges of bytes of a resource from fedora using resourceId as identifier.
+	 * <p>
+	 * All ranges are validated before anything is read from fedora. Each range is then read as
+	 * described in {@link #readResource(String, String, long, long)}. If reading any of the ranges
+	 * fails, the ranges already read are closed before the exception is thrown.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to read
+	 * @param ranges
+	 *            the ranges of bytes to read
+	 *
+	 * @return A List with a ResourceRange for each requested range, in the requested order
+	 */
+	List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges);
+
+	/**
+	 * Downloads a resource from fedora to a file, reading several ranges of the resource from
+	 * fedora at the same time.
+	 * <p>
+	 * The resource is split into ranges of rangeSize bytes, and each range is written directly at
+	 * its position in the file as soon as it is read, so the resource is never held in memory.
+	 * When all ranges are written the SHA-512 checksum of the file is verified against the
+	 * checksum fedora reports for the resource. An existing file at target is overwritten.
+	 * <p>
+	 * If the resource with the specified resourceId is not found in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If the checksum of the file does not match a {@link FedoraFixityException} will be thrown.
+	 * <p>
+	 * If rangeSize is less than 1 or if there are any other problems while downloading the
+	 * resource a {@link FedoraException} will be thrown. The file at target is removed if the
+	 * download fails.
+	 *
+	 * @param dataDivider
+	 *            it is the name of the data divider where the resource belongs
+	 * @param resourceId
+	 *            the id of the resource to download
+	 * @param target
+	 *            the path to the file to write the resource to
+	 * @param rangeSize
+	 *            the number of bytes to read in each range, at least 1
+	 * @param maxParallelReads
+	 *            the maximum number of ranges to read at the same time, at least 1
+	 *
+	 * @return The ResourceMetadata the downloaded file was verified against
+	 */
+	ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads);
+
 	/**
 	 * Reads a resource from fedora using resourceId as identifier.
 	 * <p>
@@ -143,6 +584,50 @@ public interface FedoraAdapter {
 	void updateResourceMetadata(String dataDivider, String resourceId,
 			ResourceMetadataToUpdate resourceMetadataToUpdate);
 
+	/**
+	 * Updates the metadata of a batch of resources in fedora, updating several resources at the
+	 * same time.
+	 * <p>
+	 * Failures do not stop the batch, instead a result is returned for each update, in the same
+	 * order as the updates. The outcome is {@link BatchOutcome#UPDATED} if the metadata was
+	 * updated, {@link BatchOutcome#NOT_FOUND} if the resource is not found in fedora and
+	 * {@link BatchOutcome#ERROR} for any other problem.
+	 * 
+	 * <p>
+	 * The default implementation updates the resources one at a time using
+	 * {@link #updateResourceMetadata(String, String, ResourceMetadataToUpdate)}.
+	 * 
+	 * @param updates
+	 *            the resources and metadata to update
+	 * @param maxParallelUpdates
+	 *            the maximum number of resources to update at the same time, at least 1
+	 * 
+	 * @return A List with one BatchItemResult for each update
+	 */
+	default List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		List<BatchItemResult> results = new ArrayList<>(updates.size());
+		for (ResourceMetadataUpdate update : updates) {
+			results.add(updateResourceMetadataInBatch(update));
+		}
+		return results;
+	}
+
+	private BatchItemResult updateResourceMetadataInBatch(ResourceMetadataUpdate update) {
+		String dataDivider = update.dataDivider();
+		String resourceId = update.resourceId();
+		try {
+			updateResourceMetadata(dataDivider, resourceId, update.resourceMetadataToUpdate());
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.UPDATED, null);
+		} catch (FedoraNotFoundException e) {
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.NOT_FOUND,
+					e.getMessage());
+		} catch (RuntimeException e) {
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.ERROR,
+					e.getMessage());
+		}
+	}
+
 	/**
 	 * Updates an existing record in Fedora. The payload (recordXml) will create a new version of
 	 * the record in Fedora.
@@ -166,6 +651,9 @@ public interface FedoraAdapter {
 	 * Updates an existing resource in Fedora. The payload will update the resource with a new
 	 * version in Fedora.
 	 * <p>
+	 * The SHA-512 checksum and size of the new content are calculated while it is sent to Fedora,
+	 * and returned so that they do not have to be read back from Fedora.
+	 * <p>
 	 * If a resource with the same resourceId is not already stored in fedora a
 	 * {@link FedoraNotFoundException} will be thrown.
 	 * <p>
@@ -180,10 +668,108 @@ public interface FedoraAdapter {
 	 *            It is the resource to update
 	 * @param mimeType
 	 *            It is the mimeType of the resource to update
+	 * 
+	 * @return The ResourceMetadata of the updated resource
 	 */
-	void updateResource(String dataDivider, String resourceId, InputStream resource,
+	ResourceMetadata updateResource(String dataDivider, String resourceId, InputStream resource,
 			String mimeType);
 
+	/**
+	 * Updates an existing resource in Fedora, reading the new content from a file. The file is
+	 * uploaded in the same way as for {@link #createResource(String, String, Path, String)}.
+	 * <p>
+	 * If a resource with the same resourceId is not already stored in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while updating the record in Fedora, or reading the file, a
+	 * {@link FedoraException} will be thrown.
+	 * 
+	 * <p>
+	 * The default implementation streams the file to
+	 * {@link #updateResource(String, String, InputStream, String)}, without sending its
+	 * size up front.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param resourceId
+	 *            identifier of the resource to update
+	 * @param resource
+	 *            It is the path to the file with the resource to update
+	 * @param mimeType
+	 *            It is the mimeType of the resource to update
+	 * 
+	 * @return The ResourceMetadata of the updated resource
+	 */
+	default ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		try (InputStream content = Files.newInputStream(resource)) {
+			return updateResource(dataDivider, resourceId, content, mimeType);
+		} catch (IOException e) {
+			throw createReadFileException(resourceId, resource, e);
+		}
+	}
+
+	/**
+	 * Updates an existing resource in Fedora from a file, but only if the content of the file or
+	 * the mimeType differs from what is already stored for the resource.
+	 * <p>
+	 * The SHA-512 checksum of the file and the mimeType are compared with the checksum and
+	 * mimeType of the stored resource, which are requested with the same HEAD request that checks
+	 * that the resource exists. Only if Fedora does not report them there is the metadata of the
+	 * resource read separately. If both match nothing is sent to Fedora and the result is reported
+	 * as unchanged, otherwise the file is uploaded in the same way as for
+	 * {@link #updateResource(String, String, Path, String)}.
+	 * <p>
+	 * The upload is only stored if the resource still has the ETag returned by the HEAD request,
+	 * so that a resource changed by someone else after the comparison is not overwritten. If it
+	 * has been changed a {@link FedoraConflictException} will be thrown.
+	 * <p>
+	 * If a resource with the same resourceId is not already stored in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while updating the record in Fedora, or reading the file, a
+	 * {@link FedoraException} will be thrown.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param resourceId
+	 *            identifier of the resource to update
+	 * @param resource
+	 *            It is the path to the file with the resource to update
+	 * @param mimeType
+	 *            It is the mimeType of the resource to update
+	 * 
+	 * @return A ResourceUpdateResult with the ResourceMetadata of the file and if the resource was
+	 *         left unchanged
+	 */
+	ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType);
+
+	/**
+	 * Updates an existing resource in Fedora to have content that is stored outside of Fedora. The
+	 * content is registered in the same way as for
+	 * {@link #createExternalResource(String, String, URI, String, ExternalContentHandling)}.
+	 * <p>
+	 * If a resource with the same resourceId is not already stored in fedora a
+	 * {@link FedoraNotFoundException} will be thrown.
+	 * <p>
+	 * If there are problems while updating the resource in Fedora a {@link FedoraException} will
+	 * be thrown.
+	 * 
+	 * @param dataDivider
+	 *            it is the name of the data divider where the record belongs
+	 * @param resourceId
+	 *            identifier of the resource to update
+	 * @param externalContent
+	 *            It is the URI of the new content of the resource
+	 * @param mimeType
+	 *            It is the mimeType of the resource to update
+	 * @param handling
+	 *            It is how Fedora handles the external content
+	 */
+	void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling);
+
 	/**
 	 * Delete an existing record in Fedora.
 	 * 
@@ -215,4 +801,23 @@ public interface FedoraAdapter {
 	 *            identifier of the resource to delete
 	 */
 	void deleteResource(String dataDivider, String resourceId);
+
+	/**
+	 * Runs a group of operations atomically inside a Fedora transaction. The transaction is
+	 * started, the operations are run at the same time, and the transaction is committed if all
+	 * operations succeed. The transaction is kept alive while the operations run, so long running
+	 * groups of operations do not make it time out.
+	 * <p>
+	 * If any operation throws an exception, the transaction is rolled back after all operations
+	 * have finished, and a {@link FedoraException} is thrown with the exception from the first
+	 * failing operation as cause.
+	 * <p>
+	 * If the transaction can not be started or committed a {@link FedoraException} will be thrown.
+	 * 
+	 * @param operations
+	 *            the operations to run inside the transaction
+	 * @param maxParallelOperations
+	 *            the maximum number of operations to run at the same time, at least 1
+	 */
+	void runInTransaction(List<TransactionOperation> operations, int maxParallelOperations);
 }
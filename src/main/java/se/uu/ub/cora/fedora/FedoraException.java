@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Uppsala University Library
+ * Copyright 2022, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -21,11 +21,11 @@ package se.uu.ub.cora.fedora;
 public class FedoraException extends RuntimeException {
 	private static final long serialVersionUID = -255261285196817577L;
 
-	private FedoraException(String message) {
+	protected FedoraException(String message) {
 		super(message);
 	}
 
-	private FedoraException(String message, Exception e) {
+	protected FedoraException(String message, Exception e) {
 		super(message, e);
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Uppsala University Library
+ * Copyright 2022, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -19,6 +19,14 @@
 
 package se.uu.ub.cora.fedora;
 
+import java.nio.file.Path;
+
+import se.uu.ub.cora.fedora.bulk.DataDividerDeleter;
+import se.uu.ub.cora.fedora.bulk.DataDividerExporter;
+import se.uu.ub.cora.fedora.bulk.DataDividerImporter;
+import se.uu.ub.cora.fedora.bulk.RecordPublisher;
+import se.uu.ub.cora.fedora.cache.RecordCachePreloader;
+
 /**
  * FedoraFactory is a factory interface that provides instances of classes in the fedora module.
  * <p>
@@ -38,4 +46,101 @@ public interface FedoraFactory {
 	 */
 	public FedoraAdapter factorFedoraAdapter();
 
+	/**
+	 * factorWriteBehindFedoraAdapter creates and returns a new WriteBehindFedoraAdapter, that
+	 * queues updates of records and writes them in the background through a FedoraAdapter set up
+	 * as the ones returned by {@link #factorFedoraAdapter()}.
+	 * <p>
+	 * Each WriteBehindFedoraAdapter has its own queue and background workers, and should be
+	 * closed when it is no longer used.
+	 * 
+	 * @param maxParallelWrites
+	 *            The maximum number of queued updates to write to Fedora at the same time, at
+	 *            least 1
+	 * @return A WriteBehindFedoraAdapter set up with connection details for a fedora.
+	 */
+	public WriteBehindFedoraAdapter factorWriteBehindFedoraAdapter(int maxParallelWrites);
+
+	/**
+	 * factorJournalingFedoraAdapter creates and returns a new JournalingFedoraAdapter, that
+	 * journals creates and updates of records in the specified journal file and applies them in
+	 * the background through a FedoraAdapter set up as the ones returned by
+	 * {@link #factorFedoraAdapter()}.
+	 * <p>
+	 * Writes left in the journal file by a previous adapter are applied by the new adapter. A
+	 * journal file can only be used by one JournalingFedoraAdapter at a time, if it is already used
+	 * or can not be opened MUST a {@link FedoraException} be thrown.
+	 * 
+	 * @param journalFile
+	 *            A Path to the journal file, it is created if it does not exist
+	 * @return A JournalingFedoraAdapter set up with connection details for a fedora.
+	 */
+	public JournalingFedoraAdapter factorJournalingFedoraAdapter(Path journalFile);
+
+	/**
+	 * factorRecordCachePreloader creates and returns a new RecordCachePreloader, that preloads the
+	 * record cache used by the FedoraAdapters created by this factory.
+	 * <p>
+	 * If the factory is not set up with a record cache MUST a {@link FedoraException} be thrown.
+	 * 
+	 * @param maxParallelReads
+	 *            The maximum number of records to read from Fedora at the same time, at least 1
+	 * @return A RecordCachePreloader for the record cache used by this factory
+	 */
+	public RecordCachePreloader factorRecordCachePreloader(int maxParallelReads);
+
+	/**
+	 * factorDataDividerExporter creates and returns a new DataDividerExporter, that exports
+	 * dataDividers from the Fedora used by the FedoraAdapters created by this factory.
+	 * <p>
+	 * The exporter reads directly from Fedora, without using any record cache the factory is set
+	 * up with.
+	 * 
+	 * @param maxParallelFetches
+	 *            The maximum number of records and resources to read from Fedora at the same time,
+	 *            at least 1
+	 * @return A DataDividerExporter for the Fedora used by this factory
+	 */
+	public DataDividerExporter factorDataDividerExporter(int maxParallelFetches);
+
+	/**
+	 * factorDataDividerImporter creates and returns a new DataDividerImporter, that imports items
+	 * into the Fedora used by the FedoraAdapters created by this factory.
+	 * <p>
+	 * The importer writes directly to Fedora, without using any record cache the factory is set
+	 * up with.
+	 * 
+	 * @param maxParallelWorkers
+	 *            The maximum number of items to create in Fedora at the same time, at least 1
+	 * @return A DataDividerImporter for the Fedora used by this factory
+	 */
+	public DataDividerImporter factorDataDividerImporter(int maxParallelWorkers);
+
+	/**
+	 * factorDataDividerDeleter creates and returns a new DataDividerDeleter, that deletes
+	 * dataDividers in the Fedora used by the FedoraAdapters created by this factory.
+	 * <p>
+	 * Deleted records are removed from any record cache the factory is set up with.
+	 * 
+	 * @param maxParallelDeletes
+	 *            The maximum number of records and resources to delete in Fedora at the same
+	 *            time, at least 1
+	 * @return A DataDividerDeleter for the Fedora used by this factory
+	 */
+	public DataDividerDeleter factorDataDividerDeleter(int maxParallelDeletes);
+
+	/**
+	 * factorRecordPublisher creates and returns a new RecordPublisher, that publishes records and
+	 * resource metadata from the Fedora used by the FedoraAdapters created by this factory.
+	 * <p>
+	 * The publisher reads directly from Fedora, without using any record cache the factory is set
+	 * up with.
+	 * 
+	 * @param maxParallelReads
+	 *            The maximum number of reads from Fedora in progress at the same time for each
+	 *            subscription, at least 1
+	 * @return A RecordPublisher for the Fedora used by this factory
+	 */
+	public RecordPublisher factorRecordPublisher(int maxParallelReads);
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022, 2023 Uppsala University Library
+ * Copyright 2022, 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -19,31 +19,216 @@
 
 package se.uu.ub.cora.fedora;
 
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import se.uu.ub.cora.fedora.bulk.DataDividerDeleter;
+import se.uu.ub.cora.fedora.bulk.DataDividerExporter;
+import se.uu.ub.cora.fedora.bulk.DataDividerImporter;
+import se.uu.ub.cora.fedora.bulk.RecordPublisher;
+import se.uu.ub.cora.fedora.cache.HotKeyTracker;
+import se.uu.ub.cora.fedora.cache.RecordCache;
+import se.uu.ub.cora.fedora.cache.RecordCachePreloader;
+import se.uu.ub.cora.fedora.internal.CachingFedoraAdapter;
+import se.uu.ub.cora.fedora.internal.ContainerLister;
+import se.uu.ub.cora.fedora.internal.ContainerListerImp;
+import se.uu.ub.cora.fedora.internal.DataDividerDeleterImp;
+import se.uu.ub.cora.fedora.internal.DataDividerExporterImp;
+import se.uu.ub.cora.fedora.internal.DataDividerImporterImp;
 import se.uu.ub.cora.fedora.internal.FedoraAdapterImp;
+import se.uu.ub.cora.fedora.internal.FileUploader;
+import se.uu.ub.cora.fedora.internal.FileUploaderImp;
+import se.uu.ub.cora.fedora.internal.HotKeyTrackingFedoraAdapter;
+import se.uu.ub.cora.fedora.internal.JournalingFedoraAdapterImp;
+import se.uu.ub.cora.fedora.internal.ReadCoalescer;
+import se.uu.ub.cora.fedora.internal.ReadCoalescerImp;
+import se.uu.ub.cora.fedora.internal.RecordCachePreloaderImp;
+import se.uu.ub.cora.fedora.internal.RecordCacheVersions;
+import se.uu.ub.cora.fedora.internal.RecordPublisherImp;
 import se.uu.ub.cora.fedora.internal.ResourceMetadataParser;
 import se.uu.ub.cora.fedora.internal.ResourceMetadataParserImp;
+import se.uu.ub.cora.fedora.internal.WriteAheadJournal;
+import se.uu.ub.cora.fedora.internal.WriteBehindFedoraAdapterImp;
 import se.uu.ub.cora.httphandler.HttpHandlerFactoryImp;
 import se.uu.ub.cora.json.parser.org.OrgJsonParser;
 
+/**
+ * FedoraFactoryImp factors FedoraAdapters and bulk tools for one Fedora. Caches, trackers and
+ * threads are shared between everything it factors.
+ * <p>
+ * Batches that run items in parallel, such as
+ * {@link FedoraAdapter#createRecords(java.util.List, int)}, borrow threads from one executor owned
+ * by the factory, so the number of threads used by all of them together is bounded, no matter how
+ * many batches run at the same time. Threads not used for a minute are ended.
+ */
 public class FedoraFactoryImp implements FedoraFactory {
+	private static final int MAX_BATCH_THREADS = 64;
+	private static final long BATCH_THREAD_KEEP_ALIVE_IN_SECONDS = 60;
+	private static final long JOURNAL_INITIAL_RETRY_DELAY_IN_MILLIS = 100;
+	private static final long JOURNAL_MAX_RETRY_DELAY_IN_MILLIS = 30_000;
+	private static final long JOURNAL_MAX_WAIT_FOR_WRITES_IN_MILLIS = 300_000;
 
 	private HttpHandlerFactoryImp httpHandlerFactory;
 	private String fedoraUrl;
+	private ReadCoalescer readCoalescer;
+	private FileUploader fileUploader;
+	private RecordCache recordCache;
+	private RecordCacheVersions recordCacheVersions;
+	private HotKeyTracker hotKeyTracker;
+	private ExecutorService batchExecutor;
 
 	public FedoraFactoryImp(String fedoraUrl) {
 		this.fedoraUrl = fedoraUrl;
 		httpHandlerFactory = new HttpHandlerFactoryImp();
+		readCoalescer = new ReadCoalescerImp();
+		fileUploader = new FileUploaderImp();
+		batchExecutor = createBatchExecutor();
+	}
+
+	private static ExecutorService createBatchExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_BATCH_THREADS, MAX_BATCH_THREADS,
+				BATCH_THREAD_KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				FedoraFactoryImp::createDaemonThread);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static Thread createDaemonThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "fedora-batch");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Creates a FedoraFactoryImp that factors FedoraAdapters reading and writing records through
+	 * the specified recordCache. The recordCache is shared between all factored adapters.
+	 * 
+	 * @param fedoraUrl
+	 *            A String with the base url to fedora
+	 * @param recordCache
+	 *            A RecordCache to use for records
+	 */
+	public FedoraFactoryImp(String fedoraUrl, RecordCache recordCache) {
+		this(fedoraUrl);
+		this.recordCache = recordCache;
+		recordCacheVersions = new RecordCacheVersions();
+	}
+
+	/**
+	 * Creates a FedoraFactoryImp that factors FedoraAdapters recording each access to a record or
+	 * resource in the specified hotKeyTracker, and reading and writing records through the
+	 * specified recordCache. Both are shared between all factored adapters.
+	 * 
+	 * @param fedoraUrl
+	 *            A String with the base url to fedora
+	 * @param recordCache
+	 *            A RecordCache to use for records, or null to not cache records
+	 * @param hotKeyTracker
+	 *            A HotKeyTracker to record accesses in
+	 */
+	public FedoraFactoryImp(String fedoraUrl, RecordCache recordCache,
+			HotKeyTracker hotKeyTracker) {
+		this(fedoraUrl, recordCache);
+		this.hotKeyTracker = hotKeyTracker;
 	}
 
 	@Override
 	public FedoraAdapter factorFedoraAdapter() {
+		FedoraAdapter fedoraAdapter = factorCachingFedoraAdapterIfConfigured();
+		if (hotKeyTrackerIsConfigured()) {
+			return new HotKeyTrackingFedoraAdapter(fedoraAdapter, hotKeyTracker);
+		}
+		return fedoraAdapter;
+	}
+
+	@Override
+	public WriteBehindFedoraAdapter factorWriteBehindFedoraAdapter(int maxParallelWrites) {
+		return new WriteBehindFedoraAdapterImp(factorFedoraAdapter(),
+				Math.max(1, maxParallelWrites));
+	}
+
+	@Override
+	public JournalingFedoraAdapter factorJournalingFedoraAdapter(Path journalFile) {
+		WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile);
+		return new JournalingFedoraAdapterImp(factorFedoraAdapter(), journal,
+				JOURNAL_INITIAL_RETRY_DELAY_IN_MILLIS, JOURNAL_MAX_RETRY_DELAY_IN_MILLIS,
+				JOURNAL_MAX_WAIT_FOR_WRITES_IN_MILLIS);
+	}
+
+	private FedoraAdapter factorCachingFedoraAdapterIfConfigured() {
+		FedoraAdapterImp fedoraAdapter = factorFedoraAdapterImp();
+		if (recordCacheIsConfigured()) {
+			return new CachingFedoraAdapter(fedoraAdapter, recordCache, recordCacheVersions,
+					batchExecutor);
+		}
+		return fedoraAdapter;
+	}
+
+	private FedoraAdapterImp factorFedoraAdapterImp() {
 		OrgJsonParser orgJsonParser = new OrgJsonParser();
 		ResourceMetadataParser parser = ResourceMetadataParserImp.usingJsonParser(orgJsonParser);
-		return new FedoraAdapterImp(httpHandlerFactory, fedoraUrl, parser);
+		return new FedoraAdapterImp(httpHandlerFactory, fedoraUrl, parser, readCoalescer,
+				fileUploader, batchExecutor);
+	}
+
+	@Override
+	public RecordCachePreloader factorRecordCachePreloader(int maxParallelReads) {
+		if (!recordCacheIsConfigured()) {
+			throw FedoraException
+					.withMessage("Unable to preload records as no record cache is configured");
+		}
+		FedoraAdapter cachingAdapter = new CachingFedoraAdapter(factorFedoraAdapterImp(),
+				recordCache, recordCacheVersions, batchExecutor);
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, fedoraUrl);
+		return new RecordCachePreloaderImp(cachingAdapter, containerLister,
+				Math.max(1, maxParallelReads));
+	}
+
+	@Override
+	public DataDividerExporter factorDataDividerExporter(int maxParallelFetches) {
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, fedoraUrl);
+		return new DataDividerExporterImp(factorFedoraAdapterImp(), containerLister,
+				Math.max(1, maxParallelFetches));
+	}
+
+	@Override
+	public DataDividerImporter factorDataDividerImporter(int maxParallelWorkers) {
+		return new DataDividerImporterImp(factorFedoraAdapterImp(), new OrgJsonParser(),
+				Math.max(1, maxParallelWorkers));
+	}
+
+	@Override
+	public DataDividerDeleter factorDataDividerDeleter(int maxParallelDeletes) {
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, fedoraUrl);
+		return new DataDividerDeleterImp(factorCachingFedoraAdapterIfConfigured(),
+				containerLister, httpHandlerFactory, fedoraUrl, batchExecutor,
+				Math.max(1, maxParallelDeletes));
+	}
+
+	@Override
+	public RecordPublisher factorRecordPublisher(int maxParallelReads) {
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, fedoraUrl);
+		return new RecordPublisherImp(factorFedoraAdapterImp(), containerLister,
+				Math.max(1, maxParallelReads));
+	}
+
+	private boolean recordCacheIsConfigured() {
+		return recordCache != null;
+	}
+
+	private boolean hotKeyTrackerIsConfigured() {
+		return hotKeyTracker != null;
 	}
 
 	public String onlyForTestGetBaseUrl() {
 		return fedoraUrl;
 	}
 
+	public ExecutorService onlyForTestGetBatchExecutor() {
+		return batchExecutor;
+	}
+
 }
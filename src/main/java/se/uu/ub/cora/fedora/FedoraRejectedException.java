@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora;
+
+/**
+ * FedoraRejectedException is thrown when Fedora rejects a write with a client error (4xx), other
+ * than not found and conflict, which have their own exceptions. Sending the same write again will
+ * get the same answer, so it should not be retried.
+ */
+public class FedoraRejectedException extends FedoraException {
+
+	private static final long serialVersionUID = 6081379424531874712L;
+
+	private FedoraRejectedException(String message) {
+		super(message);
+	}
+
+	private FedoraRejectedException(String message, Exception e) {
+		super(message, e);
+	}
+
+	public static FedoraRejectedException withMessage(String message) {
+		return new FedoraRejectedException(message);
+	}
+
+	public static FedoraRejectedException withMessageAndException(String message, Exception e) {
+		return new FedoraRejectedException(message, e);
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora;
+
+/**
+ * JournalingFedoraAdapter is a FedoraAdapter where
+ * {@link #createRecord(String, String, String)} and {@link #updateRecord(String, String, String)}
+ * return as soon as the write is stored in a durable journal on local disk. A background replayer
+ * applies journaled writes to Fedora, in the order they were made for each record, retrying them
+ * while Fedora is unavailable or answers with a server error. Writes are therefore not lost while
+ * Fedora is unavailable.
+ * <p>
+ * Reads of a record with journaled writes not yet applied return the recordXml of the latest
+ * journaled write. Other operations on such a record wait until its writes are applied. A wait
+ * for journaled writes is limited, a {@link FedoraException} is thrown if the writes are not
+ * applied in time or if the adapter is closed while waiting.
+ * <p>
+ * As writes are applied in the background, a create of a record that already exists in Fedora, an
+ * update of a record that does not exist, or any other write that Fedora rejects with a client
+ * error is not thrown from createRecord or updateRecord. Such writes are dropped by the replayer
+ * and reported by {@link #flush()}, so that they do not block later writes. A create of a record
+ * with journaled writes not yet applied throws a {@link FedoraConflictException} directly.
+ * <p>
+ * Writes not applied when the adapter is closed, or when the process stops, stay in the journal
+ * and are applied when a JournalingFedoraAdapter is created for the same journal file.
+ * <p>
+ * JournalingFedoraAdapters are created by
+ * {@link FedoraFactory#factorJournalingFedoraAdapter(java.nio.file.Path)}, and should be closed
+ * when they are no longer used.
+ */
+public interface JournalingFedoraAdapter extends FedoraAdapter, AutoCloseable {
+
+	/**
+	 * flush waits until all writes journaled so far are applied to Fedora. While Fedora is
+	 * unavailable this waits until it is available again, but only for a limited time, after
+	 * which a {@link FedoraException} is thrown. A FedoraException is also thrown if the adapter
+	 * is closed while there are writes that are not applied.
+	 * <p>
+	 * If any journaled writes were dropped since the last flush, a {@link FedoraException} listing
+	 * the dropped records is thrown. Dropped writes are reported only once, and a dropped write for
+	 * a record is forgotten if a later write of the same record is applied.
+	 */
+	void flush();
+
+	/**
+	 * close stops accepting writes, stops the background replayer and closes the journal. Writes
+	 * not yet applied remain in the journal. Writes made after close throw a
+	 * {@link FedoraException}. Closing an already closed adapter has no effect.
+	 */
+	@Override
+	void close();
+}
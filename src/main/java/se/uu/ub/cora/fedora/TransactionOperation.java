@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora;
+
+/**
+ * TransactionOperation is one operation to run inside a Fedora transaction, see
+ * {@link FedoraAdapter#runInTransaction(java.util.List, int)}.
+ */
+@FunctionalInterface
+public interface TransactionOperation {
+
+	/**
+	 * runUsing runs the operation using the specified FedoraAdapter. All calls made to the
+	 * adapter are made inside the transaction. The adapter MUST not be used after the operation
+	 * has returned.
+	 * 
+	 * @param fedoraAdapter
+	 *            A FedoraAdapter making its calls inside the transaction
+	 */
+	void runUsing(FedoraAdapter fedoraAdapter);
+}
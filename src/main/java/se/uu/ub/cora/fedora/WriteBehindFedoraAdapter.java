@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora;
+
+/**
+ * WriteBehindFedoraAdapter is a FedoraAdapter where {@link #updateRecord(String, String, String)}
+ * returns as soon as the update is queued, and the update is written to Fedora by background
+ * workers.
+ * <p>
+ * Repeated updates of the same record are collapsed while they are queued, so only the latest
+ * one is written. Reads of a record with a queued update return the queued recordXml. Other
+ * operations on a record with a queued update wait until the update is written.
+ * <p>
+ * As updates are written in the background, errors writing them are not thrown from updateRecord,
+ * they are instead thrown from {@link #flush()} and {@link #close()}.
+ * <p>
+ * WriteBehindFedoraAdapters are created by
+ * {@link FedoraFactory#factorWriteBehindFedoraAdapter(int)}, and should be closed when they are
+ * no longer used.
+ */
+public interface WriteBehindFedoraAdapter extends FedoraAdapter, AutoCloseable {
+
+	/**
+	 * flush waits until all updates queued so far are written to Fedora.
+	 * <p>
+	 * If any queued updates failed since the last flush, a {@link FedoraException} listing the
+	 * failed records is thrown. Failures are reported only once, and a failure for a record is
+	 * forgotten if a later update of the same record is written.
+	 */
+	void flush();
+
+	/**
+	 * close stops accepting updates, flushes all queued updates as {@link #flush()} does and stops
+	 * the background workers. Updates made after close throw a {@link FedoraException}.
+	 */
+	@Override
+	void close();
+}
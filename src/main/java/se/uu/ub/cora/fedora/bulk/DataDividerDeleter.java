@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+/**
+ * DataDividerDeleter deletes and purges everything stored in Fedora for a dataDivider, for example
+ * when decommissioning it.
+ * <p>
+ * DataDividerDeleters are created by
+ * {@link se.uu.ub.cora.fedora.FedoraFactory#factorDataDividerDeleter(int)}.
+ */
+public interface DataDividerDeleter {
+
+	/**
+	 * deleteAll lists everything stored in Fedora for the specified dataDivider and deletes and
+	 * purges it, deleting several records and resources in parallel. Records and resources that
+	 * are already gone when they are deleted are counted as deleted.
+	 * <p>
+	 * If deleteContainer is true, and all records and resources were deleted, a container for the
+	 * dataDivider is deleted and purged at the end, if there is one.
+	 * <p>
+	 * Records and resources that can not be deleted are reported in the returned DeleteReport,
+	 * they do not stop the deletion. If the dataDivider can not be listed, or the container can not
+	 * be deleted, a {@link se.uu.ub.cora.fedora.FedoraException} is thrown.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to delete everything in
+	 * @param deleteContainer
+	 *            A boolean, true if the container for the dataDivider should be deleted as well
+	 * @param progressListener
+	 *            A ProgressListener to notify as records and resources are deleted
+	 * @return A DeleteReport with the outcome and timing of the deletion
+	 */
+	DeleteReport deleteAll(String dataDivider, boolean deleteContainer,
+			ProgressListener progressListener);
+}
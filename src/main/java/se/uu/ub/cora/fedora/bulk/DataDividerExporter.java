@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.io.OutputStream;
+
+/**
+ * DataDividerExporter writes everything stored in Fedora for a dataDivider to an OutputStream, for
+ * backups and reindexing.
+ * <p>
+ * DataDividerExporters are created by
+ * {@link se.uu.ub.cora.fedora.FedoraFactory#factorDataDividerExporter(int)}.
+ */
+public interface DataDividerExporter {
+
+	/**
+	 * export lists everything stored in Fedora for the specified dataDivider and writes it to the
+	 * outputStream in the specified format, as the export proceeds.
+	 * <p>
+	 * Several records and resources are read from Fedora in parallel, but they are written to the
+	 * outputStream one at a time, in the order they are listed in Fedora. Only a limited number of
+	 * them are read ahead of what has been written, so the memory used does not depend on the
+	 * number of records and resources in the dataDivider.
+	 * <p>
+	 * In the archive formats each record and resource is written as an entry named as its id with
+	 * its content, preceded by an entry named as its id followed by ".metadata.json" with its
+	 * {@link se.uu.ub.cora.fedora.record.ResourceMetadata}, that is its fileSize, checksumSHA512
+	 * and mimeType. Records are stored as binaries in Fedora and are therefore exported in the
+	 * same way as resources.
+	 * <p>
+	 * In the NDJSON format only the records of the dataDivider are listed and exported, its
+	 * resources are not read and not counted in the ExportReport.
+	 * <p>
+	 * Records and resources that can not be read, or whose content does not have the size in their
+	 * metadata, are reported in the returned ExportReport and left out, they do not stop the
+	 * export. If the dataDivider can not be listed, or the export can not be written
+	 * to the outputStream a {@link se.uu.ub.cora.fedora.FedoraException} is thrown. The
+	 * outputStream is not closed.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to export
+	 * @param format
+	 *            The ExportFormat to write the export in
+	 * @param outputStream
+	 *            The OutputStream to write the export to
+	 * @return An ExportReport with the outcome and timing of the export
+	 */
+	ExportReport export(String dataDivider, ExportFormat format, OutputStream outputStream);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.nio.file.Path;
+
+/**
+ * DataDividerImporter creates records or resources in Fedora for a dataDivider from items read
+ * from a directory or an archive, for initial loads of large numbers of items.
+ * <p>
+ * DataDividerImporters are created by
+ * {@link se.uu.ub.cora.fedora.FedoraFactory#factorDataDividerImporter(int)}.
+ */
+public interface DataDividerImporter {
+
+	/**
+	 * importItems reads items from the source and creates them in Fedora for the specified
+	 * dataDivider, creating several items in parallel.
+	 * <p>
+	 * The source can be a directory where each file is an item named as its id, or a tar or zip
+	 * archive where each entry is an item named as its id, as written by a
+	 * {@link DataDividerExporter}. Files and entries named with the suffix ".metadata.json" are
+	 * not items, the mime type in them is used when the item with the same id is created as a
+	 * resource. The source can also be an ndjson file, as written by a
+	 * {@link DataDividerExporter}, when importing records. The type of the source is decided by its
+	 * file name suffix, ".tar", ".zip" or ".ndjson". Items read from a directory are streamed to
+	 * Fedora, while items read from an archive are spooled to temporary files while they are
+	 * created.
+	 * <p>
+	 * The id of each item that has been created, or that already existed, in Fedora is appended to
+	 * the checkpoint file. Items whose ids are already in the checkpoint file are skipped without
+	 * calling Fedora, so that an import that has been stopped can be restarted with the same
+	 * checkpoint file and continue where it stopped.
+	 * <p>
+	 * The checkpoint file starts with a header with the dataDivider and type of the import it is
+	 * written for. If an existing checkpoint file was written for another dataDivider or type a
+	 * {@link se.uu.ub.cora.fedora.FedoraException} is thrown before anything is imported, instead
+	 * of skipping the ids in it.
+	 * <p>
+	 * Items that can not be created are reported in the returned ImportReport, they do not stop
+	 * the import. If the source or the checkpoint file can not be read or written a
+	 * {@link se.uu.ub.cora.fedora.FedoraException} is thrown.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to create the items in
+	 * @param type
+	 *            The ImportType of the items in the source
+	 * @param source
+	 *            A Path to the directory or file to read items from
+	 * @param checkpointFile
+	 *            A Path to the checkpoint file, it is created if it does not exist
+	 * @return An ImportReport with the outcome and timing of the import
+	 */
+	ImportReport importItems(String dataDivider, ImportType type, Path source,
+			Path checkpointFile);
+}
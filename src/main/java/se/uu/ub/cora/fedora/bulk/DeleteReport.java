@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * DeleteReport contains the outcome of deleting everything in a dataDivider.
+ * <p>
+ * numberOfIds is the number of records and resources found for the dataDivider, and
+ * numberOfDeletedIds the number of them that were deleted and purged. failedIds contains the ids
+ * that could not be deleted. containerDeleted is true if a container for the dataDivider was
+ * deleted.
+ */
+public record DeleteReport(String dataDivider, int numberOfIds, int numberOfDeletedIds,
+		List<String> failedIds, boolean containerDeleted, Duration duration) {
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+/**
+ * ExportFormat is the format a {@link DataDividerExporter} writes an export in.
+ */
+public enum ExportFormat {
+	/**
+	 * A tar archive with one entry for the content and one entry for the metadata of each record
+	 * and resource.
+	 */
+	TAR,
+	/**
+	 * A zip archive with one entry for the content and one entry for the metadata of each record
+	 * and resource.
+	 */
+	ZIP,
+	/**
+	 * Newline delimited JSON with one line for each record, with the id and xml of the record.
+	 * Only the records of the dataDivider are exported, its resources are left out.
+	 */
+	NDJSON
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * ExportReport contains the outcome of exporting a dataDivider.
+ * <p>
+ * numberOfIds is the number of records and resources found for the dataDivider, and
+ * numberOfExportedIds the number of them that were written to the export. failedIds contains the
+ * ids that could not be read from Fedora, they are left out of the export.
+ */
+public record ExportReport(String dataDivider, ExportFormat format, int numberOfIds,
+		int numberOfExportedIds, List<String> failedIds, Duration duration) {
+
+}
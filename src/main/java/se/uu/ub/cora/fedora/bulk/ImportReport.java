@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * ImportReport contains the outcome of importing items into a dataDivider.
+ * <p>
+ * numberOfItems is the number of items found in the source, numberOfImportedItems the number of
+ * them that were created in Fedora and numberOfSkippedItems the number of them that were already
+ * recorded as completed in the checkpoint file. alreadyExistingIds contains the ids that were not
+ * created as they already existed in Fedora, and failedIds the ids that could not be imported.
+ */
+public record ImportReport(String dataDivider, int numberOfItems, int numberOfImportedItems,
+		int numberOfSkippedItems, List<String> alreadyExistingIds, List<String> failedIds,
+		Duration duration) {
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+/**
+ * ImportType is the type of items a {@link DataDividerImporter} imports.
+ */
+public enum ImportType {
+	/**
+	 * Each item is a record, created with its content as record xml.
+	 */
+	RECORDS,
+	/**
+	 * Each item is a resource, created with its content as binary with the mime type from its
+	 * exported metadata, or a mime type guessed from its id if it has no such metadata.
+	 */
+	RESOURCES
+}
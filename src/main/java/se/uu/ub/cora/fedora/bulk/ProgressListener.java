@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+/**
+ * ProgressListener is notified as the items of a bulk operation are handled.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+	/**
+	 * progress is called each time an item has been handled, successfully or not. It can be called
+	 * from several threads, but the calls are never concurrent.
+	 * 
+	 * @param numberOfHandledItems
+	 *            The number of items handled so far
+	 * @param numberOfItems
+	 *            The total number of items to handle. Operations that handle items while they are
+	 *            still listing them pass the number of items listed so far, which is the total
+	 *            number of items in the last call
+	 */
+	void progress(int numberOfHandledItems, int numberOfItems);
+}
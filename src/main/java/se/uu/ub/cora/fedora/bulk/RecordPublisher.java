@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * RecordPublisher publishes records and resource metadata read from Fedora as
+ * {@link Flow.Publisher}s, so that they can be consumed by pipelines built on
+ * {@link java.util.concurrent.Flow}.
+ * <p>
+ * The publishers only read from Fedora what their subscribers have requested. At most as many
+ * reads as the subscriber has outstanding demand for, and never more than the maximum number of
+ * reads the RecordPublisher was created with, are in progress at the same time, so the rate of
+ * reading from Fedora follows the rate the subscriber consumes at.
+ * <p>
+ * Each subscription reads from Fedora on its own, so every subscriber gets all items. Items are
+ * emitted in the order their reads finish, which is not necessarily the order of the ids. Ids that
+ * are not found in Fedora are skipped. Any other error ends the subscription with onError, with a
+ * {@link se.uu.ub.cora.fedora.FedoraException}.
+ * <p>
+ * RecordPublishers are created by
+ * {@link se.uu.ub.cora.fedora.FedoraFactory#factorRecordPublisher(int)}.
+ */
+public interface RecordPublisher {
+
+	/**
+	 * publishRecords returns a Publisher of all records stored in Fedora for the specified
+	 * dataDivider, leaving out its resources. The dataDivider is listed as the subscriber's demand
+	 * is served.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to publish records for
+	 * @return A Publisher of the records in the dataDivider
+	 */
+	Flow.Publisher<PublishedRecord> publishRecords(String dataDivider);
+
+	/**
+	 * publishRecords returns a Publisher of the records with the specified recordIds in the
+	 * specified dataDivider.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider the records belong to
+	 * @param recordIds
+	 *            A List with the ids of the records to publish
+	 * @return A Publisher of the records
+	 */
+	Flow.Publisher<PublishedRecord> publishRecords(String dataDivider, List<String> recordIds);
+
+	/**
+	 * publishResourcesMetadata returns a Publisher of the metadata of all resources stored in
+	 * Fedora for the specified dataDivider, leaving out its records. The dataDivider is listed as
+	 * the subscriber's demand is served.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to publish resource metadata for
+	 * @return A Publisher of the metadata of the resources in the dataDivider
+	 */
+	Flow.Publisher<PublishedResourceMetadata> publishResourcesMetadata(String dataDivider);
+
+	/**
+	 * publishResourcesMetadata returns a Publisher of the metadata of the resources with the
+	 * specified resourceIds in the specified dataDivider.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider the resources belong to
+	 * @param resourceIds
+	 *            A List with the ids of the resources to publish metadata for
+	 * @return A Publisher of the metadata of the resources
+	 */
+	Flow.Publisher<PublishedResourceMetadata> publishResourcesMetadata(String dataDivider,
+			List<String> resourceIds);
+}
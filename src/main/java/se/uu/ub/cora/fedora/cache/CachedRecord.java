@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+/**
+ * CachedRecord contains a record read from a {@link RecordCache}.
+ * <p>
+ * The etag is the ETag of the cached version of the record in Fedora, or null if it is not known.
+ * If needsRevalidation is true, the cached record might be out of date and should be checked
+ * against Fedora before it is used.
+ */
+public record CachedRecord(String recordXml, String etag, boolean needsRevalidation) {
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * CountMinSketchHotKeyTracker is a {@link HotKeyTracker} that estimates access counts using a
+ * count-min sketch, a fixed size table of counters, and keeps the keys with the highest estimates
+ * in a bounded min-heap. Memory use is fixed by the sketch size and the number of hot keys, no
+ * matter how many different keys are accessed.
+ * <p>
+ * Estimates can be higher than the real number of accesses, but never lower. To let the hot keys
+ * follow changes in traffic all counts are halved each time the number of accesses since the last
+ * halving reaches ten times the sketch width.
+ * <p>
+ * Accesses do not share a lock. The counters are updated atomically, and the estimates of hot keys
+ * are kept in a concurrent map. Only an access whose estimate can make its key hot takes the lock
+ * guarding the min-heap. The heap is ordered by the estimates the keys had when they were last
+ * placed in it, and the least hot key is brought up to date from the map before it is compared
+ * with a new key, so keeping the heap ordered costs O(log numberOfHotKeys) per replaced key.
+ * Accesses made while counts are halved may be halved or not, which only makes the estimates
+ * slightly less exact.
+ */
+public class CountMinSketchHotKeyTracker implements HotKeyTracker {
+	private static final int DEFAULT_WIDTH = 4096;
+	private static final int DEFAULT_DEPTH = 4;
+	private static final int AGING_FACTOR = 10;
+
+	private int width;
+	private int depth;
+	private int numberOfHotKeys;
+	private AtomicLongArray counters;
+	private long agingInterval;
+	private AtomicLong accessesSinceAging = new AtomicLong();
+	private Map<String, Long> hotKeys = new ConcurrentHashMap<>();
+	private PriorityQueue<HotKey> leastHotFirst = new PriorityQueue<>(
+			Comparator.comparingLong(HotKey::estimatedAccessCount));
+	private volatile long leastHotEstimate = 0;
+
+	/**
+	 * usingNumberOfHotKeys creates a CountMinSketchHotKeyTracker with a sketch of four rows of 4096
+	 * counters, about 128 KB, keeping track of the specified number of hot keys.
+	 * 
+	 * @param numberOfHotKeys
+	 *            The number of hot keys to keep track of
+	 * @return A new CountMinSketchHotKeyTracker
+	 */
+	public static CountMinSketchHotKeyTracker usingNumberOfHotKeys(int numberOfHotKeys) {
+		return new CountMinSketchHotKeyTracker(DEFAULT_WIDTH, DEFAULT_DEPTH, numberOfHotKeys);
+	}
+
+	/**
+	 * usingWidthDepthAndNumberOfHotKeys creates a CountMinSketchHotKeyTracker with a sketch of the
+	 * specified size. A wider sketch gives more accurate estimates, a deeper sketch makes large
+	 * overestimates less likely.
+	 * 
+	 * @param width
+	 *            The number of counters in each row of the sketch
+	 * @param depth
+	 *            The number of rows in the sketch
+	 * @param numberOfHotKeys
+	 *            The number of hot keys to keep track of
+	 * @return A new CountMinSketchHotKeyTracker
+	 */
+	public static CountMinSketchHotKeyTracker usingWidthDepthAndNumberOfHotKeys(int width,
+			int depth, int numberOfHotKeys) {
+		return new CountMinSketchHotKeyTracker(width, depth, numberOfHotKeys);
+	}
+
+	private CountMinSketchHotKeyTracker(int width, int depth, int numberOfHotKeys) {
+		this.width = Math.max(1, width);
+		this.depth = Math.max(1, depth);
+		this.numberOfHotKeys = Math.max(1, numberOfHotKeys);
+		counters = new AtomicLongArray(this.depth * this.width);
+		agingInterval = (long) this.width * AGING_FACTOR;
+	}
+
+	@Override
+	public void recordAccess(String key) {
+		long estimate = incrementCountersAndEstimate(key);
+		updateHotKeys(key, estimate);
+		ageCountsIfIntervalIsReached();
+	}
+
+	private long incrementCountersAndEstimate(String key) {
+		int hash = key.hashCode();
+		int secondHash = mix(hash);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			int column = Math.floorMod(hash + row * secondHash, width);
+			estimate = Math.min(estimate, counters.incrementAndGet(row * width + column));
+		}
+		return estimate;
+	}
+
+	private int mix(int hash) {
+		int mixed = hash * 0x9E3779B9;
+		return (mixed ^ (mixed >>> 16)) | 1;
+	}
+
+	private void updateHotKeys(String key, long estimate) {
+		if (updateEstimateIfHot(key, estimate) == null && canBecomeHot(estimate)) {
+			synchronized (leastHotFirst) {
+				addOrReplaceLeastHotKey(key, estimate);
+			}
+		}
+	}
+
+	private Long updateEstimateIfHot(String key, long estimate) {
+		return hotKeys.computeIfPresent(key, (hotKey, current) -> Math.max(current, estimate));
+	}
+
+	private boolean canBecomeHot(long estimate) {
+		return hotKeys.size() < numberOfHotKeys || estimate > leastHotEstimate;
+	}
+
+	private void addOrReplaceLeastHotKey(String key, long estimate) {
+		if (updateEstimateIfHot(key, estimate) != null) {
+			return;
+		}
+		if (hotKeys.size() < numberOfHotKeys) {
+			addHotKey(new HotKey(key, estimate));
+		} else {
+			replaceLeastHotKeyIfLessHot(new HotKey(key, estimate));
+		}
+		leastHotEstimate = leastHotFirst.peek().estimatedAccessCount();
+	}
+
+	private void replaceLeastHotKeyIfLessHot(HotKey hotKey) {
+		bringLeastHotKeyUpToDate();
+		if (hotKey.estimatedAccessCount() > leastHotFirst.peek().estimatedAccessCount()) {
+			HotKey replaced = leastHotFirst.poll();
+			hotKeys.remove(replaced.key());
+			addHotKey(hotKey);
+		}
+	}
+
+	private void bringLeastHotKeyUpToDate() {
+		for (int i = 0; i < numberOfHotKeys; i++) {
+			HotKey leastHot = leastHotFirst.peek();
+			long currentEstimate = hotKeys.get(leastHot.key());
+			if (currentEstimate <= leastHot.estimatedAccessCount()) {
+				return;
+			}
+			leastHotFirst.poll();
+			leastHotFirst.add(new HotKey(leastHot.key(), currentEstimate));
+		}
+	}
+
+	private void addHotKey(HotKey hotKey) {
+		leastHotFirst.add(hotKey);
+		hotKeys.put(hotKey.key(), hotKey.estimatedAccessCount());
+	}
+
+	private void ageCountsIfIntervalIsReached() {
+		if (accessesSinceAging.incrementAndGet() % agingInterval == 0) {
+			synchronized (leastHotFirst) {
+				halveAllCounts();
+			}
+		}
+	}
+
+	private void halveAllCounts() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.getAndUpdate(i, count -> count / 2);
+		}
+		hotKeys.replaceAll((key, estimate) -> estimate / 2);
+		leastHotFirst.clear();
+		hotKeys.forEach((key, estimate) -> leastHotFirst.add(new HotKey(key, estimate)));
+		leastHotEstimate = leastHotFirst.isEmpty() ? 0
+				: leastHotFirst.peek().estimatedAccessCount();
+	}
+
+	@Override
+	public List<HotKey> getHotKeys() {
+		return hotKeys.entrySet().stream()
+				.map(hotKey -> new HotKey(hotKey.getKey(), hotKey.getValue()))
+				.sorted(Comparator.comparingLong(HotKey::estimatedAccessCount).reversed()
+						.thenComparing(HotKey::key))
+				.toList();
+	}
+
+	@Override
+	public boolean isHot(String key) {
+		return hotKeys.containsKey(key);
+	}
+
+	public int onlyForTestGetWidth() {
+		return width;
+	}
+
+	public int onlyForTestGetDepth() {
+		return depth;
+	}
+
+	public int onlyForTestGetNumberOfHotKeys() {
+		return numberOfHotKeys;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.util.List;
+
+/**
+ * HotKeyTracker keeps track of which records and resources are accessed most often, using keys
+ * on the form dataDivider:id.
+ * <p>
+ * The information can be used for reporting, and by {@link RecordCache} implementations to keep
+ * hot records cached when others are evicted.
+ * <p>
+ * Implementations MUST be threadsafe as one instance is shared between all adapters created by the
+ * same factory, and MUST use a bounded amount of memory no matter how many keys are accessed.
+ */
+public interface HotKeyTracker {
+
+	/**
+	 * recordAccess counts one access to the specified key.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:id
+	 */
+	void recordAccess(String key);
+
+	/**
+	 * getHotKeys returns the currently most accessed keys, the most accessed first.
+	 * 
+	 * @return A List with the hot keys
+	 */
+	List<HotKey> getHotKeys();
+
+	/**
+	 * isHot returns true if the specified key is one of the currently most accessed keys.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:id
+	 * @return true if the key is hot, else false
+	 */
+	boolean isHot(String key);
+}
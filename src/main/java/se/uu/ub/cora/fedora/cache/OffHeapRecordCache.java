@@ -0,0 +1,246 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * OffHeapRecordCache is a {@link RecordCache} that stores recordXml as UTF-8 bytes in direct
+ * (off-heap) memory, keeping only a small index with keys and ETags on the Java heap. Stored
+ * records are decoded to String first when they are read.
+ * <p>
+ * The memory is divided into a fixed number of equally sized segments that are filled one after
+ * the other. When the byte budget is used up the oldest segment is emptied and reused, evicting all
+ * records stored in it. Records larger than one segment are not cached.
+ * <p>
+ * If the cache is created with a {@link HotKeyTracker}, records with hot keys are kept when their
+ * segment is emptied, by storing them again in the reused segment.
+ */
+public class OffHeapRecordCache implements RecordCache {
+	private static final int NUMBER_OF_SEGMENTS = 16;
+	private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private int segmentSize;
+	private int maxNumberOfSegments;
+	private Map<String, Location> index = new HashMap<>();
+	private Deque<Segment> segments = new ArrayDeque<>();
+	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	private HotKeyTracker hotKeyTracker;
+
+	public static OffHeapRecordCache usingMaxSizeInBytes(long maxSizeInBytes) {
+		return new OffHeapRecordCache(maxSizeInBytes, null);
+	}
+
+	/**
+	 * usingMaxSizeInBytesAndHotKeyTracker creates an OffHeapRecordCache that keeps records with
+	 * keys that are hot according to the specified hotKeyTracker when other records are evicted.
+	 * 
+	 * @param maxSizeInBytes
+	 *            The maximum number of bytes to use for stored records
+	 * @param hotKeyTracker
+	 *            A HotKeyTracker deciding which records to keep
+	 * @return A new OffHeapRecordCache
+	 */
+	public static OffHeapRecordCache usingMaxSizeInBytesAndHotKeyTracker(long maxSizeInBytes,
+			HotKeyTracker hotKeyTracker) {
+		return new OffHeapRecordCache(maxSizeInBytes, hotKeyTracker);
+	}
+
+	private OffHeapRecordCache(long maxSizeInBytes, HotKeyTracker hotKeyTracker) {
+		segmentSize = calculateSegmentSize(maxSizeInBytes);
+		maxNumberOfSegments = (int) Math.max(1, maxSizeInBytes / segmentSize);
+		this.hotKeyTracker = hotKeyTracker;
+	}
+
+	private int calculateSegmentSize(long maxSizeInBytes) {
+		long sizeForEqualSegments = maxSizeInBytes / NUMBER_OF_SEGMENTS;
+		return (int) Math.max(1, Math.min(sizeForEqualSegments, MAX_SEGMENT_SIZE));
+	}
+
+	@Override
+	public Optional<CachedRecord> read(String key) {
+		lock.readLock().lock();
+		try {
+			return Optional.ofNullable(index.get(key)).map(this::decode);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private CachedRecord decode(Location location) {
+		byte[] bytes = readBytes(location);
+		return new CachedRecord(new String(bytes, StandardCharsets.UTF_8), location.etag, false);
+	}
+
+	private byte[] readBytes(Location location) {
+		byte[] bytes = new byte[location.length];
+		location.segment.buffer.get(location.offset, bytes);
+		return bytes;
+	}
+
+	@Override
+	public void write(String key, String recordXml, String etag) {
+		byte[] bytes = recordXml.getBytes(StandardCharsets.UTF_8);
+		lock.writeLock().lock();
+		try {
+			index.remove(key);
+			if (bytes.length <= segmentSize) {
+				index.put(key, store(key, bytes, etag));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Location store(String key, byte[] bytes, String etag) {
+		Segment segment = getSegmentWithRoomFor(bytes.length);
+		return storeInSegment(segment, key, bytes, etag);
+	}
+
+	private Location storeInSegment(Segment segment, String key, byte[] bytes, String etag) {
+		int offset = segment.writePosition;
+		segment.buffer.put(offset, bytes);
+		segment.writePosition += bytes.length;
+		segment.keys.add(key);
+		return new Location(segment, offset, bytes.length, etag);
+	}
+
+	private Segment getSegmentWithRoomFor(int length) {
+		Segment current = segments.peekLast();
+		if (current != null && current.hasRoomFor(length)) {
+			return current;
+		}
+		Segment next = segments.size() < maxNumberOfSegments ? allocateSegment()
+				: evictOldestSegment(length);
+		segments.addLast(next);
+		return next;
+	}
+
+	private Segment allocateSegment() {
+		return new Segment(ByteBuffer.allocateDirect(segmentSize));
+	}
+
+	private Segment evictOldestSegment(int lengthToMakeRoomFor) {
+		Segment oldest = segments.removeFirst();
+		List<PinnedRecord> pinnedRecords = readHotRecords(oldest,
+				segmentSize - lengthToMakeRoomFor);
+		for (String key : oldest.keys) {
+			removeFromIndexIfStoredIn(key, oldest);
+		}
+		oldest.clear();
+		for (PinnedRecord pinned : pinnedRecords) {
+			index.put(pinned.key, storeInSegment(oldest, pinned.key, pinned.bytes, pinned.etag));
+		}
+		return oldest;
+	}
+
+	private List<PinnedRecord> readHotRecords(Segment segment, int maxNumberOfBytes) {
+		List<PinnedRecord> pinnedRecords = new ArrayList<>();
+		if (hotKeyTrackerIsConfigured()) {
+			int numberOfBytes = 0;
+			for (String key : new LinkedHashSet<>(segment.keys)) {
+				Location location = index.get(key);
+				if (isHotAndStoredIn(key, location, segment)
+						&& numberOfBytes + location.length <= maxNumberOfBytes) {
+					numberOfBytes += location.length;
+					pinnedRecords.add(readPinnedRecord(key, location));
+				}
+			}
+		}
+		return pinnedRecords;
+	}
+
+	private boolean hotKeyTrackerIsConfigured() {
+		return hotKeyTracker != null;
+	}
+
+	private boolean isHotAndStoredIn(String key, Location location, Segment segment) {
+		return location != null && location.segment == segment && hotKeyTracker.isHot(key);
+	}
+
+	private PinnedRecord readPinnedRecord(String key, Location location) {
+		return new PinnedRecord(key, readBytes(location), location.etag);
+	}
+
+	private void removeFromIndexIfStoredIn(String key, Segment segment) {
+		Location location = index.get(key);
+		if (location != null && location.segment == segment) {
+			index.remove(key);
+		}
+	}
+
+	@Override
+	public void markAsRevalidated(String key) {
+		// records in memory are never in need of revalidation
+	}
+
+	@Override
+	public void remove(String key) {
+		lock.writeLock().lock();
+		try {
+			index.remove(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int onlyForTestGetSegmentSize() {
+		return segmentSize;
+	}
+
+	public int onlyForTestGetNumberOfAllocatedSegments() {
+		return segments.size();
+	}
+
+	private static final class Segment {
+		private final ByteBuffer buffer;
+		private final List<String> keys = new ArrayList<>();
+		private int writePosition = 0;
+
+		private Segment(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private boolean hasRoomFor(int length) {
+			return buffer.capacity() - writePosition >= length;
+		}
+
+		private void clear() {
+			keys.clear();
+			writePosition = 0;
+		}
+	}
+
+	private record Location(Segment segment, int offset, int length, String etag) {
+	}
+
+	private record PinnedRecord(String key, byte[] bytes, String etag) {
+	}
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+/**
+ * PersistentRecordCache is a {@link RecordCache} that stores records in an append-only log of
+ * memory-mapped segment files in a directory on local disk, so that the cache survives restarts.
+ * <p>
+ * Only a compact index, with the location and ETag of each record, is kept on the Java heap. The
+ * index is rebuilt by scanning the segment files when the cache is started. All records found on
+ * startup are returned as needing revalidation, until they are marked as revalidated.
+ * <p>
+ * When the byte budget is used up the oldest segment is deleted, evicting all records stored in
+ * it. Segments where most records have been replaced or removed are compacted in the background,
+ * by copying the remaining records to the newest segment and deleting the old segment file.
+ * Records larger than one segment are not cached. Errors in the background compaction are logged
+ * and do not stop later compactions.
+ * <p>
+ * A segment that is deleted is first marked as empty, so that its records are not loaded again
+ * if the file outlives the cache. Its mapping is released when it is garbage collected, and if
+ * the file can not be deleted while it is mapped, as on some platforms, deleting it is retried on
+ * each compaction and when the cache is closed.
+ * <p>
+ * If the cache is created with a {@link HotKeyTracker}, records with hot keys are copied to the
+ * newest segment instead of being evicted when their segment is deleted.
+ * <p>
+ * The cache should be closed when it is no longer used, to stop the background compaction and
+ * flush written records to disk.
+ */
+public class PersistentRecordCache implements RecordCache, AutoCloseable {
+	private static final int NUMBER_OF_SEGMENTS = 16;
+	private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+	private static final long COMPACTION_INTERVAL_IN_SECONDS = 60;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final Logger LOGGER = System.getLogger(PersistentRecordCache.class.getName());
+
+	private static final byte END_OF_SEGMENT = 0;
+	private static final byte STORED = 1;
+	private static final byte REMOVED = 2;
+	private static final int NO_ETAG = -1;
+	private static final int CHECKSUM_OFFSET = 1;
+	private static final int KEY_LENGTH_OFFSET = 5;
+	private static final int ETAG_LENGTH_OFFSET = 9;
+	private static final int VALUE_LENGTH_OFFSET = 13;
+	private static final int ENTRY_HEADER_SIZE = 17;
+
+	private Path directory;
+	private int segmentSize;
+	private int maxNumberOfSegments;
+	private Map<String, Location> index = new HashMap<>();
+	private Deque<Segment> segments = new ArrayDeque<>();
+	private List<Segment> retiredSegments = new ArrayList<>();
+	private long nextSegmentNumber = 0;
+	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	private ScheduledExecutorService compactionExecutor;
+	private HotKeyTracker hotKeyTracker;
+
+	/**
+	 * usingDirectoryAndMaxSizeInBytes starts a PersistentRecordCache using segment files in the
+	 * specified directory, loading any records stored there by an earlier run and starting the
+	 * background compaction.
+	 * 
+	 * @param directory
+	 *            A Path to the directory to keep segment files in, it is created if it does not
+	 *            exist
+	 * @param maxSizeInBytes
+	 *            The maximum number of bytes to use on disk
+	 * @return A started PersistentRecordCache
+	 */
+	public static PersistentRecordCache usingDirectoryAndMaxSizeInBytes(Path directory,
+			long maxSizeInBytes) {
+		return startCache(new PersistentRecordCache(directory, maxSizeInBytes, null));
+	}
+
+	/**
+	 * usingDirectoryMaxSizeInBytesAndHotKeyTracker starts a PersistentRecordCache in the same way
+	 * as {@link #usingDirectoryAndMaxSizeInBytes(Path, long)}, that keeps records with keys that
+	 * are hot according to the specified hotKeyTracker when other records are evicted.
+	 * 
+	 * @param directory
+	 *            A Path to the directory to keep segment files in, it is created if it does not
+	 *            exist
+	 * @param maxSizeInBytes
+	 *            The maximum number of bytes to use on disk
+	 * @param hotKeyTracker
+	 *            A HotKeyTracker deciding which records to keep
+	 * @return A started PersistentRecordCache
+	 */
+	public static PersistentRecordCache usingDirectoryMaxSizeInBytesAndHotKeyTracker(
+			Path directory, long maxSizeInBytes, HotKeyTracker hotKeyTracker) {
+		return startCache(new PersistentRecordCache(directory, maxSizeInBytes, hotKeyTracker));
+	}
+
+	private static PersistentRecordCache startCache(PersistentRecordCache cache) {
+		cache.loadSegmentsFromDisk();
+		cache.startBackgroundCompaction();
+		return cache;
+	}
+
+	private PersistentRecordCache(Path directory, long maxSizeInBytes,
+			HotKeyTracker hotKeyTracker) {
+		this.directory = directory;
+		segmentSize = calculateSegmentSize(maxSizeInBytes);
+		maxNumberOfSegments = (int) Math.max(1, maxSizeInBytes / segmentSize);
+		this.hotKeyTracker = hotKeyTracker;
+	}
+
+	private int calculateSegmentSize(long maxSizeInBytes) {
+		long sizeForEqualSegments = maxSizeInBytes / NUMBER_OF_SEGMENTS;
+		return (int) Math.max(ENTRY_HEADER_SIZE, Math.min(sizeForEqualSegments, MAX_SEGMENT_SIZE));
+	}
+
+	private void loadSegmentsFromDisk() {
+		try {
+			Files.createDirectories(directory);
+			for (Path segmentFile : listSegmentFilesInOrder()) {
+				loadSegment(segmentFile);
+			}
+		} catch (IOException e) {
+			throw FedoraException.withMessageAndException(
+					"Error loading record cache from directory: " + directory, e);
+		}
+		evictSegmentsAboveMaxNumberOfSegments();
+	}
+
+	private List<Path> listSegmentFilesInOrder() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(this::isSegmentFile)
+					.sorted((a, b) -> Long.compare(getSegmentNumber(a), getSegmentNumber(b)))
+					.toList();
+		}
+	}
+
+	private boolean isSegmentFile(Path path) {
+		String fileName = path.getFileName().toString();
+		return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+	}
+
+	private long getSegmentNumber(Path segmentFile) {
+		String fileName = segmentFile.getFileName().toString();
+		return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+				fileName.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private void loadSegment(Path segmentFile) throws IOException {
+		long segmentNumber = getSegmentNumber(segmentFile);
+		Segment segment = mapSegment(segmentFile, Math.max(segmentSize, Files.size(segmentFile)));
+		segments.addLast(segment);
+		nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber + 1);
+		scanSegment(segment);
+	}
+
+	private Segment mapSegment(Path segmentFile, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return new Segment(segmentFile, channel.map(MapMode.READ_WRITE, 0, size));
+		}
+	}
+
+	private void scanSegment(Segment segment) {
+		int position = 0;
+		while (containsEntryAt(segment, position)) {
+			Entry entry = readEntry(segment, position);
+			if (entry.type() == STORED) {
+				addToIndex(entry.key(), createLocation(segment, position, entry, true));
+			}
+			position += entry.size();
+		}
+		segment.writePosition = position;
+		markAsEndOfSegment(segment, position);
+	}
+
+	private boolean containsEntryAt(Segment segment, int position) {
+		if (position + ENTRY_HEADER_SIZE > segment.buffer.capacity()) {
+			return false;
+		}
+		byte type = segment.buffer.get(position);
+		return (type == STORED || type == REMOVED) && entryIsComplete(segment, position);
+	}
+
+	private boolean entryIsComplete(Segment segment, int position) {
+		MappedByteBuffer buffer = segment.buffer;
+		int keyLength = buffer.getInt(position + KEY_LENGTH_OFFSET);
+		int etagLength = buffer.getInt(position + ETAG_LENGTH_OFFSET);
+		int valueLength = buffer.getInt(position + VALUE_LENGTH_OFFSET);
+		if (keyLength < 0 || etagLength < NO_ETAG || valueLength < 0) {
+			return false;
+		}
+		long size = (long) ENTRY_HEADER_SIZE + keyLength + Math.max(0, etagLength) + valueLength;
+		if (position + size > buffer.capacity()) {
+			return false;
+		}
+		int checksum = buffer.getInt(position + CHECKSUM_OFFSET);
+		return checksum == calculateChecksum(buffer, position + ENTRY_HEADER_SIZE,
+				(int) size - ENTRY_HEADER_SIZE);
+	}
+
+	private int calculateChecksum(MappedByteBuffer buffer, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.slice(offset, length));
+		return (int) crc.getValue();
+	}
+
+	private Entry readEntry(Segment segment, int position) {
+		MappedByteBuffer buffer = segment.buffer;
+		byte type = buffer.get(position);
+		int keyLength = buffer.getInt(position + KEY_LENGTH_OFFSET);
+		int etagLength = buffer.getInt(position + ETAG_LENGTH_OFFSET);
+		int valueLength = buffer.getInt(position + VALUE_LENGTH_OFFSET);
+		int keyOffset = position + ENTRY_HEADER_SIZE;
+		String key = readString(buffer, keyOffset, keyLength);
+		String etag = etagLength == NO_ETAG ? null
+				: readString(buffer, keyOffset + keyLength, etagLength);
+		return new Entry(type, key, etag, keyLength, Math.max(0, etagLength), valueLength);
+	}
+
+	private String readString(MappedByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private Location createLocation(Segment segment, int position, Entry entry,
+			boolean needsRevalidation) {
+		int valueOffset = position + ENTRY_HEADER_SIZE + entry.keyLength() + entry.etagLength();
+		return new Location(segment, position, entry.size(), valueOffset, entry.valueLength(),
+				entry.etag(), needsRevalidation);
+	}
+
+	private void addToIndex(String key, Location location) {
+		Location replacedLocation = index.put(key, location);
+		if (replacedLocation != null) {
+			markAsRemoved(replacedLocation);
+		}
+		location.segment.keys.add(key);
+		location.segment.liveBytes += location.entrySize;
+	}
+
+	private void markAsRemoved(Location location) {
+		location.segment.buffer.put(location.entryOffset, REMOVED);
+		location.segment.liveBytes -= location.entrySize;
+	}
+
+	private void markAsEndOfSegment(Segment segment, int position) {
+		if (position < segment.buffer.capacity()) {
+			segment.buffer.put(position, END_OF_SEGMENT);
+		}
+	}
+
+	private void evictSegmentsAboveMaxNumberOfSegments() {
+		while (segments.size() > maxNumberOfSegments) {
+			evictSegment(segments.removeFirst());
+		}
+	}
+
+	private void startBackgroundCompaction() {
+		compactionExecutor = Executors.newSingleThreadScheduledExecutor(this::createDaemonThread);
+		compactionExecutor.scheduleWithFixedDelay(this::compactLoggingErrors,
+				COMPACTION_INTERVAL_IN_SECONDS, COMPACTION_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+	}
+
+	private void compactLoggingErrors() {
+		try {
+			compact();
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.ERROR, "Error compacting record cache in directory: " + directory,
+					e);
+		}
+	}
+
+	private Thread createDaemonThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "fedora-record-cache-compaction");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public Optional<CachedRecord> read(String key) {
+		lock.readLock().lock();
+		try {
+			return Optional.ofNullable(index.get(key)).map(this::readCachedRecord);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private CachedRecord readCachedRecord(Location location) {
+		String recordXml = readString(location.segment.buffer, location.valueOffset,
+				location.valueLength);
+		return new CachedRecord(recordXml, location.etag, location.needsRevalidation);
+	}
+
+	@Override
+	public void write(String key, String recordXml, String etag) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] etagBytes = etag == null ? new byte[0] : etag.getBytes(StandardCharsets.UTF_8);
+		byte[] valueBytes = recordXml.getBytes(StandardCharsets.UTF_8);
+		lock.writeLock().lock();
+		try {
+			removeFromIndex(key);
+			int entrySize = ENTRY_HEADER_SIZE + keyBytes.length + etagBytes.length
+					+ valueBytes.length;
+			if (entrySize <= segmentSize) {
+				Entry entry = new Entry(STORED, key, etag, keyBytes.length,
+						etagBytes.length, valueBytes.length);
+				appendEntry(entry, keyBytes, etagBytes, valueBytes, false);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void removeFromIndex(String key) {
+		Location location = index.remove(key);
+		if (location != null) {
+			markAsRemoved(location);
+		}
+	}
+
+	private void appendEntry(Entry entry, byte[] keyBytes, byte[] etagBytes, byte[] valueBytes,
+			boolean needsRevalidation) {
+		Segment segment = getSegmentWithRoomFor(entry.size());
+		int position = segment.writePosition;
+		writeEntry(segment.buffer, position, entry, keyBytes, etagBytes, valueBytes);
+		segment.writePosition += entry.size();
+		markAsEndOfSegment(segment, segment.writePosition);
+		addToIndex(entry.key(), createLocation(segment, position, entry, needsRevalidation));
+	}
+
+	private void writeEntry(MappedByteBuffer buffer, int position, Entry entry, byte[] keyBytes,
+			byte[] etagBytes, byte[] valueBytes) {
+		int dataOffset = position + ENTRY_HEADER_SIZE;
+		buffer.put(dataOffset, keyBytes);
+		buffer.put(dataOffset + keyBytes.length, etagBytes);
+		buffer.put(dataOffset + keyBytes.length + etagBytes.length, valueBytes);
+		buffer.putInt(position + KEY_LENGTH_OFFSET, keyBytes.length);
+		buffer.putInt(position + ETAG_LENGTH_OFFSET, entry.etag() == null ? NO_ETAG
+				: etagBytes.length);
+		buffer.putInt(position + VALUE_LENGTH_OFFSET, valueBytes.length);
+		buffer.putInt(position + CHECKSUM_OFFSET,
+				calculateChecksum(buffer, dataOffset, entry.size() - ENTRY_HEADER_SIZE));
+		buffer.put(position, entry.type());
+	}
+
+	private Segment getSegmentWithRoomFor(int entrySize) {
+		Segment current = segments.peekLast();
+		if (current != null && current.hasRoomFor(entrySize)) {
+			return current;
+		}
+		Segment oldest = segments.size() >= maxNumberOfSegments ? segments.removeFirst() : null;
+		Segment next = createSegment();
+		segments.addLast(next);
+		if (oldest != null) {
+			copyHotRecords(oldest, segmentSize - entrySize);
+			evictSegment(oldest);
+		}
+		return next;
+	}
+
+	private void copyHotRecords(Segment segment, int maxNumberOfBytes) {
+		if (hotKeyTrackerIsConfigured()) {
+			int numberOfBytes = 0;
+			for (String key : new LinkedHashSet<>(segment.keys)) {
+				Location location = index.get(key);
+				if (isHotAndStoredIn(key, location, segment)
+						&& numberOfBytes + location.entrySize <= maxNumberOfBytes) {
+					numberOfBytes += location.entrySize;
+					copyEntry(key, location);
+				}
+			}
+		}
+	}
+
+	private boolean hotKeyTrackerIsConfigured() {
+		return hotKeyTracker != null;
+	}
+
+	private boolean isHotAndStoredIn(String key, Location location, Segment segment) {
+		return location != null && location.segment == segment && hotKeyTracker.isHot(key);
+	}
+
+	private Segment createSegment() {
+		Path segmentFile = directory
+				.resolve(SEGMENT_PREFIX + nextSegmentNumber + SEGMENT_SUFFIX);
+		nextSegmentNumber++;
+		try {
+			return mapSegment(segmentFile, segmentSize);
+		} catch (IOException e) {
+			throw FedoraException.withMessageAndException(
+					"Error creating record cache segment: " + segmentFile, e);
+		}
+	}
+
+	private void evictSegment(Segment segment) {
+		for (String key : segment.keys) {
+			Location location = index.get(key);
+			if (location != null && location.segment == segment) {
+				index.remove(key);
+			}
+		}
+		retireSegment(segment);
+	}
+
+	private void retireSegment(Segment segment) {
+		markAsEndOfSegment(segment, 0);
+		segment.buffer.force();
+		segment.keys.clear();
+		retiredSegments.add(segment);
+		deleteRetiredSegmentFiles();
+	}
+
+	private void deleteRetiredSegmentFiles() {
+		retiredSegments.removeIf(this::deleteSegmentFile);
+	}
+
+	private boolean deleteSegmentFile(Segment segment) {
+		try {
+			Files.deleteIfExists(segment.file);
+			return true;
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to delete record cache segment: " + segment.file
+					+ ", it is deleted later", e);
+			return false;
+		}
+	}
+
+	@Override
+	public void markAsRevalidated(String key) {
+		lock.writeLock().lock();
+		try {
+			index.computeIfPresent(key, (k, location) -> location.asRevalidated());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		lock.writeLock().lock();
+		try {
+			removeFromIndex(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * compact copies the records remaining in segments where less than half of the stored bytes
+	 * are still in use to the newest segment, and deletes the compacted segment files. The newest
+	 * segment is never compacted.
+	 * <p>
+	 * Compaction is run regularly in the background, but can also be started by calling this
+	 * method.
+	 */
+	public void compact() {
+		lock.writeLock().lock();
+		try {
+			for (Segment segment : List.copyOf(segments)) {
+				compactSegmentIfMostlyUnused(segment);
+			}
+			deleteRetiredSegmentFiles();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void compactSegmentIfMostlyUnused(Segment segment) {
+		if (segment != segments.peekLast() && segment.liveBytes * 2 < segment.writePosition) {
+			segments.remove(segment);
+			copyRecordsStillInUse(segment);
+			retireSegment(segment);
+		}
+	}
+
+	private void copyRecordsStillInUse(Segment segment) {
+		for (String key : segment.keys) {
+			Location location = index.get(key);
+			if (location != null && location.segment == segment) {
+				copyEntry(key, location);
+			}
+		}
+	}
+
+	private void copyEntry(String key, Location location) {
+		index.remove(key);
+		MappedByteBuffer buffer = location.segment.buffer;
+		Entry entry = readEntry(location.segment, location.entryOffset);
+		int dataOffset = location.entryOffset + ENTRY_HEADER_SIZE;
+		byte[] keyBytes = readBytes(buffer, dataOffset, entry.keyLength());
+		byte[] etagBytes = readBytes(buffer, dataOffset + entry.keyLength(), entry.etagLength());
+		byte[] valueBytes = readBytes(buffer, location.valueOffset, entry.valueLength());
+		appendEntry(entry, keyBytes, etagBytes, valueBytes, location.needsRevalidation);
+	}
+
+	private byte[] readBytes(MappedByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return bytes;
+	}
+
+	@Override
+	public void close() {
+		compactionExecutor.shutdownNow();
+		lock.writeLock().lock();
+		try {
+			for (Segment segment : segments) {
+				segment.buffer.force();
+			}
+			deleteRetiredSegmentFiles();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int onlyForTestGetSegmentSize() {
+		return segmentSize;
+	}
+
+	public int onlyForTestGetNumberOfSegments() {
+		return segments.size();
+	}
+
+	public int onlyForTestGetNumberOfRetiredSegments() {
+		return retiredSegments.size();
+	}
+
+	private static class Segment {
+		private Path file;
+		private MappedByteBuffer buffer;
+		private List<String> keys = new ArrayList<>();
+		private int writePosition = 0;
+		private long liveBytes = 0;
+
+		private Segment(Path file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		private boolean hasRoomFor(int entrySize) {
+			return buffer.capacity() - writePosition >= entrySize;
+		}
+	}
+
+	private record Entry(byte type, String key, String etag, int keyLength, int etagLength,
+			int valueLength) {
+
+		private int size() {
+			return ENTRY_HEADER_SIZE + keyLength + etagLength + valueLength;
+		}
+	}
+
+	private record Location(Segment segment, int entryOffset, int entrySize, int valueOffset,
+			int valueLength, String etag, boolean needsRevalidation) {
+
+		private Location asRevalidated() {
+			return new Location(segment, entryOffset, entrySize, valueOffset, valueLength, etag,
+					false);
+		}
+	}
+}
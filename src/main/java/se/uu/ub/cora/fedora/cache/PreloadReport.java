@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * PreloadReport summarizes a preload done by a {@link RecordCachePreloader}.
+ * <p>
+ * failedRecordIds contains the ids of the records that could not be read from Fedora, in the
+ * order they were listed. duration is the total time used, including listing the records.
+ */
+public record PreloadReport(String dataDivider, int numberOfRecords,
+		int numberOfPreloadedRecords, List<String> failedRecordIds, Duration duration) {
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import java.util.Optional;
+
+/**
+ * RecordCache holds recordXml for records read from or written to Fedora, so that repeated reads
+ * of the same record do not have to call Fedora.
+ * <p>
+ * Records are identified by a key on the form dataDivider:recordId, the same form as the id used
+ * for the record in Fedora.
+ * <p>
+ * Implementations MUST be threadsafe as one instance is shared between all adapters created by the
+ * same factory.
+ */
+public interface RecordCache {
+
+	/**
+	 * read returns the cached record for the specified key, or an empty Optional if the record is
+	 * not in the cache.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:recordId
+	 * @return An Optional with the cached record
+	 */
+	Optional<CachedRecord> read(String key);
+
+	/**
+	 * write stores recordXml in the cache for the specified key, replacing any previously cached
+	 * recordXml for the same key. Implementations may evict other records to make room for the new
+	 * one, or choose not to cache the record at all.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:recordId
+	 * @param recordXml
+	 *            The recordXml to cache
+	 * @param etag
+	 *            The ETag of the version of the record in Fedora, or null if it is not known
+	 */
+	void write(String key, String recordXml, String etag);
+
+	/**
+	 * markAsRevalidated marks the cached record with the specified key as checked against Fedora,
+	 * so that it is no longer returned as needing revalidation.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:recordId
+	 */
+	void markAsRevalidated(String key);
+
+	/**
+	 * remove removes the record with the specified key from the cache, if it is present.
+	 * 
+	 * @param key
+	 *            A String on the form dataDivider:recordId
+	 */
+	void remove(String key);
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import se.uu.ub.cora.fedora.bulk.ProgressListener;
+
+/**
+ * RecordCachePreloader reads all records for a dataDivider into a {@link RecordCache}, so that
+ * later reads of them can be served from the cache instead of from Fedora.
+ * <p>
+ * RecordCachePreloaders are created by
+ * {@link se.uu.ub.cora.fedora.FedoraFactory#factorRecordCachePreloader(int)}, and preload the
+ * cache used by the FedoraAdapters created by the same factory.
+ */
+public interface RecordCachePreloader {
+
+	/**
+	 * preload lists the records stored in Fedora for the specified dataDivider and reads them into
+	 * the cache, reading several records in parallel while the records are listed. Resources
+	 * stored for the dataDivider are not read.
+	 * <p>
+	 * Records that can not be read are reported in the returned PreloadReport, they do not stop the
+	 * preload. If the records can not be listed a FedoraException is thrown.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to preload records for
+	 * @param progressListener
+	 *            A ProgressListener to notify as records are preloaded, with the number of
+	 *            records listed so far as the number of items, since records are preloaded while
+	 *            they are listed
+	 * @return A PreloadReport with the outcome and timing of the preload
+	 */
+	PreloadReport preload(String dataDivider, ProgressListener progressListener);
+}
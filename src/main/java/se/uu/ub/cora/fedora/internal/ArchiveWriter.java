@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * ArchiveWriter writes entries to an archive, one after the other, as they are added.
+ */
+interface ArchiveWriter {
+
+	/**
+	 * writeEntry writes one entry with the specified name to the archive, reading exactly size
+	 * bytes of content from the content stream.
+	 * 
+	 * @param name
+	 *            A String with the name of the entry
+	 * @param size
+	 *            The number of bytes of content in the entry
+	 * @param content
+	 *            An InputStream with the content of the entry
+	 * @throws IOException
+	 *             if the entry can not be written, or content does not contain size bytes
+	 */
+	void writeEntry(String name, long size, InputStream content) throws IOException;
+
+	/**
+	 * finish writes what is needed to end the archive, without closing the underlying stream.
+	 * 
+	 * @throws IOException
+	 *             if the end of the archive can not be written
+	 */
+	void finish() throws IOException;
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.cache.CachedRecord;
+import se.uu.ub.cora.fedora.cache.RecordCache;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+
+/**
+ * CachingFedoraAdapter reads records through a {@link RecordCache}, only calling the wrapped
+ * FedoraAdapter for records not in the cache. Records read from Fedora are cached with their ETag.
+ * Records created, updated or deleted through this adapter are removed from the cache, so that
+ * they are cached with their ETag the next time they are read.
+ * <p>
+ * A record read from Fedora is only cached if it has not been changed, through any adapter sharing
+ * the same {@link RecordCacheVersions}, while it was read. This keeps a read that overlaps an
+ * update from caching the record as it was before the update.
+ * <p>
+ * Cached records that need revalidation are checked against Fedora using their ETag the first
+ * time they are read, only reading the record again if it has changed.
+ * <p>
+ * Operations run in a transaction bypass the cache, and records changed by them are removed from
+ * the cache when the transaction has ended, whether it was committed or rolled back.
+ * <p>
+ * CachingFedoraAdapter is threadsafe, it keeps no state of its own besides the threadsafe
+ * {@link RecordCache} and {@link RecordCacheVersions}.
+ */
+public class CachingFedoraAdapter implements FedoraAdapter {
+
+	private FedoraAdapter fedoraAdapter;
+	private RecordCache recordCache;
+	private RecordCacheVersions recordCacheVersions;
+	private Executor batchExecutor;
+
+	public CachingFedoraAdapter(FedoraAdapter fedoraAdapter, RecordCache recordCache,
+			RecordCacheVersions recordCacheVersions, Executor batchExecutor) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.recordCache = recordCache;
+		this.recordCacheVersions = recordCacheVersions;
+		this.batchExecutor = batchExecutor;
+	}
+
+	@Override
+	public void createRecord(String dataDivider, String recordId, String recordXml) {
+		try {
+			fedoraAdapter.createRecord(dataDivider, recordId, recordXml);
+		} finally {
+			removeFromCache(createKey(dataDivider, recordId));
+		}
+	}
+
+	private void removeFromCache(String key) {
+		recordCacheVersions.changeAndRun(key, () -> recordCache.remove(key));
+	}
+
+	private String createKey(String dataDivider, String recordId) {
+		return dataDivider + ":" + recordId;
+	}
+
+	@Override
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		List<BatchItemResult> results = fedoraAdapter.createRecords(records, maxParallelCreates);
+		for (int i = 0; i < results.size(); i++) {
+			removeFromCacheIfCreated(records.get(i), results.get(i));
+		}
+		return results;
+	}
+
+	private void removeFromCacheIfCreated(RecordToCreate recordToCreate, BatchItemResult result) {
+		if (result.outcome() == BatchOutcome.CREATED) {
+			removeFromCache(createKey(recordToCreate.dataDivider(), recordToCreate.recordId()));
+		}
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.createExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public String readRecord(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		Optional<CachedRecord> cachedRecord = recordCache.read(key);
+		if (cachedRecord.isPresent()) {
+			return useCachedRecord(dataDivider, recordId, key, cachedRecord.get()).recordXml();
+		}
+		return readRecordFromFedoraAndCacheIt(dataDivider, recordId, key).recordXml();
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		Map<String, String> records = new HashMap<>();
+		List<String> recordIdsToRead = new ArrayList<>();
+		for (String recordId : recordIds) {
+			readFreshRecordFromCache(dataDivider, recordId).ifPresentOrElse(
+					recordXml -> records.put(recordId, recordXml),
+					() -> recordIdsToRead.add(recordId));
+		}
+		ReadRecordsResult readResult = MultiRecordReader.readRecords(batchExecutor,
+				recordIdsToRead, maxParallelReads, recordId -> readRecord(dataDivider, recordId));
+		records.putAll(readResult.records());
+		return new ReadRecordsResult(records, readResult.missingIds());
+	}
+
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		return fedoraAdapter.listIds(dataDivider);
+	}
+
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		return fedoraAdapter.listIdsModifiedSince(dataDivider, since, maxParallelChecks);
+	}
+
+	private Optional<String> readFreshRecordFromCache(String dataDivider, String recordId) {
+		return recordCache.read(createKey(dataDivider, recordId))
+				.filter(cachedRecord -> !cachedRecord.needsRevalidation())
+				.map(CachedRecord::recordXml);
+	}
+
+	private VersionedRecord useCachedRecord(String dataDivider, String recordId, String key,
+			CachedRecord cachedRecord) {
+		if (cachedRecord.needsRevalidation()) {
+			return revalidateCachedRecord(dataDivider, recordId, key, cachedRecord);
+		}
+		return new VersionedRecord(cachedRecord.recordXml(), cachedRecord.etag());
+	}
+
+	private VersionedRecord revalidateCachedRecord(String dataDivider, String recordId,
+			String key, CachedRecord cachedRecord) {
+		if (cachedRecord.etag() == null) {
+			return readRecordFromFedoraAndCacheIt(dataDivider, recordId, key);
+		}
+		long version = recordCacheVersions.getVersion(key);
+		Optional<VersionedRecord> changedRecord = readRecordIfChangedRemovingItIfNotFound(
+				dataDivider, recordId, key, cachedRecord.etag());
+		if (changedRecord.isPresent()) {
+			return cacheRecordIfUnchanged(key, version, changedRecord.get());
+		}
+		recordCache.markAsRevalidated(key);
+		return new VersionedRecord(cachedRecord.recordXml(), cachedRecord.etag());
+	}
+
+	private Optional<VersionedRecord> readRecordIfChangedRemovingItIfNotFound(String dataDivider,
+			String recordId, String key, String etag) {
+		try {
+			return fedoraAdapter.readRecordIfChanged(dataDivider, recordId, etag);
+		} catch (FedoraNotFoundException e) {
+			removeFromCache(key);
+			throw e;
+		}
+	}
+
+	private VersionedRecord readRecordFromFedoraAndCacheIt(String dataDivider, String recordId,
+			String key) {
+		long version = recordCacheVersions.getVersion(key);
+		VersionedRecord versionedRecord = fedoraAdapter.readVersionedRecord(dataDivider,
+				recordId);
+		return cacheRecordIfUnchanged(key, version, versionedRecord);
+	}
+
+	private VersionedRecord cacheRecordIfUnchanged(String key, long version,
+			VersionedRecord versionedRecord) {
+		recordCacheVersions.runIfUnchanged(key, version, () -> recordCache.write(key,
+				versionedRecord.recordXml(), versionedRecord.etag()));
+		return versionedRecord;
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		Optional<CachedRecord> cachedRecord = recordCache.read(key);
+		if (cachedRecord.isPresent() && cachedRecord.get().etag() != null) {
+			return useCachedRecord(dataDivider, recordId, key, cachedRecord.get());
+		}
+		return readRecordFromFedoraAndCacheIt(dataDivider, recordId, key);
+	}
+
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		return fedoraAdapter.readRecordIfChanged(dataDivider, recordId, etag);
+	}
+
+	@Override
+	public InputStream readResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		return fedoraAdapter.readResumableResource(dataDivider, resourceId, maxResumeAttempts);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId, expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, offset, length);
+	}
+
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, ranges);
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		return fedoraAdapter.downloadResource(dataDivider, resourceId, target, rangeSize,
+				maxParallelReads);
+	}
+
+	@Override
+	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResourceMetadata(dataDivider, resourceId);
+	}
+
+	@Override
+	public void updateResourceMetadata(String dataDivider, String resourceId,
+			ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		fedoraAdapter.updateResourceMetadata(dataDivider, resourceId, resourceMetadataToUpdate);
+	}
+
+	@Override
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		return fedoraAdapter.updateResourcesMetadata(updates, maxParallelUpdates);
+	}
+
+	@Override
+	public void updateRecord(String dataDivider, String recordId, String recordXml) {
+		String key = createKey(dataDivider, recordId);
+		removeFromCache(key);
+		try {
+			fedoraAdapter.updateRecord(dataDivider, recordId, recordXml);
+		} finally {
+			removeFromCache(key);
+		}
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		return fedoraAdapter.updateResourceIfChanged(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.updateExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public void deleteRecord(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		removeFromCache(key);
+		try {
+			fedoraAdapter.deleteRecord(dataDivider, recordId);
+		} finally {
+			removeFromCache(key);
+		}
+	}
+
+	@Override
+	public void deleteResource(String dataDivider, String resourceId) {
+		fedoraAdapter.deleteResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		TransactionRecordCache transactionCache = new TransactionRecordCache();
+		try {
+			fedoraAdapter.runInTransaction(
+					wrapOperationsToUseCache(operations, transactionCache), maxParallelOperations);
+		} finally {
+			transactionCache.getChangedKeys().forEach(this::removeFromCache);
+		}
+	}
+
+	private List<TransactionOperation> wrapOperationsToUseCache(
+			List<TransactionOperation> operations, TransactionRecordCache transactionCache) {
+		return operations.stream()
+				.map(operation -> wrapOperationToUseCache(operation, transactionCache)).toList();
+	}
+
+	private TransactionOperation wrapOperationToUseCache(TransactionOperation operation,
+			TransactionRecordCache transactionCache) {
+		return transactionAdapter -> operation
+				.runUsing(new CachingFedoraAdapter(transactionAdapter, transactionCache,
+						new RecordCacheVersions(), batchExecutor));
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public RecordCache onlyForTestGetRecordCache() {
+		return recordCache;
+	}
+
+	public RecordCacheVersions onlyForTestGetRecordCacheVersions() {
+		return recordCacheVersions;
+	}
+
+	public Executor onlyForTestGetBatchExecutor() {
+		return batchExecutor;
+	}
+}
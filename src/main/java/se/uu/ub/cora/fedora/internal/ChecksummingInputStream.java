@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+
+/**
+ * ChecksummingInputStream calculates the SHA-512 checksum and counts the bytes of a resource as
+ * the resource is read through it, so that the checksum is known without a second pass over the
+ * content.
+ * <p>
+ * The checksum and file size are those of the bytes read so far, and describe the whole resource
+ * once the stream has been read to its end. Mark and reset are not supported, as bytes read again
+ * would be counted twice.
+ */
+final class ChecksummingInputStream extends FilterInputStream {
+	private static final String SHA_512 = "SHA-512";
+	private MessageDigest digest;
+	private long numberOfBytes = 0;
+
+	ChecksummingInputStream(InputStream resource) {
+		super(resource);
+		digest = createSha512Digest();
+	}
+
+	private static MessageDigest createSha512Digest() {
+		try {
+			return MessageDigest.getInstance(SHA_512);
+		} catch (NoSuchAlgorithmException e) {
+			throw FedoraException.withMessageAndException(
+					"Error calculating checksum: " + SHA_512 + " is not supported.", e);
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		int read = super.read();
+		if (read != -1) {
+			digest.update((byte) read);
+			numberOfBytes++;
+		}
+		return read;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		int read = super.read(buffer, offset, length);
+		if (read > 0) {
+			digest.update(buffer, offset, read);
+			numberOfBytes += read;
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		long skipped = 0;
+		while (skipped < n) {
+			int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+			if (read == -1) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		// mark is not supported, see markSupported
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("Reset is not supported when calculating a checksum");
+	}
+
+	long getNumberOfBytes() {
+		return numberOfBytes;
+	}
+
+	/**
+	 * Returns the SHA-512 checksum of the bytes read so far, as a lower case hex string.
+	 * <p>
+	 * The calculation is not affected, so the checksum can be asked for again after more bytes
+	 * have been read.
+	 */
+	String getChecksumSHA512() {
+		try {
+			MessageDigest copy = (MessageDigest) digest.clone();
+			return HexFormat.of().formatHex(copy.digest());
+		} catch (CloneNotSupportedException e) {
+			throw FedoraException.withMessageAndException(
+					"Error calculating checksum: " + SHA_512 + " can not be copied.", e);
+		}
+	}
+
+	ResourceMetadata toResourceMetadata() {
+		return new ResourceMetadata(String.valueOf(numberOfBytes), getChecksumSHA512());
+	}
+
+	/**
+	 * Reads the rest of the resource, discarding the bytes, and returns the metadata of the whole
+	 * resource.
+	 */
+	ResourceMetadata readToEnd() throws IOException {
+		transferTo(OutputStream.nullOutputStream());
+		return toResourceMetadata();
+	}
+
+	InputStream onlyForTestGetResource() {
+		return in;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * ContainerLister lists the ids of the records and resources stored in Fedora for a dataDivider.
+ */
+public interface ContainerLister {
+
+	/**
+	 * listIds returns the ids, without the dataDivider prefix, of all records and resources
+	 * stored in Fedora for the specified dataDivider.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to list ids for
+	 * @return A List with the ids in the order Fedora returns them
+	 */
+	List<String> listIds(String dataDivider);
+
+	/**
+	 * streamIds returns the same ids as {@link #listIds(String)}, as a Stream that reads and
+	 * parses the listing from Fedora as it is consumed, so that the listing is never held in memory
+	 * as a whole.
+	 * <p>
+	 * The returned Stream holds an open connection to Fedora until it is fully consumed or closed,
+	 * and should be closed when it is not fully consumed, preferably using try-with-resources.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to list ids for
+	 * @return A Stream with the ids in the order Fedora returns them
+	 */
+	Stream<String> streamIds(String dataDivider);
+
+	/**
+	 * streamRecordIds returns the ids, without the dataDivider prefix, of the records stored in
+	 * Fedora for the specified dataDivider, leaving out resources. Records are told apart from
+	 * resources by the mime type they are stored with, so a resource stored with the same mime
+	 * type as records is returned as a record.
+	 * <p>
+	 * The returned Stream reads the listing from Fedora as it is consumed in the same way as
+	 * {@link #streamIds(String)}, and should be closed when it is not fully consumed.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to list record ids for
+	 * @return A Stream with the record ids in the order Fedora returns them
+	 */
+	Stream<String> streamRecordIds(String dataDivider);
+
+	/**
+	 * streamResourceIds returns the ids, without the dataDivider prefix, of the resources stored in
+	 * Fedora for the specified dataDivider, leaving out records. It lists exactly the binaries
+	 * {@link #streamRecordIds(String)} leaves out.
+	 * <p>
+	 * The returned Stream reads the listing from Fedora as it is consumed in the same way as
+	 * {@link #streamIds(String)}, and should be closed when it is not fully consumed.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to list resource ids for
+	 * @return A Stream with the resource ids in the order Fedora returns them
+	 */
+	Stream<String> streamResourceIds(String dataDivider);
+
+	/**
+	 * streamChildrenWithLastModified returns the records and resources stored in Fedora for the
+	 * specified dataDivider, each with the time it was last modified as reported in the same
+	 * listing, so that no request has to be made for each child to find out when it was modified.
+	 * A child whose last modification is not reported in the listing is returned with a null
+	 * lastModified.
+	 * <p>
+	 * Children are picked out from their descriptions in the listing, which Fedora includes for
+	 * every contained child when asked for them. The descriptions are expected to be grouped by
+	 * child, if the description of a child is split up in the listing, the child is returned once
+	 * for each part.
+	 * <p>
+	 * The returned Stream reads the listing from Fedora as it is consumed in the same way as
+	 * {@link #streamIds(String)}, and should be closed when it is not fully consumed.
+	 * 
+	 * @param dataDivider
+	 *            A String with the dataDivider to list children for
+	 * @return A Stream with a ListedChild for each child in the order Fedora returns them
+	 */
+	Stream<ListedChild> streamChildrenWithLastModified(String dataDivider);
+
+}
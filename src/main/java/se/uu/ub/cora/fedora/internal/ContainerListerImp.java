@@ -0,0 +1,416 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.HttpHandlerFactory;
+
+/**
+ * ContainerListerImp lists ids by reading the root container in Fedora as N-Triples and picking
+ * out the contained children whose ids start with the dataDivider.
+ * <p>
+ * Records and resources are listed by asking Fedora to include the descriptions of the children in
+ * the response, and picking out the children by whether their mime type is the one records are
+ * stored with.
+ * <p>
+ * Children with the time they were last modified are listed in the same way, picking out the
+ * lastModified of each child from its description.
+ * <p>
+ * The response is read one triple at a time as the ids are consumed, so memory use does not grow
+ * with the number of children in the container.
+ */
+public class ContainerListerImp implements ContainerLister {
+	private static final int OK = 200;
+	private static final String RESPONSE_CODE = "responseCode";
+	private static final String RESPONSE_BINARY = "responseBinary";
+	private static final String ACCEPT = "Accept";
+	private static final String MIME_TYPE_N_TRIPLES = "application/n-triples";
+	private static final String PREFER = "Prefer";
+	private static final String PREFER_CONTAINED_DESCRIPTIONS = "return=representation; "
+			+ "include=\"http://www.w3.org/ns/oa#PreferContainedDescriptions\"";
+	private static final String LDP_CONTAINS = " <http://www.w3.org/ns/ldp#contains> <";
+	private static final String HAS_MIME_TYPE = " <http://www.ebu.ch/metadata/ontologies/"
+			+ "ebucore/ebucore#hasMimeType> \"";
+	private static final String MIME_TYPE_RECORD = "text/plain;charset=utf-8";
+	private static final String LAST_MODIFIED = " <http://fedora.info/definitions/v4/repository#"
+			+ "lastModified> \"";
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error listing ids for dataDivider {0}. "
+			+ "An internal error has been thrown.";
+	private static final String ERR_MSG_FEDORA_ERROR = "Error listing ids in Fedora for "
+			+ "dataDivider {0} failed due to error {1} returned from Fedora";
+
+	private HttpHandlerFactory httpHandlerFactory;
+	private String baseUrl;
+
+	public ContainerListerImp(HttpHandlerFactory httpHandlerFactory, String baseUrl) {
+		this.httpHandlerFactory = httpHandlerFactory;
+		this.baseUrl = baseUrl;
+	}
+
+	@Override
+	public List<String> listIds(String dataDivider) {
+		try (Stream<String> ids = streamIds(dataDivider)) {
+			return ids.toList();
+		}
+	}
+
+	@Override
+	public Stream<String> streamIds(String dataDivider) {
+		InputStream containerAsNTriples = readContainerFromFedora(dataDivider, false);
+		return streamChildIds(containerAsNTriples, dataDivider, this::getContainedChild);
+	}
+
+	@Override
+	public Stream<String> streamRecordIds(String dataDivider) {
+		return streamChildIdsWithMimeType(dataDivider, this::isRecordMimeType);
+	}
+
+	@Override
+	public Stream<String> streamResourceIds(String dataDivider) {
+		return streamChildIdsWithMimeType(dataDivider, mimeType -> !isRecordMimeType(mimeType));
+	}
+
+	@Override
+	public Stream<ListedChild> streamChildrenWithLastModified(String dataDivider) {
+		InputStream containerAsNTriples = readContainerFromFedora(dataDivider, true);
+		DescribedChildIterator children = new DescribedChildIterator(containerAsNTriples,
+				dataDivider);
+		Spliterator<ListedChild> spliterator = Spliterators.spliteratorUnknownSize(children,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(children::close);
+	}
+
+	private Stream<String> streamChildIdsWithMimeType(String dataDivider,
+			Predicate<String> acceptsMimeType) {
+		InputStream containerAsNTriples = readContainerFromFedora(dataDivider, true);
+		return streamChildIds(containerAsNTriples, dataDivider,
+				triple -> getChildWithMimeType(triple, acceptsMimeType));
+	}
+
+	private Stream<String> streamChildIds(InputStream containerAsNTriples, String dataDivider,
+			Function<String, String> childFromTriple) {
+		ContainedIdIterator ids = new ContainedIdIterator(containerAsNTriples, dataDivider,
+				childFromTriple);
+		Spliterator<String> spliterator = Spliterators.spliteratorUnknownSize(ids,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(ids::close);
+	}
+
+	private InputStream readContainerFromFedora(String dataDivider,
+			boolean includeDescriptions) {
+		Map<String, Object> response = callFedoraReadContainer(dataDivider, includeDescriptions);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		if (responseCode != OK) {
+			throw FedoraException.withMessage(
+					MessageFormat.format(ERR_MSG_FEDORA_ERROR, dataDivider, responseCode));
+		}
+		return (InputStream) response.get(RESPONSE_BINARY);
+	}
+
+	private Map<String, Object> callFedoraReadContainer(String dataDivider,
+			boolean includeDescriptions) {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForReadContainer(includeDescriptions);
+			return createResponse(httpHandler);
+		} catch (Exception e) {
+			throw createInternalErrorException(dataDivider, e);
+		}
+	}
+
+	private Map<String, Object> createResponse(HttpHandler httpHandler) {
+		Map<String, Object> response = new HashMap<>();
+		int responseCode = httpHandler.getResponseCode();
+		response.put(RESPONSE_CODE, responseCode);
+		if (responseCode == OK) {
+			response.put(RESPONSE_BINARY, httpHandler.getResponseBinary());
+		}
+		return response;
+	}
+
+	private FedoraException createInternalErrorException(String dataDivider, Exception e) {
+		return FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_INTERNAL_ERROR, dataDivider), e);
+	}
+
+	private HttpHandler setUpHttpHandlerForReadContainer(boolean includeDescriptions) {
+		HttpHandler httpHandler = httpHandlerFactory.factor(baseUrl);
+		httpHandler.setRequestMethod("GET");
+		httpHandler.setRequestProperty(ACCEPT, MIME_TYPE_N_TRIPLES);
+		if (includeDescriptions) {
+			httpHandler.setRequestProperty(PREFER, PREFER_CONTAINED_DESCRIPTIONS);
+		}
+		return httpHandler;
+	}
+
+	private String getContainedChild(String triple) {
+		int containsIndex = triple.indexOf(LDP_CONTAINS);
+		if (containsIndex == -1) {
+			return null;
+		}
+		int childStart = containsIndex + LDP_CONTAINS.length();
+		int childEnd = triple.indexOf('>', childStart);
+		return triple.substring(childStart, childEnd);
+	}
+
+	private String getChildWithMimeType(String triple, Predicate<String> acceptsMimeType) {
+		int mimeTypeIndex = triple.indexOf(HAS_MIME_TYPE);
+		if (mimeTypeIndex == -1 || !triple.startsWith("<")) {
+			return null;
+		}
+		int mimeTypeStart = mimeTypeIndex + HAS_MIME_TYPE.length();
+		int mimeTypeEnd = triple.indexOf('"', mimeTypeStart);
+		String mimeType = triple.substring(mimeTypeStart, mimeTypeEnd);
+		if (!acceptsMimeType.test(mimeType)) {
+			return null;
+		}
+		return triple.substring(1, triple.indexOf('>'));
+	}
+
+	private String getSubject(String triple) {
+		if (!triple.startsWith("<")) {
+			return null;
+		}
+		return triple.substring(1, triple.indexOf('>'));
+	}
+
+	private Instant getLastModifiedIfPresent(String triple) {
+		int lastModifiedIndex = triple.indexOf(LAST_MODIFIED);
+		if (lastModifiedIndex == -1) {
+			return null;
+		}
+		int lastModifiedStart = lastModifiedIndex + LAST_MODIFIED.length();
+		int lastModifiedEnd = triple.indexOf('"', lastModifiedStart);
+		try {
+			return Instant.parse(triple.substring(lastModifiedStart, lastModifiedEnd));
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private boolean isRecordMimeType(String mimeType) {
+		return MIME_TYPE_RECORD.equalsIgnoreCase(mimeType.replace(" ", ""));
+	}
+
+	public HttpHandlerFactory onlyForTestGetHttpHandlerFactory() {
+		return httpHandlerFactory;
+	}
+
+	public String onlyForTestGetBaseUrl() {
+		return baseUrl;
+	}
+
+	private class ContainedIdIterator implements Iterator<String> {
+		private BufferedReader reader;
+		private String dataDivider;
+		private String childPrefix;
+		private Function<String, String> childFromTriple;
+		private String nextId;
+		private boolean closed = false;
+
+		ContainedIdIterator(InputStream containerAsNTriples, String dataDivider,
+				Function<String, String> childFromTriple) {
+			reader = new BufferedReader(
+					new InputStreamReader(containerAsNTriples, StandardCharsets.UTF_8));
+			this.dataDivider = dataDivider;
+			childPrefix = baseUrl + dataDivider + ":";
+			this.childFromTriple = childFromTriple;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextId == null && !closed) {
+				nextId = readNextId();
+			}
+			return nextId != null;
+		}
+
+		private String readNextId() {
+			try {
+				return tryToReadNextId();
+			} catch (IOException e) {
+				close();
+				throw createInternalErrorException(dataDivider, e);
+			}
+		}
+
+		private String tryToReadNextId() throws IOException {
+			String triple = reader.readLine();
+			while (triple != null) {
+				String child = childFromTriple.apply(triple);
+				if (child != null && child.startsWith(childPrefix)) {
+					return child.substring(childPrefix.length());
+				}
+				triple = reader.readLine();
+			}
+			close();
+			return null;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String id = nextId;
+			nextId = null;
+			return id;
+		}
+
+		void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// nothing more to read, so the listing is not affected
+			}
+		}
+	}
+
+	private class DescribedChildIterator implements Iterator<ListedChild> {
+		private BufferedReader reader;
+		private String dataDivider;
+		private String childPrefix;
+		private String currentId;
+		private Instant currentLastModified;
+		private ListedChild nextChild;
+		private boolean closed = false;
+
+		DescribedChildIterator(InputStream containerAsNTriples, String dataDivider) {
+			reader = new BufferedReader(
+					new InputStreamReader(containerAsNTriples, StandardCharsets.UTF_8));
+			this.dataDivider = dataDivider;
+			childPrefix = baseUrl + dataDivider + ":";
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextChild == null && !closed) {
+				nextChild = readNextChild();
+			}
+			return nextChild != null;
+		}
+
+		private ListedChild readNextChild() {
+			try {
+				return tryToReadNextChild();
+			} catch (IOException e) {
+				close();
+				throw createInternalErrorException(dataDivider, e);
+			}
+		}
+
+		private ListedChild tryToReadNextChild() throws IOException {
+			String triple = reader.readLine();
+			while (triple != null) {
+				String id = getChildId(getSubject(triple));
+				if (id != null && !id.equals(currentId)) {
+					ListedChild finishedChild = finishCurrentChild();
+					startChild(id, triple);
+					if (finishedChild != null) {
+						return finishedChild;
+					}
+				} else if (id != null) {
+					updateLastModified(triple);
+				}
+				triple = reader.readLine();
+			}
+			close();
+			return finishCurrentChild();
+		}
+
+		private String getChildId(String subject) {
+			if (subject == null || !subject.startsWith(childPrefix)) {
+				return null;
+			}
+			String id = subject.substring(childPrefix.length());
+			if (id.indexOf('/') != -1 || id.indexOf('#') != -1) {
+				return null;
+			}
+			return id;
+		}
+
+		private ListedChild finishCurrentChild() {
+			if (currentId == null) {
+				return null;
+			}
+			ListedChild child = new ListedChild(currentId, currentLastModified);
+			currentId = null;
+			return child;
+		}
+
+		private void startChild(String id, String triple) {
+			currentId = id;
+			currentLastModified = null;
+			updateLastModified(triple);
+		}
+
+		private void updateLastModified(String triple) {
+			Instant lastModified = getLastModifiedIfPresent(triple);
+			if (lastModified != null) {
+				currentLastModified = lastModified;
+			}
+		}
+
+		@Override
+		public ListedChild next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ListedChild child = nextChild;
+			nextChild = null;
+			return child;
+		}
+
+		void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// nothing more to read, so the listing is not affected
+			}
+		}
+	}
+}
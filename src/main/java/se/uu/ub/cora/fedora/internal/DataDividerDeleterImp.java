@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.bulk.DataDividerDeleter;
+import se.uu.ub.cora.fedora.bulk.DeleteReport;
+import se.uu.ub.cora.fedora.bulk.ProgressListener;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.HttpHandlerFactory;
+
+/**
+ * DataDividerDeleterImp deletes a dataDivider by listing it using a {@link ContainerLister} and
+ * deleting what is listed through a FedoraAdapter, using at most maxParallelDeletes threads.
+ * <p>
+ * Records are stored directly under the root container in Fedora, so there is normally no
+ * container for a dataDivider. If one has been created at the dataDivider path it is deleted and
+ * purged when requested, otherwise the request is ignored.
+ */
+public class DataDividerDeleterImp implements DataDividerDeleter {
+	private static final String DELETE = "DELETE";
+	private static final String FCR_TOMBSTONE = "/fcr:tombstone";
+	private static final int NO_CONTENT = 204;
+	private static final int NOT_FOUND = 404;
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error deleting container for "
+			+ "dataDivider {0}. An internal error has been thrown.";
+	private static final String ERR_MSG_FEDORA_ERROR = "Error deleting container in Fedora for "
+			+ "dataDivider {0} failed due to error {1} returned from Fedora";
+
+	private FedoraAdapter fedoraAdapter;
+	private ContainerLister containerLister;
+	private HttpHandlerFactory httpHandlerFactory;
+	private String baseUrl;
+	private Executor batchExecutor;
+	private int maxParallelDeletes;
+
+	public DataDividerDeleterImp(FedoraAdapter fedoraAdapter, ContainerLister containerLister,
+			HttpHandlerFactory httpHandlerFactory, String baseUrl, Executor batchExecutor,
+			int maxParallelDeletes) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.containerLister = containerLister;
+		this.httpHandlerFactory = httpHandlerFactory;
+		this.baseUrl = baseUrl;
+		this.batchExecutor = batchExecutor;
+		this.maxParallelDeletes = maxParallelDeletes;
+	}
+
+	@Override
+	public DeleteReport deleteAll(String dataDivider, boolean deleteContainer,
+			ProgressListener progressListener) {
+		long startTime = System.nanoTime();
+		List<String> ids = containerLister.listIds(dataDivider);
+		Progress progress = new Progress(progressListener, ids.size());
+		List<Boolean> deleted = ParallelBatch.runInParallel(batchExecutor, ids,
+				maxParallelDeletes, id -> deleteReportingProgress(dataDivider, id, progress));
+		List<String> failedIds = collectFailedIds(ids, deleted);
+		boolean containerDeleted = deleteContainer && failedIds.isEmpty()
+				&& deleteContainerIfItExists(dataDivider);
+		Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+		return new DeleteReport(dataDivider, ids.size(), ids.size() - failedIds.size(),
+				failedIds, containerDeleted, duration);
+	}
+
+	private boolean deleteReportingProgress(String dataDivider, String id, Progress progress) {
+		boolean deleted = tryToDelete(dataDivider, id);
+		progress.itemHandled();
+		return deleted;
+	}
+
+	private boolean tryToDelete(String dataDivider, String id) {
+		try {
+			fedoraAdapter.deleteRecord(dataDivider, id);
+			return true;
+		} catch (FedoraNotFoundException e) {
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private List<String> collectFailedIds(List<String> ids, List<Boolean> deleted) {
+		List<String> failedIds = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i++) {
+			if (!deleted.get(i)) {
+				failedIds.add(ids.get(i));
+			}
+		}
+		return failedIds;
+	}
+
+	private boolean deleteContainerIfItExists(String dataDivider) {
+		String containerPath = baseUrl + dataDivider;
+		if (callFedoraForDelete(dataDivider, containerPath) == NOT_FOUND) {
+			return false;
+		}
+		callFedoraForDelete(dataDivider, containerPath + FCR_TOMBSTONE);
+		return true;
+	}
+
+	private int callFedoraForDelete(String dataDivider, String path) {
+		int responseCode = callFedora(dataDivider, path);
+		if (responseCode != NO_CONTENT && responseCode != NOT_FOUND) {
+			throw FedoraException.withMessage(
+					MessageFormat.format(ERR_MSG_FEDORA_ERROR, dataDivider, responseCode));
+		}
+		return responseCode;
+	}
+
+	private int callFedora(String dataDivider, String path) {
+		try {
+			HttpHandler httpHandler = httpHandlerFactory.factor(path);
+			httpHandler.setRequestMethod(DELETE);
+			return httpHandler.getResponseCode();
+		} catch (Exception e) {
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, dataDivider), e);
+		}
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public ContainerLister onlyForTestGetContainerLister() {
+		return containerLister;
+	}
+
+	public HttpHandlerFactory onlyForTestGetHttpHandlerFactory() {
+		return httpHandlerFactory;
+	}
+
+	public String onlyForTestGetBaseUrl() {
+		return baseUrl;
+	}
+
+	public Executor onlyForTestGetBatchExecutor() {
+		return batchExecutor;
+	}
+
+	public int onlyForTestGetMaxParallelDeletes() {
+		return maxParallelDeletes;
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.bulk.DataDividerExporter;
+import se.uu.ub.cora.fedora.bulk.ExportFormat;
+import se.uu.ub.cora.fedora.bulk.ExportReport;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+
+/**
+ * DataDividerExporterImp exports a dataDivider by streaming its listing using a
+ * {@link ContainerLister} and reading what is listed through a FedoraAdapter, using at most
+ * maxParallelFetches threads.
+ * <p>
+ * Reads are prefetched in order by {@link OrderedPrefetcher}, so that the export is written in the
+ * listed order while several reads are in progress.
+ * <p>
+ * In the archive formats the content of each resource is spooled to a temporary file by the
+ * thread reading it, so that no connection to Fedora is held open while a prefetched resource
+ * waits to be written. A resource whose content can not be read, or does not have the size in its
+ * metadata, is reported as failed and left out instead of leaving a broken entry in the archive.
+ */
+public class DataDividerExporterImp implements DataDividerExporter {
+	private static final String METADATA_SUFFIX = ".metadata.json";
+	private static final String TEMPORARY_FILE_PREFIX = "fedoraExportContent";
+	private static final String ERR_MSG_WRITE_ERROR = "Error writing export of dataDivider {0}. "
+			+ "An internal error has been thrown.";
+
+	private FedoraAdapter fedoraAdapter;
+	private ContainerLister containerLister;
+	private int maxParallelFetches;
+
+	public DataDividerExporterImp(FedoraAdapter fedoraAdapter, ContainerLister containerLister,
+			int maxParallelFetches) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.containerLister = containerLister;
+		this.maxParallelFetches = maxParallelFetches;
+	}
+
+	@Override
+	public ExportReport export(String dataDivider, ExportFormat format,
+			OutputStream outputStream) {
+		long startTime = System.nanoTime();
+		ExportRun exportRun = new ExportRun();
+		try (Stream<String> ids = streamIdsToExport(dataDivider, format)) {
+			exportInFormat(dataDivider, format, outputStream, ids.iterator(), exportRun);
+		} catch (IOException | UncheckedIOException e) {
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_WRITE_ERROR, dataDivider), e);
+		}
+		Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+		return new ExportReport(dataDivider, format, exportRun.numberOfIds,
+				exportRun.numberOfIds - exportRun.failedIds.size(), exportRun.failedIds,
+				duration);
+	}
+
+	private Stream<String> streamIdsToExport(String dataDivider, ExportFormat format) {
+		if (format == ExportFormat.NDJSON) {
+			return containerLister.streamRecordIds(dataDivider);
+		}
+		return containerLister.streamIds(dataDivider);
+	}
+
+	private void exportInFormat(String dataDivider, ExportFormat format,
+			OutputStream outputStream, Iterator<String> ids, ExportRun exportRun)
+			throws IOException {
+		if (format == ExportFormat.NDJSON) {
+			exportRecordsAsNdjson(dataDivider, ids, outputStream, exportRun);
+		} else {
+			exportAsArchive(dataDivider, ids, createArchiveWriter(format, outputStream),
+					exportRun);
+		}
+	}
+
+	private ArchiveWriter createArchiveWriter(ExportFormat format, OutputStream outputStream) {
+		if (format == ExportFormat.ZIP) {
+			return new ZipArchiveWriter(outputStream);
+		}
+		return new TarArchiveWriter(outputStream, Instant.now().getEpochSecond());
+	}
+
+	private void exportRecordsAsNdjson(String dataDivider, Iterator<String> recordIds,
+			OutputStream outputStream, ExportRun exportRun) throws IOException {
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		OrderedPrefetcher.forEachInOrder(recordIds, maxParallelFetches,
+				recordId -> fetchRecord(dataDivider, recordId),
+				fetchedRecord -> writeRecordLine(writer, fetchedRecord, exportRun),
+				fetchedRecord -> {
+				});
+		writer.flush();
+	}
+
+	private FetchedRecord fetchRecord(String dataDivider, String recordId) {
+		try {
+			return new FetchedRecord(recordId, fedoraAdapter.readRecord(dataDivider, recordId));
+		} catch (RuntimeException e) {
+			return new FetchedRecord(recordId, null);
+		}
+	}
+
+	private void writeRecordLine(Writer writer, FetchedRecord fetchedRecord,
+			ExportRun exportRun) {
+		exportRun.numberOfIds++;
+		if (fetchedRecord.recordXml() == null) {
+			exportRun.failedIds.add(fetchedRecord.recordId());
+			return;
+		}
+		try {
+			writer.write("{\"id\":" + toJsonString(fetchedRecord.recordId()) + ",\"recordXml\":"
+					+ toJsonString(fetchedRecord.recordXml()) + "}\n");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void exportAsArchive(String dataDivider, Iterator<String> ids,
+			ArchiveWriter archiveWriter, ExportRun exportRun) throws IOException {
+		OrderedPrefetcher.forEachInOrder(ids, maxParallelFetches,
+				id -> fetchResource(dataDivider, id),
+				fetchedResource -> writeArchiveEntries(archiveWriter, fetchedResource, exportRun),
+				this::discardContent);
+		archiveWriter.finish();
+	}
+
+	private FetchedResource fetchResource(String dataDivider, String id) {
+		try {
+			ResourceMetadata metadata = fedoraAdapter.readResourceMetadata(dataDivider, id);
+			long size = Long.parseLong(metadata.fileSize());
+			Path contentFile = spoolContentIfItHasItsSize(dataDivider, id, size);
+			return new FetchedResource(id, metadata, size, contentFile);
+		} catch (RuntimeException e) {
+			return new FetchedResource(id, null, 0, null);
+		}
+	}
+
+	private Path spoolContentIfItHasItsSize(String dataDivider, String id, long size) {
+		Path contentFile = createTemporaryFile();
+		try (InputStream content = fedoraAdapter.readResource(dataDivider, id)) {
+			long copied = Files.copy(content, contentFile, StandardCopyOption.REPLACE_EXISTING);
+			if (copied == size) {
+				return contentFile;
+			}
+		} catch (IOException | RuntimeException e) {
+			// content that can not be read is reported as failed, like content of the wrong size
+		}
+		deleteIgnoringErrors(contentFile);
+		return null;
+	}
+
+	private void writeArchiveEntries(ArchiveWriter archiveWriter,
+			FetchedResource fetchedResource, ExportRun exportRun) {
+		exportRun.numberOfIds++;
+		if (fetchedResource.contentFile() == null) {
+			exportRun.failedIds.add(fetchedResource.id());
+			return;
+		}
+		try (InputStream content = Files.newInputStream(fetchedResource.contentFile())) {
+			writeMetadataEntry(archiveWriter, fetchedResource);
+			archiveWriter.writeEntry(fetchedResource.id(), fetchedResource.size(), content);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			discardContent(fetchedResource);
+		}
+	}
+
+	private Path createTemporaryFile() {
+		try {
+			return Files.createTempFile(TEMPORARY_FILE_PREFIX, null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void deleteIgnoringErrors(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			// a temporary file that can not be removed does not affect the export
+		}
+	}
+
+	private void writeMetadataEntry(ArchiveWriter archiveWriter, FetchedResource fetchedResource)
+			throws IOException {
+		ResourceMetadata metadata = fetchedResource.metadata();
+		String metadataJson = "{\"id\":" + toJsonString(fetchedResource.id()) + ",\"fileSize\":"
+				+ toJsonString(metadata.fileSize()) + ",\"checksumSHA512\":"
+				+ toJsonString(metadata.checksumSHA512()) + createMimeTypeJson(metadata) + "}";
+		byte[] metadataBytes = metadataJson.getBytes(StandardCharsets.UTF_8);
+		archiveWriter.writeEntry(fetchedResource.id() + METADATA_SUFFIX, metadataBytes.length,
+				new ByteArrayInputStream(metadataBytes));
+	}
+
+	private String createMimeTypeJson(ResourceMetadata metadata) {
+		if (metadata.mimeType() == null) {
+			return "";
+		}
+		return ",\"mimeType\":" + toJsonString(metadata.mimeType());
+	}
+
+	private void discardContent(FetchedResource fetchedResource) {
+		if (fetchedResource.contentFile() != null) {
+			deleteIgnoringErrors(fetchedResource.contentFile());
+		}
+	}
+
+	private static String toJsonString(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder json = new StringBuilder(value.length() + 2);
+		json.append('"');
+		for (char c : value.toCharArray()) {
+			appendEscaped(json, c);
+		}
+		return json.append('"').toString();
+	}
+
+	private static void appendEscaped(StringBuilder json, char c) {
+		switch (c) {
+		case '"' -> json.append("\\\"");
+		case '\\' -> json.append("\\\\");
+		case '\n' -> json.append("\\n");
+		case '\r' -> json.append("\\r");
+		case '\t' -> json.append("\\t");
+		default -> appendPossiblyControlCharacter(json, c);
+		}
+	}
+
+	private static void appendPossiblyControlCharacter(StringBuilder json, char c) {
+		if (c < 0x20) {
+			json.append(String.format("\\u%04x", (int) c));
+		} else {
+			json.append(c);
+		}
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public ContainerLister onlyForTestGetContainerLister() {
+		return containerLister;
+	}
+
+	public int onlyForTestGetMaxParallelFetches() {
+		return maxParallelFetches;
+	}
+
+	private record FetchedRecord(String recordId, String recordXml) {
+	}
+
+	private record FetchedResource(String id, ResourceMetadata metadata, long size,
+			Path contentFile) {
+	}
+
+	private static class ExportRun {
+		private int numberOfIds = 0;
+		private List<String> failedIds = new ArrayList<>();
+	}
+}
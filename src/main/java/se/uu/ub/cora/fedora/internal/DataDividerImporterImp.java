@@ -0,0 +1,275 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraConflictException;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.bulk.DataDividerImporter;
+import se.uu.ub.cora.fedora.bulk.ImportReport;
+import se.uu.ub.cora.fedora.bulk.ImportType;
+import se.uu.ub.cora.json.parser.JsonObject;
+import se.uu.ub.cora.json.parser.JsonParser;
+import se.uu.ub.cora.json.parser.JsonValueType;
+
+/**
+ * DataDividerImporterImp imports items by creating them through a FedoraAdapter, using at most
+ * maxParallelWorkers threads.
+ * <p>
+ * Items are read from the source in the calling thread and handed to the workers, with at most
+ * twice as many items read as there are workers ahead of the items being created, so that the
+ * memory and temporary disk space used does not depend on the number of items in the source.
+ * Items spooled to temporary files by the source are discarded as soon as they are imported.
+ * <p>
+ * Resources are created with the mime type from the metadata written for them by an export. When
+ * the source has no such metadata the mime type is guessed from the id.
+ */
+public class DataDividerImporterImp implements DataDividerImporter {
+	private static final String MIME_TYPE = "mimeType";
+	private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+	private static final String ERR_MSG_UNKNOWN_SOURCE = "Unable to import from {0}, it is not a "
+			+ "directory or a tar, zip or ndjson file.";
+	private static final String ERR_MSG_NDJSON_RESOURCES = "Unable to import resources from {0}, "
+			+ "ndjson files can only contain records.";
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error importing from {0} into "
+			+ "dataDivider {1}. An internal error has been thrown.";
+	private static final String ERR_MSG_INTERRUPTED = "Import from {0} into dataDivider {1} was "
+			+ "interrupted.";
+
+	private FedoraAdapter fedoraAdapter;
+	private JsonParser jsonParser;
+	private int maxParallelWorkers;
+
+	public DataDividerImporterImp(FedoraAdapter fedoraAdapter, JsonParser jsonParser,
+			int maxParallelWorkers) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.jsonParser = jsonParser;
+		this.maxParallelWorkers = maxParallelWorkers;
+	}
+
+	@Override
+	public ImportReport importItems(String dataDivider, ImportType type, Path source,
+			Path checkpointFile) {
+		long startTime = System.nanoTime();
+		ImportSource importSource = createImportSource(type, source);
+		ImportRun importRun = new ImportRun(dataDivider, type);
+		ImportCheckpoint checkpoint = openCheckpoint(dataDivider, type, source, checkpointFile);
+		try (checkpoint) {
+			importRun.importItems(importSource, checkpoint);
+		} catch (IOException | RuntimeException e) {
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, source, dataDivider), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_INTERRUPTED, source, dataDivider), e);
+		}
+		Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+		return importRun.createReport(duration);
+	}
+
+	private ImportCheckpoint openCheckpoint(String dataDivider, ImportType type, Path source,
+			Path checkpointFile) {
+		try {
+			return ImportCheckpoint.usingFileForImport(checkpointFile, dataDivider, type);
+		} catch (IOException e) {
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, source, dataDivider), e);
+		}
+	}
+
+	private ImportSource createImportSource(ImportType type, Path source) {
+		String fileName = String.valueOf(source.getFileName());
+		if (Files.isDirectory(source)) {
+			return new DirectoryImportSource(source);
+		}
+		if (fileName.endsWith(".tar")) {
+			return new TarImportSource(source);
+		}
+		if (fileName.endsWith(".zip")) {
+			return new ZipImportSource(source);
+		}
+		if (fileName.endsWith(".ndjson")) {
+			return createNdjsonImportSource(type, source);
+		}
+		throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_UNKNOWN_SOURCE, source));
+	}
+
+	private ImportSource createNdjsonImportSource(ImportType type, Path source) {
+		if (type == ImportType.RESOURCES) {
+			throw FedoraException
+					.withMessage(MessageFormat.format(ERR_MSG_NDJSON_RESOURCES, source));
+		}
+		return new NdjsonImportSource(source, jsonParser);
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public JsonParser onlyForTestGetJsonParser() {
+		return jsonParser;
+	}
+
+	public int onlyForTestGetMaxParallelWorkers() {
+		return maxParallelWorkers;
+	}
+
+	private class ImportRun {
+		private String dataDivider;
+		private ImportType type;
+		private AtomicInteger numberOfItems = new AtomicInteger();
+		private AtomicInteger numberOfImportedItems = new AtomicInteger();
+		private AtomicInteger numberOfSkippedItems = new AtomicInteger();
+		private List<String> alreadyExistingIds = Collections.synchronizedList(new ArrayList<>());
+		private List<String> failedIds = Collections.synchronizedList(new ArrayList<>());
+
+		private ImportRun(String dataDivider, ImportType type) {
+			this.dataDivider = dataDivider;
+			this.type = type;
+		}
+
+		private void importItems(ImportSource importSource, ImportCheckpoint checkpoint)
+				throws IOException, InterruptedException {
+			ExecutorService executor = Executors.newFixedThreadPool(maxParallelWorkers);
+			Semaphore readAhead = new Semaphore(2 * maxParallelWorkers);
+			try {
+				importSource.forEachItem(id -> isNotCompleted(checkpoint, id),
+						item -> startImport(executor, readAhead, checkpoint, item));
+			} finally {
+				executor.shutdown();
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		private boolean isNotCompleted(ImportCheckpoint checkpoint, String id) {
+			numberOfItems.incrementAndGet();
+			if (checkpoint.isCompleted(id)) {
+				numberOfSkippedItems.incrementAndGet();
+				return false;
+			}
+			return true;
+		}
+
+		private void startImport(ExecutorService executor, Semaphore readAhead,
+				ImportCheckpoint checkpoint, ImportItem item) {
+			readAhead.acquireUninterruptibly();
+			executor.execute(() -> {
+				try {
+					importItem(checkpoint, item);
+				} finally {
+					discardIgnoringErrors(item);
+					readAhead.release();
+				}
+			});
+		}
+
+		private void discardIgnoringErrors(ImportItem item) {
+			try {
+				item.discard();
+			} catch (IOException e) {
+				// a temporary file that can not be removed does not affect the import
+			}
+		}
+
+		private void importItem(ImportCheckpoint checkpoint, ImportItem item) {
+			try {
+				boolean created = createItemUnlessItExists(item);
+				checkpoint.markAsCompleted(item.id());
+				countCompletedItem(item, created);
+			} catch (IOException | RuntimeException e) {
+				failedIds.add(item.id());
+			}
+		}
+
+		private boolean createItemUnlessItExists(ImportItem item) throws IOException {
+			try {
+				createItem(item);
+				return true;
+			} catch (FedoraConflictException e) {
+				return false;
+			}
+		}
+
+		private void countCompletedItem(ImportItem item, boolean created) {
+			if (created) {
+				numberOfImportedItems.incrementAndGet();
+			} else {
+				alreadyExistingIds.add(item.id());
+			}
+		}
+
+		private void createItem(ImportItem item) throws IOException {
+			try (InputStream content = item.openContent()) {
+				if (type == ImportType.RECORDS) {
+					String recordXml = new String(content.readAllBytes(), StandardCharsets.UTF_8);
+					fedoraAdapter.createRecord(dataDivider, item.id(), recordXml);
+				} else {
+					fedoraAdapter.createResource(dataDivider, item.id(), content,
+							readOrGuessMimeType(item));
+				}
+			}
+		}
+
+		private String readOrGuessMimeType(ImportItem item) {
+			String mimeType = readMimeTypeFromMetadata(item.metadataJson());
+			return mimeType != null ? mimeType : guessMimeType(item.id());
+		}
+
+		private String readMimeTypeFromMetadata(String metadataJson) {
+			if (metadataJson == null) {
+				return null;
+			}
+			JsonObject metadata = jsonParser.parseStringAsObject(metadataJson);
+			if (metadata.containsKey(MIME_TYPE)
+					&& metadata.getValue(MIME_TYPE).getValueType() == JsonValueType.STRING) {
+				return metadata.getValueAsJsonString(MIME_TYPE).getStringValue();
+			}
+			return null;
+		}
+
+		private String guessMimeType(String id) {
+			String mimeType = URLConnection.guessContentTypeFromName(id);
+			return mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+		}
+
+		private ImportReport createReport(Duration duration) {
+			return new ImportReport(dataDivider, numberOfItems.get(), numberOfImportedItems.get(),
+					numberOfSkippedItems.get(), List.copyOf(alreadyExistingIds),
+					List.copyOf(failedIds), duration);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * DirectoryImportSource reads each regular file in a directory as an item with the file name as
+ * id. The content of the files is read when the items are imported.
+ */
+class DirectoryImportSource implements ImportSource {
+	private Path directory;
+
+	DirectoryImportSource(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public void forEachItem(Predicate<String> isWanted, Consumer<ImportItem> consumer)
+			throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+				Files::isRegularFile)) {
+			for (Path file : files) {
+				handleFile(file, isWanted, consumer);
+			}
+		}
+	}
+
+	private void handleFile(Path file, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) throws IOException {
+		String id = file.getFileName().toString();
+		if (!id.endsWith(METADATA_SUFFIX) && isWanted.test(id)) {
+			consumer.accept(ImportItem.fromFile(id, file, readMetadataIfPresent(id)));
+		}
+	}
+
+	private String readMetadataIfPresent(String id) throws IOException {
+		Path metadataFile = directory.resolve(id + METADATA_SUFFIX);
+		if (Files.isRegularFile(metadataFile) && Files.size(metadataFile) <= MAX_METADATA_SIZE) {
+			return Files.readString(metadataFile, StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+}
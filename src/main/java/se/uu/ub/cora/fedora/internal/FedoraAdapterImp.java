@@ -1,5 +1,5 @@
 /*
- * Copyright 2022, 2023 Uppsala University Library
+ * Copyright 2022, 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -18,17 +18,48 @@
  */
 package se.uu.ub.cora.fedora.internal;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import se.uu.ub.cora.fedora.FedoraAdapter;
 import se.uu.ub.cora.fedora.FedoraConflictException;
 import se.uu.ub.cora.fedora.FedoraException;
 import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.FedoraRangeNotSatisfiableException;
+import se.uu.ub.cora.fedora.FedoraRejectedException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
 import se.uu.ub.cora.fedora.record.ResourceMetadata;
 import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
 import se.uu.ub.cora.httphandler.HttpHandler;
 import se.uu.ub.cora.httphandler.HttpHandlerFactory;
 
@@ -43,10 +74,34 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	private static final int OK = 200;
 	private static final int CREATED = 201;
 	private static final int NO_CONTENT = 204;
+	private static final int PARTIAL_CONTENT = 206;
+	private static final int NOT_MODIFIED = 304;
 	private static final int NOT_FOUND = 404;
+	private static final int PRECONDITION_FAILED = 412;
+	private static final int RANGE_NOT_SATISFIABLE = 416;
+	private static final int FIRST_CLIENT_ERROR = 400;
+	private static final int FIRST_SERVER_ERROR = 500;
 
 	private static final String ACCEPT = "Accept";
 	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String CONTENT_LENGTH = "Content-Length";
+	private static final String DIGEST = "Digest";
+	private static final String DIGEST_SHA_512 = "sha-512=";
+	private static final String WANT_DIGEST = "Want-Digest";
+	private static final String SHA_512 = "sha-512";
+	private static final String ETAG = "ETag";
+	private static final String IF_NONE_MATCH = "If-None-Match";
+	private static final String IF_MATCH = "If-Match";
+	private static final String RANGE = "Range";
+	private static final String IF_RANGE = "If-Range";
+	private static final String LINK = "Link";
+	private static final String EXTERNAL_CONTENT_LINK = "<{0}>; "
+			+ "rel=\"http://fedora.info/definitions/fcrepo#ExternalContent\"; "
+			+ "handling=\"{1}\"; type=\"{2}\"";
+	private static final String CONTENT_RANGE = "Content-Range";
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern
+			.compile("^bytes (\\d+)-(\\d+)/(\\d+|\\*)$");
+	private static final String UNKNOWN_LENGTH = "*";
 
 	private static final String MIME_TYPE_TEXT_PLAIN_UTF_8 = "text/plain;charset=utf-8";
 	private static final String FCR_TOMBSTONE = "/fcr:tombstone";
@@ -55,6 +110,8 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	private static final String RESOURCE = "resource";
 	private static final String RESPONSE_CODE = "responseCode";
 	private static final String RESPONSE_BODY = "responseBody";
+	private static final String RESPONSE_TEXT = "responseText";
+	private static final String REVALIDATE = "revalidate";
 
 	private static final String CREATING = "creating";
 	private static final String READING = "reading";
@@ -62,6 +119,7 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	private static final String UPDATING_METADATA = "updating metadata for";
 	private static final String UPDATING = "updating";
 	private static final String DELETING = "deleting";
+	private static final String RESUMING = "resuming reading of";
 
 	private static final String ERR_MSG_INTERNAL_ERROR = "Error {0} a {1}. An internal "
 			+ "error has been thrown for {1} id {2}.";
@@ -71,16 +129,37 @@ public class FedoraAdapterImp implements FedoraAdapter {
 			+ "already exists in Fedora.";
 	private static final String ERR_MSG_NOT_FOUND_IN_FEDORA = "Error {0} in Fedora: {1} id "
 			+ "{2} was not found in Fedora.";
+	private static final String ERR_MSG_INVALID_RANGE = "Error reading range of resource id {0}: "
+			+ "offset {1} and length {2} do not describe a valid range.";
+	private static final String ERR_MSG_RANGE_NOT_SATISFIABLE = "Error reading range of resource "
+			+ "id {0}: range {1} is not satisfiable, Fedora returned Content-Range {2}.";
+	private static final String ERR_MSG_INVALID_CONTENT_RANGE = "Error reading range of resource "
+			+ "id {0}: Fedora returned the invalid Content-Range {1}.";
+	private static final String ERR_MSG_RESOURCE_CHANGED = "Error resuming reading of resource "
+			+ "id {0} at byte {1}: the resource has been changed or removed in Fedora.";
+	private static final String ERR_MSG_RESUMED_AT_WRONG_POSITION = "Error resuming reading of "
+			+ "resource id {0} at byte {1}: Fedora returned Content-Range {2}.";
+	private static final String ERR_MSG_RESOURCE_CHANGED_BEFORE_UPDATE = "Error updating in "
+			+ "Fedora: resource id {0} was changed in Fedora after it was compared with the file.";
+
+	private static final long TRANSACTION_KEEP_ALIVE_INTERVAL_IN_MILLIS = 60_000;
 
 	private HttpHandlerFactory httpHandlerFactory;
 	private String baseUrl;
 	private ResourceMetadataParser resourceMetadataParser;
+	private ReadCoalescer readCoalescer;
+	private FileUploader fileUploader;
+	private Executor batchExecutor;
 
 	public FedoraAdapterImp(HttpHandlerFactory httpHandlerFactory, String baseUrl,
-			ResourceMetadataParser resourceMetadataParser) {
+			ResourceMetadataParser resourceMetadataParser, ReadCoalescer readCoalescer,
+			FileUploader fileUploader, Executor batchExecutor) {
 		this.httpHandlerFactory = httpHandlerFactory;
 		this.baseUrl = baseUrl;
 		this.resourceMetadataParser = resourceMetadataParser;
+		this.readCoalescer = readCoalescer;
+		this.fileUploader = fileUploader;
+		this.batchExecutor = batchExecutor;
 	}
 
 	@Override
@@ -102,11 +181,24 @@ public class FedoraAdapterImp implements FedoraAdapter {
 					MessageFormat.format(ERR_MSG_CREATE_CONFLICT, recordId, typeOfRecord));
 		}
 		if (responseCode != NOT_FOUND) {
-			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
-					recordId, typeOfRecord, responseCode));
+			throw createErrorForResponseCode(CREATING, recordId, typeOfRecord, responseCode);
 		}
 	}
 
+	private FedoraException createErrorForResponseCode(String typeOfAction, String id,
+			String typeOfRecord, int responseCode) {
+		String message = MessageFormat.format(ERR_MSG_FEDORA_ERROR, typeOfAction, id,
+				typeOfRecord, responseCode);
+		if (isClientError(responseCode)) {
+			return FedoraRejectedException.withMessage(message);
+		}
+		return FedoraException.withMessage(message);
+	}
+
+	private boolean isClientError(int responseCode) {
+		return responseCode >= FIRST_CLIENT_ERROR && responseCode < FIRST_SERVER_ERROR;
+	}
+
 	private int readObjectFromFedora(String path, String recordId, String typeOfRecord,
 			String typeOfAction) {
 		try {
@@ -150,8 +242,7 @@ public class FedoraAdapterImp implements FedoraAdapter {
 
 	private void throwErrorIfCreateNotOk(int responseCode, String recordId, String typeOfRecord) {
 		if (responseCode != CREATED) {
-			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
-					recordId, typeOfRecord, responseCode));
+			throw createErrorForResponseCode(CREATING, recordId, typeOfRecord, responseCode);
 		}
 	}
 
@@ -164,12 +255,36 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	}
 
 	@Override
-	public void createResource(String dataDivider, String resourceId, InputStream resource,
-			String contentType) {
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		return ParallelBatch.runInParallel(batchExecutor, records, maxParallelCreates,
+				this::createRecordInBatch);
+	}
+
+	private BatchItemResult createRecordInBatch(RecordToCreate recordToCreate) {
+		String dataDivider = recordToCreate.dataDivider();
+		String recordId = recordToCreate.recordId();
+		try {
+			createRecord(dataDivider, recordId, recordToCreate.recordXml());
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.CREATED, null);
+		} catch (FedoraConflictException e) {
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.CONFLICT,
+					e.getMessage());
+		} catch (RuntimeException e) {
+			return new BatchItemResult(dataDivider, recordId, BatchOutcome.ERROR, e.getMessage());
+		}
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String contentType) {
 		String path = assemblePathForRecord(dataDivider, resourceId);
 		ensureResourceNotExists(path, resourceId);
-		int responseCode = callFedoraToStoreResource(path, resourceId, resource, contentType);
+		ChecksummingInputStream checksummingResource = new ChecksummingInputStream(resource);
+		int responseCode = callFedoraToStoreResource(path, resourceId, checksummingResource,
+				contentType);
 		throwErrorIfCreateNotOk(responseCode, resourceId, RESOURCE);
+		return checksummingResource.toResourceMetadata();
 	}
 
 	private void ensureResourceNotExists(String path, String resourceId) {
@@ -195,13 +310,126 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		return httpHandler;
 	}
 
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		ensureResourceNotExists(path, resourceId);
+		Map<String, Object> response = callFedoraToStoreResourceFromFile(path, resourceId,
+				resource, mimeType, CREATING);
+		throwErrorIfCreateNotOk((int) response.get(RESPONSE_CODE), resourceId, RESOURCE);
+		return (ResourceMetadata) response.get(RESPONSE_BODY);
+	}
+
+	private Map<String, Object> callFedoraToStoreResourceFromFile(String path, String resourceId,
+			Path resource, String mimeType, String typeOfAction) {
+		try (FileChannel channel = FileChannel.open(resource, StandardOpenOption.READ)) {
+			ResourceMetadata resourceMetadata = calculateResourceMetadata(channel);
+			int responseCode = uploadFileWithDigest(path, channel, mimeType, resourceMetadata);
+			return buildResponse(resourceMetadata, responseCode);
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, typeOfAction);
+		}
+	}
+
+	private int uploadFileWithDigest(String path, FileChannel channel, String mimeType,
+			ResourceMetadata resourceMetadata) throws IOException {
+		Map<String, String> requestProperties = createUploadRequestProperties(mimeType);
+		requestProperties.put(DIGEST, createDigestValue(resourceMetadata.checksumSHA512()));
+		return fileUploader.upload(path, PUT, requestProperties, Channels.newInputStream(channel),
+				channel.size());
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		ensureResourceNotExists(path, resourceId);
+		int responseCode = callFedoraToStoreExternalResource(path, resourceId, externalContent,
+				mimeType, handling, CREATING);
+		throwErrorIfCreateNotOk(responseCode, resourceId, RESOURCE);
+	}
+
+	private int callFedoraToStoreExternalResource(String path, String resourceId,
+			URI externalContent, String mimeType, ExternalContentHandling handling,
+			String typeOfAction) {
+		try {
+			HttpHandler httpHandler = factorHttpHandler(path, PUT);
+			httpHandler.setRequestProperty(LINK,
+					createExternalContentLink(externalContent, mimeType, handling));
+			return httpHandler.getResponseCode();
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, typeOfAction);
+		}
+	}
+
+	private String createExternalContentLink(URI externalContent, String mimeType,
+			ExternalContentHandling handling) {
+		return MessageFormat.format(EXTERNAL_CONTENT_LINK, externalContent.toASCIIString(),
+				handling.name().toLowerCase(Locale.ROOT), mimeType);
+	}
+
+	private ResourceMetadata calculateResourceMetadata(FileChannel channel) throws IOException {
+		ResourceMetadata resourceMetadata = new ChecksummingInputStream(
+				Channels.newInputStream(channel)).readToEnd();
+		channel.position(0);
+		return resourceMetadata;
+	}
+
+	private Map<String, String> createUploadRequestProperties(String mimeType) {
+		Map<String, String> requestProperties = new LinkedHashMap<>();
+		requestProperties.put(CONTENT_TYPE, mimeType);
+		return requestProperties;
+	}
+
+	private String createDigestValue(String checksumSHA512) {
+		byte[] checksum = HexFormat.of().parseHex(checksumSHA512);
+		return DIGEST_SHA_512 + Base64.getEncoder().encodeToString(checksum);
+	}
+
 	@Override
 	public String readRecord(String dataDivider, String recordId) {
+		return readVersionedRecord(dataDivider, recordId).recordXml();
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		return MultiRecordReader.readRecords(batchExecutor, recordIds, maxParallelReads,
+				recordId -> readRecord(dataDivider, recordId));
+	}
+
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, baseUrl);
+		return containerLister.streamIds(dataDivider);
+	}
+
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		ContainerLister containerLister = new ContainerListerImp(httpHandlerFactory, baseUrl);
+		ModifiedIdFinder modifiedIdFinder = new ModifiedIdFinder(containerLister,
+				httpHandlerFactory, baseUrl, batchExecutor);
+		return modifiedIdFinder.findIdsModifiedSince(dataDivider, since, maxParallelChecks);
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
 		String path = assemblePathForRecord(dataDivider, recordId);
+		return readCoalescer.read(RECORD + path, () -> readRecordFromFedora(path, recordId));
+	}
+
+	private VersionedRecord readRecordFromFedora(String path, String recordId) {
 		Map<String, Object> response = callFedoraReadRecord(path, recordId);
 		int responseCode = (int) response.get(RESPONSE_CODE);
 		throwErrorIfNotOk(responseCode, recordId, RECORD, READING);
-		return (String) response.get("responseText");
+		return createVersionedRecord(response);
+	}
+
+	private VersionedRecord createVersionedRecord(Map<String, Object> response) {
+		return new VersionedRecord((String) response.get(RESPONSE_TEXT),
+				(String) response.get(ETAG));
 	}
 
 	private Map<String, Object> callFedoraReadRecord(String path, String recordId) {
@@ -216,7 +444,53 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	private Map<String, Object> createResponseForRecord(HttpHandler httpHandler) {
 		Map<String, Object> response = new HashMap<>();
 		response.put(RESPONSE_CODE, httpHandler.getResponseCode());
-		response.put("responseText", httpHandler.getResponseText());
+		addRecordAndETagToResponse(response, httpHandler);
+		return response;
+	}
+
+	private void addRecordAndETagToResponse(Map<String, Object> response,
+			HttpHandler httpHandler) {
+		response.put(RESPONSE_TEXT, httpHandler.getResponseText());
+		response.put(ETAG, httpHandler.getHeaderField(ETAG));
+	}
+
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		String path = assemblePathForRecord(dataDivider, recordId);
+		return readCoalescer.read(REVALIDATE + path + etag,
+				() -> readRecordFromFedoraIfChanged(path, recordId, etag));
+	}
+
+	private Optional<VersionedRecord> readRecordFromFedoraIfChanged(String path, String recordId,
+			String etag) {
+		Map<String, Object> response = callFedoraReadRecordIfChanged(path, recordId, etag);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		if (responseCode == NOT_MODIFIED) {
+			return Optional.empty();
+		}
+		throwErrorIfNotOk(responseCode, recordId, RECORD, READING);
+		return Optional.of(createVersionedRecord(response));
+	}
+
+	private Map<String, Object> callFedoraReadRecordIfChanged(String path, String recordId,
+			String etag) {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForRead(path);
+			httpHandler.setRequestProperty(IF_NONE_MATCH, etag);
+			return createResponseForRecordIfChanged(httpHandler);
+		} catch (Exception e) {
+			throw createFedoraException(recordId, e, RECORD, READING);
+		}
+	}
+
+	private Map<String, Object> createResponseForRecordIfChanged(HttpHandler httpHandler) {
+		Map<String, Object> response = new HashMap<>();
+		int responseCode = httpHandler.getResponseCode();
+		response.put(RESPONSE_CODE, responseCode);
+		if (responseCode == OK) {
+			addRecordAndETagToResponse(response, httpHandler);
+		}
 		return response;
 	}
 
@@ -267,9 +541,278 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		return response;
 	}
 
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		Map<String, Object> response = callFedoraReadResumableResource(path, resourceId);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		throwErrorIfNotOk(responseCode, resourceId, RESOURCE, READING);
+		InputStream resource = (InputStream) response.get(RESPONSE_BODY);
+		String etag = (String) response.get(ETAG);
+		if (etag == null || maxResumeAttempts < 1) {
+			return resource;
+		}
+		return new ResumingInputStream(resource,
+				position -> resumeReadResource(path, resourceId, etag, position),
+				maxResumeAttempts);
+	}
+
+	private Map<String, Object> callFedoraReadResumableResource(String path, String resourceId) {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForReadResource(path);
+			Map<String, Object> response = createResponseForResource(httpHandler);
+			response.put(ETAG, httpHandler.getHeaderField(ETAG));
+			return response;
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, READING);
+		}
+	}
+
+	private InputStream resumeReadResource(String path, String resourceId, String etag,
+			long position) throws IOException {
+		Map<String, Object> response = callFedoraResumeReadResource(path, resourceId, etag,
+				position);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		if (responseCode == OK || responseCode == NOT_FOUND) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_RESOURCE_CHANGED,
+					resourceId, String.valueOf(position)));
+		}
+		if (responseCode != PARTIAL_CONTENT) {
+			throw new IOException(MessageFormat.format(ERR_MSG_FEDORA_ERROR, RESUMING,
+					resourceId, RESOURCE, responseCode));
+		}
+		String contentRange = (String) response.get(CONTENT_RANGE);
+		ResourceRange resourceRange = createResourceRange(resourceId,
+				(InputStream) response.get(RESPONSE_BODY), contentRange);
+		ensureResumedAtPosition(resourceId, position, resourceRange, contentRange);
+		return resourceRange.resource();
+	}
+
+	private Map<String, Object> callFedoraResumeReadResource(String path, String resourceId,
+			String etag, long position) throws IOException {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForReadResourceRange(path,
+					"bytes=" + position + "-");
+			httpHandler.setRequestProperty(IF_RANGE, etag);
+			return createResponseForResourceRange(httpHandler);
+		} catch (Exception e) {
+			throw new IOException(MessageFormat.format(ERR_MSG_INTERNAL_ERROR, RESUMING,
+					RESOURCE, resourceId), e);
+		}
+	}
+
+	private void ensureResumedAtPosition(String resourceId, long position,
+			ResourceRange resourceRange, String contentRange) {
+		if (resourceRange.offset() != position) {
+			closeIgnoringErrors(resourceRange.resource());
+			throw FedoraException.withMessage(MessageFormat.format(
+					ERR_MSG_RESUMED_AT_WRONG_POSITION, resourceId, String.valueOf(position),
+					contentRange));
+		}
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		Map<String, Object> response = callFedoraReadVerifiedResource(path, resourceId);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		throwErrorIfNotOk(responseCode, resourceId, RESOURCE, READING);
+		InputStream resource = (InputStream) response.get(RESPONSE_BODY);
+		Optional<String> checksum = parseChecksumFromDigest((String) response.get(DIGEST));
+		if (checksum.isEmpty()) {
+			ResourceMetadata expectedMetadata = readResourceMetadataClosingResourceOnError(
+					dataDivider, resourceId, resource);
+			return new VerifyingInputStream(resourceId, resource, expectedMetadata);
+		}
+		ResourceMetadata expectedMetadata = new ResourceMetadata(
+				(String) response.get(CONTENT_LENGTH), checksum.get());
+		return new VerifyingInputStream(resourceId, resource, expectedMetadata);
+	}
+
+	private Map<String, Object> callFedoraReadVerifiedResource(String path, String resourceId) {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForReadResource(path);
+			httpHandler.setRequestProperty(WANT_DIGEST, SHA_512);
+			Map<String, Object> response = createResponseForResource(httpHandler);
+			response.put(DIGEST, httpHandler.getHeaderField(DIGEST));
+			response.put(CONTENT_LENGTH, httpHandler.getHeaderField(CONTENT_LENGTH));
+			return response;
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, READING);
+		}
+	}
+
+	private Optional<String> parseChecksumFromDigest(String digest) {
+		if (digest == null) {
+			return Optional.empty();
+		}
+		for (String digestValue : digest.split(",")) {
+			String trimmedValue = digestValue.trim();
+			if (trimmedValue.regionMatches(true, 0, DIGEST_SHA_512, 0, DIGEST_SHA_512.length())) {
+				return decodeDigestValue(trimmedValue.substring(DIGEST_SHA_512.length()));
+			}
+		}
+		return Optional.empty();
+	}
+
+	private Optional<String> decodeDigestValue(String encodedChecksum) {
+		try {
+			byte[] checksum = Base64.getDecoder().decode(encodedChecksum);
+			return Optional.of(HexFormat.of().formatHex(checksum));
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+	private ResourceMetadata readResourceMetadataClosingResourceOnError(String dataDivider,
+			String resourceId, InputStream resource) {
+		try {
+			return readResourceMetadata(dataDivider, resourceId);
+		} catch (RuntimeException e) {
+			closeIgnoringErrors(resource);
+			throw e;
+		}
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		InputStream resource = readResource(dataDivider, resourceId);
+		return new VerifyingInputStream(resourceId, resource, expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		ensureValidRange(resourceId, offset, length);
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		String range = assembleRange(offset, length);
+		Map<String, Object> response = callFedoraReadResourceRange(path, resourceId, range);
+		int responseCode = (int) response.get(RESPONSE_CODE);
+		String contentRange = (String) response.get(CONTENT_RANGE);
+		throwErrorIfNotPartialContent(responseCode, resourceId, range, contentRange);
+		return createResourceRange(resourceId, (InputStream) response.get(RESPONSE_BODY),
+				contentRange);
+	}
+
+	private void ensureValidRange(String resourceId, long offset, long length) {
+		if (offset < 0 || length < 1 || length > Long.MAX_VALUE - offset) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_INVALID_RANGE,
+					resourceId, String.valueOf(offset), String.valueOf(length)));
+		}
+	}
+
+	private String assembleRange(long offset, long length) {
+		return "bytes=" + offset + "-" + (offset + length - 1);
+	}
+
+	private Map<String, Object> callFedoraReadResourceRange(String path, String resourceId,
+			String range) {
+		try {
+			HttpHandler httpHandler = setUpHttpHandlerForReadResourceRange(path, range);
+			return createResponseForResourceRange(httpHandler);
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, READING);
+		}
+	}
+
+	private HttpHandler setUpHttpHandlerForReadResourceRange(String path, String range) {
+		HttpHandler httpHandler = factorHttpHandler(path, GET);
+		httpHandler.setRequestProperty(RANGE, range);
+		return httpHandler;
+	}
+
+	private Map<String, Object> createResponseForResourceRange(HttpHandler httpHandler) {
+		Map<String, Object> response = new HashMap<>();
+		int responseCode = httpHandler.getResponseCode();
+		response.put(RESPONSE_CODE, responseCode);
+		response.put(CONTENT_RANGE, httpHandler.getHeaderField(CONTENT_RANGE));
+		if (responseCode == PARTIAL_CONTENT) {
+			response.put(RESPONSE_BODY, httpHandler.getResponseBinary());
+		}
+		return response;
+	}
+
+	private void throwErrorIfNotPartialContent(int responseCode, String resourceId, String range,
+			String contentRange) {
+		if (responseCode == NOT_FOUND) {
+			throw FedoraNotFoundException.withMessage(MessageFormat
+					.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING, RESOURCE, resourceId));
+		}
+		if (responseCode == RANGE_NOT_SATISFIABLE) {
+			throw FedoraRangeNotSatisfiableException.withMessage(MessageFormat
+					.format(ERR_MSG_RANGE_NOT_SATISFIABLE, resourceId, range, contentRange));
+		}
+		if (responseCode != PARTIAL_CONTENT) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					resourceId, RESOURCE, responseCode));
+		}
+	}
+
+	private ResourceRange createResourceRange(String resourceId, InputStream resource,
+			String contentRange) {
+		Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange == null ? "" : contentRange);
+		if (!matcher.matches()) {
+			closeIgnoringErrors(resource);
+			throw FedoraException.withMessage(MessageFormat
+					.format(ERR_MSG_INVALID_CONTENT_RANGE, resourceId, contentRange));
+		}
+		long first = Long.parseLong(matcher.group(1));
+		long last = Long.parseLong(matcher.group(2));
+		return new ResourceRange(resource, first, last - first + 1,
+				parseTotalLength(matcher.group(3)));
+	}
+
+	private long parseTotalLength(String totalLength) {
+		if (UNKNOWN_LENGTH.equals(totalLength)) {
+			return -1;
+		}
+		return Long.parseLong(totalLength);
+	}
+
+	private void closeIgnoringErrors(InputStream resource) {
+		try {
+			resource.close();
+		} catch (IOException e) {
+			// nothing more can be done with a stream that is thrown away
+		}
+	}
+
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		for (ByteRange range : ranges) {
+			ensureValidRange(resourceId, range.offset(), range.length());
+		}
+		List<ResourceRange> resourceRanges = new ArrayList<>(ranges.size());
+		try {
+			for (ByteRange range : ranges) {
+				resourceRanges.add(
+						readResource(dataDivider, resourceId, range.offset(), range.length()));
+			}
+		} catch (RuntimeException e) {
+			resourceRanges.forEach(resourceRange -> closeIgnoringErrors(resourceRange.resource()));
+			throw e;
+		}
+		return resourceRanges;
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		return new ResourceDownloader(this, batchExecutor).download(dataDivider, resourceId,
+				target, rangeSize, maxParallelReads);
+	}
+
 	@Override
 	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
 		String path = assemblePathForRecordMetadata(dataDivider, resourceId);
+		return readCoalescer.read(RESOURCE + path,
+				() -> readResourceMetadataFromFedora(path, resourceId));
+	}
+
+	private ResourceMetadata readResourceMetadataFromFedora(String path, String resourceId) {
 		Map<String, Object> response = callFedoraReadResourceMetadata(path, resourceId);
 		int responseCode = (int) response.get(RESPONSE_CODE);
 		throwErrorIfNotOk(responseCode, resourceId, RESOURCE, READING_METADATA);
@@ -346,15 +889,13 @@ public class FedoraAdapterImp implements FedoraAdapter {
 					.format(ERR_MSG_NOT_FOUND_IN_FEDORA, UPDATING, typeOfRecord, recordId));
 		}
 		if (responseCode != OK) {
-			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING,
-					recordId, typeOfRecord, responseCode));
+			throw createErrorForResponseCode(UPDATING, recordId, typeOfRecord, responseCode);
 		}
 	}
 
 	private void throwErrorIfUpdateFailed(int responseCode, String recordId, String typeOfRecord) {
 		if (responseCode != NO_CONTENT) {
-			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING,
-					recordId, typeOfRecord, responseCode));
+			throw createErrorForResponseCode(UPDATING, recordId, typeOfRecord, responseCode);
 		}
 	}
 
@@ -384,7 +925,7 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	private int setUpHttpHandlerForUpdateResourcesMetadata(String dataDivider, String resourceId,
 			ResourceMetadataToUpdate resourceMetadataToUpdate) {
 		HttpHandler httpHandler = setHttpHandlerForPatch(dataDivider, resourceId);
-		String body = createBodyForUpdateResourceMetadata(resourceMetadataToUpdate);
+		String body = ResourceMetadataSparql.createUpdateBody(resourceMetadataToUpdate);
 		httpHandler.setOutput(body);
 		return httpHandler.getResponseCode();
 	}
@@ -396,17 +937,6 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		return httpHandler;
 	}
 
-	private String createBodyForUpdateResourceMetadata(
-			ResourceMetadataToUpdate resourceMetadataToUpdate) {
-		String updateResponseBody = """
-				PREFIX ebucore: <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#>
-				INSERT '{'<> ebucore:filename "{0}" . <> ebucore:hasMimeType "{1}" .'}'
-				WHERE '{}'
-				""";
-		return MessageFormat.format(updateResponseBody, resourceMetadataToUpdate.originalFileName(),
-				resourceMetadataToUpdate.mimeType());
-	}
-
 	private void throwExceptionForUpdateResourceMetadataIfNotOk(int responseCode,
 			String resourceId) {
 		if (responseCode == NOT_FOUND) {
@@ -420,17 +950,42 @@ public class FedoraAdapterImp implements FedoraAdapter {
 	}
 
 	@Override
-	public void updateResource(String dataDivider, String resourceId, InputStream resource,
-			String mimeType) {
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		return ParallelBatch.runInParallel(batchExecutor, updates, maxParallelUpdates,
+				this::updateResourceMetadataInBatch);
+	}
+
+	private BatchItemResult updateResourceMetadataInBatch(ResourceMetadataUpdate update) {
+		String dataDivider = update.dataDivider();
+		String resourceId = update.resourceId();
+		try {
+			updateResourceMetadata(dataDivider, resourceId, update.resourceMetadataToUpdate());
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.UPDATED, null);
+		} catch (FedoraNotFoundException e) {
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.NOT_FOUND,
+					e.getMessage());
+		} catch (RuntimeException e) {
+			return new BatchItemResult(dataDivider, resourceId, BatchOutcome.ERROR,
+					e.getMessage());
+		}
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
 		String path = assemblePathForRecord(dataDivider, resourceId);
 		ensureResourceExistsForUpdate(path, resourceId);
-		updateResourceInFedora(path, resourceId, resource, mimeType);
+		return updateResourceInFedora(path, resourceId, resource, mimeType);
 	}
 
-	private void updateResourceInFedora(String path, String resourceId, InputStream resource,
-			String mimeType) {
-		int responseCode = callFedoraForResourceUpdate(path, resourceId, resource, mimeType);
+	private ResourceMetadata updateResourceInFedora(String path, String resourceId,
+			InputStream resource, String mimeType) {
+		ChecksummingInputStream checksummingResource = new ChecksummingInputStream(resource);
+		int responseCode = callFedoraForResourceUpdate(path, resourceId, checksummingResource,
+				mimeType);
 		throwErrorIfUpdateFailed(responseCode, resourceId, RESOURCE);
+		return checksummingResource.toResourceMetadata();
 	}
 
 	private int callFedoraForResourceUpdate(String path, String resourceId, InputStream resource,
@@ -443,7 +998,107 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		}
 	}
 
-	private void ensureResourceExistsForUpdate(String path, String resourceId) {
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		ensureResourceExistsForUpdate(path, resourceId);
+		Map<String, Object> response = callFedoraToStoreResourceFromFile(path, resourceId,
+				resource, mimeType, UPDATING);
+		throwErrorIfUpdateFailed((int) response.get(RESPONSE_CODE), resourceId, RESOURCE);
+		return (ResourceMetadata) response.get(RESPONSE_BODY);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		ensureResourceExistsForUpdate(path, resourceId);
+		int responseCode = callFedoraToStoreExternalResource(path, resourceId, externalContent,
+				mimeType, handling, UPDATING);
+		throwErrorIfUpdateFailed(responseCode, resourceId, RESOURCE);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		String path = assemblePathForRecord(dataDivider, resourceId);
+		StoredResource storedResource = readStoredResourceForUpdate(dataDivider, path,
+				resourceId);
+		ResourceMetadata resourceMetadata = calculateResourceMetadataForUpdate(resourceId,
+				resource);
+		if (storedResource.hasContentAndMimeType(resourceMetadata, mimeType)) {
+			return new ResourceUpdateResult(resourceMetadata, true);
+		}
+		int responseCode = callFedoraToUpdateResourceFromFileIfMatch(path, resourceId, resource,
+				mimeType, resourceMetadata, storedResource.etag());
+		throwErrorIfConditionalUpdateFailed(responseCode, resourceId);
+		return new ResourceUpdateResult(resourceMetadata, false);
+	}
+
+	private StoredResource readStoredResourceForUpdate(String dataDivider, String path,
+			String resourceId) {
+		Map<String, Object> response = callFedoraHeadWithDigest(path, resourceId);
+		throwErrorIfObjectDoesNotExist(resourceId, (int) response.get(RESPONSE_CODE), RESOURCE);
+		Optional<String> checksum = parseChecksumFromDigest((String) response.get(DIGEST));
+		String mimeType = (String) response.get(CONTENT_TYPE);
+		String etag = (String) response.get(ETAG);
+		if (checksum.isPresent() && mimeType != null) {
+			return new StoredResource(checksum.get(), mimeType, etag);
+		}
+		ResourceMetadata storedMetadata = readResourceMetadata(dataDivider, resourceId);
+		return new StoredResource(checksum.orElse(storedMetadata.checksumSHA512()),
+				mimeType != null ? mimeType : storedMetadata.mimeType(), etag);
+	}
+
+	private Map<String, Object> callFedoraHeadWithDigest(String path, String resourceId) {
+		try {
+			HttpHandler httpHandler = factorHttpHandler(path, HEAD);
+			httpHandler.setRequestProperty(WANT_DIGEST, SHA_512);
+			Map<String, Object> response = new HashMap<>();
+			response.put(RESPONSE_CODE, httpHandler.getResponseCode());
+			response.put(DIGEST, httpHandler.getHeaderField(DIGEST));
+			response.put(CONTENT_TYPE, httpHandler.getHeaderField(CONTENT_TYPE));
+			response.put(ETAG, httpHandler.getHeaderField(ETAG));
+			return response;
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, UPDATING);
+		}
+	}
+
+	private ResourceMetadata calculateResourceMetadataForUpdate(String resourceId,
+			Path resource) {
+		try (FileChannel channel = FileChannel.open(resource, StandardOpenOption.READ)) {
+			return calculateResourceMetadata(channel);
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, UPDATING);
+		}
+	}
+
+	private int callFedoraToUpdateResourceFromFileIfMatch(String path, String resourceId,
+			Path resource, String mimeType, ResourceMetadata resourceMetadata, String etag) {
+		try (FileChannel channel = FileChannel.open(resource, StandardOpenOption.READ)) {
+			Map<String, String> requestProperties = createUploadRequestProperties(mimeType);
+			requestProperties.put(DIGEST, createDigestValue(resourceMetadata.checksumSHA512()));
+			if (etag != null) {
+				requestProperties.put(IF_MATCH, etag);
+			}
+			return fileUploader.upload(path, PUT, requestProperties,
+					Channels.newInputStream(channel), channel.size());
+		} catch (Exception e) {
+			throw createFedoraException(resourceId, e, RESOURCE, UPDATING);
+		}
+	}
+
+	private void throwErrorIfConditionalUpdateFailed(int responseCode, String resourceId) {
+		if (responseCode == PRECONDITION_FAILED) {
+			throw FedoraConflictException.withMessage(
+					MessageFormat.format(ERR_MSG_RESOURCE_CHANGED_BEFORE_UPDATE, resourceId));
+		}
+		throwErrorIfUpdateFailed(responseCode, resourceId, RESOURCE);
+	}
+
+		private void ensureResourceExistsForUpdate(String path, String resourceId) {
 		int headResponseCode = readObjectFromFedora(path, resourceId, RESOURCE, UPDATING);
 		throwErrorIfObjectDoesNotExist(resourceId, headResponseCode, RESOURCE);
 	}
@@ -495,6 +1150,15 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		callFedoraForDelete(path + FCR_TOMBSTONE, id, RESOURCE);
 	}
 
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		TransactionRunner transactionRunner = new TransactionRunner(httpHandlerFactory,
+				fileUploader, baseUrl, resourceMetadataParser, batchExecutor,
+				TRANSACTION_KEEP_ALIVE_INTERVAL_IN_MILLIS);
+		transactionRunner.run(operations, maxParallelOperations);
+	}
+
 	public String onlyForTestGetBaseUrl() {
 		return baseUrl;
 	}
@@ -507,4 +1171,30 @@ public class FedoraAdapterImp implements FedoraAdapter {
 		return resourceMetadataParser;
 	}
 
+	public ReadCoalescer onlyForTestGetReadCoalescer() {
+		return readCoalescer;
+	}
+
+	public Executor onlyForTestGetBatchExecutor() {
+		return batchExecutor;
+	}
+
+	public FileUploader onlyForTestGetFileUploader() {
+		return fileUploader;
+	}
+
+
+	private record StoredResource(String checksumSHA512, String mimeType, String etag) {
+		boolean hasContentAndMimeType(ResourceMetadata resourceMetadata, String otherMimeType) {
+			return resourceMetadata.checksumSHA512().equalsIgnoreCase(checksumSHA512)
+					&& normalizeMimeType(otherMimeType).equals(normalizeMimeType(mimeType));
+		}
+
+		private static String normalizeMimeType(String mimeType) {
+			if (mimeType == null) {
+				return "";
+			}
+			return mimeType.replace(" ", "").toLowerCase(Locale.ROOT);
+		}
+	}
 }
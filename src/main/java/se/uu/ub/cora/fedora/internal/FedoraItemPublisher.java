@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+
+/**
+ * FedoraItemPublisher publishes the items fetched for a stream of ids, fetching only as many
+ * items as the subscriber has requested and at most maxInFlight at the same time.
+ * <p>
+ * Each subscription gets its own threads and its own stream of ids, opened when the first item is
+ * requested and closed when the subscription ends. All signals to the subscriber are sent from a
+ * single drain loop, so they are never sent concurrently. Items are emitted in the order their
+ * fetches finish. Ids whose fetch throws a {@link FedoraNotFoundException} are skipped, any other
+ * exception from listing or fetching ends the subscription with onError.
+ * <p>
+ * When nothing is being fetched or waiting to be emitted, the ids are checked for their end even
+ * without demand, so that onComplete is sent after the last item also to a subscriber that has
+ * requested exactly as many items as there are.
+ */
+final class FedoraItemPublisher<T> implements Flow.Publisher<T> {
+	private Supplier<Stream<String>> idSource;
+	private Function<String, T> fetch;
+	private int maxInFlight;
+
+	FedoraItemPublisher(Supplier<Stream<String>> idSource, Function<String, T> fetch,
+			int maxInFlight) {
+		this.idSource = idSource;
+		this.fetch = fetch;
+		this.maxInFlight = maxInFlight;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		Objects.requireNonNull(subscriber);
+		subscriber.onSubscribe(new ItemSubscription(subscriber));
+	}
+
+	Supplier<Stream<String>> onlyForTestGetIdSource() {
+		return idSource;
+	}
+
+	int onlyForTestGetMaxInFlight() {
+		return maxInFlight;
+	}
+
+	private class ItemSubscription implements Flow.Subscription {
+		private Flow.Subscriber<? super T> subscriber;
+		private ExecutorService executor;
+		private AtomicInteger pendingDrains = new AtomicInteger();
+		private AtomicLong requested = new AtomicLong();
+		private AtomicInteger inFlight = new AtomicInteger();
+		private Queue<T> fetched = new ConcurrentLinkedQueue<>();
+		private volatile boolean cancelled = false;
+		private volatile boolean terminated = false;
+		private volatile RuntimeException error;
+		private Stream<String> ids;
+		private Iterator<String> idIterator;
+		private boolean idsExhausted = false;
+
+		ItemSubscription(Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+			executor = Executors.newFixedThreadPool(maxInFlight + 1, this::createDaemonThread);
+		}
+
+		private Thread createDaemonThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "fedora-item-publisher");
+			thread.setDaemon(true);
+			return thread;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				setErrorIfFirst(new IllegalArgumentException(
+						"Requested number of items must be positive, was " + n));
+			} else {
+				requested.getAndUpdate(current -> addWithoutOverflow(current, n));
+			}
+			signalDrain();
+		}
+
+		private long addWithoutOverflow(long current, long n) {
+			long sum = current + n;
+			return sum < 0 ? Long.MAX_VALUE : sum;
+		}
+
+		private void setErrorIfFirst(RuntimeException e) {
+			synchronized (this) {
+				if (error == null) {
+					error = e;
+				}
+			}
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			signalDrain();
+		}
+
+		private void signalDrain() {
+			if (terminated || pendingDrains.getAndIncrement() != 0) {
+				return;
+			}
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				// the subscription has ended, so there is nothing left to drain
+			}
+		}
+
+		private void drain() {
+			int missedDrains = 1;
+			while (missedDrains != 0 && !terminated) {
+				drainOnceCancellingOnSubscriberError();
+				missedDrains = pendingDrains.addAndGet(-missedDrains);
+			}
+		}
+
+		private void drainOnceCancellingOnSubscriberError() {
+			try {
+				drainOnce();
+			} catch (RuntimeException e) {
+				terminate();
+			}
+		}
+
+		private void drainOnce() {
+			if (cancelled) {
+				terminate();
+				return;
+			}
+			emitFetched();
+			if (error != null) {
+				terminate();
+				subscriber.onError(error);
+				return;
+			}
+			startFetches();
+			findOutIfIdsAreExhaustedWhenIdle();
+			if (isComplete()) {
+				terminate();
+				subscriber.onComplete();
+			}
+		}
+
+		private void emitFetched() {
+			while (error == null && !cancelled && requested.get() > 0 && !fetched.isEmpty()) {
+				requested.decrementAndGet();
+				subscriber.onNext(fetched.poll());
+			}
+		}
+
+		private void startFetches() {
+			while (!cancelled && error == null && canStartFetch() && hasNextId()) {
+				String id = idIterator.next();
+				inFlight.incrementAndGet();
+				executor.execute(() -> fetchItem(id));
+			}
+		}
+
+		private void findOutIfIdsAreExhaustedWhenIdle() {
+			if (!cancelled && error == null && !idsExhausted && inFlight.get() == 0
+					&& fetched.isEmpty()) {
+				hasNextId();
+			}
+		}
+
+		private boolean canStartFetch() {
+			int numberInFlight = inFlight.get();
+			return numberInFlight < maxInFlight
+					&& numberInFlight + fetched.size() < requested.get();
+		}
+
+		private boolean hasNextId() {
+			try {
+				openIdsIfNotOpened();
+				idsExhausted = !idIterator.hasNext();
+				return !idsExhausted;
+			} catch (RuntimeException e) {
+				setErrorIfFirst(e);
+				signalDrain();
+				return false;
+			}
+		}
+
+		private void openIdsIfNotOpened() {
+			if (idIterator == null) {
+				ids = idSource.get();
+				idIterator = ids.iterator();
+			}
+		}
+
+		private void fetchItem(String id) {
+			try {
+				fetched.add(fetch.apply(id));
+			} catch (FedoraNotFoundException e) {
+				// the id has been removed since it was listed, so there is nothing to publish
+			} catch (RuntimeException e) {
+				setErrorIfFirst(e);
+			} finally {
+				inFlight.decrementAndGet();
+				signalDrain();
+			}
+		}
+
+		private boolean isComplete() {
+			return error == null && idsExhausted && inFlight.get() == 0 && fetched.isEmpty();
+		}
+
+		private void terminate() {
+			terminated = true;
+			if (ids != null) {
+				ids.close();
+			}
+			executor.shutdown();
+		}
+	}
+}
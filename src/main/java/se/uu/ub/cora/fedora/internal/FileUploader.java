@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * FileUploader sends content of a known length to Fedora as the body of one request.
+ * <p>
+ * Unlike an HttpHandler, which buffers or chunks a streamed body, the request is sent with a fixed
+ * Content-Length and the content is copied to the connection as it is read, so large files are
+ * never held in memory.
+ * <p>
+ * Implementations MUST be threadsafe as one instance is shared between all adapters created by the
+ * same factory.
+ */
+public interface FileUploader {
+
+	/**
+	 * upload sends the content to the url and returns the response code. The content is read to
+	 * its end but not closed.
+	 * 
+	 * @param url
+	 *            A String with the url to send the content to
+	 * @param requestMethod
+	 *            A String with the request method to use, such as PUT
+	 * @param requestProperties
+	 *            A Map with the request headers to set
+	 * @param content
+	 *            An InputStream with the content to send
+	 * @param contentLength
+	 *            A long with the number of bytes in the content
+	 * @return An int with the response code from the server
+	 * @throws IOException
+	 *             if the connection fails or the content can not be read
+	 */
+	int upload(String url, String requestMethod, Map<String, String> requestProperties,
+			InputStream content, long contentLength) throws IOException;
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * FileUploaderImp uploads content using an HttpURLConnection in fixed length streaming mode, so
+ * that the Content-Length header is sent and the content is written to the socket as it is read.
+ * <p>
+ * HttpURLConnection only exposes an OutputStream, so the content can not be sent with transferTo
+ * or sendfile, and is copied through a 64 KB buffer instead.
+ * <p>
+ * The response body is read and closed, but the connection is not disconnected, so that it can be
+ * reused by later requests to the same server.
+ */
+public class FileUploaderImp implements FileUploader {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int FIRST_ERROR_CODE = 400;
+
+	@Override
+	public int upload(String url, String requestMethod, Map<String, String> requestProperties,
+			InputStream content, long contentLength) throws IOException {
+		HttpURLConnection connection = openConnection(url);
+		connection.setRequestMethod(requestMethod);
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(contentLength);
+		setRequestProperties(connection, requestProperties);
+		writeContent(connection, content, contentLength);
+		int responseCode = connection.getResponseCode();
+		drainAndCloseResponse(connection, responseCode);
+		return responseCode;
+	}
+
+	private HttpURLConnection openConnection(String url) throws IOException {
+		return (HttpURLConnection) URI.create(url).toURL().openConnection();
+	}
+
+	private void setRequestProperties(HttpURLConnection connection,
+			Map<String, String> requestProperties) {
+		for (Entry<String, String> requestProperty : requestProperties.entrySet()) {
+			connection.setRequestProperty(requestProperty.getKey(), requestProperty.getValue());
+		}
+	}
+
+	private void writeContent(HttpURLConnection connection, InputStream content,
+			long contentLength) throws IOException {
+		try (OutputStream output = connection.getOutputStream()) {
+			long written = copy(content, output);
+			throwErrorIfLengthDiffers(contentLength, written);
+		}
+	}
+
+	private long copy(InputStream content, OutputStream output) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long written = 0;
+		int read;
+		while ((read = content.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+			written += read;
+		}
+		return written;
+	}
+
+	private void throwErrorIfLengthDiffers(long contentLength, long written) throws IOException {
+		if (written != contentLength) {
+			throw new IOException(MessageFormat.format(
+					"Content length {0} does not match the {1} bytes read from the content.",
+					String.valueOf(contentLength), String.valueOf(written)));
+		}
+	}
+
+	private void drainAndCloseResponse(HttpURLConnection connection, int responseCode) {
+		try (InputStream response = getResponseStream(connection, responseCode)) {
+			if (response != null) {
+				response.transferTo(OutputStream.nullOutputStream());
+			}
+		} catch (IOException e) {
+			// the response code is already known, the connection is just not reused
+		}
+	}
+
+	private InputStream getResponseStream(HttpURLConnection connection, int responseCode)
+			throws IOException {
+		if (responseCode >= FIRST_ERROR_CODE) {
+			return connection.getErrorStream();
+		}
+		return connection.getInputStream();
+	}
+}
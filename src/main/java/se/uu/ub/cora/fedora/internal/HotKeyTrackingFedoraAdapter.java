@@ -0,0 +1,280 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.cache.HotKeyTracker;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+
+/**
+ * HotKeyTrackingFedoraAdapter records each access to a record or resource in a
+ * {@link HotKeyTracker}, using the key dataDivider:id, before calling the wrapped FedoraAdapter.
+ * <p>
+ * HotKeyTrackingFedoraAdapter is threadsafe, it keeps no state of its own besides the threadsafe
+ * HotKeyTracker.
+ */
+public class HotKeyTrackingFedoraAdapter implements FedoraAdapter {
+
+	private FedoraAdapter fedoraAdapter;
+	private HotKeyTracker hotKeyTracker;
+
+	public HotKeyTrackingFedoraAdapter(FedoraAdapter fedoraAdapter, HotKeyTracker hotKeyTracker) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.hotKeyTracker = hotKeyTracker;
+	}
+
+	@Override
+	public void createRecord(String dataDivider, String recordId, String recordXml) {
+		recordAccess(dataDivider, recordId);
+		fedoraAdapter.createRecord(dataDivider, recordId, recordXml);
+	}
+
+	private void recordAccess(String dataDivider, String id) {
+		hotKeyTracker.recordAccess(dataDivider + ":" + id);
+	}
+
+	@Override
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		for (RecordToCreate recordToCreate : records) {
+			recordAccess(recordToCreate.dataDivider(), recordToCreate.recordId());
+		}
+		return fedoraAdapter.createRecords(records, maxParallelCreates);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		recordAccess(dataDivider, resourceId);
+		fedoraAdapter.createExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public String readRecord(String dataDivider, String recordId) {
+		recordAccess(dataDivider, recordId);
+		return fedoraAdapter.readRecord(dataDivider, recordId);
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		recordIds.forEach(recordId -> recordAccess(dataDivider, recordId));
+		return fedoraAdapter.readRecords(dataDivider, recordIds, maxParallelReads);
+	}
+
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		return fedoraAdapter.listIds(dataDivider);
+	}
+
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		return fedoraAdapter.listIdsModifiedSince(dataDivider, since, maxParallelChecks);
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+		recordAccess(dataDivider, recordId);
+		return fedoraAdapter.readVersionedRecord(dataDivider, recordId);
+	}
+
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		recordAccess(dataDivider, recordId);
+		return fedoraAdapter.readRecordIfChanged(dataDivider, recordId, etag);
+	}
+
+	@Override
+	public InputStream readResource(String dataDivider, String resourceId) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readResumableResource(dataDivider, resourceId, maxResumeAttempts);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId, expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readResource(dataDivider, resourceId, offset, length);
+	}
+
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readResource(dataDivider, resourceId, ranges);
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.downloadResource(dataDivider, resourceId, target, rangeSize,
+				maxParallelReads);
+	}
+
+	@Override
+	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.readResourceMetadata(dataDivider, resourceId);
+	}
+
+	@Override
+	public void updateResourceMetadata(String dataDivider, String resourceId,
+			ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		recordAccess(dataDivider, resourceId);
+		fedoraAdapter.updateResourceMetadata(dataDivider, resourceId, resourceMetadataToUpdate);
+	}
+
+	@Override
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		for (ResourceMetadataUpdate update : updates) {
+			recordAccess(update.dataDivider(), update.resourceId());
+		}
+		return fedoraAdapter.updateResourcesMetadata(updates, maxParallelUpdates);
+	}
+
+	@Override
+	public void updateRecord(String dataDivider, String recordId, String recordXml) {
+		recordAccess(dataDivider, recordId);
+		fedoraAdapter.updateRecord(dataDivider, recordId, recordXml);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		recordAccess(dataDivider, resourceId);
+		return fedoraAdapter.updateResourceIfChanged(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		recordAccess(dataDivider, resourceId);
+		fedoraAdapter.updateExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public void deleteRecord(String dataDivider, String recordId) {
+		recordAccess(dataDivider, recordId);
+		fedoraAdapter.deleteRecord(dataDivider, recordId);
+	}
+
+	@Override
+	public void deleteResource(String dataDivider, String resourceId) {
+		recordAccess(dataDivider, resourceId);
+		fedoraAdapter.deleteResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		fedoraAdapter.runInTransaction(wrapOperationsToTrackHotKeys(operations),
+				maxParallelOperations);
+	}
+
+	private List<TransactionOperation> wrapOperationsToTrackHotKeys(
+			List<TransactionOperation> operations) {
+		return operations.stream().map(this::wrapOperationToTrackHotKeys).toList();
+	}
+
+	private TransactionOperation wrapOperationToTrackHotKeys(TransactionOperation operation) {
+		return transactionAdapter -> operation
+				.runUsing(new HotKeyTrackingFedoraAdapter(transactionAdapter, hotKeyTracker));
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public HotKeyTracker onlyForTestGetHotKeyTracker() {
+		return hotKeyTracker;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.HashSet;
+import java.util.Set;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.bulk.ImportType;
+
+/**
+ * ImportCheckpoint keeps track of the ids of completed import items in a checkpoint file, with one
+ * id per line.
+ * <p>
+ * The first line of the file is a header with the dataDivider and ImportType of the import it is
+ * written for. A checkpoint file written for another import is refused, so that the ids in it are
+ * not skipped in the wrong import. Backslashes and line breaks in ids and in the dataDivider are
+ * escaped, so that each id is always written as one line.
+ * <p>
+ * Each id is written and flushed to the file as it is marked as completed, so that the file is
+ * up to date if the process is stopped. A last line without line ending, left by a process stopped
+ * while writing it, is removed when the file is opened.
+ */
+class ImportCheckpoint implements Closeable {
+	private static final byte LINE_ENDING = '\n';
+	private static final int SCAN_BUFFER_SIZE = 8192;
+	private static final String HEADER = "# fedora import checkpoint for dataDivider {0} "
+			+ "of type {1}";
+	private static final String ERR_MSG_OTHER_IMPORT = "Unable to use checkpoint file {0} for an "
+			+ "import of type {2} into dataDivider {1}, it was written for another import.";
+
+	private Path checkpointFile;
+	private String header;
+	private Set<String> completedIds;
+	private Writer writer;
+
+	static ImportCheckpoint usingFileForImport(Path checkpointFile, String dataDivider,
+			ImportType type) throws IOException {
+		ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile,
+				createHeader(dataDivider, type));
+		checkpoint.open(dataDivider, type);
+		return checkpoint;
+	}
+
+	private static String createHeader(String dataDivider, ImportType type) {
+		return MessageFormat.format(HEADER, escape(dataDivider), type.name());
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private ImportCheckpoint(Path checkpointFile, String header) {
+		this.checkpointFile = checkpointFile;
+		this.header = header;
+	}
+
+	private void open(String dataDivider, ImportType type) throws IOException {
+		removeIncompleteLastLine();
+		completedIds = readCompletedIdsFromSameImport(dataDivider, type);
+		writer = Files.newBufferedWriter(checkpointFile, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		if (completedIds == null) {
+			completedIds = new HashSet<>();
+			writeLine(header);
+		}
+	}
+
+	private void removeIncompleteLastLine() throws IOException {
+		if (!Files.exists(checkpointFile)) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(checkpointFile, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			channel.truncate(findEndOfLastCompleteLine(channel));
+		}
+	}
+
+	private long findEndOfLastCompleteLine(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long end = channel.size();
+		while (end > 0) {
+			long start = Math.max(0, end - SCAN_BUFFER_SIZE);
+			buffer.clear().limit((int) (end - start));
+			readFully(channel, buffer, start);
+			for (int i = buffer.position() - 1; i >= 0; i--) {
+				if (buffer.get(i) == LINE_ENDING) {
+					return start + i + 1;
+				}
+			}
+			end = start;
+		}
+		return 0;
+	}
+
+	private void readFully(FileChannel channel, ByteBuffer buffer, long start)
+			throws IOException {
+		while (buffer.hasRemaining()
+				&& channel.read(buffer, start + buffer.position()) != -1) {
+			// keep reading until the buffer is filled
+		}
+	}
+
+	private Set<String> readCompletedIdsFromSameImport(String dataDivider, ImportType type)
+			throws IOException {
+		if (!Files.exists(checkpointFile)) {
+			return null;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(checkpointFile,
+				StandardCharsets.UTF_8)) {
+			String firstLine = reader.readLine();
+			if (firstLine == null) {
+				return null;
+			}
+			ensureWrittenForSameImport(firstLine, dataDivider, type);
+			Set<String> ids = new HashSet<>();
+			reader.lines().filter(line -> !line.isEmpty()).forEach(ids::add);
+			return ids;
+		}
+	}
+
+	private void ensureWrittenForSameImport(String firstLine, String dataDivider,
+			ImportType type) {
+		if (!header.equals(firstLine)) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_OTHER_IMPORT,
+					checkpointFile, dataDivider, type.name()));
+		}
+	}
+
+	boolean isCompleted(String id) {
+		return completedIds.contains(escape(id));
+	}
+
+	synchronized void markAsCompleted(String id) throws IOException {
+		writeLine(escape(id));
+	}
+
+	private synchronized void writeLine(String line) throws IOException {
+		writer.write(line);
+		writer.write(LINE_ENDING);
+		writer.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
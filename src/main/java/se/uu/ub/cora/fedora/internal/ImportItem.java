@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * ImportItem is one item read by an {@link ImportSource}, with its content either in a file or in
+ * memory.
+ * <p>
+ * Entries read from an archive are spooled to a temporary file, so that large entries are never
+ * held in memory. The temporary file is removed by {@link #discard()} once the item is imported.
+ * <p>
+ * The metadataJson is the content of the ".metadata.json" entry written for the item by an export,
+ * or null if the source has no metadata for the item.
+ */
+record ImportItem(String id, Path file, byte[] content, boolean temporary, String metadataJson) {
+	private static final String TEMPORARY_FILE_PREFIX = "fedoraImportItem";
+
+	static ImportItem fromFile(String id, Path file, String metadataJson) {
+		return new ImportItem(id, file, null, false, metadataJson);
+	}
+
+	static ImportItem fromBytes(String id, byte[] content) {
+		return new ImportItem(id, null, content, false, null);
+	}
+
+	/**
+	 * Copies the content, read to its end, to a new temporary file and returns an item with its
+	 * content in that file. The content stream is not closed.
+	 */
+	static ImportItem spoolToTemporaryFile(String id, InputStream content, String metadataJson)
+			throws IOException {
+		Path file = Files.createTempFile(TEMPORARY_FILE_PREFIX, null);
+		try {
+			Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		return new ImportItem(id, file, null, true, metadataJson);
+	}
+
+	InputStream openContent() throws IOException {
+		if (file != null) {
+			return Files.newInputStream(file);
+		}
+		return new ByteArrayInputStream(content);
+	}
+
+	/**
+	 * Removes the temporary file holding the content, if the item has one.
+	 */
+	void discard() throws IOException {
+		if (temporary) {
+			Files.deleteIfExists(file);
+		}
+	}
+}
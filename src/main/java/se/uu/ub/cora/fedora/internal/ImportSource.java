@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * ImportSource reads the items to import from a directory or file.
+ * <p>
+ * Sources written by an export hold a metadata entry, named as the id of an item followed by
+ * {@link #METADATA_SUFFIX}, before the item. Such entries are not items themselves, their content
+ * is handed on with the item they describe. Metadata entries larger than
+ * {@link #MAX_METADATA_SIZE} bytes are ignored.
+ */
+interface ImportSource {
+	String METADATA_SUFFIX = ".metadata.json";
+	int MAX_METADATA_SIZE = 64 * 1024;
+
+	/**
+	 * forEachItem reads the items in the source one after the other, handing each item whose id is
+	 * wanted to the consumer. The content of items that are not wanted is not read, if it can be
+	 * avoided.
+	 * 
+	 * @param isWanted
+	 *            A Predicate deciding, from its id, if an item should be read
+	 * @param consumer
+	 *            A Consumer to hand the read items to
+	 * @throws IOException
+	 *             if the source can not be read
+	 */
+	void forEachItem(Predicate<String> isWanted, Consumer<ImportItem> consumer)
+			throws IOException;
+}
@@ -0,0 +1,634 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraConflictException;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.FedoraRejectedException;
+import se.uu.ub.cora.fedora.JournalingFedoraAdapter;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.internal.JournalEntry.Operation;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+
+/**
+ * JournalingFedoraAdapterImp writes creates and updates of records to a {@link WriteAheadJournal}
+ * and applies them through the wrapped FedoraAdapter from one background replayer thread.
+ * <p>
+ * Unapplied writes are kept in memory per dataDivider:id. The replayer applies the writes of each
+ * record in order. A write that fails with a connection error or a server error (5xx) is retried
+ * later, and the remaining writes of that record wait for it while writes of other records are
+ * applied. Retries wait from initialRetryDelayInMillis, doubling up to maxRetryDelayInMillis. The
+ * full delay is waited even if new writes are journaled meanwhile, only close ends it early.
+ * <p>
+ * A write that Fedora rejects (4xx, including conflict and not found), or that fails with any
+ * other error, would fail the same way again, so it is dropped and reported by {@link #flush()}.
+ * <p>
+ * A create that conflicts with an existing record is treated as applied if the write was recovered
+ * from the journal, as it was most likely applied before the previous process stopped.
+ * <p>
+ * Operations that wait for unapplied writes wait at most maxWaitForWritesInMillis, and fail if
+ * the adapter is closed while they wait, as the writes will then not be applied by this adapter.
+ * <p>
+ * JournalingFedoraAdapterImp is threadsafe, the unapplied and dropped writes are only accessed
+ * while holding one lock, which is never held while calling the wrapped adapter.
+ */
+public class JournalingFedoraAdapterImp implements JournalingFedoraAdapter {
+	private static final long REPLAYER_STOP_TIMEOUT_IN_SECONDS = 10;
+	private static final String ERR_MSG_CLOSED = "Unable to write record {0}, the journaling "
+			+ "adapter is closed.";
+	private static final String ERR_MSG_CONFLICT = "Unable to create record {0}, it has journaled "
+			+ "writes that are not yet applied to Fedora.";
+	private static final String ERR_MSG_DROPPED = "Error applying journaled writes to Fedora, "
+			+ "writes were dropped for records: {0}";
+	private static final String ERR_MSG_INTERRUPTED = "Interrupted while waiting for journaled "
+			+ "writes to be applied to Fedora.";
+	private static final String ERR_MSG_CLOSED_WHILE_WAITING = "Unable to wait for journaled "
+			+ "writes of {0} to be applied to Fedora, the journaling adapter is closed.";
+	private static final String ERR_MSG_WAIT_TIMED_OUT = "Timed out after {1} ms waiting for "
+			+ "journaled writes of {0} to be applied to Fedora.";
+	private static final String WAITING_FOR_RECORD = "record ";
+	private static final String WAITING_FOR_DATA_DIVIDER = "records in dataDivider ";
+	private static final String WAITING_FOR_ALL = "all records";
+
+	private FedoraAdapter fedoraAdapter;
+	private WriteAheadJournal journal;
+	private long initialRetryDelayInMillis;
+	private long maxRetryDelayInMillis;
+	private long maxWaitForWritesInMillis;
+	private ExecutorService replayer;
+	private final Object lock = new Object();
+	private Map<String, Deque<UnappliedWrite>> unappliedWrites = new LinkedHashMap<>();
+	private Map<String, RuntimeException> droppedWrites = new LinkedHashMap<>();
+	private boolean closed = false;
+
+	public JournalingFedoraAdapterImp(FedoraAdapter fedoraAdapter, WriteAheadJournal journal,
+			long initialRetryDelayInMillis, long maxRetryDelayInMillis,
+			long maxWaitForWritesInMillis) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.journal = journal;
+		this.initialRetryDelayInMillis = initialRetryDelayInMillis;
+		this.maxRetryDelayInMillis = maxRetryDelayInMillis;
+		this.maxWaitForWritesInMillis = maxWaitForWritesInMillis;
+		journal.getRecoveredEntries().forEach(entry -> addUnappliedWrite(entry, true));
+		replayer = Executors.newSingleThreadExecutor(this::createDaemonThread);
+		replayer.execute(this::replay);
+	}
+
+	private void addUnappliedWrite(JournalEntry entry, boolean recovered) {
+		unappliedWrites.computeIfAbsent(entry.key(), key -> new ArrayDeque<>())
+				.add(new UnappliedWrite(entry, recovered));
+	}
+
+	private Thread createDaemonThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "fedora-journal-replayer");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public void createRecord(String dataDivider, String recordId, String recordXml) {
+		journalWrite(Operation.CREATE, dataDivider, recordId, recordXml);
+	}
+
+	private void journalWrite(Operation operation, String dataDivider, String recordId,
+			String recordXml) {
+		JournalEntry entry;
+		synchronized (lock) {
+			String key = createKey(dataDivider, recordId);
+			throwErrorIfClosed(key);
+			throwConflictIfCreatingRecordWithUnappliedWrites(operation, key);
+			entry = journal.write(operation, dataDivider, recordId, recordXml);
+			addUnappliedWrite(entry, false);
+		}
+		journal.awaitDurable(entry.sequence());
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+
+	private String createKey(String dataDivider, String id) {
+		return dataDivider + ":" + id;
+	}
+
+	private void throwErrorIfClosed(String key) {
+		if (closed) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_CLOSED, key));
+		}
+	}
+
+	private void throwConflictIfCreatingRecordWithUnappliedWrites(Operation operation,
+			String key) {
+		if (operation == Operation.CREATE && unappliedWrites.containsKey(key)) {
+			throw FedoraConflictException
+					.withMessage(MessageFormat.format(ERR_MSG_CONFLICT, key));
+		}
+	}
+
+	@Override
+	public void updateRecord(String dataDivider, String recordId, String recordXml) {
+		journalWrite(Operation.UPDATE, dataDivider, recordId, recordXml);
+	}
+
+	private void replay() {
+		long retryDelay = initialRetryDelayInMillis;
+		while (waitForDurableWrites()) {
+			if (replayDurableWrites()) {
+				retryDelay = initialRetryDelayInMillis;
+			} else {
+				waitBeforeRetry(retryDelay);
+				retryDelay = Math.min(retryDelay * 2, maxRetryDelayInMillis);
+			}
+		}
+	}
+
+	private boolean waitForDurableWrites() {
+		synchronized (lock) {
+			while (!closed && findKeysWithDurableWrites().isEmpty()) {
+				if (!waitOnLock(0)) {
+					return false;
+				}
+			}
+			return !closed;
+		}
+	}
+
+	private List<String> findKeysWithDurableWrites() {
+		long durableSequence = journal.getDurableSequence();
+		List<String> keys = new ArrayList<>();
+		for (Map.Entry<String, Deque<UnappliedWrite>> writes : unappliedWrites.entrySet()) {
+			if (writes.getValue().getFirst().entry().sequence() <= durableSequence) {
+				keys.add(writes.getKey());
+			}
+		}
+		return keys;
+	}
+
+	private boolean waitOnLock(long timeoutInMillis) {
+		try {
+			lock.wait(timeoutInMillis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private boolean waitOnLockUntil(long deadlineInNanos) {
+		long remainingInNanos = deadlineInNanos - System.nanoTime();
+		return waitOnLock(TimeUnit.NANOSECONDS.toMillis(remainingInNanos) + 1);
+	}
+
+	private boolean isBeforeDeadline(long deadlineInNanos) {
+		return deadlineInNanos - System.nanoTime() > 0;
+	}
+
+	private long calculateDeadline(long delayInMillis) {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayInMillis);
+	}
+
+	private boolean replayDurableWrites() {
+		List<String> keys;
+		synchronized (lock) {
+			keys = findKeysWithDurableWrites();
+		}
+		boolean allApplied = true;
+		for (String key : keys) {
+			allApplied &= replayDurableWritesForKey(key);
+		}
+		return allApplied;
+	}
+
+	private boolean replayDurableWritesForKey(String key) {
+		Optional<UnappliedWrite> write = readNextDurableWrite(key);
+		while (write.isPresent()) {
+			if (!tryToApply(key, write.get())) {
+				return false;
+			}
+			write = readNextDurableWrite(key);
+		}
+		return true;
+	}
+
+	private Optional<UnappliedWrite> readNextDurableWrite(String key) {
+		synchronized (lock) {
+			Deque<UnappliedWrite> writes = unappliedWrites.get(key);
+			if (writes == null || closed) {
+				return Optional.empty();
+			}
+			UnappliedWrite write = writes.getFirst();
+			boolean durable = write.entry().sequence() <= journal.getDurableSequence();
+			return durable ? Optional.of(write) : Optional.empty();
+		}
+	}
+
+	private boolean tryToApply(String key, UnappliedWrite write) {
+		try {
+			apply(write.entry());
+			markApplied(key, null);
+			return true;
+		} catch (FedoraConflictException e) {
+			markApplied(key, write.recovered() ? null : e);
+			return true;
+		} catch (FedoraNotFoundException | FedoraRejectedException e) {
+			markApplied(key, e);
+			return true;
+		} catch (FedoraException e) {
+			return false;
+		} catch (RuntimeException e) {
+			markApplied(key, e);
+			return true;
+		}
+	}
+
+	private void apply(JournalEntry entry) {
+		if (entry.operation() == Operation.CREATE) {
+			fedoraAdapter.createRecord(entry.dataDivider(), entry.recordId(), entry.recordXml());
+		} else {
+			fedoraAdapter.updateRecord(entry.dataDivider(), entry.recordId(), entry.recordXml());
+		}
+	}
+
+	private void markApplied(String key, RuntimeException dropReason) {
+		synchronized (lock) {
+			Deque<UnappliedWrite> writes = unappliedWrites.get(key);
+			UnappliedWrite write = writes.removeFirst();
+			if (writes.isEmpty()) {
+				unappliedWrites.remove(key);
+			}
+			updateDroppedWrites(key, dropReason);
+			journal.markApplied(write.entry().sequence());
+			lock.notifyAll();
+		}
+	}
+
+	private void updateDroppedWrites(String key, RuntimeException dropReason) {
+		if (dropReason == null) {
+			droppedWrites.remove(key);
+		} else {
+			droppedWrites.put(key, dropReason);
+		}
+	}
+
+	private void waitBeforeRetry(long retryDelay) {
+		long deadline = calculateDeadline(retryDelay);
+		synchronized (lock) {
+			while (!closed && isBeforeDeadline(deadline)) {
+				if (!waitOnLockUntil(deadline)) {
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String readRecord(String dataDivider, String recordId) {
+		Optional<String> journaledRecordXml = readJournaledRecordXml(dataDivider, recordId);
+		if (journaledRecordXml.isPresent()) {
+			return journaledRecordXml.get();
+		}
+		return fedoraAdapter.readRecord(dataDivider, recordId);
+	}
+
+	private Optional<String> readJournaledRecordXml(String dataDivider, String recordId) {
+		synchronized (lock) {
+			Deque<UnappliedWrite> writes = unappliedWrites.get(createKey(dataDivider, recordId));
+			return Optional.ofNullable(writes).map(w -> w.getLast().entry().recordXml());
+		}
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		Map<String, String> journaledRecords = new HashMap<>();
+		List<String> idsToRead = new ArrayList<>();
+		for (String recordId : recordIds) {
+			readJournaledRecordXml(dataDivider, recordId).ifPresentOrElse(
+					recordXml -> journaledRecords.put(recordId, recordXml),
+					() -> idsToRead.add(recordId));
+		}
+		if (journaledRecords.isEmpty()) {
+			return fedoraAdapter.readRecords(dataDivider, recordIds, maxParallelReads);
+		}
+		ReadRecordsResult result = fedoraAdapter.readRecords(dataDivider, idsToRead,
+				maxParallelReads);
+		Map<String, String> records = new HashMap<>(result.records());
+		records.putAll(journaledRecords);
+		return new ReadRecordsResult(records, result.missingIds());
+	}
+
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		waitForUnappliedWritesInDataDivider(dataDivider);
+		return fedoraAdapter.listIds(dataDivider);
+	}
+
+	private void waitForUnappliedWritesInDataDivider(String dataDivider) {
+		String keyPrefix = createKey(dataDivider, "");
+		waitUntilApplied(() -> hasUnappliedWritesWithKeyPrefix(keyPrefix),
+				WAITING_FOR_DATA_DIVIDER + dataDivider);
+	}
+
+	private void waitUntilApplied(BooleanSupplier hasUnappliedWrites, String waitingFor) {
+		long deadline = calculateDeadline(maxWaitForWritesInMillis);
+		synchronized (lock) {
+			while (hasUnappliedWrites.getAsBoolean()) {
+				throwErrorIfClosedWhileWaiting(waitingFor);
+				throwErrorIfWaitTimedOut(deadline, waitingFor);
+				waitForAppliedWrite(deadline);
+			}
+		}
+	}
+
+	private void throwErrorIfClosedWhileWaiting(String waitingFor) {
+		if (closed) {
+			throw FedoraException
+					.withMessage(MessageFormat.format(ERR_MSG_CLOSED_WHILE_WAITING, waitingFor));
+		}
+	}
+
+	private void throwErrorIfWaitTimedOut(long deadline, String waitingFor) {
+		if (!isBeforeDeadline(deadline)) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_WAIT_TIMED_OUT,
+					waitingFor, String.valueOf(maxWaitForWritesInMillis)));
+		}
+	}
+
+	private void waitForAppliedWrite(long deadline) {
+		if (!waitOnLockUntil(deadline)) {
+			throw FedoraException.withMessage(ERR_MSG_INTERRUPTED);
+		}
+	}
+
+	private boolean hasUnappliedWritesWithKeyPrefix(String keyPrefix) {
+		return unappliedWrites.keySet().stream().anyMatch(key -> key.startsWith(keyPrefix));
+	}
+
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		waitForUnappliedWritesInDataDivider(dataDivider);
+		return fedoraAdapter.listIdsModifiedSince(dataDivider, since, maxParallelChecks);
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+		waitForUnappliedWrites(dataDivider, recordId);
+		return fedoraAdapter.readVersionedRecord(dataDivider, recordId);
+	}
+
+	private void waitForUnappliedWrites(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		waitUntilApplied(() -> unappliedWrites.containsKey(key), WAITING_FOR_RECORD + key);
+	}
+
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		waitForUnappliedWrites(dataDivider, recordId);
+		return fedoraAdapter.readRecordIfChanged(dataDivider, recordId, etag);
+	}
+
+	@Override
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		for (RecordToCreate recordToCreate : records) {
+			waitForUnappliedWrites(recordToCreate.dataDivider(), recordToCreate.recordId());
+		}
+		return fedoraAdapter.createRecords(records, maxParallelCreates);
+	}
+
+	@Override
+	public void deleteRecord(String dataDivider, String recordId) {
+		waitForUnappliedWrites(dataDivider, recordId);
+		fedoraAdapter.deleteRecord(dataDivider, recordId);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.createExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public InputStream readResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		return fedoraAdapter.readResumableResource(dataDivider, resourceId, maxResumeAttempts);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId, expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, offset, length);
+	}
+
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, ranges);
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		return fedoraAdapter.downloadResource(dataDivider, resourceId, target, rangeSize,
+				maxParallelReads);
+	}
+
+	@Override
+	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResourceMetadata(dataDivider, resourceId);
+	}
+
+	@Override
+	public void updateResourceMetadata(String dataDivider, String resourceId,
+			ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		fedoraAdapter.updateResourceMetadata(dataDivider, resourceId, resourceMetadataToUpdate);
+	}
+
+	@Override
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		return fedoraAdapter.updateResourcesMetadata(updates, maxParallelUpdates);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		return fedoraAdapter.updateResourceIfChanged(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.updateExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public void deleteResource(String dataDivider, String resourceId) {
+		fedoraAdapter.deleteResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		waitForAllUnappliedWrites();
+		fedoraAdapter.runInTransaction(operations, maxParallelOperations);
+	}
+
+	private void waitForAllUnappliedWrites() {
+		waitUntilApplied(() -> !unappliedWrites.isEmpty(), WAITING_FOR_ALL);
+	}
+
+	@Override
+	public void flush() {
+		synchronized (lock) {
+			waitForAllUnappliedWrites();
+			throwErrorIfWritesWereDropped();
+		}
+	}
+
+	private void throwErrorIfWritesWereDropped() {
+		if (droppedWrites.isEmpty()) {
+			return;
+		}
+		String droppedKeys = String.join(", ", droppedWrites.keySet());
+		RuntimeException firstReason = droppedWrites.values().iterator().next();
+		droppedWrites.clear();
+		throw FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_DROPPED, droppedKeys), firstReason);
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			lock.notifyAll();
+		}
+		replayer.shutdown();
+		awaitReplayerStopped();
+		journal.close();
+	}
+
+	private void awaitReplayerStopped() {
+		try {
+			replayer.awaitTermination(REPLAYER_STOP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public WriteAheadJournal onlyForTestGetJournal() {
+		return journal;
+	}
+
+	public long onlyForTestGetInitialRetryDelayInMillis() {
+		return initialRetryDelayInMillis;
+	}
+
+	public long onlyForTestGetMaxRetryDelayInMillis() {
+		return maxRetryDelayInMillis;
+	}
+
+	public long onlyForTestGetMaxWaitForWritesInMillis() {
+		return maxWaitForWritesInMillis;
+	}
+
+	private record UnappliedWrite(JournalEntry entry, boolean recovered) {
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.HttpHandlerFactory;
+
+/**
+ * ModifiedIdFinder finds the ids in a dataDivider that have been modified in Fedora since an
+ * instant, by streaming the children of the dataDivider with the time they were last modified from
+ * a {@link ContainerLister}, so that one listing request is enough for children whose last
+ * modification is reported in the listing. Only children listed without it are asked about with a
+ * conditional HEAD request, so that no record content is transferred.
+ * <p>
+ * The children are handled in batches of at most {@value #CHECK_BATCH_SIZE}, so that memory use
+ * does not grow with the number of ids in the dataDivider.
+ * <p>
+ * Fedora reports modification times in whole seconds in its headers, the instant is therefore
+ * rounded down and one second is subtracted from it before it is compared. This means that ids
+ * modified up to one second before the instant can be returned, but no id modified after the
+ * instant is missed.
+ */
+final class ModifiedIdFinder {
+	static final int CHECK_BATCH_SIZE = 1000;
+	private static final int OK = 200;
+	private static final int NOT_MODIFIED = 304;
+	private static final int NOT_FOUND = 404;
+	private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+	private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+			.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH)
+			.withZone(ZoneOffset.UTC);
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error checking modification of id {0} "
+			+ "in dataDivider {1}. An internal error has been thrown.";
+	private static final String ERR_MSG_FEDORA_ERROR = "Error checking modification in Fedora "
+			+ "of id {0} in dataDivider {1} failed due to error {2} returned from Fedora";
+
+	private ContainerLister containerLister;
+	private HttpHandlerFactory httpHandlerFactory;
+	private String baseUrl;
+	private Executor batchExecutor;
+
+	ModifiedIdFinder(ContainerLister containerLister, HttpHandlerFactory httpHandlerFactory,
+			String baseUrl, Executor batchExecutor) {
+		this.containerLister = containerLister;
+		this.httpHandlerFactory = httpHandlerFactory;
+		this.baseUrl = baseUrl;
+		this.batchExecutor = batchExecutor;
+	}
+
+	List<String> findIdsModifiedSince(String dataDivider, Instant since, int maxParallelChecks) {
+		Instant modifiedAfter = since.truncatedTo(ChronoUnit.SECONDS).minusSeconds(1);
+		Set<String> modifiedIds = new LinkedHashSet<>();
+		try (Stream<ListedChild> children = containerLister
+				.streamChildrenWithLastModified(dataDivider)) {
+			Iterator<ListedChild> iterator = children.iterator();
+			while (iterator.hasNext()) {
+				List<ListedChild> batch = readNextBatch(iterator);
+				modifiedIds.addAll(findModifiedIdsInBatch(dataDivider, batch, modifiedAfter,
+						maxParallelChecks));
+			}
+		}
+		return new ArrayList<>(modifiedIds);
+	}
+
+	private List<ListedChild> readNextBatch(Iterator<ListedChild> iterator) {
+		List<ListedChild> batch = new ArrayList<>(CHECK_BATCH_SIZE);
+		while (iterator.hasNext() && batch.size() < CHECK_BATCH_SIZE) {
+			batch.add(iterator.next());
+		}
+		return batch;
+	}
+
+	private List<String> findModifiedIdsInBatch(String dataDivider, List<ListedChild> batch,
+			Instant modifiedAfter, int maxParallelChecks) {
+		Iterator<ModificationCheck> checks = checkChildrenWithoutLastModified(dataDivider, batch,
+				modifiedAfter, maxParallelChecks).iterator();
+		List<String> modifiedIds = new ArrayList<>();
+		for (ListedChild child : batch) {
+			if (isModified(child, modifiedAfter, checks)) {
+				modifiedIds.add(child.id());
+			}
+		}
+		return modifiedIds;
+	}
+
+	private List<ModificationCheck> checkChildrenWithoutLastModified(String dataDivider,
+			List<ListedChild> batch, Instant modifiedAfter, int maxParallelChecks) {
+		List<String> idsToCheck = batch.stream().filter(child -> child.lastModified() == null)
+				.map(ListedChild::id).toList();
+		if (idsToCheck.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String ifModifiedSince = HTTP_DATE.format(modifiedAfter);
+		return ParallelBatch.runInParallel(batchExecutor, idsToCheck, maxParallelChecks,
+				id -> checkModification(dataDivider, id, ifModifiedSince));
+	}
+
+	private boolean isModified(ListedChild child, Instant modifiedAfter,
+			Iterator<ModificationCheck> checks) {
+		if (child.lastModified() != null) {
+			return child.lastModified().isAfter(modifiedAfter);
+		}
+		ModificationCheck check = checks.next();
+		if (check.error() != null) {
+			throw check.error();
+		}
+		return check.modified();
+	}
+
+	private ModificationCheck checkModification(String dataDivider, String id,
+			String ifModifiedSince) {
+		try {
+			int responseCode = callFedoraForModification(dataDivider, id, ifModifiedSince);
+			return new ModificationCheck(id, isModified(dataDivider, id, responseCode), null);
+		} catch (RuntimeException e) {
+			return new ModificationCheck(id, false, e);
+		}
+	}
+
+	private int callFedoraForModification(String dataDivider, String id,
+			String ifModifiedSince) {
+		try {
+			HttpHandler httpHandler = httpHandlerFactory.factor(baseUrl + dataDivider + ":" + id);
+			httpHandler.setRequestMethod("HEAD");
+			httpHandler.setRequestProperty(IF_MODIFIED_SINCE, ifModifiedSince);
+			return httpHandler.getResponseCode();
+		} catch (Exception e) {
+			throw FedoraException.withMessageAndException(
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, id, dataDivider), e);
+		}
+	}
+
+	private boolean isModified(String dataDivider, String id, int responseCode) {
+		if (responseCode == OK) {
+			return true;
+		}
+		if (responseCode == NOT_MODIFIED || responseCode == NOT_FOUND) {
+			return false;
+		}
+		throw FedoraException.withMessage(
+				MessageFormat.format(ERR_MSG_FEDORA_ERROR, id, dataDivider, responseCode));
+	}
+
+	private record ModificationCheck(String id, boolean modified, RuntimeException error) {
+	}
+}
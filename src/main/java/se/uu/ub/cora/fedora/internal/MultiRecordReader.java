@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+
+/**
+ * MultiRecordReader reads many records at the same time using a function that reads one record,
+ * sorting them into found records and missing recordIds.
+ * <p>
+ * Each recordId is only read once. A {@link FedoraNotFoundException} marks the recordId as
+ * missing, any other exception is rethrown once all records have been read.
+ */
+final class MultiRecordReader {
+
+	private MultiRecordReader() {
+	}
+
+	static ReadRecordsResult readRecords(Executor batchExecutor, List<String> recordIds,
+			int maxParallelReads, Function<String, String> recordReader) {
+		List<String> distinctIds = recordIds.stream().distinct().toList();
+		List<RecordRead> recordsRead = ParallelBatch.runInParallel(batchExecutor, distinctIds,
+				maxParallelReads, recordId -> readRecord(recordId, recordReader));
+		return collectResult(recordsRead);
+	}
+
+	private static RecordRead readRecord(String recordId, Function<String, String> recordReader) {
+		try {
+			return new RecordRead(recordId, recordReader.apply(recordId), null);
+		} catch (FedoraNotFoundException e) {
+			return new RecordRead(recordId, null, null);
+		} catch (RuntimeException e) {
+			return new RecordRead(recordId, null, e);
+		}
+	}
+
+	private static ReadRecordsResult collectResult(List<RecordRead> recordsRead) {
+		Map<String, String> records = new HashMap<>();
+		Set<String> missingIds = new HashSet<>();
+		for (RecordRead recordRead : recordsRead) {
+			if (recordRead.error() != null) {
+				throw recordRead.error();
+			}
+			if (recordRead.recordXml() == null) {
+				missingIds.add(recordRead.recordId());
+			} else {
+				records.put(recordRead.recordId(), recordRead.recordXml());
+			}
+		}
+		return new ReadRecordsResult(records, missingIds);
+	}
+
+	private record RecordRead(String recordId, String recordXml, RuntimeException error) {
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import se.uu.ub.cora.json.parser.JsonObject;
+import se.uu.ub.cora.json.parser.JsonParser;
+
+/**
+ * NdjsonImportSource reads each line in a newline delimited JSON file as a record item, with the
+ * id and the record xml taken from the fields "id" and "recordXml". Blank lines are ignored.
+ */
+class NdjsonImportSource implements ImportSource {
+	private static final String ID = "id";
+	private static final String RECORD_XML = "recordXml";
+
+	private Path ndjsonFile;
+	private JsonParser jsonParser;
+
+	NdjsonImportSource(Path ndjsonFile, JsonParser jsonParser) {
+		this.ndjsonFile = ndjsonFile;
+		this.jsonParser = jsonParser;
+	}
+
+	@Override
+	public void forEachItem(Predicate<String> isWanted, Consumer<ImportItem> consumer)
+			throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(ndjsonFile,
+				StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			while (line != null) {
+				handleLine(line, isWanted, consumer);
+				line = reader.readLine();
+			}
+		}
+	}
+
+	private void handleLine(String line, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) {
+		if (line.isBlank()) {
+			return;
+		}
+		JsonObject recordObject = jsonParser.parseStringAsObject(line);
+		String id = recordObject.getValueAsJsonString(ID).getStringValue();
+		if (isWanted.test(id)) {
+			String recordXml = recordObject.getValueAsJsonString(RECORD_XML).getStringValue();
+			consumer.accept(ImportItem.fromBytes(id, recordXml.getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+}
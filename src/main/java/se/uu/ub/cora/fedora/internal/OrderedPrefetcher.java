@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+/**
+ * OrderedPrefetcher fetches items using a fixed number of threads and hands the fetched results to
+ * a consumer one at a time, in the same order as the items. The items are taken from an Iterator
+ * as they are needed, so they can be read lazily, for instance from a streamed listing.
+ * <p>
+ * At most twice the number of threads items are fetched ahead of the consumer, so the number of
+ * results held in memory does not depend on the number of items. Results that were fetched but
+ * never consumed, because the consumer threw an exception, are handed to discardedConsumer so that
+ * they can release any resources they hold.
+ * <p>
+ * Fetches are expected to handle their own failures and return them as results, a fetch that
+ * throws an exception fails the whole prefetch with a FedoraException.
+ */
+final class OrderedPrefetcher {
+
+	private OrderedPrefetcher() {
+	}
+
+	static <T, R> void forEachInOrder(Iterator<T> items, int maxParallelism,
+			Function<T, R> fetch, Consumer<R> consumer, Consumer<R> discardedConsumer) {
+		if (!items.hasNext()) {
+			return;
+		}
+		int numberOfThreads = Math.max(1, maxParallelism);
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		Deque<Future<R>> fetching = new ArrayDeque<>();
+		try {
+			consumeInOrder(items, 2 * numberOfThreads, executor, fetching, fetch, consumer);
+		} finally {
+			discardFetched(fetching, discardedConsumer);
+			executor.shutdownNow();
+		}
+	}
+
+	private static <T, R> void consumeInOrder(Iterator<T> items, int maxFetchedAhead,
+			ExecutorService executor, Deque<Future<R>> fetching, Function<T, R> fetch,
+			Consumer<R> consumer) {
+		startFetches(items, maxFetchedAhead, executor, fetching, fetch);
+		while (!fetching.isEmpty()) {
+			R result = getResult(fetching.removeFirst());
+			startFetches(items, maxFetchedAhead, executor, fetching, fetch);
+			consumer.accept(result);
+		}
+	}
+
+	private static <T, R> void startFetches(Iterator<T> items, int maxFetchedAhead,
+			ExecutorService executor, Deque<Future<R>> fetching, Function<T, R> fetch) {
+		while (fetching.size() < maxFetchedAhead && items.hasNext()) {
+			T item = items.next();
+			fetching.addLast(executor.submit(() -> fetch.apply(item)));
+		}
+	}
+
+	private static <R> R getResult(Future<R> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw FedoraException.withMessageAndException("Prefetch was interrupted", e);
+		} catch (ExecutionException e) {
+			throw FedoraException.withMessageAndException("Prefetch failed", e);
+		}
+	}
+
+	private static <R> void discardFetched(Deque<Future<R>> fetching,
+			Consumer<R> discardedConsumer) {
+		for (Future<R> future : fetching) {
+			discardFetchedIfPossible(future, discardedConsumer);
+		}
+		fetching.clear();
+	}
+
+	private static <R> void discardFetchedIfPossible(Future<R> future,
+			Consumer<R> discardedConsumer) {
+		try {
+			discardedConsumer.accept(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// nothing was fetched, so there is nothing to discard
+		}
+	}
+}
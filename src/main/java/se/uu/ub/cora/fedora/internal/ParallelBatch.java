@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+/**
+ * ParallelBatch runs a task for each item in a batch using at most maxParallelism threads,
+ * returning the results in the same order as the items.
+ * <p>
+ * The threads are borrowed from an Executor shared by everything created by the same factory, so
+ * the number of threads used by all batches together is bounded by the executor. The calling
+ * thread works on the batch as well, and the batch only asks the executor for as many helpers as
+ * it has items for. Helpers the executor rejects, or starts after all items have been taken, are
+ * simply not needed, so a batch always finishes even when the executor has no free threads, for
+ * instance when batches are started from tasks of other batches.
+ * <p>
+ * Tasks are expected to handle their own failures and return them as results, a task that throws
+ * an exception fails the whole batch with a FedoraException. Items not yet started when a task
+ * fails are not run.
+ */
+final class ParallelBatch<T, R> {
+	private List<T> items;
+	private Function<T, R> task;
+	private Object[] results;
+	private AtomicInteger nextItem = new AtomicInteger();
+	private CountDownLatch itemsHandled;
+	private AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+	private ParallelBatch(List<T> items, Function<T, R> task) {
+		this.items = items;
+		this.task = task;
+		results = new Object[items.size()];
+		itemsHandled = new CountDownLatch(items.size());
+	}
+
+	static <T, R> List<R> runInParallel(Executor executor, List<T> items, int maxParallelism,
+			Function<T, R> task) {
+		if (items.isEmpty()) {
+			return new ArrayList<>();
+		}
+		ParallelBatch<T, R> batch = new ParallelBatch<>(items, task);
+		int numberOfHelpers = Math.min(Math.max(1, maxParallelism), items.size()) - 1;
+		batch.startHelpers(executor, numberOfHelpers);
+		batch.handleItems();
+		return batch.awaitResults();
+	}
+
+	private void startHelpers(Executor executor, int numberOfHelpers) {
+		try {
+			for (int i = 0; i < numberOfHelpers; i++) {
+				executor.execute(this::handleItems);
+			}
+		} catch (RejectedExecutionException e) {
+			// no free threads, the items are handled by the threads already working on the batch
+		}
+	}
+
+	private void handleItems() {
+		int index = nextItem.getAndIncrement();
+		while (index < items.size()) {
+			handleItem(index);
+			itemsHandled.countDown();
+			index = nextItem.getAndIncrement();
+		}
+	}
+
+	private void handleItem(int index) {
+		if (failure.get() != null) {
+			return;
+		}
+		try {
+			results[index] = task.apply(items.get(index));
+		} catch (RuntimeException e) {
+			failure.compareAndSet(null, e);
+		}
+	}
+
+	private List<R> awaitResults() {
+		try {
+			itemsHandled.await();
+		} catch (InterruptedException e) {
+			nextItem.set(items.size());
+			Thread.currentThread().interrupt();
+			throw FedoraException.withMessageAndException("Batch was interrupted", e);
+		}
+		if (failure.get() != null) {
+			throw FedoraException.withMessageAndException("Batch failed", failure.get());
+		}
+		return createResultList();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<R> createResultList() {
+		return (List<R>) new ArrayList<>(Arrays.asList(results));
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import se.uu.ub.cora.fedora.bulk.ProgressListener;
+
+/**
+ * Progress counts the items of a bulk operation as they are handled and notifies a
+ * {@link ProgressListener} about each of them, one call at a time.
+ * <p>
+ * The number of items is either known when the operation starts, or counted with
+ * {@link #itemListed()} as the items are listed, for operations that handle items while they are
+ * still being listed.
+ */
+final class Progress {
+	private ProgressListener progressListener;
+	private int numberOfItems;
+	private int numberOfHandledItems = 0;
+
+	Progress(ProgressListener progressListener, int numberOfItems) {
+		this.progressListener = progressListener;
+		this.numberOfItems = numberOfItems;
+	}
+
+	synchronized void itemListed() {
+		numberOfItems++;
+	}
+
+	synchronized void itemHandled() {
+		numberOfHandledItems++;
+		progressListener.progress(numberOfHandledItems, numberOfItems);
+	}
+
+	synchronized int getNumberOfItems() {
+		return numberOfItems;
+	}
+}
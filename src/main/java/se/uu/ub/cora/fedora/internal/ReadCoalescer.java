@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.function.Supplier;
+
+/**
+ * ReadCoalescer makes concurrent identical reads share one call to Fedora.
+ * <p>
+ * Implementations MUST be threadsafe as one instance is shared between all adapters created by the
+ * same factory.
+ */
+public interface ReadCoalescer {
+
+	/**
+	 * read calls the reader and returns its result. If another thread is already reading using the
+	 * same key, the reader is not called, instead the result (or exception) from the ongoing read
+	 * is returned to all waiting threads.
+	 * 
+	 * @param key
+	 *            A String identifying the read, reads with equal keys are coalesced
+	 * @param reader
+	 *            A Supplier doing the actual read
+	 * @return The result from the read
+	 */
+	<T> T read(String key, Supplier<T> reader);
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+public class ReadCoalescerImp implements ReadCoalescer {
+
+	private ConcurrentMap<String, CompletableFuture<Object>> readsInFlight = new ConcurrentHashMap<>();
+
+	@Override
+	public <T> T read(String key, Supplier<T> reader) {
+		CompletableFuture<Object> ownRead = new CompletableFuture<>();
+		CompletableFuture<Object> ongoingRead = readsInFlight.putIfAbsent(key, ownRead);
+		if (ongoingRead != null) {
+			return waitForOngoingRead(ongoingRead);
+		}
+		return readAndShareResult(key, reader, ownRead);
+	}
+
+	private <T> T readAndShareResult(String key, Supplier<T> reader,
+			CompletableFuture<Object> ownRead) {
+		try {
+			T result = reader.get();
+			ownRead.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			ownRead.completeExceptionally(e);
+			throw e;
+		} finally {
+			readsInFlight.remove(key, ownRead);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T waitForOngoingRead(CompletableFuture<Object> ongoingRead) {
+		try {
+			return (T) ongoingRead.join();
+		} catch (CompletionException e) {
+			throw rethrowCauseFromOngoingRead(e);
+		}
+	}
+
+	private RuntimeException rethrowCauseFromOngoingRead(CompletionException e) {
+		if (e.getCause() instanceof RuntimeException runtimeException) {
+			return runtimeException;
+		}
+		return FedoraException.withMessageAndException("Error waiting for ongoing read.", e);
+	}
+
+	public int onlyForTestGetNumberOfReadsInFlight() {
+		return readsInFlight.size();
+	}
+}
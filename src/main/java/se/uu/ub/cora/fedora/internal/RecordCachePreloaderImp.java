@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.bulk.ProgressListener;
+import se.uu.ub.cora.fedora.cache.PreloadReport;
+import se.uu.ub.cora.fedora.cache.RecordCachePreloader;
+
+/**
+ * RecordCachePreloaderImp preloads records by reading them through a FedoraAdapter that caches
+ * what it reads, using at most maxParallelReads threads.
+ * <p>
+ * Only records are listed, resources stored for the dataDivider are left out. The listing is
+ * streamed, so records are read as they are listed and the listing is never held in memory as a
+ * whole.
+ */
+public class RecordCachePreloaderImp implements RecordCachePreloader {
+
+	private FedoraAdapter fedoraAdapter;
+	private ContainerLister containerLister;
+	private int maxParallelReads;
+
+	public RecordCachePreloaderImp(FedoraAdapter fedoraAdapter, ContainerLister containerLister,
+			int maxParallelReads) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.containerLister = containerLister;
+		this.maxParallelReads = maxParallelReads;
+	}
+
+	@Override
+	public PreloadReport preload(String dataDivider, ProgressListener progressListener) {
+		long startTime = System.nanoTime();
+		Progress progress = new Progress(progressListener, 0);
+		List<String> failedRecordIds = new ArrayList<>();
+		try (Stream<String> recordIds = containerLister.streamRecordIds(dataDivider)) {
+			OrderedPrefetcher.forEachInOrder(new CountingIterator(recordIds.iterator(), progress),
+					maxParallelReads, recordId -> tryToReadRecord(dataDivider, recordId),
+					preloadedRecord -> recordHandled(preloadedRecord, failedRecordIds, progress),
+					preloadedRecord -> {
+					});
+		}
+		Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+		int numberOfRecords = progress.getNumberOfItems();
+		return new PreloadReport(dataDivider, numberOfRecords,
+				numberOfRecords - failedRecordIds.size(), failedRecordIds, duration);
+	}
+
+	private PreloadedRecord tryToReadRecord(String dataDivider, String recordId) {
+		try {
+			fedoraAdapter.readRecord(dataDivider, recordId);
+			return new PreloadedRecord(recordId, true);
+		} catch (RuntimeException e) {
+			return new PreloadedRecord(recordId, false);
+		}
+	}
+
+	private void recordHandled(PreloadedRecord preloadedRecord, List<String> failedRecordIds,
+			Progress progress) {
+		if (!preloadedRecord.preloaded()) {
+			failedRecordIds.add(preloadedRecord.recordId());
+		}
+		progress.itemHandled();
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public ContainerLister onlyForTestGetContainerLister() {
+		return containerLister;
+	}
+
+	public int onlyForTestGetMaxParallelReads() {
+		return maxParallelReads;
+	}
+
+	private record PreloadedRecord(String recordId, boolean preloaded) {
+	}
+
+	private static class CountingIterator implements Iterator<String> {
+		private Iterator<String> recordIds;
+		private Progress progress;
+
+		private CountingIterator(Iterator<String> recordIds, Progress progress) {
+			this.recordIds = recordIds;
+			this.progress = progress;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return recordIds.hasNext();
+		}
+
+		@Override
+		public String next() {
+			String recordId = recordIds.next();
+			progress.itemListed();
+			return recordId;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+/**
+ * RecordCacheVersions keeps a version for each key in a
+ * {@link se.uu.ub.cora.fedora.cache.RecordCache}, so that a record read from Fedora is only written
+ * to the cache if the record has not been changed through any adapter sharing the same
+ * RecordCacheVersions since the read started.
+ * <p>
+ * Keys are spread over a fixed number of stripes, each with one version, so memory use does not
+ * grow with the number of keys. A change to one key therefore also stops concurrent reads of
+ * other keys in the same stripe from being cached, which only costs a later read from Fedora.
+ */
+public class RecordCacheVersions {
+	private static final int NUMBER_OF_STRIPES = 64;
+
+	private Stripe[] stripes = new Stripe[NUMBER_OF_STRIPES];
+
+	public RecordCacheVersions() {
+		for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * getVersion returns the current version for the key, to be passed to
+	 * {@link #runIfUnchanged(String, long, Runnable)} once the record has been read.
+	 */
+	long getVersion(String key) {
+		Stripe stripe = getStripe(key);
+		synchronized (stripe) {
+			return stripe.version;
+		}
+	}
+
+	/**
+	 * runIfUnchanged runs cacheWrite if the key has not been changed since version was read, while
+	 * no change to the key can be made.
+	 */
+	void runIfUnchanged(String key, long version, Runnable cacheWrite) {
+		Stripe stripe = getStripe(key);
+		synchronized (stripe) {
+			if (stripe.version == version) {
+				cacheWrite.run();
+			}
+		}
+	}
+
+	/**
+	 * changeAndRun marks the key as changed and runs cacheRemoval, so that no read started before
+	 * the change writes the record to the cache after cacheRemoval.
+	 */
+	void changeAndRun(String key, Runnable cacheRemoval) {
+		Stripe stripe = getStripe(key);
+		synchronized (stripe) {
+			stripe.version++;
+			cacheRemoval.run();
+		}
+	}
+
+	private Stripe getStripe(String key) {
+		return stripes[Math.floorMod(key.hashCode(), NUMBER_OF_STRIPES)];
+	}
+
+	private static class Stripe {
+		private long version = 0;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.bulk.PublishedRecord;
+import se.uu.ub.cora.fedora.bulk.PublishedResourceMetadata;
+import se.uu.ub.cora.fedora.bulk.RecordPublisher;
+
+/**
+ * RecordPublisherImp publishes records and resource metadata read through a FedoraAdapter, using
+ * {@link FedoraItemPublisher} to keep at most maxParallelReads reads in progress for each
+ * subscription.
+ * <p>
+ * When a whole dataDivider is published, the records or the resources in it are listed using a
+ * {@link ContainerLister}, so that only records are read as records and only resources have their
+ * metadata read.
+ */
+public class RecordPublisherImp implements RecordPublisher {
+	private FedoraAdapter fedoraAdapter;
+	private ContainerLister containerLister;
+	private int maxParallelReads;
+
+	public RecordPublisherImp(FedoraAdapter fedoraAdapter, ContainerLister containerLister,
+			int maxParallelReads) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.containerLister = containerLister;
+		this.maxParallelReads = maxParallelReads;
+	}
+
+	@Override
+	public Flow.Publisher<PublishedRecord> publishRecords(String dataDivider) {
+		return createPublisher(() -> containerLister.streamRecordIds(dataDivider),
+				recordId -> readRecord(dataDivider, recordId));
+	}
+
+	@Override
+	public Flow.Publisher<PublishedRecord> publishRecords(String dataDivider,
+			List<String> recordIds) {
+		return createPublisher(recordIds::stream, recordId -> readRecord(dataDivider, recordId));
+	}
+
+	private PublishedRecord readRecord(String dataDivider, String recordId) {
+		return new PublishedRecord(recordId, fedoraAdapter.readRecord(dataDivider, recordId));
+	}
+
+	@Override
+	public Flow.Publisher<PublishedResourceMetadata> publishResourcesMetadata(
+			String dataDivider) {
+		return createPublisher(() -> containerLister.streamResourceIds(dataDivider),
+				resourceId -> readResourceMetadata(dataDivider, resourceId));
+	}
+
+	@Override
+	public Flow.Publisher<PublishedResourceMetadata> publishResourcesMetadata(String dataDivider,
+			List<String> resourceIds) {
+		return createPublisher(resourceIds::stream,
+				resourceId -> readResourceMetadata(dataDivider, resourceId));
+	}
+
+	private PublishedResourceMetadata readResourceMetadata(String dataDivider,
+			String resourceId) {
+		return new PublishedResourceMetadata(resourceId,
+				fedoraAdapter.readResourceMetadata(dataDivider, resourceId));
+	}
+
+	private <T> Flow.Publisher<T> createPublisher(Supplier<Stream<String>> idSource,
+			Function<String, T> fetch) {
+		return new FedoraItemPublisher<>(idSource, fetch, maxParallelReads);
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public ContainerLister onlyForTestGetContainerLister() {
+		return containerLister;
+	}
+
+	public int onlyForTestGetMaxParallelReads() {
+		return maxParallelReads;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraFixityException;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+
+/**
+ * ResourceDownloader downloads a resource to a file by splitting it into ranges of a fixed size
+ * and reading several ranges from Fedora at the same time.
+ * <p>
+ * Each range is written directly at its offset in the file using positional writes, so the
+ * ranges can be written in any order without buffering. When all ranges are written the SHA-512
+ * checksum of the file is calculated and compared with the checksum Fedora reports for the
+ * resource.
+ * <p>
+ * If the download fails for any reason, including a checksum mismatch, the file is removed and
+ * no further ranges are read.
+ */
+final class ResourceDownloader {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String ERR_MSG_INVALID_RANGE_SIZE = "Error downloading resource id {0}: "
+			+ "range size {1} must be at least 1.";
+	private static final String ERR_MSG_INVALID_FILE_SIZE = "Error downloading resource id {0}: "
+			+ "Fedora returned the invalid file size {1}.";
+	private static final String ERR_MSG_FILE_ERROR = "Error downloading resource id {0} to file "
+			+ "{1}. An internal error has been thrown.";
+	private static final String ERR_MSG_INCOMPLETE_RANGE = "Error downloading resource id {0}: "
+			+ "range at offset {1} ended after {2} of {3} bytes.";
+	private static final String ERR_MSG_CHECKSUM_MISMATCH = "Error downloading resource id {0}: "
+			+ "the downloaded file has checksum {1} but Fedora reports checksum {2}.";
+
+	private FedoraAdapter fedoraAdapter;
+	private Executor batchExecutor;
+
+	ResourceDownloader(FedoraAdapter fedoraAdapter, Executor batchExecutor) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.batchExecutor = batchExecutor;
+	}
+
+	ResourceMetadata download(String dataDivider, String resourceId, Path target, long rangeSize,
+			int maxParallelReads) {
+		ensureValidRangeSize(resourceId, rangeSize);
+		ResourceMetadata metadata = fedoraAdapter.readResourceMetadata(dataDivider, resourceId);
+		List<ByteRange> ranges = splitIntoRanges(parseFileSize(resourceId, metadata), rangeSize);
+		try {
+			downloadRanges(dataDivider, resourceId, target, ranges, maxParallelReads);
+			ensureChecksumMatches(resourceId, target, metadata.checksumSHA512());
+			return metadata;
+		} catch (RuntimeException e) {
+			deleteIgnoringErrors(target);
+			throw e;
+		}
+	}
+
+	private void ensureValidRangeSize(String resourceId, long rangeSize) {
+		if (rangeSize < 1) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_INVALID_RANGE_SIZE,
+					resourceId, String.valueOf(rangeSize)));
+		}
+	}
+
+	private long parseFileSize(String resourceId, ResourceMetadata metadata) {
+		try {
+			return Long.parseLong(metadata.fileSize());
+		} catch (NumberFormatException e) {
+			throw FedoraException.withMessageAndException(MessageFormat
+					.format(ERR_MSG_INVALID_FILE_SIZE, resourceId, metadata.fileSize()), e);
+		}
+	}
+
+	private List<ByteRange> splitIntoRanges(long fileSize, long rangeSize) {
+		List<ByteRange> ranges = new ArrayList<>();
+		long offset = 0;
+		while (offset < fileSize) {
+			long length = Math.min(rangeSize, fileSize - offset);
+			ranges.add(new ByteRange(offset, length));
+			offset += length;
+		}
+		return ranges;
+	}
+
+	private void downloadRanges(String dataDivider, String resourceId, Path target,
+			List<ByteRange> ranges, int maxParallelReads) {
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			AtomicBoolean failed = new AtomicBoolean();
+			List<Optional<RuntimeException>> errors = ParallelBatch.runInParallel(batchExecutor,
+					ranges, maxParallelReads, range -> downloadRangeUnlessFailed(dataDivider,
+							resourceId, target, channel, range, failed));
+			throwFirstError(errors);
+		} catch (IOException e) {
+			throw createFileException(resourceId, target, e);
+		}
+	}
+
+	private Optional<RuntimeException> downloadRangeUnlessFailed(String dataDivider,
+			String resourceId, Path target, FileChannel channel, ByteRange range,
+			AtomicBoolean failed) {
+		if (failed.get()) {
+			return Optional.empty();
+		}
+		try {
+			downloadRange(dataDivider, resourceId, target, channel, range);
+			return Optional.empty();
+		} catch (RuntimeException e) {
+			failed.set(true);
+			return Optional.of(e);
+		}
+	}
+
+	private void downloadRange(String dataDivider, String resourceId, Path target,
+			FileChannel channel, ByteRange range) {
+		ResourceRange resourceRange = fedoraAdapter.readResource(dataDivider, resourceId,
+				range.offset(), range.length());
+		try (InputStream resource = resourceRange.resource()) {
+			long written = writeAtOffset(resource, channel, range.offset());
+			ensureCompleteRange(resourceId, range, written);
+		} catch (IOException e) {
+			throw createFileException(resourceId, target, e);
+		}
+	}
+
+	private long writeAtOffset(InputStream resource, FileChannel channel, long offset)
+			throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long position = offset;
+		int read = resource.read(buffer);
+		while (read != -1) {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+			while (byteBuffer.hasRemaining()) {
+				position += channel.write(byteBuffer, position);
+			}
+			read = resource.read(buffer);
+		}
+		return position - offset;
+	}
+
+	private void ensureCompleteRange(String resourceId, ByteRange range, long written) {
+		if (written != range.length()) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_INCOMPLETE_RANGE,
+					resourceId, String.valueOf(range.offset()), String.valueOf(written),
+					String.valueOf(range.length())));
+		}
+	}
+
+	private void throwFirstError(List<Optional<RuntimeException>> errors) {
+		for (Optional<RuntimeException> error : errors) {
+			if (error.isPresent()) {
+				throw error.get();
+			}
+		}
+	}
+
+	private void ensureChecksumMatches(String resourceId, Path target, String expectedChecksum) {
+		String checksum = calculateChecksum(resourceId, target);
+		if (!checksum.equalsIgnoreCase(expectedChecksum)) {
+			throw FedoraFixityException.withMessage(MessageFormat.format(
+					ERR_MSG_CHECKSUM_MISMATCH, resourceId, checksum, expectedChecksum));
+		}
+	}
+
+	private String calculateChecksum(String resourceId, Path target) {
+		try (ChecksummingInputStream file = new ChecksummingInputStream(
+				Files.newInputStream(target))) {
+			return file.readToEnd().checksumSHA512();
+		} catch (IOException e) {
+			throw createFileException(resourceId, target, e);
+		}
+	}
+
+	private FedoraException createFileException(String resourceId, Path target, Exception e) {
+		return FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_FILE_ERROR, resourceId, target), e);
+	}
+
+	private void deleteIgnoringErrors(Path target) {
+		try {
+			Files.deleteIfExists(target);
+		} catch (IOException e) {
+			// the original error is more important than a file that could not be removed
+		}
+	}
+}
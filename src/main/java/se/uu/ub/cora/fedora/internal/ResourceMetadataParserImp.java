@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Uppsala University Library
+ * Copyright 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -29,6 +29,9 @@ public class ResourceMetadataParserImp implements ResourceMetadataParser {
 	private static final String CHECKSUM_PREFIX = "urn:sha-512:";
 	private static final String CHECKSUM_INNER_KEY = "@id";
 	private static final String CHECKSUM_OUTER_KEY = "http://www.loc.gov/premis/rdf/v1#hasMessageDigest";
+	private static final String MIME_TYPE_INNER_KEY = "@value";
+	private static final String MIME_TYPE_OUTER_KEY = "http://www.ebu.ch/metadata/ontologies/"
+			+ "ebucore/ebucore#hasMimeType";
 	private JsonParser jsonParser;
 
 	public static ResourceMetadataParserImp usingJsonParser(JsonParser jsonParser) {
@@ -53,8 +56,9 @@ public class ResourceMetadataParserImp implements ResourceMetadataParser {
 		JsonObject surroundingObject = getSurroundingObject(jsonString);
 		String fileSize = getFileSize(surroundingObject);
 		String checksum = getChecksum(surroundingObject);
+		String mimeType = getMimeTypeIfPresent(surroundingObject);
 
-		return new ResourceMetadata(fileSize, checksum);
+		return new ResourceMetadata(fileSize, checksum, mimeType);
 	}
 
 	private String getFileSize(JsonObject surroundingObject) {
@@ -68,6 +72,14 @@ public class ResourceMetadataParserImp implements ResourceMetadataParser {
 		return checksum.substring(CHECKSUM_PREFIX.length());
 	}
 
+	private String getMimeTypeIfPresent(JsonObject surroundingObject) {
+		if (!surroundingObject.containsKey(MIME_TYPE_OUTER_KEY)) {
+			return null;
+		}
+		return getInnerObjectValueByOuterAndInnerKey(surroundingObject, MIME_TYPE_INNER_KEY,
+				MIME_TYPE_OUTER_KEY);
+	}
+
 	private String getInnerObjectValueByOuterAndInnerKey(JsonObject surroundingObject,
 			String innerObjectkey, String outerObjectKey) {
 		JsonObject checksumObject = getInnerObjectByKey(surroundingObject, outerObjectKey);
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+
+/**
+ * ResourceMetadataSparql creates the SPARQL update used to update the metadata of a resource.
+ * <p>
+ * The template is split into its constant parts once, so creating a body is a plain concatenation
+ * of those parts and the values, escaped as SPARQL string literals.
+ */
+final class ResourceMetadataSparql {
+	private static final String UPDATE_START = """
+			PREFIX ebucore: <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#>
+			INSERT {<> ebucore:filename \"""";
+	private static final String UPDATE_MIDDLE = "\" . <> ebucore:hasMimeType \"";
+	private static final String UPDATE_END = """
+			" .}
+			WHERE {}
+			""";
+
+	private ResourceMetadataSparql() {
+	}
+
+	static String createUpdateBody(ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		String fileName = escapeStringLiteral(resourceMetadataToUpdate.originalFileName());
+		String mimeType = escapeStringLiteral(resourceMetadataToUpdate.mimeType());
+		return UPDATE_START + fileName + UPDATE_MIDDLE + mimeType + UPDATE_END;
+	}
+
+	static String escapeStringLiteral(String value) {
+		String text = String.valueOf(value);
+		StringBuilder escaped = new StringBuilder(text.length() + 8);
+		for (int i = 0; i < text.length(); i++) {
+			appendEscaped(escaped, text.charAt(i));
+		}
+		return escaped.toString();
+	}
+
+	private static void appendEscaped(StringBuilder escaped, char character) {
+		switch (character) {
+		case '\\' -> escaped.append("\\\\");
+		case '"' -> escaped.append("\\\"");
+		case '\'' -> escaped.append("\\'");
+		case '\n' -> escaped.append("\\n");
+		case '\r' -> escaped.append("\\r");
+		case '\t' -> escaped.append("\\t");
+		case '\b' -> escaped.append("\\b");
+		case '\f' -> escaped.append("\\f");
+		default -> escaped.append(character);
+		}
+	}
+}
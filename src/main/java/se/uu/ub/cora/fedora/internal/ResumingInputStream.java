@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * ResumingInputStream reads a resource from an underlying stream and, if reading fails with an
+ * IOException, asks a {@link Resumer} for a new stream continuing from the first byte not yet
+ * delivered, so that a transfer survives a dropped connection.
+ * <p>
+ * At most maxResumeAttempts attempts to resume are made after each failure. The count is reset
+ * as soon as bytes are delivered again, so a long transfer can survive any number of separate
+ * failures. A Resumer signals a failure that may go away by throwing an IOException, which uses
+ * up one attempt, and a failure that will not go away, such as a changed resource, by throwing a
+ * RuntimeException, which ends resuming at once.
+ * <p>
+ * When resuming is given up the original IOException is thrown, with the errors from the
+ * attempts to resume added as suppressed exceptions.
+ */
+final class ResumingInputStream extends InputStream {
+
+	/**
+	 * Resumer opens a new stream for the resource starting at position.
+	 */
+	@FunctionalInterface
+	interface Resumer {
+		InputStream resumeFrom(long position) throws IOException;
+	}
+
+	private InputStream current;
+	private Resumer resumer;
+	private int maxResumeAttempts;
+	private long position = 0;
+	private int failedAttempts = 0;
+
+	ResumingInputStream(InputStream resource, Resumer resumer, int maxResumeAttempts) {
+		this.current = resource;
+		this.resumer = resumer;
+		this.maxResumeAttempts = maxResumeAttempts;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (true) {
+			try {
+				int read = current.read();
+				if (read != -1) {
+					registerDelivered(1);
+				}
+				return read;
+			} catch (IOException e) {
+				resumeOrThrow(e);
+			}
+		}
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		while (true) {
+			try {
+				int read = current.read(buffer, offset, length);
+				if (read > 0) {
+					registerDelivered(read);
+				}
+				return read;
+			} catch (IOException e) {
+				resumeOrThrow(e);
+			}
+		}
+	}
+
+	private void registerDelivered(int numberOfBytes) {
+		position += numberOfBytes;
+		failedAttempts = 0;
+	}
+
+	private void resumeOrThrow(IOException readError) throws IOException {
+		while (failedAttempts < maxResumeAttempts) {
+			failedAttempts++;
+			closeIgnoringErrors(current);
+			try {
+				current = resumer.resumeFrom(position);
+				return;
+			} catch (IOException e) {
+				readError.addSuppressed(e);
+			} catch (RuntimeException e) {
+				readError.addSuppressed(e);
+				throw readError;
+			}
+		}
+		throw readError;
+	}
+
+	private void closeIgnoringErrors(InputStream resource) {
+		try {
+			resource.close();
+		} catch (IOException e) {
+			// the stream is broken and about to be replaced
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		current.close();
+	}
+
+	long onlyForTestGetPosition() {
+		return position;
+	}
+
+	int onlyForTestGetMaxResumeAttempts() {
+		return maxResumeAttempts;
+	}
+}
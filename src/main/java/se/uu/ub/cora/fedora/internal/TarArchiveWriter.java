@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TarArchiveWriter writes entries as a POSIX ustar archive.
+ * <p>
+ * Entry names longer than the 100 bytes that fit in the ustar header are written in a preceding
+ * PAX extended header, with the name cut to 100 bytes in the ustar header for readers that do not
+ * understand PAX. Sizes too large for the octal size field are written using the base-256
+ * encoding understood by GNU tar and other common implementations.
+ */
+class TarArchiveWriter implements ArchiveWriter {
+	private static final int BLOCK_SIZE = 512;
+	private static final int NAME_LENGTH = 100;
+	private static final int MODE_OFFSET = 100;
+	private static final int UID_OFFSET = 108;
+	private static final int GID_OFFSET = 116;
+	private static final int SIZE_OFFSET = 124;
+	private static final int MTIME_OFFSET = 136;
+	private static final int CHECKSUM_OFFSET = 148;
+	private static final int CHECKSUM_LENGTH = 8;
+	private static final int TYPEFLAG_OFFSET = 156;
+	private static final int MAGIC_OFFSET = 257;
+	private static final int NUMERIC_FIELD_LENGTH = 8;
+	private static final int LONG_NUMERIC_FIELD_LENGTH = 12;
+	private static final long MAX_OCTAL_SIZE = 077777777777L;
+	private static final byte REGULAR_FILE = '0';
+	private static final byte PAX_EXTENDED_HEADER = 'x';
+	private static final String PAX_HEADER_NAME = "PaxHeader";
+	private static final String PAX_PATH_KEYWORD = "path";
+	private static final String MAGIC_AND_VERSION = "ustar\u000000";
+
+	private OutputStream outputStream;
+	private long modificationTimeInSeconds;
+
+	TarArchiveWriter(OutputStream outputStream, long modificationTimeInSeconds) {
+		this.outputStream = outputStream;
+		this.modificationTimeInSeconds = modificationTimeInSeconds;
+	}
+
+	@Override
+	public void writeEntry(String name, long size, InputStream content) throws IOException {
+		if (name.getBytes(StandardCharsets.UTF_8).length > NAME_LENGTH) {
+			writePaxHeaderWithPath(name);
+		}
+		outputStream.write(createHeader(name, size, REGULAR_FILE));
+		copyContent(name, size, content);
+		writePadding(size);
+	}
+
+	private void writePaxHeaderWithPath(String name) throws IOException {
+		byte[] paxRecord = createPaxRecord(PAX_PATH_KEYWORD, name);
+		outputStream.write(createHeader(PAX_HEADER_NAME, paxRecord.length, PAX_EXTENDED_HEADER));
+		outputStream.write(paxRecord);
+		writePadding(paxRecord.length);
+	}
+
+	private byte[] createPaxRecord(String keyword, String value) {
+		String recordWithoutLength = " " + keyword + "=" + value + "\n";
+		int lengthWithoutLength = recordWithoutLength.getBytes(StandardCharsets.UTF_8).length;
+		int length = lengthWithoutLength + numberOfDigits(lengthWithoutLength);
+		if (numberOfDigits(length) > numberOfDigits(lengthWithoutLength)) {
+			length++;
+		}
+		return (length + recordWithoutLength).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private int numberOfDigits(int number) {
+		return Integer.toString(number).length();
+	}
+
+	private byte[] createHeader(String name, long size, byte typeflag) {
+		byte[] header = new byte[BLOCK_SIZE];
+		writeName(header, name);
+		writeOctal(header, MODE_OFFSET, NUMERIC_FIELD_LENGTH, 0644);
+		writeOctal(header, UID_OFFSET, NUMERIC_FIELD_LENGTH, 0);
+		writeOctal(header, GID_OFFSET, NUMERIC_FIELD_LENGTH, 0);
+		writeSize(header, size);
+		writeOctal(header, MTIME_OFFSET, LONG_NUMERIC_FIELD_LENGTH, modificationTimeInSeconds);
+		header[TYPEFLAG_OFFSET] = typeflag;
+		writeAscii(header, MAGIC_OFFSET, MAGIC_AND_VERSION);
+		writeChecksum(header);
+		return header;
+	}
+
+	private void writeName(byte[] header, String name) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(nameBytes, 0, header, 0, calculateCutNameLength(nameBytes));
+	}
+
+	private int calculateCutNameLength(byte[] nameBytes) {
+		if (nameBytes.length <= NAME_LENGTH) {
+			return nameBytes.length;
+		}
+		int length = NAME_LENGTH;
+		while (isUtf8ContinuationByte(nameBytes[length])) {
+			length--;
+		}
+		return length;
+	}
+
+	private boolean isUtf8ContinuationByte(byte b) {
+		return (b & 0xC0) == 0x80;
+	}
+
+	private void writeSize(byte[] header, long size) {
+		if (size > MAX_OCTAL_SIZE) {
+			writeBase256(header, SIZE_OFFSET, LONG_NUMERIC_FIELD_LENGTH, size);
+		} else {
+			writeOctal(header, SIZE_OFFSET, LONG_NUMERIC_FIELD_LENGTH, size);
+		}
+	}
+
+	private void writeOctal(byte[] header, int offset, int length, long value) {
+		String octal = String.format("%0" + (length - 1) + "o", value);
+		writeAscii(header, offset, octal);
+	}
+
+	private void writeBase256(byte[] header, int offset, int length, long value) {
+		long remaining = value;
+		for (int i = offset + length - 1; i > offset; i--) {
+			header[i] = (byte) remaining;
+			remaining >>>= 8;
+		}
+		header[offset] = (byte) 0x80;
+	}
+
+	private void writeAscii(byte[] header, int offset, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(bytes, 0, header, offset, bytes.length);
+	}
+
+	private void writeChecksum(byte[] header) {
+		for (int i = CHECKSUM_OFFSET; i < CHECKSUM_OFFSET + CHECKSUM_LENGTH; i++) {
+			header[i] = ' ';
+		}
+		long checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xFF;
+		}
+		writeAscii(header, CHECKSUM_OFFSET, String.format("%06o", checksum) + "\u0000");
+	}
+
+	private void copyContent(String name, long size, InputStream content) throws IOException {
+		byte[] buffer = new byte[8192];
+		long remaining = size;
+		while (remaining > 0) {
+			int read = content.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (read == -1) {
+				throw new IOException("Entry " + name + " ended " + remaining
+						+ " bytes before its size " + size);
+			}
+			outputStream.write(buffer, 0, read);
+			remaining -= read;
+		}
+		if (content.read() != -1) {
+			throw new IOException("Entry " + name + " is longer than its size " + size);
+		}
+	}
+
+	private void writePadding(long size) throws IOException {
+		int lastBlockLength = (int) (size % BLOCK_SIZE);
+		if (lastBlockLength > 0) {
+			outputStream.write(new byte[BLOCK_SIZE - lastBlockLength]);
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		outputStream.write(new byte[2 * BLOCK_SIZE]);
+		outputStream.flush();
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * TarImportSource reads each regular file entry in a ustar archive as an item with the entry name
+ * as id.
+ * <p>
+ * Long entry names written in a PAX extended header or a GNU long name entry, and sizes written in
+ * the base-256 encoding used by GNU tar for large entries are understood. The content of each
+ * wanted entry is spooled to a temporary file, so entries of any size can be read.
+ */
+class TarImportSource implements ImportSource {
+	private static final int BLOCK_SIZE = 512;
+	private static final int NAME_LENGTH = 100;
+	private static final int SIZE_OFFSET = 124;
+	private static final int SIZE_LENGTH = 12;
+	private static final int TYPEFLAG_OFFSET = 156;
+	private static final int MAGIC_OFFSET = 257;
+	private static final int PREFIX_OFFSET = 345;
+	private static final int PREFIX_LENGTH = 155;
+	private static final String MAGIC = "ustar";
+	private static final byte REGULAR_FILE = '0';
+	private static final byte OLD_REGULAR_FILE = 0;
+	private static final byte PAX_EXTENDED_HEADER = 'x';
+	private static final byte GNU_LONG_NAME = 'L';
+	private static final int MAX_LONG_NAME_HEADER_SIZE = 64 * 1024;
+	private static final String PAX_PATH_PREFIX = "path=";
+
+	private Path tarFile;
+	private String metadataId;
+	private String metadataJson;
+	private String longName;
+
+	TarImportSource(Path tarFile) {
+		this.tarFile = tarFile;
+	}
+
+	@Override
+	public void forEachItem(Predicate<String> isWanted, Consumer<ImportItem> consumer)
+			throws IOException {
+		forgetMetadata();
+		longName = null;
+		try (InputStream tar = new BufferedInputStream(Files.newInputStream(tarFile))) {
+			byte[] header = readHeader(tar);
+			while (!isEndOfArchive(header)) {
+				handleEntry(tar, header, isWanted, consumer);
+				header = readHeader(tar);
+			}
+		}
+	}
+
+	private byte[] readHeader(InputStream tar) throws IOException {
+		byte[] header = tar.readNBytes(BLOCK_SIZE);
+		if (header.length < BLOCK_SIZE) {
+			throw new IOException("Unexpected end of tar archive " + tarFile);
+		}
+		return header;
+	}
+
+	private boolean isEndOfArchive(byte[] header) {
+		for (byte b : header) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void handleEntry(InputStream tar, byte[] header, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) throws IOException {
+		String id = readNameUsingLongName(header);
+		long size = readSize(header);
+		byte typeflag = header[TYPEFLAG_OFFSET];
+		if (typeflag == PAX_EXTENDED_HEADER || typeflag == GNU_LONG_NAME) {
+			readLongName(tar, typeflag, size);
+		} else if (!isRegularFile(header)) {
+			tar.skipNBytes(size);
+		} else if (id.endsWith(METADATA_SUFFIX)) {
+			readMetadata(tar, id, size);
+		} else {
+			handleItem(tar, id, size, isWanted, consumer);
+		}
+		tar.skipNBytes(calculatePaddingLength(size));
+	}
+
+	private void readMetadata(InputStream tar, String name, long size) throws IOException {
+		forgetMetadata();
+		if (size > MAX_METADATA_SIZE) {
+			tar.skipNBytes(size);
+			return;
+		}
+		metadataId = name.substring(0, name.length() - METADATA_SUFFIX.length());
+		metadataJson = new String(tar.readNBytes((int) size), StandardCharsets.UTF_8);
+	}
+
+	private void handleItem(InputStream tar, String id, long size, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) throws IOException {
+		String metadataJsonForItem = id.equals(metadataId) ? metadataJson : null;
+		forgetMetadata();
+		if (isWanted.test(id)) {
+			consumer.accept(spoolContent(tar, id, size, metadataJsonForItem));
+		} else {
+			tar.skipNBytes(size);
+		}
+	}
+
+	private void forgetMetadata() {
+		metadataId = null;
+		metadataJson = null;
+	}
+
+	private String readNameUsingLongName(byte[] header) {
+		String name = longName != null ? longName : readName(header);
+		longName = null;
+		return name;
+	}
+
+	private void readLongName(InputStream tar, byte typeflag, long size) throws IOException {
+		if (size > MAX_LONG_NAME_HEADER_SIZE) {
+			tar.skipNBytes(size);
+			return;
+		}
+		byte[] content = tar.readNBytes((int) size);
+		if (typeflag == GNU_LONG_NAME) {
+			longName = readString(content, 0, content.length);
+		} else {
+			longName = readPaxPath(content);
+		}
+	}
+
+	private String readPaxPath(byte[] content) throws IOException {
+		int recordStart = 0;
+		while (recordStart < content.length) {
+			int recordLength = readPaxRecordLength(content, recordStart);
+			String keywordAndValue = new String(content, recordStart, recordLength - 1,
+					StandardCharsets.UTF_8);
+			String value = keywordAndValue.substring(keywordAndValue.indexOf(' ') + 1);
+			if (value.startsWith(PAX_PATH_PREFIX)) {
+				return value.substring(PAX_PATH_PREFIX.length());
+			}
+			recordStart += recordLength;
+		}
+		return null;
+	}
+
+	private int readPaxRecordLength(byte[] content, int recordStart) throws IOException {
+		int lengthEnd = recordStart;
+		while (lengthEnd < content.length && content[lengthEnd] != ' ') {
+			lengthEnd++;
+		}
+		int recordLength = parseLength(new String(content, recordStart, lengthEnd - recordStart,
+				StandardCharsets.US_ASCII));
+		if (recordLength <= lengthEnd - recordStart
+				|| recordStart + recordLength > content.length) {
+			throw new IOException("Invalid PAX extended header in tar archive " + tarFile);
+		}
+		return recordLength;
+	}
+
+	private int parseLength(String length) {
+		try {
+			return Integer.parseInt(length);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private String readName(byte[] header) {
+		String name = readString(header, 0, NAME_LENGTH);
+		if (MAGIC.equals(readString(header, MAGIC_OFFSET, MAGIC.length()))) {
+			String prefix = readString(header, PREFIX_OFFSET, PREFIX_LENGTH);
+			if (!prefix.isEmpty()) {
+				return prefix + "/" + name;
+			}
+		}
+		return name;
+	}
+
+	private String readString(byte[] header, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && header[end] != 0) {
+			end++;
+		}
+		return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private long readSize(byte[] header) throws IOException {
+		if ((header[SIZE_OFFSET] & 0x80) != 0) {
+			return readBase256Size(header);
+		}
+		String octalSize = readString(header, SIZE_OFFSET, SIZE_LENGTH).trim();
+		try {
+			return Long.parseLong(octalSize, 8);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid entry size " + octalSize + " in tar archive " + tarFile,
+					e);
+		}
+	}
+
+	private long readBase256Size(byte[] header) {
+		long size = 0;
+		for (int i = SIZE_OFFSET + 1; i < SIZE_OFFSET + SIZE_LENGTH; i++) {
+			size = (size << 8) | (header[i] & 0xFF);
+		}
+		return size;
+	}
+
+	private boolean isRegularFile(byte[] header) {
+		byte typeflag = header[TYPEFLAG_OFFSET];
+		return typeflag == REGULAR_FILE || typeflag == OLD_REGULAR_FILE;
+	}
+
+	private ImportItem spoolContent(InputStream tar, String id, long size, String metadataJson)
+			throws IOException {
+		return ImportItem.spoolToTemporaryFile(id, new EntryContentInputStream(tar, size),
+				metadataJson);
+	}
+
+	private long calculatePaddingLength(long size) {
+		long lastBlockLength = size % BLOCK_SIZE;
+		return lastBlockLength == 0 ? 0 : BLOCK_SIZE - lastBlockLength;
+	}
+
+	/**
+	 * EntryContentInputStream reads the content of one entry from the archive, ending after the
+	 * size of the entry, and leaves the archive open when closed.
+	 */
+	private final class EntryContentInputStream extends FilterInputStream {
+		private long remaining;
+
+		private EntryContentInputStream(InputStream tar, long size) {
+			super(tar);
+			remaining = size;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] oneByte = new byte[1];
+			int read = read(oneByte, 0, 1);
+			return read == -1 ? -1 : oneByte[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (remaining == 0) {
+				return -1;
+			}
+			int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+			if (read == -1) {
+				throw new IOException("Unexpected end of tar archive " + tarFile);
+			}
+			remaining -= read;
+			return read;
+		}
+
+		@Override
+		public void close() {
+			// the archive is closed when all entries are read
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.uu.ub.cora.fedora.cache.CachedRecord;
+import se.uu.ub.cora.fedora.cache.RecordCache;
+
+/**
+ * TransactionRecordCache is used by {@link CachingFedoraAdapter} for operations inside a Fedora
+ * transaction. It never returns cached records, as changes made inside the transaction are only
+ * visible in Fedora, and it does not store anything. Instead it collects the keys of all records
+ * written or removed, so that they can be removed from the real cache once the transaction has
+ * ended.
+ */
+class TransactionRecordCache implements RecordCache {
+	private Set<String> changedKeys = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public Optional<CachedRecord> read(String key) {
+		return Optional.empty();
+	}
+
+	@Override
+	public void write(String key, String recordXml, String etag) {
+		changedKeys.add(key);
+	}
+
+	@Override
+	public void markAsRevalidated(String key) {
+		// nothing is cached, so nothing is revalidated
+	}
+
+	@Override
+	public void remove(String key) {
+		changedKeys.add(key);
+	}
+
+	Set<String> getChangedKeys() {
+		return changedKeys;
+	}
+}
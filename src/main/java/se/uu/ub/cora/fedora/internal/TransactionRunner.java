@@ -0,0 +1,232 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.HttpHandlerFactory;
+
+/**
+ * TransactionRunner runs groups of operations inside Fedora transactions (fcr:tx).
+ * <p>
+ * A transaction is started with a POST to fcr:tx, the operations are run using a FedoraAdapter
+ * whose requests carry the Atomic-ID header, and the transaction is then committed with a PUT or
+ * rolled back with a DELETE to the transaction url. While the operations run, the transaction is
+ * kept alive with a POST to the transaction url at a regular interval. Keeping it alive is
+ * stopped, waiting for any ongoing POST, before the transaction is committed or rolled back.
+ */
+public class TransactionRunner {
+	private static final String POST = "POST";
+	private static final String PUT = "PUT";
+	private static final String DELETE = "DELETE";
+	private static final String FCR_TX = "fcr:tx";
+	private static final String LOCATION = "Location";
+	private static final int CREATED = 201;
+	private static final int NO_CONTENT = 204;
+	private static final long KEEP_ALIVE_STOP_TIMEOUT_IN_SECONDS = 10;
+
+	private static final String STARTING = "starting";
+	private static final String KEEPING_ALIVE = "keeping alive";
+	private static final String COMMITTING = "committing";
+	private static final String ROLLING_BACK = "rolling back";
+
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error {0} transaction. An internal "
+			+ "error has been thrown.";
+	private static final String ERR_MSG_FEDORA_ERROR = "Error {0} transaction in Fedora failed "
+			+ "due to error {1} returned from Fedora";
+	private static final String ERR_MSG_ROLLED_BACK = "Error running operation in transaction "
+			+ "{0}, the transaction has been rolled back.";
+
+	private HttpHandlerFactory httpHandlerFactory;
+	private FileUploader fileUploader;
+	private String baseUrl;
+	private ResourceMetadataParser resourceMetadataParser;
+	private Executor batchExecutor;
+	private long keepAliveIntervalInMillis;
+
+	public TransactionRunner(HttpHandlerFactory httpHandlerFactory, FileUploader fileUploader,
+			String baseUrl, ResourceMetadataParser resourceMetadataParser, Executor batchExecutor,
+			long keepAliveIntervalInMillis) {
+		this.httpHandlerFactory = httpHandlerFactory;
+		this.fileUploader = fileUploader;
+		this.baseUrl = baseUrl;
+		this.resourceMetadataParser = resourceMetadataParser;
+		this.batchExecutor = batchExecutor;
+		this.keepAliveIntervalInMillis = keepAliveIntervalInMillis;
+	}
+
+	public void run(List<TransactionOperation> operations, int maxParallelOperations) {
+		String transactionUrl = startTransaction();
+		Optional<RuntimeException> firstFailure = runOperationsKeepingTransactionAlive(
+				transactionUrl, operations, maxParallelOperations);
+		if (firstFailure.isPresent()) {
+			throw rollbackTransaction(transactionUrl, firstFailure.get());
+		}
+		callFedoraForTransaction(transactionUrl, PUT, NO_CONTENT, COMMITTING);
+	}
+
+	private String startTransaction() {
+		HttpHandler httpHandler = callFedoraForTransaction(baseUrl + FCR_TX, POST, CREATED,
+				STARTING);
+		String transactionUrl = httpHandler.getHeaderField(LOCATION);
+		if (transactionUrl == null) {
+			throw FedoraException.withMessage(
+					MessageFormat.format(ERR_MSG_FEDORA_ERROR, STARTING, "missing Location"));
+		}
+		return transactionUrl;
+	}
+
+	private HttpHandler callFedoraForTransaction(String url, String requestMethod,
+			int expectedResponseCode, String action) {
+		HttpHandler httpHandler;
+		int responseCode;
+		try {
+			httpHandler = httpHandlerFactory.factor(url);
+			httpHandler.setRequestMethod(requestMethod);
+			responseCode = httpHandler.getResponseCode();
+		} catch (Exception e) {
+			String message = MessageFormat.format(ERR_MSG_INTERNAL_ERROR, action);
+			throw FedoraException.withMessageAndException(message, e);
+		}
+		if (responseCode != expectedResponseCode) {
+			throw FedoraException
+					.withMessage(MessageFormat.format(ERR_MSG_FEDORA_ERROR, action, responseCode));
+		}
+		return httpHandler;
+	}
+
+	private Optional<RuntimeException> runOperationsKeepingTransactionAlive(
+			String transactionUrl, List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		ScheduledExecutorService keepAliveExecutor = startKeepingAlive(transactionUrl);
+		try {
+			return runOperations(transactionUrl, operations, maxParallelOperations);
+		} catch (RuntimeException e) {
+			return Optional.of(e);
+		} finally {
+			stopKeepingAlive(keepAliveExecutor);
+		}
+	}
+
+	private ScheduledExecutorService startKeepingAlive(String transactionUrl) {
+		ScheduledExecutorService keepAliveExecutor = Executors
+				.newSingleThreadScheduledExecutor(this::createDaemonThread);
+		keepAliveExecutor.scheduleWithFixedDelay(() -> keepAlive(transactionUrl),
+				keepAliveIntervalInMillis, keepAliveIntervalInMillis, TimeUnit.MILLISECONDS);
+		return keepAliveExecutor;
+	}
+
+	private Thread createDaemonThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "fedora-transaction-keep-alive");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private void stopKeepingAlive(ScheduledExecutorService keepAliveExecutor) {
+		keepAliveExecutor.shutdownNow();
+		try {
+			keepAliveExecutor.awaitTermination(KEEP_ALIVE_STOP_TIMEOUT_IN_SECONDS,
+					TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void keepAlive(String transactionUrl) {
+		try {
+			callFedoraForTransaction(transactionUrl, POST, NO_CONTENT, KEEPING_ALIVE);
+		} catch (RuntimeException e) {
+			// a transaction that could not be kept alive fails when it is committed
+		}
+	}
+
+	private Optional<RuntimeException> runOperations(String transactionUrl,
+			List<TransactionOperation> operations, int maxParallelOperations) {
+		FedoraAdapter transactionAdapter = createTransactionAdapter(transactionUrl);
+		List<Optional<RuntimeException>> failures = ParallelBatch.runInParallel(batchExecutor,
+				operations, maxParallelOperations,
+				operation -> runOperation(operation, transactionAdapter));
+		return failures.stream().flatMap(Optional::stream).findFirst();
+	}
+
+	private FedoraAdapter createTransactionAdapter(String transactionUrl) {
+		HttpHandlerFactory transactionalFactory = new TransactionalHttpHandlerFactory(
+				httpHandlerFactory, transactionUrl);
+		FileUploader transactionalUploader = new TransactionalFileUploader(fileUploader,
+				transactionUrl);
+		return new FedoraAdapterImp(transactionalFactory, baseUrl, resourceMetadataParser,
+				new ReadCoalescerImp(), transactionalUploader, batchExecutor);
+	}
+
+	private Optional<RuntimeException> runOperation(TransactionOperation operation,
+			FedoraAdapter transactionAdapter) {
+		try {
+			operation.runUsing(transactionAdapter);
+			return Optional.empty();
+		} catch (RuntimeException e) {
+			return Optional.of(e);
+		}
+	}
+
+	private FedoraException rollbackTransaction(String transactionUrl,
+			RuntimeException failure) {
+		FedoraException exception = FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_ROLLED_BACK, transactionUrl), failure);
+		try {
+			callFedoraForTransaction(transactionUrl, DELETE, NO_CONTENT, ROLLING_BACK);
+		} catch (RuntimeException e) {
+			exception.addSuppressed(e);
+		}
+		return exception;
+	}
+
+	public HttpHandlerFactory onlyForTestGetHttpHandlerFactory() {
+		return httpHandlerFactory;
+	}
+
+	public FileUploader onlyForTestGetFileUploader() {
+		return fileUploader;
+	}
+
+	public String onlyForTestGetBaseUrl() {
+		return baseUrl;
+	}
+
+	public ResourceMetadataParser onlyForTestGetResourceMetadataParser() {
+		return resourceMetadataParser;
+	}
+
+	public Executor onlyForTestGetBatchExecutor() {
+		return batchExecutor;
+	}
+
+	public long onlyForTestGetKeepAliveIntervalInMillis() {
+		return keepAliveIntervalInMillis;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TransactionalFileUploader uploads content inside a Fedora transaction, by setting the Atomic-ID
+ * header to the url of the transaction.
+ */
+public class TransactionalFileUploader implements FileUploader {
+	private static final String ATOMIC_ID = "Atomic-ID";
+
+	private FileUploader fileUploader;
+	private String transactionUrl;
+
+	public TransactionalFileUploader(FileUploader fileUploader, String transactionUrl) {
+		this.fileUploader = fileUploader;
+		this.transactionUrl = transactionUrl;
+	}
+
+	@Override
+	public int upload(String url, String requestMethod, Map<String, String> requestProperties,
+			InputStream content, long contentLength) throws IOException {
+		Map<String, String> transactionalProperties = new LinkedHashMap<>(requestProperties);
+		transactionalProperties.put(ATOMIC_ID, transactionUrl);
+		return fileUploader.upload(url, requestMethod, transactionalProperties, content,
+				contentLength);
+	}
+
+	public FileUploader onlyForTestGetFileUploader() {
+		return fileUploader;
+	}
+
+	public String onlyForTestGetTransactionUrl() {
+		return transactionUrl;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.text.MessageFormat;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.HttpHandlerFactory;
+import se.uu.ub.cora.httphandler.HttpMultiPartUploader;
+
+/**
+ * TransactionalHttpHandlerFactory factors HttpHandlers that make their requests inside a Fedora
+ * transaction, by setting the Atomic-ID header to the url of the transaction.
+ * <p>
+ * HttpMultiPartUploaders can not be given the Atomic-ID header, so factoring one throws a
+ * {@link FedoraException} instead of returning an uploader that bypasses the transaction.
+ */
+public class TransactionalHttpHandlerFactory implements HttpHandlerFactory {
+	private static final String ATOMIC_ID = "Atomic-ID";
+	private static final String ERR_MSG_MULTI_PART_UPLOADER = "Error factoring "
+			+ "HttpMultiPartUploader for url {0}: uploads can not be made inside the "
+			+ "transaction {1}.";
+
+	private HttpHandlerFactory httpHandlerFactory;
+	private String transactionUrl;
+
+	public TransactionalHttpHandlerFactory(HttpHandlerFactory httpHandlerFactory,
+			String transactionUrl) {
+		this.httpHandlerFactory = httpHandlerFactory;
+		this.transactionUrl = transactionUrl;
+	}
+
+	@Override
+	public HttpHandler factor(String url) {
+		HttpHandler httpHandler = httpHandlerFactory.factor(url);
+		httpHandler.setRequestProperty(ATOMIC_ID, transactionUrl);
+		return httpHandler;
+	}
+
+	@Override
+	public HttpMultiPartUploader factorHttpMultiPartUploader(String url) {
+		throw FedoraException.withMessage(
+				MessageFormat.format(ERR_MSG_MULTI_PART_UPLOADER, url, transactionUrl));
+	}
+
+	public HttpHandlerFactory onlyForTestGetHttpHandlerFactory() {
+		return httpHandlerFactory;
+	}
+
+	public String onlyForTestGetTransactionUrl() {
+		return transactionUrl;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+
+import se.uu.ub.cora.fedora.FedoraFixityException;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+
+/**
+ * VerifyingInputStream verifies the fixity of a resource as it is read, by calculating the
+ * SHA-512 checksum of the bytes read and comparing it with an expected checksum when the end of
+ * the stream is reached.
+ * <p>
+ * If the checksum, or the file size when the expected file size is known, does not match a
+ * {@link FedoraFixityException} is thrown from the read that reaches the end of the stream, and
+ * from any later read, instead of signaling the end of the stream. Verification adds only the
+ * cost of calculating the checksum, no bytes are read twice.
+ */
+final class VerifyingInputStream extends FilterInputStream {
+	private static final String ERR_MSG_FIXITY = "Error verifying fixity of resource id {0}: "
+			+ "read {1} bytes with checksum {2} but expected file size {3} and checksum {4}.";
+	private String resourceId;
+	private ChecksummingInputStream checksummingResource;
+	private ResourceMetadata expectedMetadata;
+
+	VerifyingInputStream(String resourceId, InputStream resource,
+			ResourceMetadata expectedMetadata) {
+		this(resourceId, new ChecksummingInputStream(resource), expectedMetadata);
+	}
+
+	private VerifyingInputStream(String resourceId, ChecksummingInputStream checksummingResource,
+			ResourceMetadata expectedMetadata) {
+		super(checksummingResource);
+		this.resourceId = resourceId;
+		this.checksummingResource = checksummingResource;
+		this.expectedMetadata = expectedMetadata;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int read = super.read();
+		if (read == -1) {
+			verifyFixity();
+		}
+		return read;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		int read = super.read(buffer, offset, length);
+		if (read == -1) {
+			verifyFixity();
+		}
+		return read;
+	}
+
+	private void verifyFixity() {
+		String checksum = checksummingResource.getChecksumSHA512();
+		long numberOfBytes = checksummingResource.getNumberOfBytes();
+		if (!checksum.equalsIgnoreCase(expectedMetadata.checksumSHA512())
+				|| fileSizeDiffers(numberOfBytes)) {
+			throw FedoraFixityException.withMessage(MessageFormat.format(ERR_MSG_FIXITY,
+					resourceId, String.valueOf(numberOfBytes), checksum,
+					expectedMetadata.fileSize(), expectedMetadata.checksumSHA512()));
+		}
+	}
+
+	private boolean fileSizeDiffers(long numberOfBytes) {
+		String expectedFileSize = expectedMetadata.fileSize();
+		return expectedFileSize != null && !expectedFileSize.equals(String.valueOf(numberOfBytes));
+	}
+
+	ResourceMetadata onlyForTestGetExpectedMetadata() {
+		return expectedMetadata;
+	}
+
+	InputStream onlyForTestGetResource() {
+		return checksummingResource.onlyForTestGetResource();
+	}
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.internal.JournalEntry.Operation;
+
+/**
+ * WriteAheadJournal is an append-only file of record writes, used to acknowledge writes before
+ * they are applied to Fedora.
+ * <p>
+ * Each entry is stored as its length, its content and a CRC32 checksum of the content. Entries are
+ * written by {@link #write(Operation, String, String, String)} and made durable by
+ * {@link #awaitDurable(long)}. Threads waiting for durability at the same time share one fsync,
+ * so the number of fsyncs stays low when many records are written concurrently.
+ * <p>
+ * Applied entries are marked with an applied entry, and the file is truncated when all entries are
+ * applied. When the journal is opened, entries that are not marked as applied are recovered, and
+ * an incomplete or corrupt last entry, left by a process stopped while writing it, is removed.
+ * <p>
+ * The journal file is locked while it is open, so that it is used by one journal at a time.
+ */
+public final class WriteAheadJournal implements AutoCloseable {
+	private static final byte CREATE_ENTRY = 1;
+	private static final byte UPDATE_ENTRY = 2;
+	private static final byte APPLIED_ENTRY = 3;
+	private static final int FRAME_OVERHEAD = 2 * Integer.BYTES;
+	private static final String ERR_MSG_INTERNAL_ERROR = "Error {0} journal {1}. An internal "
+			+ "error has been thrown.";
+	private static final String ERR_MSG_LOCKED = "Unable to open journal {0}, it is used by "
+			+ "another journal.";
+
+	private Path journalFile;
+	private FileChannel channel;
+	private FileLock fileLock;
+	private List<JournalEntry> recoveredEntries;
+	private long lastSequence = 0;
+	private int numberOfUnappliedEntries = 0;
+	private final ReentrantLock syncLock = new ReentrantLock();
+	private final Condition synced = syncLock.newCondition();
+	private boolean syncInProgress = false;
+	private volatile long durableSequence = 0;
+
+	/**
+	 * usingFile opens the specified journal file, creating it if it does not exist, and recovers
+	 * the entries in it that are not marked as applied.
+	 * <p>
+	 * If the file can not be opened, or is used by another journal, a FedoraException is thrown.
+	 */
+	public static WriteAheadJournal usingFile(Path journalFile) {
+		WriteAheadJournal journal = new WriteAheadJournal(journalFile);
+		journal.open();
+		return journal;
+	}
+
+	private WriteAheadJournal(Path journalFile) {
+		this.journalFile = journalFile;
+	}
+
+	private void open() {
+		try {
+			channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			lockFile();
+			recover();
+		} catch (IOException e) {
+			closeChannelAfterFailedOpen();
+			throw createFedoraException("opening", e);
+		}
+	}
+
+	private void lockFile() throws IOException {
+		try {
+			fileLock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			fileLock = null;
+		}
+		if (fileLock == null) {
+			channel.close();
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_LOCKED, journalFile));
+		}
+	}
+
+	private void closeChannelAfterFailedOpen() {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// the exception from opening is more relevant
+		}
+	}
+
+	private FedoraException createFedoraException(String action, Exception e) {
+		return FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_INTERNAL_ERROR, action, journalFile), e);
+	}
+
+	private void recover() throws IOException {
+		Map<Long, JournalEntry> unappliedEntries = new LinkedHashMap<>();
+		long endOfValidEntries = readEntries(unappliedEntries);
+		recoveredEntries = new ArrayList<>(unappliedEntries.values());
+		numberOfUnappliedEntries = recoveredEntries.size();
+		channel.truncate(numberOfUnappliedEntries == 0 ? 0 : endOfValidEntries);
+		channel.position(channel.size());
+		channel.force(false);
+		durableSequence = lastSequence;
+	}
+
+	private long readEntries(Map<Long, JournalEntry> unappliedEntries) throws IOException {
+		channel.position(0);
+		InputStream channelStream = Channels.newInputStream(channel);
+		DataInputStream input = new DataInputStream(new BufferedInputStream(channelStream));
+		long endOfValidEntries = 0;
+		byte[] content = readNextEntryContent(input);
+		while (content != null) {
+			readEntry(content, unappliedEntries);
+			endOfValidEntries += FRAME_OVERHEAD + content.length;
+			content = readNextEntryContent(input);
+		}
+		return endOfValidEntries;
+	}
+
+	private byte[] readNextEntryContent(DataInputStream input) throws IOException {
+		try {
+			int length = input.readInt();
+			if (length <= 0 || length > channel.size()) {
+				return null;
+			}
+			byte[] content = input.readNBytes(length);
+			int checksum = input.readInt();
+			return content.length == length && checksum == calculateChecksum(content) ? content
+					: null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private int calculateChecksum(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return (int) crc.getValue();
+	}
+
+	private void readEntry(byte[] content, Map<Long, JournalEntry> unappliedEntries)
+			throws IOException {
+		DataInputStream entryInput = new DataInputStream(new ByteArrayInputStream(content));
+		byte type = entryInput.readByte();
+		long sequence = entryInput.readLong();
+		lastSequence = Math.max(lastSequence, sequence);
+		if (type == APPLIED_ENTRY) {
+			unappliedEntries.remove(sequence);
+		} else {
+			unappliedEntries.put(sequence, readWrite(entryInput, type, sequence));
+		}
+	}
+
+	private JournalEntry readWrite(DataInputStream entryInput, byte type, long sequence)
+			throws IOException {
+		Operation operation = type == CREATE_ENTRY ? Operation.CREATE : Operation.UPDATE;
+		String dataDivider = entryInput.readUTF();
+		String recordId = entryInput.readUTF();
+		String recordXml = new String(entryInput.readAllBytes(), StandardCharsets.UTF_8);
+		return new JournalEntry(sequence, operation, dataDivider, recordId, recordXml);
+	}
+
+	/**
+	 * getRecoveredEntries returns the entries found in the journal file when it was opened, that
+	 * were not marked as applied, in the order they were written.
+	 */
+	List<JournalEntry> getRecoveredEntries() {
+		return recoveredEntries;
+	}
+
+	/**
+	 * write writes a new entry to the journal file, without waiting for it to be durable.
+	 * 
+	 * @return The written JournalEntry, with the next sequence number of the journal
+	 */
+	synchronized JournalEntry write(Operation operation, String dataDivider, String recordId,
+			String recordXml) {
+		long sequence = lastSequence + 1;
+		try {
+			writeEntry(serializeWrite(operation, sequence, dataDivider, recordId, recordXml));
+		} catch (IOException e) {
+			throw createFedoraException("writing to", e);
+		}
+		lastSequence = sequence;
+		numberOfUnappliedEntries++;
+		return new JournalEntry(sequence, operation, dataDivider, recordId, recordXml);
+	}
+
+	private byte[] serializeWrite(Operation operation, long sequence, String dataDivider,
+			String recordId, String recordXml) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeByte(operation == Operation.CREATE ? CREATE_ENTRY : UPDATE_ENTRY);
+		output.writeLong(sequence);
+		output.writeUTF(dataDivider);
+		output.writeUTF(recordId);
+		output.write(recordXml.getBytes(StandardCharsets.UTF_8));
+		return bytes.toByteArray();
+	}
+
+	private void writeEntry(byte[] content) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(FRAME_OVERHEAD + content.length);
+		buffer.putInt(content.length).put(content).putInt(calculateChecksum(content)).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * awaitDurable waits until the entry with the specified sequence, and all entries before it,
+	 * are synced to disk. If no sync is in progress the calling thread syncs the file, otherwise it
+	 * waits for the sync in progress and syncs again if its entry was written after that sync
+	 * started.
+	 */
+	void awaitDurable(long sequence) {
+		syncLock.lock();
+		try {
+			while (durableSequence < sequence) {
+				syncOrWaitForSyncInProgress();
+			}
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	private void syncOrWaitForSyncInProgress() {
+		if (syncInProgress) {
+			synced.awaitUninterruptibly();
+			return;
+		}
+		syncInProgress = true;
+		long sequenceToSync = readLastSequence();
+		syncLock.unlock();
+		try {
+			channel.force(false);
+			durableSequence = Math.max(durableSequence, sequenceToSync);
+		} catch (IOException e) {
+			throw createFedoraException("syncing", e);
+		} finally {
+			syncLock.lock();
+			syncInProgress = false;
+			synced.signalAll();
+		}
+	}
+
+	private synchronized long readLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * getDurableSequence returns the sequence of the last entry known to be synced to disk.
+	 */
+	long getDurableSequence() {
+		return durableSequence;
+	}
+
+	/**
+	 * markApplied marks the entry with the specified sequence as applied. If no unapplied entries
+	 * remain the journal file is truncated.
+	 */
+	synchronized void markApplied(long sequence) {
+		numberOfUnappliedEntries--;
+		try {
+			if (numberOfUnappliedEntries == 0) {
+				channel.truncate(0);
+			} else {
+				writeEntry(serializeApplied(sequence));
+			}
+		} catch (IOException e) {
+			throw createFedoraException("writing to", e);
+		}
+	}
+
+	private byte[] serializeApplied(long sequence) {
+		return ByteBuffer.allocate(1 + Long.BYTES).put(APPLIED_ENTRY).putLong(sequence).array();
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			channel.force(false);
+			fileLock.release();
+			channel.close();
+		} catch (IOException e) {
+			throw createFedoraException("closing", e);
+		}
+	}
+
+	public Path onlyForTestGetJournalFile() {
+		return journalFile;
+	}
+}
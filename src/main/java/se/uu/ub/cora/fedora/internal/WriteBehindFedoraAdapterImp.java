@@ -0,0 +1,416 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.WriteBehindFedoraAdapter;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+
+/**
+ * WriteBehindFedoraAdapterImp queues updates of records, keyed on dataDivider:id, and writes them
+ * through the wrapped FedoraAdapter using at most maxParallelWrites background workers.
+ * <p>
+ * A key is handled by at most one worker at a time, the worker writes the latest queued update for
+ * the key until no update is queued, so updates of the same record are written in order.
+ * <p>
+ * WriteBehindFedoraAdapterImp is threadsafe, the queued updates and failures are only accessed
+ * while holding one lock, which is never held while calling the wrapped adapter.
+ */
+public class WriteBehindFedoraAdapterImp implements WriteBehindFedoraAdapter {
+	private static final String ERR_MSG_CLOSED = "Unable to update record {0}, the write-behind "
+			+ "adapter is closed.";
+	private static final String ERR_MSG_WRITE_FAILED = "Error writing queued updates to Fedora, "
+			+ "updating failed for records: {0}";
+	private static final String ERR_MSG_INTERRUPTED = "Interrupted while waiting for queued "
+			+ "updates to be written to Fedora.";
+
+	private FedoraAdapter fedoraAdapter;
+	private int maxParallelWrites;
+	private ExecutorService writers;
+	private final Object lock = new Object();
+	private Map<String, QueuedUpdate> queuedUpdates = new HashMap<>();
+	private Map<String, QueuedUpdate> updatesBeingWritten = new HashMap<>();
+	private Set<String> scheduledKeys = new HashSet<>();
+	private Map<String, RuntimeException> failures = new LinkedHashMap<>();
+	private boolean closed = false;
+
+	public WriteBehindFedoraAdapterImp(FedoraAdapter fedoraAdapter, int maxParallelWrites) {
+		this.fedoraAdapter = fedoraAdapter;
+		this.maxParallelWrites = maxParallelWrites;
+		writers = Executors.newFixedThreadPool(maxParallelWrites, this::createDaemonThread);
+	}
+
+	private Thread createDaemonThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "fedora-write-behind");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public void updateRecord(String dataDivider, String recordId, String recordXml) {
+		String key = createKey(dataDivider, recordId);
+		synchronized (lock) {
+			throwErrorIfClosed(key);
+			queuedUpdates.put(key, new QueuedUpdate(dataDivider, recordId, recordXml));
+			if (scheduledKeys.add(key)) {
+				writers.execute(() -> writeQueuedUpdates(key));
+			}
+		}
+	}
+
+	private String createKey(String dataDivider, String id) {
+		return dataDivider + ":" + id;
+	}
+
+	private void throwErrorIfClosed(String key) {
+		if (closed) {
+			throw FedoraException.withMessage(MessageFormat.format(ERR_MSG_CLOSED, key));
+		}
+	}
+
+	private void writeQueuedUpdates(String key) {
+		QueuedUpdate update = takeNextUpdate(key);
+		while (update != null) {
+			write(key, update);
+			update = takeNextUpdate(key);
+		}
+	}
+
+	private QueuedUpdate takeNextUpdate(String key) {
+		synchronized (lock) {
+			updatesBeingWritten.remove(key);
+			QueuedUpdate update = queuedUpdates.remove(key);
+			if (update == null) {
+				scheduledKeys.remove(key);
+				lock.notifyAll();
+				return null;
+			}
+			updatesBeingWritten.put(key, update);
+			return update;
+		}
+	}
+
+	private void write(String key, QueuedUpdate update) {
+		try {
+			fedoraAdapter.updateRecord(update.dataDivider(), update.recordId(),
+					update.recordXml());
+			synchronized (lock) {
+				failures.remove(key);
+			}
+		} catch (RuntimeException e) {
+			synchronized (lock) {
+				failures.put(key, e);
+			}
+		}
+	}
+
+	@Override
+	public String readRecord(String dataDivider, String recordId) {
+		Optional<String> queuedRecordXml = readQueuedRecordXml(dataDivider, recordId);
+		if (queuedRecordXml.isPresent()) {
+			return queuedRecordXml.get();
+		}
+		return fedoraAdapter.readRecord(dataDivider, recordId);
+	}
+
+	private Optional<String> readQueuedRecordXml(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		synchronized (lock) {
+			QueuedUpdate update = queuedUpdates.getOrDefault(key, updatesBeingWritten.get(key));
+			return Optional.ofNullable(update).map(QueuedUpdate::recordXml);
+		}
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		Map<String, String> queuedRecords = new HashMap<>();
+		List<String> idsToRead = new ArrayList<>();
+		for (String recordId : recordIds) {
+			readQueuedRecordXml(dataDivider, recordId).ifPresentOrElse(
+					recordXml -> queuedRecords.put(recordId, recordXml),
+					() -> idsToRead.add(recordId));
+		}
+		if (queuedRecords.isEmpty()) {
+			return fedoraAdapter.readRecords(dataDivider, recordIds, maxParallelReads);
+		}
+		ReadRecordsResult result = fedoraAdapter.readRecords(dataDivider, idsToRead,
+				maxParallelReads);
+		Map<String, String> records = new HashMap<>(result.records());
+		records.putAll(queuedRecords);
+		return new ReadRecordsResult(records, result.missingIds());
+	}
+
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		return fedoraAdapter.listIds(dataDivider);
+	}
+
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		waitForAllQueuedUpdates();
+		return fedoraAdapter.listIdsModifiedSince(dataDivider, since, maxParallelChecks);
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+		waitForQueuedUpdate(dataDivider, recordId);
+		return fedoraAdapter.readVersionedRecord(dataDivider, recordId);
+	}
+
+	private void waitForQueuedUpdate(String dataDivider, String recordId) {
+		String key = createKey(dataDivider, recordId);
+		synchronized (lock) {
+			while (scheduledKeys.contains(key)) {
+				waitForWrittenUpdate();
+			}
+		}
+	}
+
+	private void waitForWrittenUpdate() {
+		try {
+			lock.wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw FedoraException.withMessageAndException(ERR_MSG_INTERRUPTED, e);
+		}
+	}
+
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		waitForQueuedUpdate(dataDivider, recordId);
+		return fedoraAdapter.readRecordIfChanged(dataDivider, recordId, etag);
+	}
+
+	@Override
+	public void createRecord(String dataDivider, String recordId, String recordXml) {
+		waitForQueuedUpdate(dataDivider, recordId);
+		fedoraAdapter.createRecord(dataDivider, recordId, recordXml);
+	}
+
+	@Override
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		for (RecordToCreate recordToCreate : records) {
+			waitForQueuedUpdate(recordToCreate.dataDivider(), recordToCreate.recordId());
+		}
+		return fedoraAdapter.createRecords(records, maxParallelCreates);
+	}
+
+	@Override
+	public void deleteRecord(String dataDivider, String recordId) {
+		waitForQueuedUpdate(dataDivider, recordId);
+		fedoraAdapter.deleteRecord(dataDivider, recordId);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.createResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.createExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public InputStream readResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		return fedoraAdapter.readResumableResource(dataDivider, resourceId, maxResumeAttempts);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		return fedoraAdapter.readVerifiedResource(dataDivider, resourceId, expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, offset, length);
+	}
+
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		return fedoraAdapter.readResource(dataDivider, resourceId, ranges);
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		return fedoraAdapter.downloadResource(dataDivider, resourceId, target, rangeSize,
+				maxParallelReads);
+	}
+
+	@Override
+	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
+		return fedoraAdapter.readResourceMetadata(dataDivider, resourceId);
+	}
+
+	@Override
+	public void updateResourceMetadata(String dataDivider, String resourceId,
+			ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		fedoraAdapter.updateResourceMetadata(dataDivider, resourceId, resourceMetadataToUpdate);
+	}
+
+	@Override
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		return fedoraAdapter.updateResourcesMetadata(updates, maxParallelUpdates);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return fedoraAdapter.updateResource(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		return fedoraAdapter.updateResourceIfChanged(dataDivider, resourceId, resource, mimeType);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		fedoraAdapter.updateExternalResource(dataDivider, resourceId, externalContent, mimeType,
+				handling);
+	}
+
+	@Override
+	public void deleteResource(String dataDivider, String resourceId) {
+		fedoraAdapter.deleteResource(dataDivider, resourceId);
+	}
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		waitForAllQueuedUpdates();
+		fedoraAdapter.runInTransaction(operations, maxParallelOperations);
+	}
+
+	private void waitForAllQueuedUpdates() {
+		synchronized (lock) {
+			while (!scheduledKeys.isEmpty()) {
+				waitForWrittenUpdate();
+			}
+		}
+	}
+
+	@Override
+	public void flush() {
+		synchronized (lock) {
+			waitForAllQueuedUpdates();
+			throwErrorIfUpdatesFailed();
+		}
+	}
+
+	private void throwErrorIfUpdatesFailed() {
+		if (failures.isEmpty()) {
+			return;
+		}
+		String failedKeys = String.join(", ", failures.keySet());
+		RuntimeException firstFailure = failures.values().iterator().next();
+		failures.clear();
+		throw FedoraException.withMessageAndException(
+				MessageFormat.format(ERR_MSG_WRITE_FAILED, failedKeys), firstFailure);
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+		}
+		try {
+			flush();
+		} finally {
+			writers.shutdown();
+		}
+	}
+
+	public FedoraAdapter onlyForTestGetFedoraAdapter() {
+		return fedoraAdapter;
+	}
+
+	public int onlyForTestGetMaxParallelWrites() {
+		return maxParallelWrites;
+	}
+
+	private record QueuedUpdate(String dataDivider, String recordId, String recordXml) {
+	}
+}
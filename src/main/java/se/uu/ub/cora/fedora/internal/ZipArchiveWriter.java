@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZipArchiveWriter writes entries as a zip archive, using {@link ZipOutputStream}.
+ */
+class ZipArchiveWriter implements ArchiveWriter {
+	private ZipOutputStream zipOutputStream;
+
+	ZipArchiveWriter(OutputStream outputStream) {
+		zipOutputStream = new ZipOutputStream(outputStream);
+	}
+
+	@Override
+	public void writeEntry(String name, long size, InputStream content) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		long copied = content.transferTo(zipOutputStream);
+		if (copied != size) {
+			throw new IOException("Entry " + name + " contained " + copied
+					+ " bytes, expected " + size);
+		}
+		zipOutputStream.closeEntry();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		zipOutputStream.finish();
+		zipOutputStream.flush();
+	}
+}
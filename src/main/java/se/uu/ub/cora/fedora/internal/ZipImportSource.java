@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ZipImportSource reads each file entry in a zip archive as an item with the entry name as id.
+ * <p>
+ * The content of each wanted entry is spooled to a temporary file, so entries of any size can be
+ * read.
+ */
+class ZipImportSource implements ImportSource {
+	private Path zipFile;
+	private String metadataId;
+	private String metadataJson;
+
+	ZipImportSource(Path zipFile) {
+		this.zipFile = zipFile;
+	}
+
+	@Override
+	public void forEachItem(Predicate<String> isWanted, Consumer<ImportItem> consumer)
+			throws IOException {
+		forgetMetadata();
+		try (ZipInputStream zip = new ZipInputStream(
+				new BufferedInputStream(Files.newInputStream(zipFile)))) {
+			ZipEntry entry = zip.getNextEntry();
+			while (entry != null) {
+				handleEntry(zip, entry, isWanted, consumer);
+				entry = zip.getNextEntry();
+			}
+		}
+	}
+
+	private void handleEntry(ZipInputStream zip, ZipEntry entry, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) throws IOException {
+		String id = entry.getName();
+		if (entry.isDirectory()) {
+			return;
+		}
+		if (id.endsWith(METADATA_SUFFIX)) {
+			readMetadata(zip, id);
+		} else {
+			handleItem(zip, id, isWanted, consumer);
+		}
+	}
+
+	private void readMetadata(ZipInputStream zip, String name) throws IOException {
+		forgetMetadata();
+		byte[] metadata = zip.readNBytes(MAX_METADATA_SIZE + 1);
+		if (metadata.length <= MAX_METADATA_SIZE) {
+			metadataId = name.substring(0, name.length() - METADATA_SUFFIX.length());
+			metadataJson = new String(metadata, StandardCharsets.UTF_8);
+		}
+	}
+
+	private void handleItem(ZipInputStream zip, String id, Predicate<String> isWanted,
+			Consumer<ImportItem> consumer) throws IOException {
+		String metadataJsonForItem = id.equals(metadataId) ? metadataJson : null;
+		forgetMetadata();
+		if (isWanted.test(id)) {
+			consumer.accept(ImportItem.spoolToTemporaryFile(id, zip, metadataJsonForItem));
+		}
+	}
+
+	private void forgetMetadata() {
+		metadataId = null;
+		metadataJson = null;
+	}
+}
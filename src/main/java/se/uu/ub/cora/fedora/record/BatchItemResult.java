@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+/**
+ * BatchItemResult contains the outcome for one item in a batch operation, identified by its
+ * dataDivider and id.
+ * <p>
+ * errorMessage is the message of the exception that caused the outcome, or null if the operation
+ * succeeded.
+ */
+public record BatchItemResult(String dataDivider, String id, BatchOutcome outcome,
+		String errorMessage) {
+
+}
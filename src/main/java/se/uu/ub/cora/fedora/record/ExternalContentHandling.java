@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+/**
+ * ExternalContentHandling is how Fedora handles the content of a resource that is stored outside
+ * of Fedora and registered by its URI.
+ */
+public enum ExternalContentHandling {
+	/**
+	 * Fedora reads the content from the URI each time the resource is read, and returns it as if
+	 * it was stored in Fedora.
+	 */
+	PROXY,
+	/**
+	 * Fedora redirects clients reading the resource to the URI of the content.
+	 */
+	REDIRECT,
+	/**
+	 * Fedora copies the content from the URI when the resource is stored, after which the
+	 * resource does not depend on the URI.
+	 */
+	COPY
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Uppsala University Library
+ * Copyright 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -21,8 +21,12 @@ package se.uu.ub.cora.fedora.record;
 /**
  * ResourceMetadata contains metadata about a resource in the archive.
  * <p>
- * The metadata that is handled is fileSize and checksumSHA512
+ * The metadata that is handled is fileSize, checksumSHA512 and mimeType. The mimeType is null when
+ * it is not known, such as for metadata calculated while a resource is uploaded.
  */
-public record ResourceMetadata(String fileSize, String checksumSHA512) {
+public record ResourceMetadata(String fileSize, String checksumSHA512, String mimeType) {
 
+	public ResourceMetadata(String fileSize, String checksumSHA512) {
+		this(fileSize, checksumSHA512, null);
+	}
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+import java.io.InputStream;
+
+/**
+ * ResourceRange contains a part of a resource read from the archive.
+ * <p>
+ * The resource stream holds the bytes from offset and length bytes on, as reported by the
+ * archive. The totalLength is the size of the whole resource, or -1 if the archive did not
+ * report it.
+ */
+public record ResourceRange(InputStream resource, long offset, long length, long totalLength) {
+
+}
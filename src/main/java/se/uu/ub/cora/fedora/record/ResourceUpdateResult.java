@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+/**
+ * ResourceUpdateResult is the result of updating a resource only if its content has changed.
+ * <p>
+ * The resourceMetadata is the checksum and size of the content that was compared with the stored
+ * resource. If unchanged is true the stored resource already had that content and mimeType and
+ * nothing was sent to the archive, otherwise the content was stored as a new version of the
+ * resource.
+ */
+public record ResourceUpdateResult(ResourceMetadata resourceMetadata, boolean unchanged) {
+
+}
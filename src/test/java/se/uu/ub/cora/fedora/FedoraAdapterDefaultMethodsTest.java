@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+
+public class FedoraAdapterDefaultMethodsTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private FedoraAdapterSpy fedoraAdapterSpy;
+	private FedoraAdapter fedoraAdapter;
+	private Path tempFile;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		fedoraAdapterSpy = new FedoraAdapterSpy();
+		fedoraAdapter = createAdapterUsingDefaultMethods(fedoraAdapterSpy);
+		tempFile = Files.createTempFile("fedoraAdapterDefaultMethods", ".tmp");
+		Files.writeString(tempFile, "someContent");
+	}
+
+	private FedoraAdapter createAdapterUsingDefaultMethods(FedoraAdapter delegate) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			if (method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+			return invokeOnDelegate(delegate, method, args);
+		};
+		return (FedoraAdapter) Proxy.newProxyInstance(FedoraAdapter.class.getClassLoader(),
+				new Class<?>[] { FedoraAdapter.class }, handler);
+	}
+
+	private Object invokeOnDelegate(FedoraAdapter delegate, Method method, Object[] args)
+			throws Throwable {
+		try {
+			return method.invoke(delegate, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(tempFile);
+	}
+
+	@Test
+	public void testCreateRecordsCreatesOneAtATime() {
+		fedoraAdapterSpy.MRV.setThrowException("createRecord",
+				FedoraConflictException.withMessage("someConflict"), DATA_DIVIDER, "id2",
+				"xml2");
+		fedoraAdapterSpy.MRV.setThrowException("createRecord",
+				FedoraException.withMessage("someError"), DATA_DIVIDER, "id3", "xml3");
+
+		List<BatchItemResult> results = fedoraAdapter.createRecords(
+				List.of(new RecordToCreate(DATA_DIVIDER, "id1", "xml1"),
+						new RecordToCreate(DATA_DIVIDER, "id2", "xml2"),
+						new RecordToCreate(DATA_DIVIDER, "id3", "xml3")),
+				4);
+
+		fedoraAdapterSpy.MCR.assertNumberOfCallsToMethod("createRecord", 3);
+		assertEquals(results,
+				List.of(new BatchItemResult(DATA_DIVIDER, "id1", BatchOutcome.CREATED, null),
+						new BatchItemResult(DATA_DIVIDER, "id2", BatchOutcome.CONFLICT,
+								"someConflict"),
+						new BatchItemResult(DATA_DIVIDER, "id3", BatchOutcome.ERROR,
+								"someError")));
+	}
+
+	@Test
+	public void testCreateResourceFromFileStreamsFile() {
+		ResourceMetadata metadata = fedoraAdapter.createResource(DATA_DIVIDER, "someResourceId",
+				tempFile, "text/plain");
+
+		InputStream content = (InputStream) fedoraAdapterSpy.MCR
+				.getValueForMethodNameAndCallNumberAndParameterName("createResource", 0,
+						"resource");
+		assertContentWasClosed(content);
+		fedoraAdapterSpy.MCR.assertReturn("createResource", 0, metadata);
+	}
+
+	private void assertContentWasClosed(InputStream content) {
+		expectThrows(IOException.class, content::read);
+	}
+
+	@Test
+	public void testCreateResourceFromMissingFileThrowsFedoraException() throws IOException {
+		Files.delete(tempFile);
+		try {
+			fedoraAdapter.createResource(DATA_DIVIDER, "someResourceId", tempFile, "text/plain");
+			fail("Expected FedoraException");
+		} catch (FedoraException e) {
+			assertEquals(e.getMessage(), "Error reading file " + tempFile
+					+ " for resource id someResourceId");
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		fedoraAdapterSpy.MCR.assertMethodNotCalled("createResource");
+	}
+
+	@Test
+	public void testUpdateResourceFromFileStreamsFile() {
+		ResourceMetadata metadata = fedoraAdapter.updateResource(DATA_DIVIDER, "someResourceId",
+				tempFile, "text/plain");
+
+		InputStream content = (InputStream) fedoraAdapterSpy.MCR
+				.getValueForMethodNameAndCallNumberAndParameterName("updateResource", 0,
+						"resource");
+		assertContentWasClosed(content);
+		fedoraAdapterSpy.MCR.assertReturn("updateResource", 0, metadata);
+	}
+
+	@Test
+	public void testReadRecordsReadsOneAtATimeAndCollectsMissingIds() {
+		fedoraAdapterSpy.MRV.setSpecificReturnValuesSupplier("readRecord", () -> "xml1",
+				DATA_DIVIDER, "id1");
+		fedoraAdapterSpy.MRV.setThrowException("readRecord",
+				FedoraNotFoundException.withMessage("notFound"), DATA_DIVIDER, "id2");
+
+		ReadRecordsResult result = fedoraAdapter.readRecords(DATA_DIVIDER,
+				List.of("id1", "id2", "id1"), 4);
+
+		fedoraAdapterSpy.MCR.assertNumberOfCallsToMethod("readRecord", 2);
+		assertEquals(result.records(), Map.of("id1", "xml1"));
+		assertEquals(result.missingIds(), Set.of("id2"));
+	}
+
+	@Test(expectedExceptions = FedoraException.class, expectedExceptionsMessageRegExp = "someError")
+	public void testReadRecordsThrowsOtherErrors() {
+		fedoraAdapterSpy.MRV.setAlwaysThrowException("readRecord",
+				FedoraException.withMessage("someError"));
+
+		fedoraAdapter.readRecords(DATA_DIVIDER, List.of("id1"), 4);
+	}
+
+	@Test
+	public void testReadRecordIfChangedReturnsChangedRecord() {
+		Optional<VersionedRecord> versionedRecord = fedoraAdapter.readRecordIfChanged(DATA_DIVIDER,
+				"someRecordId", "someOtherETag");
+
+		fedoraAdapterSpy.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER,
+				"someRecordId");
+		assertSame(versionedRecord.get(),
+				fedoraAdapterSpy.MCR.getReturnValue("readVersionedRecord", 0));
+	}
+
+	@Test
+	public void testReadRecordIfChangedReturnsEmptyForSameETag() {
+		Optional<VersionedRecord> versionedRecord = fedoraAdapter.readRecordIfChanged(DATA_DIVIDER,
+				"someRecordId", "someETagFromSpy");
+
+		assertTrue(versionedRecord.isEmpty());
+	}
+
+	@Test
+	public void testUpdateResourcesMetadataUpdatesOneAtATime() {
+		ResourceMetadataToUpdate toUpdate = new ResourceMetadataToUpdate("someName",
+				"text/plain");
+		fedoraAdapterSpy.MRV.setThrowException("updateResourceMetadata",
+				FedoraNotFoundException.withMessage("notFound"), DATA_DIVIDER, "id2", toUpdate);
+		fedoraAdapterSpy.MRV.setThrowException("updateResourceMetadata",
+				FedoraException.withMessage("someError"), DATA_DIVIDER, "id3", toUpdate);
+
+		List<BatchItemResult> results = fedoraAdapter.updateResourcesMetadata(
+				List.of(new ResourceMetadataUpdate(DATA_DIVIDER, "id1", toUpdate),
+						new ResourceMetadataUpdate(DATA_DIVIDER, "id2", toUpdate),
+						new ResourceMetadataUpdate(DATA_DIVIDER, "id3", toUpdate)),
+				4);
+
+		fedoraAdapterSpy.MCR.assertNumberOfCallsToMethod("updateResourceMetadata", 3);
+		assertEquals(results,
+				List.of(new BatchItemResult(DATA_DIVIDER, "id1", BatchOutcome.UPDATED, null),
+						new BatchItemResult(DATA_DIVIDER, "id2", BatchOutcome.NOT_FOUND,
+								"notFound"),
+						new BatchItemResult(DATA_DIVIDER, "id3", BatchOutcome.ERROR,
+								"someError")));
+	}
+}
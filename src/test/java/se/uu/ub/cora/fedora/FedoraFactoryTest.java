@@ -1,5 +1,5 @@
 /*
- * Copyright 2022, 2023 Uppsala University Library
+ * Copyright 2022, 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -22,12 +22,37 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.fedora.cache.HotKeyTracker;
+import se.uu.ub.cora.fedora.cache.RecordCache;
+import se.uu.ub.cora.fedora.internal.CachingFedoraAdapter;
+import se.uu.ub.cora.fedora.internal.ContainerListerImp;
+import se.uu.ub.cora.fedora.internal.DataDividerDeleterImp;
+import se.uu.ub.cora.fedora.internal.DataDividerExporterImp;
+import se.uu.ub.cora.fedora.internal.DataDividerImporterImp;
 import se.uu.ub.cora.fedora.internal.FedoraAdapterImp;
+import se.uu.ub.cora.fedora.internal.FileUploaderImp;
+import se.uu.ub.cora.fedora.internal.HotKeyTrackingFedoraAdapter;
+import se.uu.ub.cora.fedora.internal.JournalingFedoraAdapterImp;
+import se.uu.ub.cora.fedora.internal.ReadCoalescerImp;
+import se.uu.ub.cora.fedora.internal.RecordCachePreloaderImp;
+import se.uu.ub.cora.fedora.internal.RecordPublisherImp;
 import se.uu.ub.cora.fedora.internal.ResourceMetadataParserImp;
+import se.uu.ub.cora.fedora.internal.WriteAheadJournal;
+import se.uu.ub.cora.fedora.internal.WriteBehindFedoraAdapterImp;
+import se.uu.ub.cora.fedora.spy.HotKeyTrackerSpy;
+import se.uu.ub.cora.fedora.spy.RecordCacheSpy;
 import se.uu.ub.cora.httphandler.HttpHandlerFactory;
 import se.uu.ub.cora.httphandler.HttpHandlerFactoryImp;
 import se.uu.ub.cora.json.parser.org.OrgJsonParser;
@@ -79,13 +104,343 @@ public class FedoraFactoryTest {
 		// assertSame(factoredHttpHandlerFactory, factoredHttpHandlerFactory2);
 	}
 
+	@Test
+	public void testReadCoalescerCreatedAndSharedBetweenInstances() throws Exception {
+		FedoraAdapterImp fedoraAdapter2 = (FedoraAdapterImp) factory.factorFedoraAdapter();
+
+		assertTrue(fedoraAdapter.onlyForTestGetReadCoalescer() instanceof ReadCoalescerImp);
+		assertSame(fedoraAdapter.onlyForTestGetReadCoalescer(),
+				fedoraAdapter2.onlyForTestGetReadCoalescer());
+	}
+
+	@Test
+	public void testFileUploaderCreatedAndSharedBetweenInstances() throws Exception {
+		FedoraAdapterImp fedoraAdapter2 = (FedoraAdapterImp) factory.factorFedoraAdapter();
+
+		assertTrue(fedoraAdapter.onlyForTestGetFileUploader() instanceof FileUploaderImp);
+		assertSame(fedoraAdapter.onlyForTestGetFileUploader(),
+				fedoraAdapter2.onlyForTestGetFileUploader());
+	}
+
+	@Test
+	public void testBatchExecutorCreatedAndSharedBetweenInstances() throws Exception {
+		FedoraFactoryImp cachingFactory = new FedoraFactoryImp(someFedoraUrl,
+				new RecordCacheSpy());
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) cachingFactory
+				.factorFedoraAdapter();
+		FedoraAdapterImp wrappedAdapter = (FedoraAdapterImp) cachingAdapter
+				.onlyForTestGetFedoraAdapter();
+		DataDividerDeleterImp deleter = (DataDividerDeleterImp) cachingFactory
+				.factorDataDividerDeleter(2);
+
+		ThreadPoolExecutor batchExecutor = (ThreadPoolExecutor) cachingFactory
+				.onlyForTestGetBatchExecutor();
+		assertEquals(batchExecutor.getMaximumPoolSize(), 64);
+		assertTrue(batchExecutor.allowsCoreThreadTimeOut());
+		assertTrue(batchExecutor.getQueue() instanceof SynchronousQueue);
+		assertSame(cachingAdapter.onlyForTestGetBatchExecutor(), batchExecutor);
+		assertSame(wrappedAdapter.onlyForTestGetBatchExecutor(), batchExecutor);
+		assertSame(deleter.onlyForTestGetBatchExecutor(), batchExecutor);
+	}
+
+	@Test
+	public void testBatchThreadsAreDaemonThreads() throws Exception {
+		FedoraFactoryImp factoryImp = new FedoraFactoryImp(someFedoraUrl);
+		CompletableFuture<Thread> batchThread = new CompletableFuture<>();
+
+		factoryImp.onlyForTestGetBatchExecutor()
+				.execute(() -> batchThread.complete(Thread.currentThread()));
+
+		Thread thread = batchThread.get(5, TimeUnit.SECONDS);
+		assertTrue(thread.isDaemon());
+		assertEquals(thread.getName(), "fedora-batch");
+	}
+
 	@Test
 	public void testFedoraUrlSentToInstances() throws Exception {
 		assertEquals(fedoraAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
 	}
 
+	@Test
+	public void testFactorWithRecordCacheReturnsCachingAdapter() throws Exception {
+		RecordCache recordCache = new RecordCacheSpy();
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, recordCache);
+
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) cachingFactory
+				.factorFedoraAdapter();
+
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(), recordCache);
+		FedoraAdapterImp wrappedAdapter = (FedoraAdapterImp) cachingAdapter
+				.onlyForTestGetFedoraAdapter();
+		assertEquals(wrappedAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
+	}
+
+	@Test
+	public void testRecordCacheSharedBetweenInstances() throws Exception {
+		RecordCache recordCache = new RecordCacheSpy();
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, recordCache);
+
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) cachingFactory
+				.factorFedoraAdapter();
+		CachingFedoraAdapter cachingAdapter2 = (CachingFedoraAdapter) cachingFactory
+				.factorFedoraAdapter();
+
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(),
+				cachingAdapter2.onlyForTestGetRecordCache());
+		assertNotNull(cachingAdapter.onlyForTestGetRecordCacheVersions());
+		assertSame(cachingAdapter.onlyForTestGetRecordCacheVersions(),
+				cachingAdapter2.onlyForTestGetRecordCacheVersions());
+	}
+
+	@Test
+	public void testFactorWithHotKeyTrackerReturnsTrackingAdapter() throws Exception {
+		HotKeyTracker hotKeyTracker = new HotKeyTrackerSpy();
+		FedoraFactory trackingFactory = new FedoraFactoryImp(someFedoraUrl, null, hotKeyTracker);
+
+		HotKeyTrackingFedoraAdapter trackingAdapter = (HotKeyTrackingFedoraAdapter) trackingFactory
+				.factorFedoraAdapter();
+
+		assertSame(trackingAdapter.onlyForTestGetHotKeyTracker(), hotKeyTracker);
+		FedoraAdapterImp wrappedAdapter = (FedoraAdapterImp) trackingAdapter
+				.onlyForTestGetFedoraAdapter();
+		assertEquals(wrappedAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
+	}
+
+	@Test
+	public void testFactorWithHotKeyTrackerAndRecordCacheTracksOutsideCache() throws Exception {
+		HotKeyTracker hotKeyTracker = new HotKeyTrackerSpy();
+		RecordCache recordCache = new RecordCacheSpy();
+		FedoraFactory trackingFactory = new FedoraFactoryImp(someFedoraUrl, recordCache,
+				hotKeyTracker);
+
+		HotKeyTrackingFedoraAdapter trackingAdapter = (HotKeyTrackingFedoraAdapter) trackingFactory
+				.factorFedoraAdapter();
+
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) trackingAdapter
+				.onlyForTestGetFedoraAdapter();
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(), recordCache);
+	}
+
+	@Test
+	public void testPreloaderDoesNotTrackHotKeys() throws Exception {
+		FedoraFactory trackingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy(),
+				new HotKeyTrackerSpy());
+
+		RecordCachePreloaderImp preloader = (RecordCachePreloaderImp) trackingFactory
+				.factorRecordCachePreloader(2);
+
+		assertTrue(preloader.onlyForTestGetFedoraAdapter() instanceof CachingFedoraAdapter);
+	}
+
+	@Test
+	public void testPreloaderSharesRecordCacheVersionsWithAdapters() throws Exception {
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy());
+
+		RecordCachePreloaderImp preloader = (RecordCachePreloaderImp) cachingFactory
+				.factorRecordCachePreloader(2);
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) cachingFactory
+				.factorFedoraAdapter();
+
+		CachingFedoraAdapter preloadingAdapter = (CachingFedoraAdapter) preloader
+				.onlyForTestGetFedoraAdapter();
+		assertSame(preloadingAdapter.onlyForTestGetRecordCacheVersions(),
+				cachingAdapter.onlyForTestGetRecordCacheVersions());
+	}
+
+	@Test
+	public void testFactorRecordCachePreloaderWithoutRecordCache() throws Exception {
+		try {
+			factory.factorRecordCachePreloader(4);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(),
+					"Unable to preload records as no record cache is configured");
+		}
+	}
+
+	@Test
+	public void testFactorRecordCachePreloader() throws Exception {
+		RecordCache recordCache = new RecordCacheSpy();
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, recordCache);
+
+		RecordCachePreloaderImp preloader = (RecordCachePreloaderImp) cachingFactory
+				.factorRecordCachePreloader(4);
+
+		assertEquals(preloader.onlyForTestGetMaxParallelReads(), 4);
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) preloader
+				.onlyForTestGetFedoraAdapter();
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(), recordCache);
+		ContainerListerImp containerLister = (ContainerListerImp) preloader
+				.onlyForTestGetContainerLister();
+		assertEquals(containerLister.onlyForTestGetBaseUrl(), someFedoraUrl);
+		FedoraAdapterImp wrappedAdapter = (FedoraAdapterImp) cachingAdapter
+				.onlyForTestGetFedoraAdapter();
+		assertSame(containerLister.onlyForTestGetHttpHandlerFactory(),
+				wrappedAdapter.onlyForTestGetHttpHandlerFactory());
+	}
+
+	@Test
+	public void testFactorRecordCachePreloaderUsesAtLeastOneThread() throws Exception {
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy());
+
+		RecordCachePreloaderImp preloader = (RecordCachePreloaderImp) cachingFactory
+				.factorRecordCachePreloader(0);
+
+		assertEquals(preloader.onlyForTestGetMaxParallelReads(), 1);
+	}
+
 	@Test
 	public void testGetFedoraUrl() throws Exception {
 		assertEquals(((FedoraFactoryImp) factory).onlyForTestGetBaseUrl(), someFedoraUrl);
 	}
+
+	@Test
+	public void testFactorDataDividerExporter() throws Exception {
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy(),
+				new HotKeyTrackerSpy());
+
+		DataDividerExporterImp exporter = (DataDividerExporterImp) cachingFactory
+				.factorDataDividerExporter(4);
+
+		assertEquals(exporter.onlyForTestGetMaxParallelFetches(), 4);
+		FedoraAdapterImp fedoraAdapter = (FedoraAdapterImp) exporter.onlyForTestGetFedoraAdapter();
+		assertEquals(fedoraAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
+		ContainerListerImp containerLister = (ContainerListerImp) exporter
+				.onlyForTestGetContainerLister();
+		assertEquals(containerLister.onlyForTestGetBaseUrl(), someFedoraUrl);
+		assertSame(containerLister.onlyForTestGetHttpHandlerFactory(),
+				fedoraAdapter.onlyForTestGetHttpHandlerFactory());
+	}
+
+	@Test
+	public void testFactorDataDividerExporterUsesAtLeastOneThread() throws Exception {
+		DataDividerExporterImp exporter = (DataDividerExporterImp) factory
+				.factorDataDividerExporter(0);
+
+		assertEquals(exporter.onlyForTestGetMaxParallelFetches(), 1);
+	}
+
+	@Test
+	public void testFactorDataDividerImporter() throws Exception {
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy(),
+				new HotKeyTrackerSpy());
+
+		DataDividerImporterImp importer = (DataDividerImporterImp) cachingFactory
+				.factorDataDividerImporter(4);
+
+		assertEquals(importer.onlyForTestGetMaxParallelWorkers(), 4);
+		FedoraAdapterImp fedoraAdapter = (FedoraAdapterImp) importer.onlyForTestGetFedoraAdapter();
+		assertEquals(fedoraAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
+		assertTrue(importer.onlyForTestGetJsonParser() instanceof OrgJsonParser);
+	}
+
+	@Test
+	public void testFactorDataDividerImporterUsesAtLeastOneThread() throws Exception {
+		DataDividerImporterImp importer = (DataDividerImporterImp) factory
+				.factorDataDividerImporter(0);
+
+		assertEquals(importer.onlyForTestGetMaxParallelWorkers(), 1);
+	}
+
+	@Test
+	public void testFactorDataDividerDeleter() throws Exception {
+		RecordCache recordCache = new RecordCacheSpy();
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, recordCache,
+				new HotKeyTrackerSpy());
+
+		DataDividerDeleterImp deleter = (DataDividerDeleterImp) cachingFactory
+				.factorDataDividerDeleter(4);
+
+		assertEquals(deleter.onlyForTestGetMaxParallelDeletes(), 4);
+		assertEquals(deleter.onlyForTestGetBaseUrl(), someFedoraUrl);
+		CachingFedoraAdapter cachingAdapter = (CachingFedoraAdapter) deleter
+				.onlyForTestGetFedoraAdapter();
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(), recordCache);
+		ContainerListerImp containerLister = (ContainerListerImp) deleter
+				.onlyForTestGetContainerLister();
+		assertEquals(containerLister.onlyForTestGetBaseUrl(), someFedoraUrl);
+		assertSame(deleter.onlyForTestGetHttpHandlerFactory(),
+				containerLister.onlyForTestGetHttpHandlerFactory());
+	}
+
+	@Test
+	public void testFactorDataDividerDeleterUsesAtLeastOneThread() throws Exception {
+		DataDividerDeleterImp deleter = (DataDividerDeleterImp) factory
+				.factorDataDividerDeleter(0);
+
+		assertEquals(deleter.onlyForTestGetMaxParallelDeletes(), 1);
+		assertTrue(deleter.onlyForTestGetFedoraAdapter() instanceof FedoraAdapterImp);
+	}
+
+	@Test
+	public void testFactorRecordPublisher() throws Exception {
+		FedoraFactory cachingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy(),
+				new HotKeyTrackerSpy());
+
+		RecordPublisherImp publisher = (RecordPublisherImp) cachingFactory
+				.factorRecordPublisher(4);
+
+		assertEquals(publisher.onlyForTestGetMaxParallelReads(), 4);
+		FedoraAdapterImp fedoraAdapter = (FedoraAdapterImp) publisher
+				.onlyForTestGetFedoraAdapter();
+		assertEquals(fedoraAdapter.onlyForTestGetBaseUrl(), someFedoraUrl);
+		ContainerListerImp containerLister = (ContainerListerImp) publisher
+				.onlyForTestGetContainerLister();
+		assertEquals(containerLister.onlyForTestGetBaseUrl(), someFedoraUrl);
+	}
+
+	@Test
+	public void testFactorRecordPublisherUsesAtLeastOneThread() throws Exception {
+		RecordPublisherImp publisher = (RecordPublisherImp) factory.factorRecordPublisher(0);
+
+		assertEquals(publisher.onlyForTestGetMaxParallelReads(), 1);
+	}
+
+	@Test
+	public void testFactorWriteBehindFedoraAdapter() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		FedoraFactory trackingFactory = new FedoraFactoryImp(someFedoraUrl, new RecordCacheSpy(),
+				hotKeyTracker);
+
+		try (var writeBehindAdapter = (WriteBehindFedoraAdapterImp) trackingFactory
+				.factorWriteBehindFedoraAdapter(4)) {
+			assertEquals(writeBehindAdapter.onlyForTestGetMaxParallelWrites(), 4);
+			var trackingAdapter = (HotKeyTrackingFedoraAdapter) writeBehindAdapter
+					.onlyForTestGetFedoraAdapter();
+			assertSame(trackingAdapter.onlyForTestGetHotKeyTracker(), hotKeyTracker);
+			assertTrue(trackingAdapter
+					.onlyForTestGetFedoraAdapter() instanceof CachingFedoraAdapter);
+		}
+	}
+
+	@Test
+	public void testFactorWriteBehindFedoraAdapterUsesAtLeastOneThread() throws Exception {
+		try (var writeBehindAdapter = (WriteBehindFedoraAdapterImp) factory
+				.factorWriteBehindFedoraAdapter(0)) {
+			assertEquals(writeBehindAdapter.onlyForTestGetMaxParallelWrites(), 1);
+			assertTrue(writeBehindAdapter
+					.onlyForTestGetFedoraAdapter() instanceof FedoraAdapterImp);
+		}
+	}
+
+	@Test
+	public void testFactorJournalingFedoraAdapter() throws Exception {
+		Path directory = Files.createTempDirectory("fedoraFactoryTest");
+		Path journalFile = directory.resolve("journal.log");
+
+		try (var journalingAdapter = (JournalingFedoraAdapterImp) factory
+				.factorJournalingFedoraAdapter(journalFile)) {
+			assertTrue(journalingAdapter
+					.onlyForTestGetFedoraAdapter() instanceof FedoraAdapterImp);
+			WriteAheadJournal journal = journalingAdapter.onlyForTestGetJournal();
+			assertEquals(journal.onlyForTestGetJournalFile(), journalFile);
+			assertEquals(journalingAdapter.onlyForTestGetInitialRetryDelayInMillis(), 100L);
+			assertEquals(journalingAdapter.onlyForTestGetMaxRetryDelayInMillis(), 30_000L);
+			assertEquals(journalingAdapter.onlyForTestGetMaxWaitForWritesInMillis(), 300_000L);
+		} finally {
+			Files.deleteIfExists(journalFile);
+			Files.delete(directory);
+		}
+	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.bulk;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class DeleteReportTest {
+
+	@Test
+	public void testDeleteReport() throws Exception {
+		DeleteReport report = new DeleteReport("someDataDivider", 3, 2, List.of("someId"), true,
+				Duration.ofMillis(10));
+
+		assertEquals(report.dataDivider(), "someDataDivider");
+		assertEquals(report.numberOfIds(), 3);
+		assertEquals(report.numberOfDeletedIds(), 2);
+		assertEquals(report.failedIds(), List.of("someId"));
+		assertTrue(report.containerDeleted());
+		assertEquals(report.duration(), Duration.ofMillis(10));
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CountMinSketchHotKeyTrackerTest {
+	private CountMinSketchHotKeyTracker tracker;
+
+	@BeforeMethod
+	public void setUp() {
+		tracker = CountMinSketchHotKeyTracker.usingNumberOfHotKeys(2);
+	}
+
+	private void recordAccesses(String key, int numberOfAccesses) {
+		for (int i = 0; i < numberOfAccesses; i++) {
+			tracker.recordAccess(key);
+		}
+	}
+
+	@Test
+	public void testDefaultSketchSize() throws Exception {
+		assertEquals(tracker.onlyForTestGetWidth(), 4096);
+		assertEquals(tracker.onlyForTestGetDepth(), 4);
+		assertEquals(tracker.onlyForTestGetNumberOfHotKeys(), 2);
+	}
+
+	@Test
+	public void testSizesAreAtLeastOne() throws Exception {
+		tracker = CountMinSketchHotKeyTracker.usingWidthDepthAndNumberOfHotKeys(0, -1, 0);
+
+		assertEquals(tracker.onlyForTestGetWidth(), 1);
+		assertEquals(tracker.onlyForTestGetDepth(), 1);
+		assertEquals(tracker.onlyForTestGetNumberOfHotKeys(), 1);
+	}
+
+	@Test
+	public void testNoAccesses() throws Exception {
+		assertTrue(tracker.getHotKeys().isEmpty());
+		assertFalse(tracker.isHot("someDataDivider:a"));
+	}
+
+	@Test
+	public void testHotKeysAreMostAccessedFirst() throws Exception {
+		recordAccesses("someDataDivider:a", 2);
+		recordAccesses("someDataDivider:b", 3);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:b", 3),
+				new HotKey("someDataDivider:a", 2)));
+		assertTrue(tracker.isHot("someDataDivider:a"));
+		assertTrue(tracker.isHot("someDataDivider:b"));
+	}
+
+	@Test
+	public void testOnlyNumberOfHotKeysAreKept() throws Exception {
+		recordAccesses("someDataDivider:a", 3);
+		recordAccesses("someDataDivider:b", 2);
+		recordAccesses("someDataDivider:c", 2);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 3),
+				new HotKey("someDataDivider:b", 2)));
+		assertFalse(tracker.isHot("someDataDivider:c"));
+	}
+
+	@Test
+	public void testMoreAccessedKeyReplacesLeastHotKey() throws Exception {
+		recordAccesses("someDataDivider:a", 3);
+		recordAccesses("someDataDivider:b", 2);
+
+		recordAccesses("someDataDivider:c", 4);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:c", 4),
+				new HotKey("someDataDivider:a", 3)));
+		assertFalse(tracker.isHot("someDataDivider:b"));
+	}
+
+	@Test
+	public void testLeastHotKeyIsReplacedUsingCurrentEstimates() throws Exception {
+		recordAccesses("someDataDivider:a", 1);
+		recordAccesses("someDataDivider:b", 1);
+		recordAccesses("someDataDivider:a", 4);
+
+		recordAccesses("someDataDivider:c", 2);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 5),
+				new HotKey("someDataDivider:c", 2)));
+		assertFalse(tracker.isHot("someDataDivider:b"));
+	}
+
+	@Test
+	public void testEqualCountsAreOrderedByKey() throws Exception {
+		recordAccesses("someDataDivider:b", 1);
+		recordAccesses("someDataDivider:a", 1);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 1),
+				new HotKey("someDataDivider:b", 1)));
+	}
+
+	@Test
+	public void testCollidingKeysAreOverestimatedNeverUnderestimated() throws Exception {
+		tracker = CountMinSketchHotKeyTracker.usingWidthDepthAndNumberOfHotKeys(1, 1, 2);
+
+		recordAccesses("someDataDivider:a", 2);
+		recordAccesses("someDataDivider:b", 1);
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:b", 3),
+				new HotKey("someDataDivider:a", 2)));
+	}
+
+	@Test
+	public void testCountsAreHalvedAfterTenTimesWidthAccesses() throws Exception {
+		tracker = CountMinSketchHotKeyTracker.usingWidthDepthAndNumberOfHotKeys(1, 1, 2);
+
+		recordAccesses("someDataDivider:a", 10);
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 5)));
+
+		recordAccesses("someDataDivider:a", 1);
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 6)));
+	}
+
+	@Test
+	public void testConcurrentAccessesAreAllCounted() throws Exception {
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(() -> recordAccesses("someDataDivider:a", 1000));
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(tracker.getHotKeys(), List.of(new HotKey("someDataDivider:a", 4000)));
+	}
+
+	@Test
+	public void testConcurrentAccessesToManyKeysKeepMostAccessedKeys() throws Exception {
+		tracker = CountMinSketchHotKeyTracker.usingNumberOfHotKeys(3);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			int thread = i;
+			threads.add(new Thread(() -> recordAccessesToManyKeys(thread)));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		List<HotKey> hotKeys = tracker.getHotKeys();
+		assertEquals(hotKeys.size(), 3);
+		assertEquals(hotKeys.get(0).key(), "someDataDivider:hot");
+		assertTrue(hotKeys.get(0).estimatedAccessCount() >= 4000);
+		assertTrue(tracker.isHot("someDataDivider:hot"));
+	}
+
+	private void recordAccessesToManyKeys(int thread) {
+		for (int i = 0; i < 1000; i++) {
+			tracker.recordAccess("someDataDivider:hot");
+			tracker.recordAccess("someDataDivider:" + thread + ":" + i);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.spy.HotKeyTrackerSpy;
+
+public class OffHeapRecordCacheTest {
+	private static final long MAX_SIZE_IN_BYTES = 16 * 100;
+	private OffHeapRecordCache cache;
+
+	@BeforeMethod
+	public void setUp() {
+		cache = OffHeapRecordCache.usingMaxSizeInBytes(MAX_SIZE_IN_BYTES);
+	}
+
+	@Test
+	public void testSegmentSizeIsBudgetDividedIntoSixteenSegments() throws Exception {
+		assertEquals(cache.onlyForTestGetSegmentSize(), 100);
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 0);
+	}
+
+	@Test
+	public void testReadMissingRecord() throws Exception {
+		Optional<CachedRecord> cachedRecord = cache.read("someDataDivider:someId");
+
+		assertTrue(cachedRecord.isEmpty());
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		cache.write("someDataDivider:someId", "<record>someValue</record>", null);
+
+		CachedRecord cachedRecord = cache.read("someDataDivider:someId").get();
+		assertEquals(cachedRecord.recordXml(), "<record>someValue</record>");
+		assertNull(cachedRecord.etag());
+		assertFalse(cachedRecord.needsRevalidation());
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 1);
+	}
+
+	@Test
+	public void testWriteAndReadWithETag() throws Exception {
+		cache.write("someDataDivider:someId", "<record/>", "someETag");
+
+		CachedRecord cachedRecord = cache.read("someDataDivider:someId").get();
+		assertEquals(cachedRecord.etag(), "someETag");
+		assertFalse(cachedRecord.needsRevalidation());
+	}
+
+	@Test
+	public void testMarkAsRevalidatedKeepsRecord() throws Exception {
+		cache.write("someDataDivider:someId", "<record/>", "someETag");
+
+		cache.markAsRevalidated("someDataDivider:someId");
+
+		assertEquals(cache.read("someDataDivider:someId").get().recordXml(), "<record/>");
+	}
+
+	@Test
+	public void testWriteAndReadNonAsciiCharacters() throws Exception {
+		String recordXml = "<record>\u00e5\u00e4\u00f6 \u20ac</record>";
+		cache.write("someDataDivider:someId", recordXml, null);
+
+		assertEquals(cache.read("someDataDivider:someId").get().recordXml(), recordXml);
+	}
+
+	@Test
+	public void testWriteReplacesPreviousRecord() throws Exception {
+		cache.write("someDataDivider:someId", "<record>first</record>", null);
+		cache.write("someDataDivider:someId", "<record>second</record>", null);
+
+		assertEquals(cache.read("someDataDivider:someId").get().recordXml(),
+				"<record>second</record>");
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		cache.write("someDataDivider:someId", "<record/>", null);
+
+		cache.remove("someDataDivider:someId");
+
+		assertTrue(cache.read("someDataDivider:someId").isEmpty());
+	}
+
+	@Test
+	public void testRecordLargerThanSegmentIsNotCached() throws Exception {
+		cache.write("someDataDivider:someId", "<record>first</record>", null);
+		cache.write("someDataDivider:someId", "x".repeat(101), null);
+
+		assertTrue(cache.read("someDataDivider:someId").isEmpty());
+	}
+
+	@Test
+	public void testRecordsFillSegmentsBeforeNewIsAllocated() throws Exception {
+		cache.write("someDataDivider:id1", "x".repeat(60), null);
+		cache.write("someDataDivider:id2", "x".repeat(40), null);
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 1);
+
+		cache.write("someDataDivider:id3", "x", null);
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 2);
+	}
+
+	@Test
+	public void testOldestSegmentIsEvictedWhenBudgetIsUsed() throws Exception {
+		for (int i = 0; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(100), null);
+		}
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 16);
+
+		cache.write("someDataDivider:id16", "y".repeat(100), null);
+
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 16);
+		assertFalse(cache.read("someDataDivider:id0").isPresent());
+		assertEquals(cache.read("someDataDivider:id1").get().recordXml(), "x".repeat(100));
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(100));
+	}
+
+	@Test
+	public void testEvictingSegmentKeepsRecordRewrittenToNewerSegment() throws Exception {
+		cache.write("someDataDivider:id0", "x".repeat(100), null);
+		for (int i = 1; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(100), null);
+		}
+		cache.write("someDataDivider:id0", "z".repeat(50), null);
+		cache.write("someDataDivider:id16", "y".repeat(100), null);
+
+		assertEquals(cache.read("someDataDivider:id0").get().recordXml(), "z".repeat(50));
+	}
+
+	@Test
+	public void testHotRecordIsKeptWhenSegmentIsEvicted() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		hotKeyTracker.MRV.setSpecificReturnValuesSupplier("isHot", () -> true,
+				"someDataDivider:hot");
+		cache = OffHeapRecordCache.usingMaxSizeInBytesAndHotKeyTracker(MAX_SIZE_IN_BYTES,
+				hotKeyTracker);
+		writeHotAndColdRecordFollowedByFifteenFullSegments();
+
+		cache.write("someDataDivider:id16", "y".repeat(50), null);
+
+		assertEquals(cache.onlyForTestGetNumberOfAllocatedSegments(), 16);
+		assertEquals(cache.read("someDataDivider:hot").get().recordXml(), "h".repeat(40));
+		assertEquals(cache.read("someDataDivider:hot").get().etag(), "hotETag");
+		assertTrue(cache.read("someDataDivider:cold").isEmpty());
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(50));
+		assertEquals(cache.read("someDataDivider:id1").get().recordXml(), "x".repeat(100));
+	}
+
+	private void writeHotAndColdRecordFollowedByFifteenFullSegments() {
+		cache.write("someDataDivider:hot", "h".repeat(40), "hotETag");
+		cache.write("someDataDivider:cold", "c".repeat(60), null);
+		for (int i = 1; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(100), null);
+		}
+	}
+
+	@Test
+	public void testHotRecordIsEvictedIfNewRecordWouldNotFit() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		hotKeyTracker.MRV.setDefaultReturnValuesSupplier("isHot", () -> true);
+		cache = OffHeapRecordCache.usingMaxSizeInBytesAndHotKeyTracker(MAX_SIZE_IN_BYTES,
+				hotKeyTracker);
+		writeHotAndColdRecordFollowedByFifteenFullSegments();
+
+		cache.write("someDataDivider:id16", "y".repeat(70), null);
+
+		assertTrue(cache.read("someDataDivider:hot").isEmpty());
+		assertTrue(cache.read("someDataDivider:cold").isEmpty());
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(70));
+	}
+
+	@Test
+	public void testHotRecordWrittenTwiceInSegmentIsKeptOnce() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		hotKeyTracker.MRV.setDefaultReturnValuesSupplier("isHot", () -> true);
+		cache = OffHeapRecordCache.usingMaxSizeInBytesAndHotKeyTracker(MAX_SIZE_IN_BYTES,
+				hotKeyTracker);
+		cache.write("someDataDivider:hot", "h".repeat(30), null);
+		cache.write("someDataDivider:hot", "i".repeat(30), null);
+		for (int i = 1; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(100), null);
+		}
+
+		cache.write("someDataDivider:id16", "y".repeat(70), null);
+
+		assertEquals(cache.read("someDataDivider:hot").get().recordXml(), "i".repeat(30));
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(70));
+	}
+
+	@Test
+	public void testSmallBudgetUsesOneSegment() throws Exception {
+		OffHeapRecordCache smallCache = OffHeapRecordCache.usingMaxSizeInBytes(10);
+
+		smallCache.write("someDataDivider:id", "x", null);
+		smallCache.write("someDataDivider:id2", "y", null);
+
+		assertEquals(smallCache.onlyForTestGetSegmentSize(), 1);
+		assertEquals(smallCache.read("someDataDivider:id2").get().recordXml(), "y");
+	}
+}
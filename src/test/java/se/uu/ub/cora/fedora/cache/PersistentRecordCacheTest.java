@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.spy.HotKeyTrackerSpy;
+
+public class PersistentRecordCacheTest {
+	private static final long MAX_SIZE_IN_BYTES = 16 * 200;
+	private static final String KEY = "someDataDivider:someId";
+	private Path directory;
+	private PersistentRecordCache cache;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("persistentRecordCacheTest");
+		cache = startCache();
+	}
+
+	private PersistentRecordCache startCache() {
+		return PersistentRecordCache.usingDirectoryAndMaxSizeInBytes(directory, MAX_SIZE_IN_BYTES);
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		cache.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private PersistentRecordCache restartCache() {
+		cache.close();
+		cache = startCache();
+		return cache;
+	}
+
+	@Test
+	public void testSegmentSizeIsBudgetDividedIntoSixteenSegments() throws Exception {
+		assertEquals(cache.onlyForTestGetSegmentSize(), 200);
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 0);
+	}
+
+	@Test
+	public void testReadMissingRecord() throws Exception {
+		assertTrue(cache.read(KEY).isEmpty());
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		cache.write(KEY, "<record>åäö</record>", "someETag");
+
+		CachedRecord cachedRecord = cache.read(KEY).get();
+		assertEquals(cachedRecord.recordXml(), "<record>åäö</record>");
+		assertEquals(cachedRecord.etag(), "someETag");
+		assertFalse(cachedRecord.needsRevalidation());
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 1);
+	}
+
+	@Test
+	public void testWriteWithoutETag() throws Exception {
+		cache.write(KEY, "<record/>", null);
+
+		assertNull(cache.read(KEY).get().etag());
+	}
+
+	@Test
+	public void testWriteReplacesPreviousRecord() throws Exception {
+		cache.write(KEY, "<first/>", "etag1");
+		cache.write(KEY, "<second/>", "etag2");
+
+		assertEquals(cache.read(KEY).get().recordXml(), "<second/>");
+		assertEquals(cache.read(KEY).get().etag(), "etag2");
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		cache.write(KEY, "<record/>", "someETag");
+
+		cache.remove(KEY);
+
+		assertTrue(cache.read(KEY).isEmpty());
+	}
+
+	@Test
+	public void testRecordLargerThanSegmentIsNotCached() throws Exception {
+		cache.write(KEY, "<first/>", "etag1");
+		cache.write(KEY, "x".repeat(200), "etag2");
+
+		assertTrue(cache.read(KEY).isEmpty());
+	}
+
+	@Test
+	public void testRecordsSurviveRestartAndNeedRevalidation() throws Exception {
+		cache.write(KEY, "<record/>", "someETag");
+		cache.write("someDataDivider:otherId", "<other/>", null);
+
+		restartCache();
+
+		CachedRecord cachedRecord = cache.read(KEY).get();
+		assertEquals(cachedRecord.recordXml(), "<record/>");
+		assertEquals(cachedRecord.etag(), "someETag");
+		assertTrue(cachedRecord.needsRevalidation());
+		assertNull(cache.read("someDataDivider:otherId").get().etag());
+	}
+
+	@Test
+	public void testMarkAsRevalidated() throws Exception {
+		cache.write(KEY, "<record/>", "someETag");
+		restartCache();
+
+		cache.markAsRevalidated(KEY);
+
+		CachedRecord cachedRecord = cache.read(KEY).get();
+		assertFalse(cachedRecord.needsRevalidation());
+		assertEquals(cachedRecord.recordXml(), "<record/>");
+	}
+
+	@Test
+	public void testMarkAsRevalidatedMissingRecord() throws Exception {
+		cache.markAsRevalidated(KEY);
+
+		assertTrue(cache.read(KEY).isEmpty());
+	}
+
+	@Test
+	public void testReplacedAndRemovedRecordsStayGoneAfterRestart() throws Exception {
+		cache.write(KEY, "<first/>", "etag1");
+		cache.write(KEY, "<second/>", "etag2");
+		cache.write("someDataDivider:removedId", "<removed/>", "etag3");
+		cache.remove("someDataDivider:removedId");
+
+		restartCache();
+
+		assertEquals(cache.read(KEY).get().recordXml(), "<second/>");
+		assertTrue(cache.read("someDataDivider:removedId").isEmpty());
+	}
+
+	@Test
+	public void testWritesAfterRestartAreAppended() throws Exception {
+		cache.write(KEY, "<first/>", "etag1");
+		restartCache();
+
+		cache.write("someDataDivider:otherId", "<other/>", "etag2");
+		restartCache();
+
+		assertEquals(cache.read(KEY).get().recordXml(), "<first/>");
+		assertEquals(cache.read("someDataDivider:otherId").get().recordXml(), "<other/>");
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 1);
+	}
+
+	@Test
+	public void testTornWriteIsIgnoredOnRestart() throws Exception {
+		cache.write(KEY, "<record/>", "etag1");
+		cache.write("someDataDivider:tornId", "<torn/>", "etag2");
+		cache.close();
+		corruptLastByteOfSecondEntry();
+
+		cache = startCache();
+
+		assertEquals(cache.read(KEY).get().recordXml(), "<record/>");
+		assertTrue(cache.read("someDataDivider:tornId").isEmpty());
+	}
+
+	private void corruptLastByteOfSecondEntry() throws IOException {
+		int firstEntrySize = 17 + KEY.length() + "etag1".length() + "<record/>".length();
+		int secondEntrySize = 17 + "someDataDivider:tornId".length() + "etag2".length()
+				+ "<torn/>".length();
+		try (RandomAccessFile file = new RandomAccessFile(
+				directory.resolve("segment-0.log").toFile(), "rw")) {
+			file.seek(firstEntrySize + secondEntrySize - 1);
+			file.write('X');
+		}
+	}
+
+	@Test
+	public void testOldestSegmentIsEvictedWhenBudgetIsUsed() throws Exception {
+		fillAllSegments();
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 16);
+
+		cache.write("someDataDivider:id16", "y".repeat(150), "etag");
+
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 16);
+		assertTrue(cache.read("someDataDivider:id0").isEmpty());
+		assertEquals(cache.read("someDataDivider:id1").get().recordXml(), "x".repeat(150));
+		assertFalse(Files.exists(directory.resolve("segment-0.log")));
+	}
+
+	private void fillAllSegments() {
+		for (int i = 0; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(150), "etag");
+		}
+	}
+
+	@Test
+	public void testHotRecordIsKeptWhenSegmentIsEvicted() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		hotKeyTracker.MRV.setSpecificReturnValuesSupplier("isHot", () -> true,
+				"someDataDivider:hot");
+		startCacheWithHotKeyTracker(hotKeyTracker);
+		writeHotAndColdRecordFollowedByFifteenFullSegments();
+
+		cache.write("someDataDivider:id16", "y".repeat(60), "etag");
+
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 16);
+		assertFalse(Files.exists(directory.resolve("segment-0.log")));
+		assertEquals(cache.read("someDataDivider:hot").get().recordXml(), "h".repeat(50));
+		assertTrue(cache.read("someDataDivider:cold").isEmpty());
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(60));
+		restartCache();
+		assertEquals(cache.read("someDataDivider:hot").get().recordXml(), "h".repeat(50));
+	}
+
+	private void startCacheWithHotKeyTracker(HotKeyTrackerSpy hotKeyTracker) {
+		cache.close();
+		cache = PersistentRecordCache.usingDirectoryMaxSizeInBytesAndHotKeyTracker(directory,
+				MAX_SIZE_IN_BYTES, hotKeyTracker);
+	}
+
+	private void writeHotAndColdRecordFollowedByFifteenFullSegments() {
+		cache.write("someDataDivider:hot", "h".repeat(50), "etag");
+		cache.write("someDataDivider:cold", "c".repeat(60), "etag");
+		for (int i = 1; i < 16; i++) {
+			cache.write("someDataDivider:id" + i, "x".repeat(150), "etag");
+		}
+	}
+
+	@Test
+	public void testHotRecordIsEvictedIfNewRecordWouldNotFit() throws Exception {
+		HotKeyTrackerSpy hotKeyTracker = new HotKeyTrackerSpy();
+		hotKeyTracker.MRV.setDefaultReturnValuesSupplier("isHot", () -> true);
+		startCacheWithHotKeyTracker(hotKeyTracker);
+		writeHotAndColdRecordFollowedByFifteenFullSegments();
+
+		cache.write("someDataDivider:id16", "y".repeat(80), "etag");
+
+		assertTrue(cache.read("someDataDivider:hot").isEmpty());
+		assertTrue(cache.read("someDataDivider:cold").isEmpty());
+		assertEquals(cache.read("someDataDivider:id16").get().recordXml(), "y".repeat(80));
+	}
+
+	@Test
+	public void testCompactMovesRemainingRecordsAndDeletesMostlyUnusedSegment() throws Exception {
+		cache.write("someDataDivider:keep", "k".repeat(10), "etagKeep");
+		cache.write("someDataDivider:replaced", "r".repeat(60), "etag");
+		cache.write("someDataDivider:new", "n".repeat(150), "etag");
+		cache.write("someDataDivider:replaced", "s".repeat(10), "etag");
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 3);
+
+		cache.compact();
+
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 2);
+		assertFalse(Files.exists(directory.resolve("segment-0.log")));
+		assertEquals(cache.read("someDataDivider:keep").get().recordXml(), "k".repeat(10));
+		assertEquals(cache.read("someDataDivider:keep").get().etag(), "etagKeep");
+		assertEquals(cache.read("someDataDivider:replaced").get().recordXml(), "s".repeat(10));
+		assertEquals(cache.read("someDataDivider:new").get().recordXml(), "n".repeat(150));
+	}
+
+	@Test
+	public void testCompactKeepsNeedsRevalidation() throws Exception {
+		cache.write("someDataDivider:keep", "k".repeat(10), "etagKeep");
+		cache.write("someDataDivider:replaced", "r".repeat(60), "etag");
+		cache.write("someDataDivider:new", "n".repeat(150), "etag");
+		cache.remove("someDataDivider:replaced");
+		restartCache();
+
+		cache.compact();
+
+		assertFalse(Files.exists(directory.resolve("segment-0.log")));
+		assertTrue(cache.read("someDataDivider:keep").get().needsRevalidation());
+	}
+
+	@Test
+	public void testCompactLeavesSegmentsMostlyInUse() throws Exception {
+		cache.write("someDataDivider:id1", "x".repeat(150), "etag");
+		cache.write("someDataDivider:id2", "x".repeat(150), "etag");
+
+		cache.compact();
+
+		assertTrue(Files.exists(directory.resolve("segment-0.log")));
+		assertTrue(Files.exists(directory.resolve("segment-1.log")));
+	}
+
+	@Test
+	public void testCompactedRecordsSurviveRestart() throws Exception {
+		cache.write("someDataDivider:keep", "k".repeat(10), "etagKeep");
+		cache.write("someDataDivider:replaced", "r".repeat(60), "etag");
+		cache.write("someDataDivider:new", "n".repeat(150), "etag");
+		cache.remove("someDataDivider:replaced");
+		cache.compact();
+
+		restartCache();
+
+		assertEquals(cache.read("someDataDivider:keep").get().recordXml(), "k".repeat(10));
+		assertTrue(cache.read("someDataDivider:replaced").isEmpty());
+	}
+
+	@Test
+	public void testSegmentThatCanNotBeDeletedIsEmptiedAndDeletedLater() throws Exception {
+		cache.write("someDataDivider:keep", "k".repeat(10), "etagKeep");
+		cache.write("someDataDivider:replaced", "r".repeat(60), "etag");
+		cache.write("someDataDivider:new", "n".repeat(150), "etag");
+		cache.remove("someDataDivider:replaced");
+		Path segmentFile = directory.resolve("segment-0.log");
+		Files.delete(segmentFile);
+		Files.createDirectories(segmentFile.resolve("blockingDeletion"));
+
+		cache.compact();
+
+		assertEquals(cache.onlyForTestGetNumberOfRetiredSegments(), 1);
+		assertEquals(cache.read("someDataDivider:keep").get().recordXml(), "k".repeat(10));
+		Files.delete(segmentFile.resolve("blockingDeletion"));
+
+		cache.compact();
+
+		assertEquals(cache.onlyForTestGetNumberOfRetiredSegments(), 0);
+		assertFalse(Files.exists(segmentFile));
+	}
+
+	@Test
+	public void testDeletedSegmentIsEmptiedBeforeItIsDeleted() throws Exception {
+		cache.write("someDataDivider:keep", "k".repeat(10), "etagKeep");
+		cache.write("someDataDivider:replaced", "r".repeat(60), "etag");
+		cache.write("someDataDivider:new", "n".repeat(150), "etag");
+		cache.remove("someDataDivider:replaced");
+		Path segmentFile = directory.resolve("segment-0.log");
+		Path linkToSegmentFile = directory.resolve("linkToSegment");
+		Files.createLink(linkToSegmentFile, segmentFile);
+
+		cache.compact();
+
+		assertFalse(Files.exists(segmentFile));
+		assertEquals(Files.readAllBytes(linkToSegmentFile)[0], 0);
+		Files.delete(linkToSegmentFile);
+	}
+
+	@Test
+	public void testRestartWithSmallerBudgetKeepsExistingSegments() throws Exception {
+		fillAllSegments();
+		cache.close();
+
+		cache = PersistentRecordCache.usingDirectoryAndMaxSizeInBytes(directory, 16 * 200 / 2);
+
+		assertEquals(cache.onlyForTestGetNumberOfSegments(), 16);
+		assertTrue(cache.read("someDataDivider:id0").isPresent());
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.cache;
+
+import static org.testng.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class PreloadReportTest {
+
+	@Test
+	public void testPreloadReport() throws Exception {
+		PreloadReport report = new PreloadReport("someDataDivider", 3, 2, List.of("someId"),
+				Duration.ofMillis(10));
+
+		assertEquals(report.dataDivider(), "someDataDivider");
+		assertEquals(report.numberOfRecords(), 3);
+		assertEquals(report.numberOfPreloadedRecords(), 2);
+		assertEquals(report.failedRecordIds(), List.of("someId"));
+		assertEquals(report.duration(), Duration.ofMillis(10));
+	}
+}
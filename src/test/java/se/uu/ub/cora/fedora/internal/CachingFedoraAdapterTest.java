@@ -0,0 +1,631 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.cache.CachedRecord;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.fedora.spy.RecordCacheSpy;
+import se.uu.ub.cora.fedora.spy.TransactionRunningFedoraAdapterSpy;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class CachingFedoraAdapterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String RECORD_ID = "someRecordId";
+	private static final String KEY = DATA_DIVIDER + ":" + RECORD_ID;
+	private static final String RECORD_XML = "<someXml/>";
+	private static final String ETAG = "\"someETag\"";
+	private static final String MIME_TYPE = "image/jpeg";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private RecordCacheSpy recordCache;
+	private RecordCacheVersions recordCacheVersions;
+	private ExecutorService batchExecutor;
+	private CachingFedoraAdapter cachingAdapter;
+	private InputStreamSpy resource;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new FedoraAdapterSpy();
+		recordCache = new RecordCacheSpy();
+		recordCacheVersions = new RecordCacheVersions();
+		batchExecutor = Executors.newCachedThreadPool();
+		cachingAdapter = new CachingFedoraAdapter(fedoraAdapter, recordCache,
+				recordCacheVersions, batchExecutor);
+		resource = new InputStreamSpy();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(cachingAdapter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(cachingAdapter.onlyForTestGetRecordCache(), recordCache);
+		assertSame(cachingAdapter.onlyForTestGetRecordCacheVersions(), recordCacheVersions);
+		assertSame(cachingAdapter.onlyForTestGetBatchExecutor(), batchExecutor);
+	}
+
+	@Test
+	public void testReadRecordFoundInCache() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, false));
+
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		recordCache.MCR.assertParameters("read", 0, KEY);
+		fedoraAdapter.MCR.assertMethodNotCalled("readVersionedRecord");
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecordIfChanged");
+		assertEquals(recordXml, RECORD_XML);
+	}
+
+	private void setCachedRecord(CachedRecord cachedRecord) {
+		recordCache.MRV.setDefaultReturnValuesSupplier("read", () -> Optional.of(cachedRecord));
+	}
+
+	@Test
+	public void testReadRecordNotInCacheIsReadFromFedoraAndCached() throws Exception {
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		recordCache.MCR.assertParameters("read", 0, KEY);
+		fedoraAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, RECORD_ID);
+		VersionedRecord versionedRecord = (VersionedRecord) fedoraAdapter.MCR
+				.getReturnValue("readVersionedRecord", 0);
+		assertEquals(recordXml, versionedRecord.recordXml());
+		recordCache.MCR.assertParameters("write", 0, KEY, versionedRecord.recordXml(),
+				versionedRecord.etag());
+	}
+
+	@Test
+	public void testReadRecordOverlappingUpdateIsNotCached() throws Exception {
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readVersionedRecord", () -> {
+			cachingAdapter.updateRecord(DATA_DIVIDER, RECORD_ID, "<updated/>");
+			return new VersionedRecord(RECORD_XML, ETAG);
+		});
+
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		assertEquals(recordXml, RECORD_XML);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testReadRecordOverlappingUpdateThroughOtherAdapterIsNotCached()
+			throws Exception {
+		CachingFedoraAdapter otherAdapter = new CachingFedoraAdapter(new FedoraAdapterSpy(),
+				recordCache, recordCacheVersions, batchExecutor);
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readVersionedRecord", () -> {
+			otherAdapter.deleteRecord(DATA_DIVIDER, RECORD_ID);
+			return new VersionedRecord(RECORD_XML, ETAG);
+		});
+
+		cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testRevalidatedRecordOverlappingUpdateIsNotCached() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, true));
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readRecordIfChanged", () -> {
+			cachingAdapter.updateRecord(DATA_DIVIDER, RECORD_ID, "<updated/>");
+			return Optional.of(new VersionedRecord("<changed/>", "\"otherETag\""));
+		});
+
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		assertEquals(recordXml, "<changed/>");
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testReadRecordNotFoundIsNotCached() throws Exception {
+		fedoraAdapter.MRV.setAlwaysThrowException("readVersionedRecord",
+				FedoraNotFoundException.withMessage("someMessage"));
+		try {
+			cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+			fail("It should throw an exception");
+		} catch (FedoraNotFoundException e) {
+			recordCache.MCR.assertMethodNotCalled("write");
+		}
+	}
+
+	@Test
+	public void testReadRecordNeedingRevalidationNotChanged() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, true));
+
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, RECORD_ID,
+				ETAG);
+		fedoraAdapter.MCR.assertMethodNotCalled("readVersionedRecord");
+		recordCache.MCR.assertParameters("markAsRevalidated", 0, KEY);
+		recordCache.MCR.assertMethodNotCalled("write");
+		assertEquals(recordXml, RECORD_XML);
+	}
+
+	@Test
+	public void testReadRecordNeedingRevalidationChanged() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, true));
+		VersionedRecord changedRecord = new VersionedRecord("<changed/>", "someNewETag");
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readRecordIfChanged",
+				() -> Optional.of(changedRecord));
+
+		String recordXml = cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		recordCache.MCR.assertParameters("write", 0, KEY, "<changed/>", "someNewETag");
+		recordCache.MCR.assertMethodNotCalled("markAsRevalidated");
+		assertEquals(recordXml, "<changed/>");
+	}
+
+	@Test
+	public void testReadRecordNeedingRevalidationRemovedFromFedora() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, true));
+		fedoraAdapter.MRV.setAlwaysThrowException("readRecordIfChanged",
+				FedoraNotFoundException.withMessage("someMessage"));
+		try {
+			cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+			fail("It should throw an exception");
+		} catch (FedoraNotFoundException e) {
+			recordCache.MCR.assertParameters("remove", 0, KEY);
+		}
+	}
+
+	@Test
+	public void testReadRecordNeedingRevalidationWithoutETagIsReadFromFedora() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, null, true));
+
+		cachingAdapter.readRecord(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecordIfChanged");
+		fedoraAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, RECORD_ID);
+		recordCache.MCR.assertMethodWasCalled("write");
+	}
+
+	@Test
+	public void testReadVersionedRecordFoundInCache() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, false));
+
+		VersionedRecord versionedRecord = cachingAdapter.readVersionedRecord(DATA_DIVIDER,
+				RECORD_ID);
+
+		fedoraAdapter.MCR.assertMethodNotCalled("readVersionedRecord");
+		assertEquals(versionedRecord.recordXml(), RECORD_XML);
+		assertEquals(versionedRecord.etag(), ETAG);
+	}
+
+	@Test
+	public void testReadVersionedRecordCachedWithoutETagIsReadFromFedora() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, null, false));
+
+		VersionedRecord versionedRecord = cachingAdapter.readVersionedRecord(DATA_DIVIDER,
+				RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, RECORD_ID);
+		fedoraAdapter.MCR.assertReturn("readVersionedRecord", 0, versionedRecord);
+		recordCache.MCR.assertParameters("write", 0, KEY, versionedRecord.recordXml(),
+				versionedRecord.etag());
+	}
+
+	@Test
+	public void testReadRecordIfChangedIsPassedOnToFedora() throws Exception {
+		Optional<VersionedRecord> changedRecord = cachingAdapter.readRecordIfChanged(DATA_DIVIDER,
+				RECORD_ID, ETAG);
+
+		recordCache.MCR.assertMethodNotCalled("read");
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, RECORD_ID,
+				ETAG);
+		fedoraAdapter.MCR.assertReturn("readRecordIfChanged", 0, changedRecord);
+	}
+
+	@Test
+	public void testCreateRecordIsRemovedFromCache() throws Exception {
+		cachingAdapter.createRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML);
+
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, RECORD_ID, RECORD_XML);
+		recordCache.MCR.assertParameters("remove", 0, KEY);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testReadRecordsUsesCachedRecordsAndReadsOthersFromFedora() throws Exception {
+		recordCache.MRV.setSpecificReturnValuesSupplier("read",
+				() -> Optional.of(new CachedRecord("<cached/>", ETAG, false)),
+				DATA_DIVIDER + ":cachedId");
+		recordCache.MRV.setSpecificReturnValuesSupplier("read", Optional::empty,
+				DATA_DIVIDER + ":notCachedId");
+		recordCache.MRV.setSpecificReturnValuesSupplier("read", Optional::empty,
+				DATA_DIVIDER + ":missingId");
+		fedoraAdapter.MRV.setThrowException("readVersionedRecord",
+				FedoraNotFoundException.withMessage("not found"), DATA_DIVIDER, "missingId");
+
+		ReadRecordsResult result = cachingAdapter.readRecords(DATA_DIVIDER,
+				List.of("cachedId", "notCachedId", "missingId"), 2);
+
+		assertEquals(result.records(),
+				Map.of("cachedId", "<cached/>", "notCachedId", "someRecordXmlFromSpy"));
+		assertEquals(result.missingIds(), Set.of("missingId"));
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecords");
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readVersionedRecord", 2);
+		recordCache.MCR.assertCalledParameters("write", DATA_DIVIDER + ":notCachedId",
+				"someRecordXmlFromSpy", "someETagFromSpy");
+	}
+
+	@Test
+	public void testReadRecordsRevalidatesCachedRecordsThatNeedIt() throws Exception {
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, true));
+
+		ReadRecordsResult result = cachingAdapter.readRecords(DATA_DIVIDER, List.of(RECORD_ID),
+				2);
+
+		assertEquals(result.records(), Map.of(RECORD_ID, RECORD_XML));
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, RECORD_ID,
+				ETAG);
+		recordCache.MCR.assertParameters("markAsRevalidated", 0, KEY);
+	}
+
+	@Test
+	public void testUpdateRecordRemovesCachedRecordBeforeAndAfterUpdate() throws Exception {
+		cachingAdapter.updateRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML);
+
+		fedoraAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER, RECORD_ID, RECORD_XML);
+		recordCache.MCR.assertNumberOfCallsToMethod("remove", 2);
+		recordCache.MCR.assertParameters("remove", 0, KEY);
+		recordCache.MCR.assertParameters("remove", 1, KEY);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testFailedUpdateRecordLeavesRecordRemovedFromCache() throws Exception {
+		fedoraAdapter.MRV.setAlwaysThrowException("updateRecord",
+				FedoraNotFoundException.withMessage("someMessage"));
+		try {
+			cachingAdapter.updateRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML);
+			fail("It should throw an exception");
+		} catch (FedoraNotFoundException e) {
+			recordCache.MCR.assertParameters("remove", 0, KEY);
+			recordCache.MCR.assertMethodNotCalled("write");
+		}
+	}
+
+	@Test
+	public void testDeleteRecordRemovesCachedRecord() throws Exception {
+		cachingAdapter.deleteRecord(DATA_DIVIDER, RECORD_ID);
+
+		recordCache.MCR.assertParameters("remove", 0, KEY);
+		fedoraAdapter.MCR.assertParameters("deleteRecord", 0, DATA_DIVIDER, RECORD_ID);
+	}
+
+	@Test
+	public void testCreateResource() throws Exception {
+		var createdMetadata = cachingAdapter.createResource(DATA_DIVIDER, RECORD_ID, resource,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, RECORD_ID,
+				resource, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testCreateResourceFromFile() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var createdMetadata = cachingAdapter.createResource(DATA_DIVIDER, RECORD_ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, RECORD_ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testCreateExternalResource() throws Exception {
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		cachingAdapter.createExternalResource(DATA_DIVIDER, RECORD_ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.PROXY);
+
+		fedoraAdapter.MCR.assertParameters("createExternalResource", 0, DATA_DIVIDER, RECORD_ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.PROXY);
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testCreateRecordsRemovesCreatedRecordsFromCache() throws Exception {
+		List<RecordToCreate> records = List.of(
+				new RecordToCreate(DATA_DIVIDER, "created", RECORD_XML),
+				new RecordToCreate(DATA_DIVIDER, "conflict", "<conflictXml/>"),
+				new RecordToCreate(DATA_DIVIDER, "error", "<errorXml/>"));
+		List<BatchItemResult> results = List.of(
+				new BatchItemResult(DATA_DIVIDER, "created", BatchOutcome.CREATED, null),
+				new BatchItemResult(DATA_DIVIDER, "conflict", BatchOutcome.CONFLICT, "conflict"),
+				new BatchItemResult(DATA_DIVIDER, "error", BatchOutcome.ERROR, "error"));
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("createRecords", () -> results);
+
+		List<BatchItemResult> returnedResults = cachingAdapter.createRecords(records, 4);
+
+		fedoraAdapter.MCR.assertParameters("createRecords", 0, records, 4);
+		assertSame(returnedResults, results);
+		recordCache.MCR.assertNumberOfCallsToMethod("remove", 1);
+		recordCache.MCR.assertParameters("remove", 0, DATA_DIVIDER + ":created");
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	@Test
+	public void testReadResource() throws Exception {
+		InputStream readResource = cachingAdapter.readResource(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, RECORD_ID);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadResourceRanges() throws Exception {
+		List<ByteRange> ranges = List.of(new ByteRange(0, 10));
+
+		ResourceRange resourceRange = cachingAdapter.readResource(DATA_DIVIDER, RECORD_ID, 0, 10);
+		List<ResourceRange> resourceRanges = cachingAdapter.readResource(DATA_DIVIDER, RECORD_ID,
+				ranges);
+
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, RECORD_ID, 0L, 10L);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, resourceRange);
+		fedoraAdapter.MCR.assertParameters("readResource", 1, DATA_DIVIDER, RECORD_ID, ranges);
+		fedoraAdapter.MCR.assertReturn("readResource", 1, resourceRanges);
+	}
+
+	@Test
+	public void testDownloadResource() throws Exception {
+		Path target = Path.of("someTarget");
+
+		var metadata = cachingAdapter.downloadResource(DATA_DIVIDER, RECORD_ID, target, 1024, 3);
+
+		fedoraAdapter.MCR.assertParameters("downloadResource", 0, DATA_DIVIDER, RECORD_ID, target,
+				1024L, 3);
+		fedoraAdapter.MCR.assertReturn("downloadResource", 0, metadata);
+	}
+
+	@Test
+	public void testReadResumableResource() throws Exception {
+		InputStream readResource = cachingAdapter.readResumableResource(DATA_DIVIDER, RECORD_ID, 3);
+
+		fedoraAdapter.MCR.assertParameters("readResumableResource", 0, DATA_DIVIDER, RECORD_ID, 3);
+		fedoraAdapter.MCR.assertReturn("readResumableResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResource() throws Exception {
+		InputStream readResource = cachingAdapter.readVerifiedResource(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, RECORD_ID);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadata() throws Exception {
+		var expectedMetadata = new ResourceMetadata("someFileSize", "someChecksum");
+
+		InputStream readResource = cachingAdapter.readVerifiedResource(DATA_DIVIDER, RECORD_ID,
+				expectedMetadata);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, RECORD_ID,
+				expectedMetadata);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadResourceMetadata() throws Exception {
+		ResourceMetadata metadata = cachingAdapter.readResourceMetadata(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("readResourceMetadata", 0, DATA_DIVIDER, RECORD_ID);
+		fedoraAdapter.MCR.assertReturn("readResourceMetadata", 0, metadata);
+	}
+
+	@Test
+	public void testUpdateResourceMetadata() throws Exception {
+		ResourceMetadataToUpdate metadataToUpdate = new ResourceMetadataToUpdate(
+				"someFileName", MIME_TYPE);
+
+		cachingAdapter.updateResourceMetadata(DATA_DIVIDER, RECORD_ID, metadataToUpdate);
+
+		fedoraAdapter.MCR.assertParameters("updateResourceMetadata", 0, DATA_DIVIDER, RECORD_ID,
+				metadataToUpdate);
+	}
+
+	@Test
+	public void testListIds() throws Exception {
+		var ids = cachingAdapter.listIds(DATA_DIVIDER);
+
+		fedoraAdapter.MCR.assertParameters("listIds", 0, DATA_DIVIDER);
+		fedoraAdapter.MCR.assertReturn("listIds", 0, ids);
+		recordCache.MCR.assertMethodNotCalled("read");
+	}
+
+	@Test
+	public void testListIdsModifiedSince() throws Exception {
+		Instant since = Instant.now();
+
+		var ids = cachingAdapter.listIdsModifiedSince(DATA_DIVIDER, since, 3);
+
+		fedoraAdapter.MCR.assertParameters("listIdsModifiedSince", 0, DATA_DIVIDER, since, 3);
+		fedoraAdapter.MCR.assertReturn("listIdsModifiedSince", 0, ids);
+		recordCache.MCR.assertMethodNotCalled("read");
+	}
+
+	@Test
+	public void testUpdateResourcesMetadata() throws Exception {
+		List<ResourceMetadataUpdate> updates = List.of(new ResourceMetadataUpdate(DATA_DIVIDER,
+				RECORD_ID, new ResourceMetadataToUpdate("someFileName", MIME_TYPE)));
+
+		List<BatchItemResult> results = cachingAdapter.updateResourcesMetadata(updates, 3);
+
+		fedoraAdapter.MCR.assertParameters("updateResourcesMetadata", 0, updates, 3);
+		fedoraAdapter.MCR.assertReturn("updateResourcesMetadata", 0, results);
+		recordCache.MCR.assertMethodNotCalled("remove");
+	}
+
+	@Test
+	public void testUpdateResource() throws Exception {
+		var updatedMetadata = cachingAdapter.updateResource(DATA_DIVIDER, RECORD_ID, resource,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, RECORD_ID,
+				resource, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceFromFile() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var updatedMetadata = cachingAdapter.updateResource(DATA_DIVIDER, RECORD_ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, RECORD_ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceIfChanged() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var result = cachingAdapter.updateResourceIfChanged(DATA_DIVIDER, RECORD_ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("updateResourceIfChanged", 0, DATA_DIVIDER, RECORD_ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResourceIfChanged", 0, result);
+	}
+
+	@Test
+	public void testUpdateExternalResource() throws Exception {
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		cachingAdapter.updateExternalResource(DATA_DIVIDER, RECORD_ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.REDIRECT);
+
+		fedoraAdapter.MCR.assertParameters("updateExternalResource", 0, DATA_DIVIDER, RECORD_ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.REDIRECT);
+	}
+
+	@Test
+	public void testDeleteResource() throws Exception {
+		cachingAdapter.deleteResource(DATA_DIVIDER, RECORD_ID);
+
+		fedoraAdapter.MCR.assertParameters("deleteResource", 0, DATA_DIVIDER, RECORD_ID);
+		recordCache.MCR.assertMethodNotCalled("remove");
+	}
+
+	@Test
+	public void testRunInTransactionDoesNotUseCacheInsideTransaction() throws Exception {
+		TransactionRunningFedoraAdapterSpy runningAdapter =
+				createCachingAdapterRunningOperations();
+		setCachedRecord(new CachedRecord(RECORD_XML, ETAG, false));
+
+		cachingAdapter.runInTransaction(List.of(adapter -> {
+			adapter.readRecord(DATA_DIVIDER, RECORD_ID);
+			adapter.updateRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML);
+		}), 3);
+
+		runningAdapter.MCR.assertParameter("runInTransaction", 0, "maxParallelOperations", 3);
+		FedoraAdapterSpy transactionAdapter = runningAdapter.transactionAdapter;
+		transactionAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, RECORD_ID);
+		transactionAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER, RECORD_ID,
+				RECORD_XML);
+		recordCache.MCR.assertMethodNotCalled("read");
+		recordCache.MCR.assertMethodNotCalled("write");
+	}
+
+	private TransactionRunningFedoraAdapterSpy createCachingAdapterRunningOperations() {
+		TransactionRunningFedoraAdapterSpy runningAdapter =
+				new TransactionRunningFedoraAdapterSpy();
+		cachingAdapter = new CachingFedoraAdapter(runningAdapter, recordCache, recordCacheVersions,
+				batchExecutor);
+		return runningAdapter;
+	}
+
+	@Test
+	public void testRunInTransactionRemovesChangedRecordsFromCache() throws Exception {
+		createCachingAdapterRunningOperations();
+
+		cachingAdapter.runInTransaction(List.of(
+				adapter -> adapter.updateRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML),
+				adapter -> adapter.deleteRecord(DATA_DIVIDER, "otherId")), 1);
+
+		recordCache.MCR.assertNumberOfCallsToMethod("remove", 2);
+		assertEquals(Set.of(getRemovedKey(0), getRemovedKey(1)),
+				Set.of(KEY, DATA_DIVIDER + ":otherId"));
+	}
+
+	private Object getRemovedKey(int callNumber) {
+		return recordCache.MCR.getValueForMethodNameAndCallNumberAndParameterName("remove",
+				callNumber, "key");
+	}
+
+	@Test
+	public void testFailedTransactionRemovesChangedRecordsFromCache() throws Exception {
+		TransactionRunningFedoraAdapterSpy runningAdapter =
+				createCachingAdapterRunningOperations();
+		runningAdapter.transactionAdapter.MRV.setAlwaysThrowException("deleteRecord",
+				new RuntimeException("errorFromSpy"));
+
+		try {
+			cachingAdapter.runInTransaction(List.of(
+					adapter -> adapter.updateRecord(DATA_DIVIDER, RECORD_ID, RECORD_XML),
+					adapter -> adapter.deleteRecord(DATA_DIVIDER, "otherId")), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "errorFromSpy");
+		}
+		recordCache.MCR.assertNumberOfCallsToMethod("remove", 2);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class ChecksummingInputStreamTest {
+	private static final String CONTENT = "someContentToChecksum";
+	private InputStream resource;
+	private ChecksummingInputStream checksummingStream;
+
+	@BeforeMethod
+	public void setUp() {
+		resource = new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+		checksummingStream = new ChecksummingInputStream(resource);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(checksummingStream.onlyForTestGetResource(), resource);
+	}
+
+	@Test
+	public void testNothingRead() throws Exception {
+		assertEquals(checksummingStream.getNumberOfBytes(), 0);
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex(""));
+	}
+
+	private String sha512Hex(String content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512")
+				.digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testReadAllBytes() throws Exception {
+		byte[] read = checksummingStream.readAllBytes();
+
+		assertEquals(new String(read, StandardCharsets.UTF_8), CONTENT);
+		assertEquals(checksummingStream.toResourceMetadata(),
+				new ResourceMetadata("21", sha512Hex(CONTENT)));
+	}
+
+	@Test
+	public void testReadSingleBytes() throws Exception {
+		while (checksummingStream.read() != -1) {
+			// read to end
+		}
+
+		assertEquals(checksummingStream.getNumberOfBytes(), 21);
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex(CONTENT));
+	}
+
+	@Test
+	public void testChecksumOfBytesReadSoFarCanBeAskedForMoreThanOnce() throws Exception {
+		checksummingStream.readNBytes(4);
+
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex("some"));
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex("some"));
+
+		checksummingStream.readAllBytes();
+
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex(CONTENT));
+	}
+
+	@Test
+	public void testSkippedBytesAreIncludedInChecksum() throws Exception {
+		long skipped = checksummingStream.skip(4);
+		checksummingStream.readAllBytes();
+
+		assertEquals(skipped, 4);
+		assertEquals(checksummingStream.getChecksumSHA512(), sha512Hex(CONTENT));
+	}
+
+	@Test
+	public void testSkipPastEnd() throws Exception {
+		long skipped = checksummingStream.skip(100);
+
+		assertEquals(skipped, 21);
+		assertEquals(checksummingStream.getNumberOfBytes(), 21);
+	}
+
+	@Test
+	public void testReadToEnd() throws Exception {
+		checksummingStream.readNBytes(4);
+
+		ResourceMetadata metadata = checksummingStream.readToEnd();
+
+		assertEquals(metadata, new ResourceMetadata("21", sha512Hex(CONTENT)));
+	}
+
+	@Test
+	public void testMarkIsNotSupported() throws Exception {
+		checksummingStream.mark(10);
+
+		assertFalse(checksummingStream.markSupported());
+		try {
+			checksummingStream.reset();
+			fail("It failed");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Reset is not supported when calculating a checksum");
+		}
+	}
+
+	@Test
+	public void testCloseClosesResource() throws Exception {
+		InputStreamSpy resourceSpy = new InputStreamSpy();
+		ChecksummingInputStream stream = new ChecksummingInputStream(resourceSpy);
+
+		stream.close();
+
+		resourceSpy.MCR.assertMethodWasCalled("close");
+	}
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
+
+public class ContainerListerTest {
+	private static final String BASE_URL = "http://localhost:38088/fcrepo/rest/";
+	private static final String CONTAINS = " <http://www.w3.org/ns/ldp#contains> <";
+	private static final String ROOT = "<" + BASE_URL + ">";
+
+	private HttpHandlerFactorySpy httpHandlerFactory;
+	private HttpHandlerSpy httpHandler;
+	private ContainerLister lister;
+
+	@BeforeMethod
+	public void setUp() {
+		httpHandlerFactory = new HttpHandlerFactorySpy();
+		httpHandler = new HttpHandlerSpy();
+		httpHandlerFactory.MRV.setDefaultReturnValuesSupplier("factor", () -> httpHandler);
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 200);
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> createInputStream(""));
+		lister = new ContainerListerImp(httpHandlerFactory, BASE_URL);
+	}
+
+	private InputStream createInputStream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testListIdsReadsRootContainerAsNTriples() throws Exception {
+		lister.listIds("someDataDivider");
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, BASE_URL);
+		httpHandler.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandler.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"application/n-triples");
+	}
+
+	@Test
+	public void testListIdsEmptyContainer() throws Exception {
+		assertTrue(lister.listIds("someDataDivider").isEmpty());
+	}
+
+	@Test
+	public void testListIdsOnlyReturnsChildrenForDataDivider() throws Exception {
+		setResponseBinary(createInputStream(createContainerAsNTriples()));
+
+		List<String> ids = lister.listIds("someDataDivider");
+
+		assertEquals(ids, List.of("someRecordId:001", "someRecordId:002"));
+	}
+
+	private void setResponseBinary(InputStream containerAsNTriples) {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> containerAsNTriples);
+	}
+
+	private String createContainerAsNTriples() {
+		return String.join("\n",
+				ROOT + " <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> "
+						+ "<http://www.w3.org/ns/ldp#BasicContainer> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:someRecordId:001> .",
+				ROOT + CONTAINS + BASE_URL + "otherDataDivider:otherRecordId> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDividerLonger:someId> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:someRecordId:002> .");
+	}
+
+	@Test
+	public void testListIdsClosesResponse() throws Exception {
+		CloseTrackingInputStream containerAsNTriples = new CloseTrackingInputStream(
+				createContainerAsNTriples());
+		setResponseBinary(containerAsNTriples);
+
+		lister.listIds("someDataDivider");
+
+		assertTrue(containerAsNTriples.closed);
+	}
+
+	@Test
+	public void testListIdsErrorFromFedora() throws Exception {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 500);
+
+		try {
+			lister.listIds("someDataDivider");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids in Fedora for dataDivider "
+					+ "someDataDivider failed due to error 500 returned from Fedora");
+			httpHandler.MCR.assertMethodNotCalled("getResponseBinary");
+		}
+	}
+
+	@Test
+	public void testListIdsErrorOnHttpHandler() throws Exception {
+		httpHandlerFactory.MRV.setAlwaysThrowException("factor",
+				new RuntimeException("errorFromSpy"));
+
+		try {
+			lister.listIds("someDataDivider");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids for dataDivider someDataDivider. "
+					+ "An internal error has been thrown.");
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testStreamIdsOnlyReturnsChildrenForDataDivider() throws Exception {
+		setResponseBinary(createInputStream(createContainerAsNTriples()));
+
+		try (Stream<String> ids = lister.streamIds("someDataDivider")) {
+			assertEquals(ids.toList(), List.of("someRecordId:001", "someRecordId:002"));
+		}
+	}
+
+	@Test
+	public void testStreamIdsReadsResponseAsIdsAreConsumed() throws Exception {
+		InputStream firstPart = createInputStream(ROOT + CONTAINS + BASE_URL
+				+ "someDataDivider:someRecordId:001> .\n");
+		setResponseBinary(new SequenceInputStream(firstPart, new FailingInputStream()));
+
+		try (Stream<String> ids = lister.streamIds("someDataDivider")) {
+			Iterator<String> iterator = ids.iterator();
+			assertEquals(iterator.next(), "someRecordId:001");
+		}
+	}
+
+	@Test
+	public void testStreamIdsErrorWhileReadingResponse() throws Exception {
+		InputStream firstPart = createInputStream(ROOT + CONTAINS + BASE_URL
+				+ "someDataDivider:someRecordId:001> .\n");
+		setResponseBinary(new SequenceInputStream(firstPart, new FailingInputStream()));
+
+		try (Stream<String> ids = lister.streamIds("someDataDivider")) {
+			ids.toList();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids for dataDivider someDataDivider. "
+					+ "An internal error has been thrown.");
+			assertEquals(e.getCause().getMessage(), "errorFromFailingInputStream");
+		}
+	}
+
+	@Test
+	public void testStreamIdsClosesResponseWhenStreamIsClosed() throws Exception {
+		CloseTrackingInputStream containerAsNTriples = new CloseTrackingInputStream(
+				createContainerAsNTriples());
+		setResponseBinary(containerAsNTriples);
+
+		Stream<String> ids = lister.streamIds("someDataDivider");
+		ids.iterator().next();
+		assertFalse(containerAsNTriples.closed);
+		ids.close();
+
+		assertTrue(containerAsNTriples.closed);
+	}
+
+	@Test
+	public void testStreamIdsClosesResponseWhenAllIdsAreRead() throws Exception {
+		CloseTrackingInputStream containerAsNTriples = new CloseTrackingInputStream(
+				createContainerAsNTriples());
+		setResponseBinary(containerAsNTriples);
+
+		Iterator<String> ids = lister.streamIds("someDataDivider").iterator();
+		ids.next();
+		ids.next();
+
+		assertFalse(ids.hasNext());
+		assertTrue(containerAsNTriples.closed);
+	}
+
+	@Test(expectedExceptions = NoSuchElementException.class)
+	public void testStreamIdsNoMoreIds() throws Exception {
+		Iterator<String> ids = lister.streamIds("someDataDivider").iterator();
+
+		ids.next();
+	}
+
+	@Test
+	public void testStreamIdsErrorFromFedoraIsThrownWhenCalled() throws Exception {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 404);
+
+		try {
+			lister.streamIds("someDataDivider");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids in Fedora for dataDivider "
+					+ "someDataDivider failed due to error 404 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testListIdsDoesNotAskForContainedDescriptions() throws Exception {
+		lister.listIds("someDataDivider");
+
+		httpHandler.MCR.assertNumberOfCallsToMethod("setRequestProperty", 1);
+	}
+
+	@Test
+	public void testStreamRecordIdsAsksForContainedDescriptions() throws Exception {
+		lister.streamRecordIds("someDataDivider").close();
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, BASE_URL);
+		httpHandler.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandler.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"application/n-triples");
+		httpHandler.MCR.assertParameters("setRequestProperty", 1, "Prefer",
+				"return=representation; "
+						+ "include=\"http://www.w3.org/ns/oa#PreferContainedDescriptions\"");
+	}
+
+	@Test
+	public void testStreamRecordIdsOnlyReturnsRecordsForDataDivider() throws Exception {
+		setResponseBinary(createInputStream(createContainerWithDescriptionsAsNTriples()));
+
+		try (Stream<String> ids = lister.streamRecordIds("someDataDivider")) {
+			assertEquals(ids.toList(), List.of("someRecordId:001", "someRecordId:003"));
+		}
+	}
+
+	private String createContainerWithDescriptionsAsNTriples() {
+		return String.join("\n", ROOT + CONTAINS + BASE_URL + "someDataDivider:someRecordId:001> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:someResourceId:002> .",
+				createMimeTypeTriple("someDataDivider:someRecordId:001",
+						"\"text/plain;charset=utf-8\""),
+				createMimeTypeTriple("someDataDivider:someResourceId:002", "\"image/jpeg\""),
+				createMimeTypeTriple("otherDataDivider:otherRecordId",
+						"\"text/plain;charset=utf-8\""),
+				"<" + BASE_URL + "someDataDivider:someRecordId:003>"
+						+ " <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>"
+						+ " <http://fedora.info/definitions/v4/repository#Binary> .",
+				createMimeTypeTriple("someDataDivider:someRecordId:003",
+						"\"text/plain; charset=UTF-8\"^^<http://www.w3.org/2001/XMLSchema#string>"),
+				createMimeTypeTriple("someDataDivider:someResourceId:004", "\"text/plain\""));
+	}
+
+	private String createMimeTypeTriple(String child, String mimeTypeLiteral) {
+		return "<" + BASE_URL + child + ">"
+				+ " <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#hasMimeType> "
+				+ mimeTypeLiteral + " .";
+	}
+
+	@Test
+	public void testStreamResourceIdsAsksForContainedDescriptions() throws Exception {
+		lister.streamResourceIds("someDataDivider").close();
+
+		httpHandler.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"application/n-triples");
+		httpHandler.MCR.assertParameters("setRequestProperty", 1, "Prefer",
+				"return=representation; "
+						+ "include=\"http://www.w3.org/ns/oa#PreferContainedDescriptions\"");
+	}
+
+	@Test
+	public void testStreamResourceIdsOnlyReturnsResourcesForDataDivider() throws Exception {
+		setResponseBinary(createInputStream(createContainerWithDescriptionsAsNTriples()));
+
+		try (Stream<String> ids = lister.streamResourceIds("someDataDivider")) {
+			assertEquals(ids.toList(), List.of("someResourceId:002", "someResourceId:004"));
+		}
+	}
+
+	@Test
+	public void testStreamRecordIdsClosesResponseWhenStreamIsClosed() throws Exception {
+		CloseTrackingInputStream containerAsNTriples = new CloseTrackingInputStream(
+				createContainerWithDescriptionsAsNTriples());
+		setResponseBinary(containerAsNTriples);
+
+		Stream<String> ids = lister.streamRecordIds("someDataDivider");
+		ids.iterator().next();
+		ids.close();
+
+		assertTrue(containerAsNTriples.closed);
+	}
+
+	@Test
+	public void testStreamRecordIdsErrorFromFedora() throws Exception {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 500);
+
+		try {
+			lister.streamRecordIds("someDataDivider");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids in Fedora for dataDivider "
+					+ "someDataDivider failed due to error 500 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testStreamChildrenWithLastModifiedAsksForContainedDescriptions()
+			throws Exception {
+		lister.streamChildrenWithLastModified("someDataDivider").close();
+
+		httpHandler.MCR.assertParameters("setRequestProperty", 1, "Prefer",
+				"return=representation; "
+						+ "include=\"http://www.w3.org/ns/oa#PreferContainedDescriptions\"");
+	}
+
+	@Test
+	public void testStreamChildrenWithLastModified() throws Exception {
+		setResponseBinary(createInputStream(String.join("\n",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:id1> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:id2> .",
+				ROOT + CONTAINS + BASE_URL + "someDataDivider:id3> .",
+				createTypeTriple("someDataDivider:id1"),
+				createLastModifiedTriple("someDataDivider:id1", "2026-03-05T10:15:30.123Z"),
+				createTypeTriple("someDataDivider:id1/fcr:metadata"),
+				createLastModifiedTriple("otherDataDivider:id9", "2026-03-05T10:15:30Z"),
+				createTypeTriple("someDataDivider:id2"),
+				createLastModifiedTriple("someDataDivider:id2#fragment", "2026-03-05T10:15:30Z"),
+				createLastModifiedTriple("someDataDivider:id3", "notADate"))));
+
+		try (Stream<ListedChild> children = lister
+				.streamChildrenWithLastModified("someDataDivider")) {
+			assertEquals(children.toList(),
+					List.of(new ListedChild("id1", Instant.parse("2026-03-05T10:15:30.123Z")),
+							new ListedChild("id2", null), new ListedChild("id3", null)));
+		}
+	}
+
+	private String createTypeTriple(String child) {
+		return "<" + BASE_URL + child + "> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>"
+				+ " <http://fedora.info/definitions/v4/repository#Binary> .";
+	}
+
+	private String createLastModifiedTriple(String child, String lastModified) {
+		return "<" + BASE_URL + child + ">"
+				+ " <http://fedora.info/definitions/v4/repository#lastModified> \"" + lastModified
+				+ "\"^^<http://www.w3.org/2001/XMLSchema#dateTime> .";
+	}
+
+	@Test
+	public void testStreamChildrenWithLastModifiedSplitDescriptionReturnsChildForEachPart()
+			throws Exception {
+		setResponseBinary(createInputStream(String.join("\n",
+				createLastModifiedTriple("someDataDivider:id1", "2026-03-05T10:15:30Z"),
+				createTypeTriple("someDataDivider:id2"),
+				createTypeTriple("someDataDivider:id1"))));
+
+		try (Stream<ListedChild> children = lister
+				.streamChildrenWithLastModified("someDataDivider")) {
+			assertEquals(children.toList(),
+					List.of(new ListedChild("id1", Instant.parse("2026-03-05T10:15:30Z")),
+							new ListedChild("id2", null), new ListedChild("id1", null)));
+		}
+	}
+
+	@Test
+	public void testStreamChildrenWithLastModifiedClosesResponseWhenStreamIsClosed()
+			throws Exception {
+		CloseTrackingInputStream containerAsNTriples = new CloseTrackingInputStream(
+				String.join("\n", createTypeTriple("someDataDivider:id1"),
+						createTypeTriple("someDataDivider:id2"),
+						createTypeTriple("someDataDivider:id3")));
+		setResponseBinary(containerAsNTriples);
+
+		Stream<ListedChild> children = lister.streamChildrenWithLastModified("someDataDivider");
+		Iterator<ListedChild> iterator = children.iterator();
+		iterator.next();
+		assertFalse(containerAsNTriples.closed);
+		children.close();
+
+		assertTrue(containerAsNTriples.closed);
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test(expectedExceptions = NoSuchElementException.class)
+	public void testStreamChildrenWithLastModifiedNoMoreChildren() throws Exception {
+		try (Stream<ListedChild> children = lister
+				.streamChildrenWithLastModified("someDataDivider")) {
+			children.iterator().next();
+		}
+	}
+
+	@Test
+	public void testStreamChildrenWithLastModifiedErrorWhileReadingResponse() throws Exception {
+		setResponseBinary(new SequenceInputStream(
+				createInputStream(createTypeTriple("someDataDivider:id1") + "\n"),
+				new FailingInputStream()));
+
+		try (Stream<ListedChild> children = lister
+				.streamChildrenWithLastModified("someDataDivider")) {
+			children.toList();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids for dataDivider someDataDivider. "
+					+ "An internal error has been thrown.");
+		}
+	}
+
+	private class CloseTrackingInputStream extends ByteArrayInputStream {
+		boolean closed = false;
+
+		CloseTrackingInputStream(String text) {
+			super(text.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+	}
+
+	private class FailingInputStream extends InputStream {
+		@Override
+		public int read() throws IOException {
+			throw new IOException("errorFromFailingInputStream");
+		}
+	}
+}
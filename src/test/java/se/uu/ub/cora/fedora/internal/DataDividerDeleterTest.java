@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.bulk.DeleteReport;
+import se.uu.ub.cora.fedora.bulk.ProgressListener;
+import se.uu.ub.cora.fedora.spy.ContainerListerSpy;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
+
+public class DataDividerDeleterTest {
+	private static final String BASE_URL = "http://localhost:38088/fcrepo/rest/";
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String CONTAINER_URL = BASE_URL + DATA_DIVIDER;
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private ContainerListerSpy containerLister;
+	private HttpHandlerFactorySpy httpHandlerFactory;
+	private HttpHandlerSpy containerHandler;
+	private HttpHandlerSpy tombstoneHandler;
+	private DataDividerDeleterImp deleter;
+	private List<String> progressCalls;
+	private ProgressListener progressListener;
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
+		fedoraAdapter = new FedoraAdapterSpy();
+		containerLister = new ContainerListerSpy();
+		httpHandlerFactory = new HttpHandlerFactorySpy();
+		containerHandler = createHandlerWithResponseCode(204);
+		tombstoneHandler = createHandlerWithResponseCode(204);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> containerHandler,
+				CONTAINER_URL);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> tombstoneHandler,
+				CONTAINER_URL + "/fcr:tombstone");
+		deleter = new DataDividerDeleterImp(fedoraAdapter, containerLister, httpHandlerFactory,
+				BASE_URL, batchExecutor, 2);
+		progressCalls = Collections.synchronizedList(new ArrayList<>());
+		progressListener = (handled, total) -> progressCalls.add(handled + "/" + total);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	private HttpHandlerSpy createHandlerWithResponseCode(int responseCode) {
+		HttpHandlerSpy handler = new HttpHandlerSpy();
+		handler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> responseCode);
+		return handler;
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(deleter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(deleter.onlyForTestGetContainerLister(), containerLister);
+		assertSame(deleter.onlyForTestGetHttpHandlerFactory(), httpHandlerFactory);
+		assertEquals(deleter.onlyForTestGetBaseUrl(), BASE_URL);
+		assertEquals(deleter.onlyForTestGetMaxParallelDeletes(), 2);
+	}
+
+	@Test
+	public void testDeleteEmptyDataDivider() throws Exception {
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		containerLister.MCR.assertParameters("listIds", 0, DATA_DIVIDER);
+		fedoraAdapter.MCR.assertMethodNotCalled("deleteRecord");
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+		assertTrue(progressCalls.isEmpty());
+		assertEquals(report.dataDivider(), DATA_DIVIDER);
+		assertEquals(report.numberOfIds(), 0);
+		assertEquals(report.numberOfDeletedIds(), 0);
+		assertTrue(report.failedIds().isEmpty());
+		assertFalse(report.containerDeleted());
+	}
+
+	@Test
+	public void testListingErrorIsThrown() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromSpy");
+		containerLister.MRV.setAlwaysThrowException("listIds", error);
+
+		try {
+			deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e, error);
+		}
+	}
+
+	@Test
+	public void testDeleteAllIds() throws Exception {
+		setListedIds("id1", "id2", "id3");
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("deleteRecord", 3);
+		assertEquals(getDeletedIds(), List.of("id1", "id2", "id3"));
+		assertEquals(report.numberOfIds(), 3);
+		assertEquals(report.numberOfDeletedIds(), 3);
+		assertTrue(report.failedIds().isEmpty());
+		assertFalse(report.containerDeleted());
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+	}
+
+	private void setListedIds(String... ids) {
+		containerLister.MRV.setDefaultReturnValuesSupplier("listIds", () -> List.of(ids));
+	}
+
+	private List<String> getDeletedIds() {
+		int calls = fedoraAdapter.MCR.getNumberOfCallsToMethod("deleteRecord");
+		List<String> deletedIds = new ArrayList<>();
+		for (int i = 0; i < calls; i++) {
+			assertEquals(fedoraAdapter.MCR.getValueForMethodNameAndCallNumberAndParameterName(
+					"deleteRecord", i, "dataDivider"), DATA_DIVIDER);
+			deletedIds.add((String) fedoraAdapter.MCR
+					.getValueForMethodNameAndCallNumberAndParameterName("deleteRecord", i,
+							"recordId"));
+		}
+		Collections.sort(deletedIds);
+		return deletedIds;
+	}
+
+	@Test
+	public void testProgressIsReportedForEachId() throws Exception {
+		setListedIds("id1", "id2", "id3");
+
+		deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		assertEquals(progressCalls, List.of("1/3", "2/3", "3/3"));
+	}
+
+	@Test
+	public void testAlreadyDeletedIdIsCountedAsDeleted() throws Exception {
+		setListedIds("id1", "id2");
+		fedoraAdapter.MRV.setThrowException("deleteRecord",
+				FedoraNotFoundException.withMessage("notFoundFromSpy"), DATA_DIVIDER, "id1");
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		assertEquals(report.numberOfDeletedIds(), 2);
+		assertTrue(report.failedIds().isEmpty());
+	}
+
+	@Test
+	public void testFailedIdsAreReportedInListedOrder() throws Exception {
+		setListedIds("id1", "id2", "id3", "id4");
+		FedoraException error = FedoraException.withMessage("errorFromSpy");
+		fedoraAdapter.MRV.setThrowException("deleteRecord", error, DATA_DIVIDER, "id4");
+		fedoraAdapter.MRV.setThrowException("deleteRecord", error, DATA_DIVIDER, "id2");
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		assertEquals(report.numberOfIds(), 4);
+		assertEquals(report.numberOfDeletedIds(), 2);
+		assertEquals(report.failedIds(), List.of("id2", "id4"));
+		assertEquals(progressCalls.size(), 4);
+	}
+
+	@Test
+	public void testDeleteContainerAfterIds() throws Exception {
+		setListedIds("id1");
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, CONTAINER_URL);
+		containerHandler.MCR.assertParameters("setRequestMethod", 0, "DELETE");
+		httpHandlerFactory.MCR.assertParameters("factor", 1, CONTAINER_URL + "/fcr:tombstone");
+		tombstoneHandler.MCR.assertParameters("setRequestMethod", 0, "DELETE");
+		assertTrue(report.containerDeleted());
+	}
+
+	@Test
+	public void testMissingContainerIsNotReportedAsDeleted() throws Exception {
+		containerHandler = createHandlerWithResponseCode(404);
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		assertFalse(report.containerDeleted());
+	}
+
+	@Test
+	public void testAlreadyPurgedContainerTombstoneIsIgnored() throws Exception {
+		tombstoneHandler = createHandlerWithResponseCode(404);
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+
+		assertTrue(report.containerDeleted());
+	}
+
+	@Test
+	public void testContainerIsKeptWhenIdsFailed() throws Exception {
+		setListedIds("id1");
+		fedoraAdapter.MRV.setAlwaysThrowException("deleteRecord",
+				FedoraException.withMessage("errorFromSpy"));
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+		assertFalse(report.containerDeleted());
+	}
+
+	@Test
+	public void testErrorResponseDeletingContainer() throws Exception {
+		containerHandler = createHandlerWithResponseCode(500);
+
+		try {
+			deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error deleting container in Fedora for dataDivider "
+					+ DATA_DIVIDER + " failed due to error 500 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testExceptionDeletingContainer() throws Exception {
+		RuntimeException error = new RuntimeException("errorFromSpy");
+		containerHandler.MRV.setAlwaysThrowException("getResponseCode", error);
+
+		try {
+			deleter.deleteAll(DATA_DIVIDER, true, progressListener);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error deleting container for dataDivider "
+					+ DATA_DIVIDER + ". An internal error has been thrown.");
+			assertSame(e.getCause(), error);
+		}
+	}
+
+	@Test
+	public void testManyIdsAreAllDeleted() throws Exception {
+		String[] ids = IntStream.range(0, 50).mapToObj(i -> "id" + i).toArray(String[]::new);
+		setListedIds(ids);
+
+		DeleteReport report = deleter.deleteAll(DATA_DIVIDER, false, progressListener);
+
+		assertEquals(report.numberOfDeletedIds(), 50);
+		assertEquals(progressCalls.size(), 50);
+		assertEquals(progressCalls.get(49), "50/50");
+	}
+}
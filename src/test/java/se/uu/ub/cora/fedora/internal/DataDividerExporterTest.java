@@ -0,0 +1,420 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.bulk.ExportFormat;
+import se.uu.ub.cora.fedora.bulk.ExportReport;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.spy.ContainerListerSpy;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+
+public class DataDividerExporterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private ContainerListerSpy containerLister;
+	private DataDividerExporterImp exporter;
+	private ByteArrayOutputStream outputStream;
+	private List<CloseRecordingInputStream> contentStreams;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new FedoraAdapterSpy();
+		containerLister = new ContainerListerSpy();
+		exporter = new DataDividerExporterImp(fedoraAdapter, containerLister, 2);
+		outputStream = new ByteArrayOutputStream();
+		contentStreams = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(exporter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(exporter.onlyForTestGetContainerLister(), containerLister);
+		assertEquals(exporter.onlyForTestGetMaxParallelFetches(), 2);
+	}
+
+	@Test
+	public void testExportEmptyDataDividerAsTar() throws Exception {
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.TAR, outputStream);
+
+		containerLister.MCR.assertParameters("streamIds", 0, DATA_DIVIDER);
+		assertEquals(outputStream.toByteArray(), new byte[1024]);
+		assertEquals(report.dataDivider(), DATA_DIVIDER);
+		assertEquals(report.format(), ExportFormat.TAR);
+		assertEquals(report.numberOfIds(), 0);
+		assertEquals(report.numberOfExportedIds(), 0);
+		assertTrue(report.failedIds().isEmpty());
+	}
+
+	@Test
+	public void testListingIsClosedAfterExport() throws Exception {
+		AtomicBoolean listingClosed = new AtomicBoolean(false);
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamIds",
+				() -> Stream.of("id1").onClose(() -> listingClosed.set(true)));
+		setResource("id1", "content1");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+
+		assertTrue(listingClosed.get());
+		assertEquals(report.numberOfIds(), 1);
+		assertEquals(report.numberOfExportedIds(), 1);
+	}
+
+	@Test
+	public void testRecordListingIsClosedAfterNdjsonExport() throws Exception {
+		AtomicBoolean listingClosed = new AtomicBoolean(false);
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1").onClose(() -> listingClosed.set(true)));
+		setRecordXml("id1", "<record/>");
+
+		exporter.export(DATA_DIVIDER, ExportFormat.NDJSON, outputStream);
+
+		assertTrue(listingClosed.get());
+	}
+
+	@Test
+	public void testListingErrorIsThrown() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromSpy");
+		containerLister.MRV.setAlwaysThrowException("streamIds", error);
+
+		try {
+			exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e, error);
+		}
+	}
+
+	@Test
+	public void testExportRecordsAsNdjson() throws Exception {
+		setListedRecordIds("id1", "id2");
+		setRecordXml("id1", "<record id=\"1\">\n\t\\</record>");
+		setRecordXml("id2", "<record>\u0001</record>");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.NDJSON, outputStream);
+
+		assertEquals(outputStream.toString(StandardCharsets.UTF_8),
+				"{\"id\":\"id1\",\"recordXml\":\"<record id=\\\"1\\\">\\n\\t\\\\</record>\"}\n"
+						+ "{\"id\":\"id2\",\"recordXml\":\"<record>\\u0001</record>\"}\n");
+		assertEquals(report.format(), ExportFormat.NDJSON);
+		assertEquals(report.numberOfIds(), 2);
+		assertEquals(report.numberOfExportedIds(), 2);
+		fedoraAdapter.MCR.assertMethodNotCalled("readResource");
+		containerLister.MCR.assertParameters("streamRecordIds", 0, DATA_DIVIDER);
+		containerLister.MCR.assertMethodNotCalled("streamIds");
+	}
+
+	private void setListedIds(String... ids) {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamIds", () -> Stream.of(ids));
+	}
+
+	private void setListedRecordIds(String... ids) {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of(ids));
+	}
+
+	private void setRecordXml(String recordId, String recordXml) {
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readRecord", () -> recordXml,
+				DATA_DIVIDER, recordId);
+	}
+
+	@Test
+	public void testExportRecordsAsNdjsonKeepsListedOrder() throws Exception {
+		List<String> ids = IntStream.range(0, 30).mapToObj(i -> "id" + i).toList();
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds", ids::stream);
+		ids.forEach(id -> setRecordXml(id, "<" + id + "/>"));
+
+		exporter.export(DATA_DIVIDER, ExportFormat.NDJSON, outputStream);
+
+		List<String> expectedLines = ids.stream()
+				.map(id -> "{\"id\":\"" + id + "\",\"recordXml\":\"<" + id + "/>\"}").toList();
+		assertEquals(outputStream.toString(StandardCharsets.UTF_8).lines().toList(),
+				expectedLines);
+	}
+
+	@Test
+	public void testFailedRecordIsReportedAndLeftOutOfNdjson() throws Exception {
+		setListedRecordIds("id1", "failingId");
+		setRecordXml("id1", "<record/>");
+		fedoraAdapter.MRV.setThrowException("readRecord",
+				FedoraNotFoundException.withMessage("not found"), DATA_DIVIDER, "failingId");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.NDJSON, outputStream);
+
+		assertEquals(outputStream.toString(StandardCharsets.UTF_8),
+				"{\"id\":\"id1\",\"recordXml\":\"<record/>\"}\n");
+		assertEquals(report.numberOfIds(), 2);
+		assertEquals(report.numberOfExportedIds(), 1);
+		assertEquals(report.failedIds(), List.of("failingId"));
+	}
+
+	@Test
+	public void testExportAsZip() throws Exception {
+		setListedIds("id1", "id2");
+		setResource("id1", "content1");
+		setResource("id2", "content22");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(outputStream.toByteArray()))) {
+			assertNextZipEntry(zip, "id1.metadata.json", createMetadataJson("id1", "content1"));
+			assertNextZipEntry(zip, "id1", "content1");
+			assertNextZipEntry(zip, "id2.metadata.json", createMetadataJson("id2", "content22"));
+			assertNextZipEntry(zip, "id2", "content22");
+			assertNull(zip.getNextEntry());
+		}
+		assertEquals(report.numberOfExportedIds(), 2);
+		assertAllContentStreamsClosed();
+	}
+
+	@Test
+	public void testUnknownMimeTypeIsLeftOutOfMetadata() throws Exception {
+		setListedIds("id1");
+		setResource("id1", "content1");
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("8", "shaid1"), DATA_DIVIDER, "id1");
+
+		exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(outputStream.toByteArray()))) {
+			assertNextZipEntry(zip, "id1.metadata.json",
+					"{\"id\":\"id1\",\"fileSize\":\"8\",\"checksumSHA512\":\"shaid1\"}");
+			assertNextZipEntry(zip, "id1", "content1");
+		}
+	}
+
+	private void setResource(String id, String content) {
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata(Integer.toString(content.length()), "sha" + id,
+						"text/plain"),
+				DATA_DIVIDER, id);
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResource",
+				() -> createContentStream(content), DATA_DIVIDER, id);
+	}
+
+	private InputStream createContentStream(String content) {
+		CloseRecordingInputStream contentStream = new CloseRecordingInputStream(
+				content.getBytes(StandardCharsets.UTF_8));
+		contentStreams.add(contentStream);
+		return contentStream;
+	}
+
+	private String createMetadataJson(String id, String content) {
+		return "{\"id\":\"" + id + "\",\"fileSize\":\"" + content.length()
+				+ "\",\"checksumSHA512\":\"sha" + id + "\",\"mimeType\":\"text/plain\"}";
+	}
+
+	private void assertNextZipEntry(ZipInputStream zip, String name, String content)
+			throws IOException {
+		ZipEntry entry = zip.getNextEntry();
+		assertEquals(entry.getName(), name);
+		assertEquals(new String(zip.readAllBytes(), StandardCharsets.UTF_8), content);
+	}
+
+	private void assertAllContentStreamsClosed() {
+		assertTrue(contentStreams.stream().allMatch(stream -> stream.closed));
+	}
+
+	@Test
+	public void testExportAsTar() throws Exception {
+		setListedIds("id1");
+		setResource("id1", "content1");
+
+		exporter.export(DATA_DIVIDER, ExportFormat.TAR, outputStream);
+
+		byte[] tar = outputStream.toByteArray();
+		String metadataJson = createMetadataJson("id1", "content1");
+		assertEquals(readString(tar, 0, 100), "id1.metadata.json");
+		assertEquals(readString(tar, 512, 512), metadataJson);
+		assertEquals(readString(tar, 1024, 100), "id1");
+		assertEquals(readString(tar, 1536, 512), "content1");
+		assertEquals(tar.length, 4 * 512 + 1024);
+		assertAllContentStreamsClosed();
+	}
+
+	private String readString(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0) {
+			end++;
+		}
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testFailedResourceIsReportedAndLeftOutOfArchive() throws Exception {
+		setListedIds("failingId", "id1");
+		setResource("id1", "content1");
+		fedoraAdapter.MRV.setThrowException("readResourceMetadata",
+				FedoraException.withMessage("errorFromSpy"), DATA_DIVIDER, "failingId");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(outputStream.toByteArray()))) {
+			assertNextZipEntry(zip, "id1.metadata.json", createMetadataJson("id1", "content1"));
+			assertNextZipEntry(zip, "id1", "content1");
+			assertNull(zip.getNextEntry());
+		}
+		assertEquals(report.numberOfIds(), 2);
+		assertEquals(report.numberOfExportedIds(), 1);
+		assertEquals(report.failedIds(), List.of("failingId"));
+	}
+
+	@Test
+	public void testResourceWithContentOfWrongSizeIsReportedAndLeftOutOfArchive()
+			throws Exception {
+		setListedIds("shortId", "longId", "id1");
+		setResource("shortId", "content");
+		setResource("longId", "content");
+		setResource("id1", "content1");
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("8", "shashortId"), DATA_DIVIDER, "shortId");
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("6", "shalongId"), DATA_DIVIDER, "longId");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.TAR, outputStream);
+
+		byte[] tar = outputStream.toByteArray();
+		assertEquals(readString(tar, 0, 100), "id1.metadata.json");
+		assertEquals(readString(tar, 1024, 100), "id1");
+		assertEquals(readString(tar, 1536, 512), "content1");
+		assertEquals(tar.length, 4 * 512 + 1024);
+		assertEquals(report.numberOfExportedIds(), 1);
+		assertEquals(report.failedIds(), List.of("shortId", "longId"));
+		assertAllContentStreamsClosed();
+	}
+
+	@Test
+	public void testResourceWithUnreadableContentIsReportedAsFailed() throws Exception {
+		setListedIds("failingId");
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("8", "shafailingId"), DATA_DIVIDER, "failingId");
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResource",
+				() -> new InputStream() {
+					@Override
+					public int read() throws IOException {
+						throw new IOException("errorFromContent");
+					}
+				}, DATA_DIVIDER, "failingId");
+
+		ExportReport report = exporter.export(DATA_DIVIDER, ExportFormat.ZIP, outputStream);
+
+		assertEquals(report.numberOfExportedIds(), 0);
+		assertEquals(report.failedIds(), List.of("failingId"));
+	}
+
+	@Test
+	public void testLongIdIsExportedToTar() throws Exception {
+		String longId = "id".repeat(60);
+		setListedIds(longId);
+		setResource(longId, "content1");
+		Path tarFile = Files.createTempFile("dataDividerExporterTest", ".tar");
+		List<String> itemsRead = new ArrayList<>();
+
+		try {
+			exporter.export(DATA_DIVIDER, ExportFormat.TAR, outputStream);
+			Files.write(tarFile, outputStream.toByteArray());
+			new TarImportSource(tarFile).forEachItem(id -> true, item -> {
+				itemsRead.add(item.id() + ":" + item.metadataJson());
+				discard(item);
+			});
+		} finally {
+			Files.delete(tarFile);
+		}
+
+		assertEquals(itemsRead, List.of(longId + ":" + createMetadataJson(longId, "content1")));
+	}
+
+	private void discard(ImportItem item) {
+		try {
+			item.discard();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	public void testErrorWritingExport() throws Exception {
+		List<String> ids = IntStream.range(0, 10).mapToObj(i -> "id" + i).toList();
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamIds", ids::stream);
+		ids.forEach(id -> setResource(id, "content"));
+		OutputStream failingOutputStream = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("errorFromOutputStream");
+			}
+		};
+
+		try {
+			exporter.export(DATA_DIVIDER, ExportFormat.TAR, failingOutputStream);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error writing export of dataDivider someDataDivider. "
+					+ "An internal error has been thrown.");
+			assertEquals(e.getCause().getCause().getMessage(), "errorFromOutputStream");
+		}
+		assertAllContentStreamsClosed();
+	}
+
+	private static class CloseRecordingInputStream extends ByteArrayInputStream {
+		private volatile boolean closed = false;
+
+		CloseRecordingInputStream(byte[] content) {
+			super(content);
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraConflictException;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.bulk.ImportReport;
+import se.uu.ub.cora.fedora.bulk.ImportType;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.fedora.spy.JsonObjectSpy;
+import se.uu.ub.cora.fedora.spy.JsonParserSpy;
+import se.uu.ub.cora.fedora.spy.JsonStringSpy;
+import se.uu.ub.cora.fedora.spy.JsonValueSpy;
+import se.uu.ub.cora.json.parser.JsonValueType;
+
+public class DataDividerImporterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String CHECKPOINT_HEADER = "# fedora import checkpoint for dataDivider "
+			+ "someDataDivider of type RECORDS\n";
+
+	private Path directory;
+	private Path sourceDirectory;
+	private Path checkpointFile;
+	private FedoraAdapterSpy fedoraAdapter;
+	private JsonParserSpy jsonParser;
+	private DataDividerImporterImp importer;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("dataDividerImporterTest");
+		sourceDirectory = Files.createDirectory(directory.resolve("source"));
+		checkpointFile = directory.resolve("checkpoint.txt");
+		fedoraAdapter = new FedoraAdapterSpy();
+		jsonParser = new JsonParserSpy();
+		importer = new DataDividerImporterImp(fedoraAdapter, jsonParser, 2);
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(importer.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(importer.onlyForTestGetJsonParser(), jsonParser);
+		assertEquals(importer.onlyForTestGetMaxParallelWorkers(), 2);
+	}
+
+	@Test
+	public void testUnknownSource() throws Exception {
+		Path source = directory.resolve("source.txt");
+
+		try {
+			importer.importItems(DATA_DIVIDER, ImportType.RECORDS, source, checkpointFile);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to import from " + source
+					+ ", it is not a directory or a tar, zip or ndjson file.");
+		}
+	}
+
+	@Test
+	public void testResourcesCanNotBeImportedFromNdjson() throws Exception {
+		Path source = directory.resolve("source.ndjson");
+
+		try {
+			importer.importItems(DATA_DIVIDER, ImportType.RESOURCES, source, checkpointFile);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to import resources from " + source
+					+ ", ndjson files can only contain records.");
+		}
+	}
+
+	@Test
+	public void testImportRecordsFromDirectory() throws Exception {
+		writeSourceFile("id1", "<record1/>");
+		writeSourceFile("id2", "<record2/>");
+
+		ImportReport report = importRecords();
+
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("createRecord", 2);
+		fedoraAdapter.MCR.assertCalledParameters("createRecord", DATA_DIVIDER, "id1",
+				"<record1/>");
+		fedoraAdapter.MCR.assertCalledParameters("createRecord", DATA_DIVIDER, "id2",
+				"<record2/>");
+		assertEquals(readCheckpointedIds(), Set.of("id1", "id2"));
+		assertEquals(report.dataDivider(), DATA_DIVIDER);
+		assertEquals(report.numberOfItems(), 2);
+		assertEquals(report.numberOfImportedItems(), 2);
+		assertEquals(report.numberOfSkippedItems(), 0);
+		assertTrue(report.alreadyExistingIds().isEmpty());
+		assertTrue(report.failedIds().isEmpty());
+	}
+
+	private void writeSourceFile(String id, String content) throws IOException {
+		Files.writeString(sourceDirectory.resolve(id), content);
+	}
+
+	private ImportReport importRecords() {
+		return importer.importItems(DATA_DIVIDER, ImportType.RECORDS, sourceDirectory,
+				checkpointFile);
+	}
+
+	private Set<String> readCheckpointedIds() throws IOException {
+		return Files.readAllLines(checkpointFile).stream().skip(1).collect(Collectors.toSet());
+	}
+
+	@Test
+	public void testRestartedImportSkipsCheckpointedItems() throws Exception {
+		writeSourceFile("id1", "<record1/>");
+		writeSourceFile("id2", "<record2/>");
+		Files.writeString(checkpointFile, CHECKPOINT_HEADER + "id1\n");
+
+		ImportReport report = importRecords();
+
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("createRecord", 1);
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, "id2", "<record2/>");
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecord");
+		assertEquals(readCheckpointedIds(), Set.of("id1", "id2"));
+		assertEquals(report.numberOfItems(), 2);
+		assertEquals(report.numberOfImportedItems(), 1);
+		assertEquals(report.numberOfSkippedItems(), 1);
+	}
+
+	@Test
+	public void testCheckpointFromOtherImportIsRefused() throws Exception {
+		writeSourceFile("id1", "<record1/>");
+		Files.writeString(checkpointFile, "# fedora import checkpoint for dataDivider "
+				+ "otherDataDivider of type RECORDS\nid1\n");
+
+		try {
+			importRecords();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to use checkpoint file " + checkpointFile
+					+ " for an import of type RECORDS into dataDivider someDataDivider, it was "
+					+ "written for another import.");
+		}
+		fedoraAdapter.MCR.assertMethodNotCalled("createRecord");
+	}
+
+	@Test
+	public void testAlreadyExistingItemIsReportedAndCheckpointed() throws Exception {
+		writeSourceFile("id1", "<record1/>");
+		writeSourceFile("existingId", "<existing/>");
+		fedoraAdapter.MRV.setThrowException("createRecord",
+				FedoraConflictException.withMessage("already exists"), DATA_DIVIDER,
+				"existingId", "<existing/>");
+
+		ImportReport report = importRecords();
+
+		assertEquals(readCheckpointedIds(), Set.of("id1", "existingId"));
+		assertEquals(report.numberOfImportedItems(), 1);
+		assertEquals(report.alreadyExistingIds(), List.of("existingId"));
+		assertTrue(report.failedIds().isEmpty());
+	}
+
+	@Test
+	public void testFailedItemIsReportedAndNotCheckpointed() throws Exception {
+		writeSourceFile("id1", "<record1/>");
+		writeSourceFile("failingId", "<failing/>");
+		fedoraAdapter.MRV.setThrowException("createRecord",
+				FedoraException.withMessage("errorFromSpy"), DATA_DIVIDER, "failingId",
+				"<failing/>");
+
+		ImportReport report = importRecords();
+
+		assertEquals(readCheckpointedIds(), Set.of("id1"));
+		assertEquals(report.numberOfItems(), 2);
+		assertEquals(report.numberOfImportedItems(), 1);
+		assertEquals(report.failedIds(), List.of("failingId"));
+	}
+
+	@Test
+	public void testImportResourcesStreamsContentWithGuessedMimeType() throws Exception {
+		ContentReadingFedoraAdapterSpy contentReadingAdapter = new ContentReadingFedoraAdapterSpy();
+		importer = new DataDividerImporterImp(contentReadingAdapter, jsonParser, 2);
+		writeSourceFile("image.jpg", "someImage");
+		writeSourceFile("someId", "someBinary");
+
+		ImportReport report = importer.importItems(DATA_DIVIDER, ImportType.RESOURCES,
+				sourceDirectory, checkpointFile);
+
+		assertEquals(contentReadingAdapter.resources, Map.of("image.jpg", "image/jpeg:someImage",
+				"someId", "application/octet-stream:someBinary"));
+		contentReadingAdapter.MCR.assertMethodNotCalled("createRecord");
+		assertEquals(report.numberOfImportedItems(), 2);
+	}
+
+	@Test
+	public void testImportResourcesUsesMimeTypeFromMetadata() throws Exception {
+		ContentReadingFedoraAdapterSpy contentReadingAdapter = new ContentReadingFedoraAdapterSpy();
+		importer = new DataDividerImporterImp(contentReadingAdapter, jsonParser, 2);
+		String metadataJson = "{\"mimeType\":\"image/png\"}";
+		setMimeTypeInParsedMetadata(metadataJson, JsonValueType.STRING, "image/png");
+		writeSourceFile("image.jpg", "someImage");
+		writeSourceFile("image.jpg.metadata.json", metadataJson);
+
+		importer.importItems(DATA_DIVIDER, ImportType.RESOURCES, sourceDirectory,
+				checkpointFile);
+
+		jsonParser.MCR.assertParameters("parseStringAsObject", 0, metadataJson);
+		assertEquals(contentReadingAdapter.resources, Map.of("image.jpg", "image/png:someImage"));
+	}
+
+	private void setMimeTypeInParsedMetadata(String metadataJson, JsonValueType valueType,
+			String mimeType) {
+		JsonObjectSpy metadata = new JsonObjectSpy();
+		metadata.MRV.setSpecificReturnValuesSupplier("containsKey", () -> true, "mimeType");
+		JsonValueSpy mimeTypeValue = new JsonValueSpy();
+		mimeTypeValue.MRV.setDefaultReturnValuesSupplier("getValueType", () -> valueType);
+		metadata.MRV.setSpecificReturnValuesSupplier("getValue", () -> mimeTypeValue,
+				"mimeType");
+		JsonStringSpy mimeTypeString = new JsonStringSpy();
+		mimeTypeString.MRV.setDefaultReturnValuesSupplier("getStringValue", () -> mimeType);
+		metadata.MRV.setSpecificReturnValuesSupplier("getValueAsJsonString",
+				() -> mimeTypeString, "mimeType");
+		jsonParser.MRV.setSpecificReturnValuesSupplier("parseStringAsObject", () -> metadata,
+				metadataJson);
+	}
+
+	@Test
+	public void testImportResourcesGuessesMimeTypeWhenMetadataHasNone() throws Exception {
+		ContentReadingFedoraAdapterSpy contentReadingAdapter = new ContentReadingFedoraAdapterSpy();
+		importer = new DataDividerImporterImp(contentReadingAdapter, jsonParser, 2);
+		writeSourceFile("image.jpg", "someImage");
+		writeSourceFile("image.jpg.metadata.json", "{}");
+		writeSourceFile("someId", "someBinary");
+		String nullMimeTypeJson = "{\"mimeType\":null}";
+		setMimeTypeInParsedMetadata(nullMimeTypeJson, JsonValueType.NULL, null);
+		writeSourceFile("someId.metadata.json", nullMimeTypeJson);
+
+		importer.importItems(DATA_DIVIDER, ImportType.RESOURCES, sourceDirectory,
+				checkpointFile);
+
+		assertEquals(contentReadingAdapter.resources, Map.of("image.jpg", "image/jpeg:someImage",
+				"someId", "application/octet-stream:someBinary"));
+	}
+
+	@Test
+	public void testImportFromTarArchive() throws Exception {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		TarArchiveWriter tarWriter = new TarArchiveWriter(tar, 0);
+		addTarEntry(tarWriter, "id1.metadata.json", "{}");
+		addTarEntry(tarWriter, "id1", "<record1/>");
+		tarWriter.finish();
+		Path source = directory.resolve("source.tar");
+		Files.write(source, tar.toByteArray());
+
+		ImportReport report = importer.importItems(DATA_DIVIDER, ImportType.RECORDS, source,
+				checkpointFile);
+
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, "id1", "<record1/>");
+		assertEquals(report.numberOfItems(), 1);
+	}
+
+	private void addTarEntry(TarArchiveWriter tarWriter, String name, String content)
+			throws IOException {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		tarWriter.writeEntry(name, bytes.length, new ByteArrayInputStream(bytes));
+	}
+
+	@Test
+	public void testErrorReadingSource() throws Exception {
+		Path source = directory.resolve("source.tar");
+		Files.write(source, new byte[100]);
+
+		try {
+			importer.importItems(DATA_DIVIDER, ImportType.RECORDS, source, checkpointFile);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error importing from " + source
+					+ " into dataDivider someDataDivider. An internal error has been thrown.");
+			assertEquals(e.getCause().getMessage(), "Unexpected end of tar archive " + source);
+		}
+	}
+
+	@Test
+	public void testItemsAreImportedInParallel() throws Exception {
+		BlockingFedoraAdapterSpy blockingAdapter = new BlockingFedoraAdapterSpy(3);
+		importer = new DataDividerImporterImp(blockingAdapter, jsonParser, 3);
+		writeSourceFile("id1", "<record1/>");
+		writeSourceFile("id2", "<record2/>");
+		writeSourceFile("id3", "<record3/>");
+
+		ImportReport report = importRecords();
+
+		assertEquals(report.numberOfImportedItems(), 3);
+		assertTrue(report.failedIds().isEmpty());
+	}
+
+	private static class ContentReadingFedoraAdapterSpy extends FedoraAdapterSpy {
+		private Map<String, String> resources = new ConcurrentHashMap<>();
+
+		@Override
+		public ResourceMetadata createResource(String dataDivider, String resourceId,
+				InputStream resource, String mimeType) {
+			ResourceMetadata metadata = super.createResource(dataDivider, resourceId, resource,
+					mimeType);
+			try {
+				resources.put(resourceId, mimeType + ":"
+						+ new String(resource.readAllBytes(), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return metadata;
+		}
+	}
+
+	private static class BlockingFedoraAdapterSpy extends FedoraAdapterSpy {
+		private CountDownLatch allCreating;
+
+		BlockingFedoraAdapterSpy(int numberOfCreates) {
+			allCreating = new CountDownLatch(numberOfCreates);
+		}
+
+		@Override
+		public void createRecord(String dataDivider, String recordId, String recordXml) {
+			allCreating.countDown();
+			try {
+				if (!allCreating.await(5, TimeUnit.SECONDS)) {
+					throw new RuntimeException("records were not created in parallel");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DirectoryImportSourceTest {
+	private Path directory;
+	private DirectoryImportSource source;
+	private Map<String, ImportItem> items;
+	private Set<String> askedIds;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("directoryImportSourceTest");
+		source = new DirectoryImportSource(directory);
+		items = new HashMap<>();
+		askedIds = new HashSet<>();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testEmptyDirectory() throws Exception {
+		source.forEachItem(this::isWanted, item -> items.put(item.id(), item));
+
+		assertEquals(items.size(), 0);
+	}
+
+	private boolean isWanted(String id) {
+		askedIds.add(id);
+		return !id.startsWith("unwanted");
+	}
+
+	@Test
+	public void testEachFileIsAnItem() throws Exception {
+		Files.writeString(directory.resolve("id1"), "content1");
+		Files.writeString(directory.resolve("id2"), "content2");
+		Files.writeString(directory.resolve("id1.metadata.json"), "{}");
+		Files.writeString(directory.resolve("unwantedId"), "unwanted");
+		Files.createDirectory(directory.resolve("subDirectory"));
+
+		source.forEachItem(this::isWanted, item -> items.put(item.id(), item));
+
+		assertEquals(askedIds, Set.of("id1", "id2", "unwantedId"));
+		assertEquals(items.keySet(), Set.of("id1", "id2"));
+		assertEquals(items.get("id1").file(), directory.resolve("id1"));
+		assertEquals(readContent(items.get("id1")), "content1");
+		assertEquals(readContent(items.get("id2")), "content2");
+	}
+
+	@Test
+	public void testMetadataIsHandedOnWithItsItem() throws Exception {
+		Files.writeString(directory.resolve("id1"), "content1");
+		Files.writeString(directory.resolve("id1.metadata.json"), "{\"mimeType\":\"text/plain\"}");
+		Files.writeString(directory.resolve("id2"), "content2");
+		Files.writeString(directory.resolve("id3"), "content3");
+		Files.writeString(directory.resolve("id3.metadata.json"), "x".repeat(64 * 1024 + 1));
+
+		source.forEachItem(this::isWanted, item -> items.put(item.id(), item));
+
+		assertEquals(items.get("id1").metadataJson(), "{\"mimeType\":\"text/plain\"}");
+		assertNull(items.get("id2").metadataJson());
+		assertNull(items.get("id3").metadataJson());
+	}
+
+	private String readContent(ImportItem item) throws IOException {
+		try (InputStream content = item.openContent()) {
+			return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Uppsala University Library
+ * Copyright 2022, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -20,22 +20,58 @@ package se.uu.ub.cora.fedora.internal;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import se.uu.ub.cora.fedora.FedoraAdapter;
 import se.uu.ub.cora.fedora.FedoraConflictException;
 import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraFixityException;
 import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.FedoraRangeNotSatisfiableException;
+import se.uu.ub.cora.fedora.FedoraRejectedException;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.BatchOutcome;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
 import se.uu.ub.cora.fedora.record.ResourceMetadata;
 import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FileUploaderSpy;
+import se.uu.ub.cora.fedora.spy.ReadCoalescerSpy;
 import se.uu.ub.cora.fedora.spy.ResourceMetadataParserSpy;
 import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
 import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
@@ -47,14 +83,25 @@ public class FedoraAdapterTest {
 	private static final String SOME_RECORD_ID = "someRecordId:001";
 	private static final String FCR_TOMBSTONE = "/fcr:tombstone";
 	private static final String FCR_METADATA = "/fcr:metadata";
+	private static final URI EXTERNAL_CONTENT = URI
+			.create("file:///some/shared/storage/someResource.tif");
 	private static final int CREATED = 201;
 	private static final int OK = 200;
 	private static final int INTERNAL_SERVER_ERROR = 500;
+	private static final int BAD_REQUEST = 400;
+	private static final int FORBIDDEN = 403;
 	private static final int NO_CONTENT = 204;
+	private static final int PARTIAL_CONTENT = 206;
+	private static final int RANGE_NOT_SATISFIABLE = 416;
+	private static final int NOT_MODIFIED = 304;
+	private static final int PRECONDITION_FAILED = 412;
+	private static final String SOME_STORED_ETAG = "\"someStoredETag\"";
 	private static final int NOT_FOUND = 404;
 
 	private String baseUrl = "http://localhost:38088/fcrepo/rest/";
 	private String dataDivider = "someDataDivider";
+	private Path resourceFile;
+	private String uploadedContent;
 	private String mimeType = "image/jpg";
 	String expectedRecordPath = baseUrl + dataDivider + ":";
 	private String recordXML = "<somexml></somexml>";
@@ -64,6 +111,9 @@ public class FedoraAdapterTest {
 	private HttpHandlerSpy httpHandlerSpy0;
 	private HttpHandlerSpy httpHandlerSpy1;
 	private ResourceMetadataParserSpy resourceMetadataParser;
+	private ExecutorService batchExecutor;
+	private ReadCoalescerSpy readCoalescer;
+	private FileUploaderSpy fileUploader;
 	private InputStreamSpy resource;
 	ResourceMetadataToUpdate metadataResourceToUpdate = new ResourceMetadataToUpdate(
 			"someOriginalFileName", "someMimeType");
@@ -77,6 +127,7 @@ public class FedoraAdapterTest {
 	private static final String UPDATING_METADATA = "updating metadata for";
 	private static final String UPDATING = "updating";
 	private static final String DELETING = "deleting";
+	private static final String RESUMING = "resuming reading of";
 
 	private static final String ERR_MSG_INTERNAL_ERROR = "Error {0} a {1}. An internal "
 			+ "error has been thrown for {1} id {2}.";
@@ -86,9 +137,28 @@ public class FedoraAdapterTest {
 			+ "already exists in Fedora.";
 	private static final String ERR_MSG_NOT_FOUND_IN_FEDORA = "Error {0} in Fedora: {1} id "
 			+ "{2} was not found in Fedora.";
+	private static final String ERR_MSG_INVALID_RANGE = "Error reading range of resource id {0}: "
+			+ "offset {1} and length {2} do not describe a valid range.";
+	private static final String ERR_MSG_RANGE_NOT_SATISFIABLE = "Error reading range of resource "
+			+ "id {0}: range {1} is not satisfiable, Fedora returned Content-Range {2}.";
+	private static final String ERR_MSG_INVALID_CONTENT_RANGE = "Error reading range of resource "
+			+ "id {0}: Fedora returned the invalid Content-Range {1}.";
+	private static final String ERR_MSG_RESOURCE_CHANGED = "Error resuming reading of resource "
+			+ "id {0} at byte {1}: the resource has been changed or removed in Fedora.";
+	private static final String ERR_MSG_RESUMED_AT_WRONG_POSITION = "Error resuming reading of "
+			+ "resource id {0} at byte {1}: Fedora returned Content-Range {2}.";
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		batchExecutor.shutdownNow();
+		if (resourceFile != null) {
+			Files.deleteIfExists(resourceFile);
+		}
+	}
 
 	@BeforeMethod
 	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
 		httpHandlerFactory = new HttpHandlerFactorySpy();
 
 		httpHandlerSpy0 = new HttpHandlerSpy();
@@ -98,7 +168,10 @@ public class FedoraAdapterTest {
 		setMetadataSpecificValuesHttpHandlerFactory();
 
 		resourceMetadataParser = new ResourceMetadataParserSpy();
-		fedora = new FedoraAdapterImp(httpHandlerFactory, baseUrl, resourceMetadataParser);
+		readCoalescer = new ReadCoalescerSpy();
+		fileUploader = new FileUploaderSpy();
+		fedora = new FedoraAdapterImp(httpHandlerFactory, baseUrl, resourceMetadataParser,
+				readCoalescer, fileUploader, batchExecutor);
 		resource = new InputStreamSpy();
 	}
 
@@ -129,6 +202,8 @@ public class FedoraAdapterTest {
 		assertEquals(fedoraImp.onlyForTestGetBaseUrl(), baseUrl);
 		assertEquals(fedoraImp.onlyForTestGetHttpHandlerFactory(), httpHandlerFactory);
 		assertEquals(fedoraImp.onlyForTestGetResourceMetadataParser(), resourceMetadataParser);
+		assertEquals(fedoraImp.onlyForTestGetReadCoalescer(), readCoalescer);
+		assertEquals(fedoraImp.onlyForTestGetFileUploader(), fileUploader);
 	}
 
 	@Test
@@ -195,11 +270,27 @@ public class FedoraAdapterTest {
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
+			assertFalse(e instanceof FedoraRejectedException);
 			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
 					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
 		}
 	}
 
+	@Test
+	public void testCreateRecordRejectedByFedora() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(BAD_REQUEST));
+
+		try {
+			fedora.createRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraRejectedException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
+					SOME_RECORD_ID, RECORD, BAD_REQUEST));
+		}
+	}
+
 	@Test
 	public void testCreateRecordAnyOtherErrorOnFactor() {
 		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
@@ -232,6 +323,84 @@ public class FedoraAdapterTest {
 		}
 	}
 
+	@Test
+	public void testCreateRecordsEmptyBatch() throws Exception {
+		List<BatchItemResult> results = fedora.createRecords(List.of(), 4);
+
+		assertTrue(results.isEmpty());
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+	}
+
+	@Test
+	public void testCreateRecordsReturnsOutcomeForEachRecordInOrder() throws Exception {
+		setUpHeadAndPutResponseCodes("created", NOT_FOUND, CREATED);
+		setUpHeadAndPutResponseCodes("conflict", OK, CREATED);
+		setUpHeadAndPutResponseCodes("error", NOT_FOUND, INTERNAL_SERVER_ERROR);
+
+		List<BatchItemResult> results = fedora.createRecords(
+				List.of(new RecordToCreate(dataDivider, "created", recordXML),
+						new RecordToCreate(dataDivider, "conflict", recordXML),
+						new RecordToCreate(dataDivider, "error", recordXML)),
+				2);
+
+		assertEquals(results.get(0),
+				new BatchItemResult(dataDivider, "created", BatchOutcome.CREATED, null));
+		assertEquals(results.get(1), new BatchItemResult(dataDivider, "conflict",
+				BatchOutcome.CONFLICT, MessageFormat.format(ERR_MSG_CREATE_CONFLICT, "conflict",
+						RECORD)));
+		assertEquals(results.get(2), new BatchItemResult(dataDivider, "error",
+				BatchOutcome.ERROR, MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING, "error",
+						RECORD, INTERNAL_SERVER_ERROR)));
+	}
+
+	private void setUpHeadAndPutResponseCodes(String recordId, int headResponseCode,
+			int putResponseCode) {
+		HttpHandlerSpy headHandler = new HttpHandlerSpy();
+		headHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> headResponseCode);
+		HttpHandlerSpy putHandler = new HttpHandlerSpy();
+		putHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> putResponseCode);
+		httpHandlerFactory.MRV.setReturnValues("factor", List.of(headHandler, putHandler),
+				expectedRecordPath + recordId);
+	}
+
+	@Test
+	public void testCreateRecordsStoresRecordXml() throws Exception {
+		setUpHeadAndPutResponseCodes("created", NOT_FOUND, CREATED);
+
+		fedora.createRecords(List.of(new RecordToCreate(dataDivider, "created", recordXML)), 1);
+
+		HttpHandlerSpy putHandler = (HttpHandlerSpy) httpHandlerFactory.MCR.getReturnValue("factor",
+				1);
+		putHandler.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		putHandler.MCR.assertParameters("setOutput", 0, recordXML);
+	}
+
+	@Test
+	public void testRunInTransactionStartsRunsAndCommitsTransaction() throws Exception {
+		String transactionUrl = baseUrl + "fcr:tx/someTransactionId";
+		HttpHandlerSpy startHandler = new HttpHandlerSpy();
+		startHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> CREATED);
+		startHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> transactionUrl,
+				"Location");
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> startHandler,
+				baseUrl + "fcr:tx");
+		HttpHandlerSpy commitHandler = new HttpHandlerSpy();
+		commitHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> NO_CONTENT);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> commitHandler,
+				transactionUrl);
+		setUpHeadAndPutResponseCodes("created", NOT_FOUND, CREATED);
+
+		fedora.runInTransaction(
+				List.of(adapter -> adapter.createRecord(dataDivider, "created", recordXML)), 2);
+
+		startHandler.MCR.assertParameters("setRequestMethod", 0, "POST");
+		HttpHandlerSpy putHandler = (HttpHandlerSpy) httpHandlerFactory.MCR.getReturnValue("factor",
+				2);
+		putHandler.MCR.assertParameters("setRequestProperty", 0, "Atomic-ID", transactionUrl);
+		putHandler.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		commitHandler.MCR.assertParameters("setRequestMethod", 0, "PUT");
+	}
+
 	@Test
 	public void testCreateResource() throws Exception {
 		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
@@ -246,11 +415,154 @@ public class FedoraAdapterTest {
 		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
 		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
 		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Content-Type", mimeType);
-		httpHandlerSpy1.MCR.assertParameters("setStreamOutput", 0, resource);
+		assertUploadedThroughChecksummingStream(httpHandlerSpy1);
 		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
 
 	}
 
+	private void assertUploadedThroughChecksummingStream(HttpHandlerSpy httpHandler) {
+		ChecksummingInputStream uploadedStream = (ChecksummingInputStream) httpHandler.MCR
+				.getValueForMethodNameAndCallNumberAndParameterName("setStreamOutput", 0,
+						"stream");
+		assertSame(uploadedStream.onlyForTestGetResource(), resource);
+	}
+
+	@Test
+	public void testCreateResourceReturnsMetadataCalculatedWhileUploading() throws Exception {
+		InputStream content = new ByteArrayInputStream(
+				"someContent".getBytes(StandardCharsets.UTF_8));
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		setResponseCodeReadingUploadedContent(httpHandlerSpy1, CREATED);
+
+		ResourceMetadata metadata = fedora.createResource(dataDivider, SOME_RESOURCE_ID, content,
+				mimeType);
+
+		assertEquals(uploadedContent, "someContent");
+		assertEquals(metadata, new ResourceMetadata("11", sha512Hex("someContent")));
+	}
+
+	private String sha512Hex(String content) throws Exception {
+		return HexFormat.of().formatHex(sha512(content));
+	}
+
+	private byte[] sha512(String content) throws Exception {
+		return MessageDigest.getInstance("SHA-512")
+				.digest(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testCreateResourceFromFile() throws Exception {
+		resourceFile = createResourceFile("someContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		fedora.createResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		fileUploader.MCR.assertParameter("upload", 0, "url",
+				expectedRecordPath + SOME_RESOURCE_ID);
+		fileUploader.MCR.assertParameter("upload", 0, "requestMethod", "PUT");
+		fileUploader.MCR.assertParameter("upload", 0, "requestProperties",
+				Map.of("Content-Type", mimeType, "Digest", createDigestValue("someContent")));
+		fileUploader.MCR.assertParameter("upload", 0, "contentLength", 11L);
+		assertEquals(readFileUploaderContent(0), "someContent");
+	}
+
+	private String createDigestValue(String content) throws Exception {
+		return "sha-512=" + Base64.getEncoder().encodeToString(sha512(content));
+	}
+
+	private String readFileUploaderContent(int callNumber) {
+		return new String(fileUploader.uploadedContents.get(callNumber), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testCreateResourceFromFileReturnsMetadataCalculatedBeforeUploading()
+			throws Exception {
+		resourceFile = createResourceFile("someContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		ResourceMetadata metadata = fedora.createResource(dataDivider, SOME_RESOURCE_ID,
+				resourceFile, mimeType);
+
+		assertEquals(fileUploader.uploadedContents.size(), 1);
+		assertEquals(metadata, new ResourceMetadata("11", sha512Hex("someContent")));
+	}
+
+	private Path createResourceFile(String content) throws IOException {
+		Path file = Files.createTempFile("fedoraAdapterTest", ".bin");
+		Files.writeString(file, content);
+		return file;
+	}
+
+	private void setResponseCodeReadingUploadedContent(HttpHandlerSpy httpHandler,
+			int responseCode) {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> {
+			uploadedContent = readUploadedContent(httpHandler);
+			return responseCode;
+		});
+	}
+
+	private String readUploadedContent(HttpHandlerSpy httpHandler) {
+		InputStream stream = (InputStream) httpHandler.MCR
+				.getValueForMethodNameAndCallNumberAndParameterName("setStreamOutput", 0,
+						"stream");
+		try {
+			return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	public void testCreateResourceFromFileConflict() throws Exception {
+		resourceFile = createResourceFile("someContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+
+		try {
+			fedora.createResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraConflictException);
+			assertEquals(e.getMessage(),
+					MessageFormat.format(ERR_MSG_CREATE_CONFLICT, SOME_RESOURCE_ID, RESOURCE));
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		}
+	}
+
+	@Test
+	public void testCreateResourceFromMissingFile() throws Exception {
+		Path missingFile = Path.of("someMissingDirectory", "someMissingFile");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.createResource(dataDivider, SOME_RESOURCE_ID, missingFile, mimeType);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, CREATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		}
+	}
+
+	@Test
+	public void testCreateResourceFromFileErrorOnStoring() throws Exception {
+		resourceFile = createResourceFile("someContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> INTERNAL_SERVER_ERROR);
+
+		try {
+			fedora.createResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
+					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+		}
+	}
+
 	@Test
 	public void testCreateResourceConflictErrorCheck() {
 		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
@@ -326,6 +638,93 @@ public class FedoraAdapterTest {
 		}
 	}
 
+	@Test
+	public void testCreateExternalResource() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(CREATED));
+
+		fedora.createExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT, mimeType,
+				ExternalContentHandling.PROXY);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Link",
+				createExpectedExternalContentLink("proxy"));
+		httpHandlerSpy1.MCR.assertNumberOfCallsToMethod("setRequestProperty", 1);
+		httpHandlerSpy1.MCR.assertMethodNotCalled("setStreamOutput");
+		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
+	}
+
+	private String createExpectedExternalContentLink(String handling) {
+		return "<" + EXTERNAL_CONTENT + ">; "
+				+ "rel=\"http://fedora.info/definitions/fcrepo#ExternalContent\"; handling=\""
+				+ handling + "\"; type=\"" + mimeType + "\"";
+	}
+
+	@Test
+	public void testCreateExternalResourceSendsHandling() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(CREATED));
+
+		fedora.createExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT, mimeType,
+				ExternalContentHandling.COPY);
+
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Link",
+				createExpectedExternalContentLink("copy"));
+	}
+
+	@Test
+	public void testCreateExternalResourceConflict() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+
+		try {
+			fedora.createExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraConflictException);
+			assertEquals(e.getMessage(),
+					MessageFormat.format(ERR_MSG_CREATE_CONFLICT, SOME_RESOURCE_ID, RESOURCE));
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		}
+	}
+
+	@Test
+	public void testCreateExternalResourceErrorOnStoring() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(BAD_REQUEST));
+
+		try {
+			fedora.createExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, CREATING,
+					SOME_RESOURCE_ID, RESOURCE, BAD_REQUEST));
+		}
+	}
+
+	@Test
+	public void testCreateExternalResourceErrorOnHttpHandler() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+		httpHandlerSpy1.MRV.setAlwaysThrowException("getResponseCode",
+				new RuntimeException("errorFromSpy"));
+
+		try {
+			fedora.createExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, CREATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
 	@Test
 	public void testReadRecord() {
 		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseText",
@@ -343,6 +742,17 @@ public class FedoraAdapterTest {
 		httpHandlerSpy0.MCR.assertReturn("getResponseText", 0, recordFromFedora);
 	}
 
+	@Test
+	public void testReadRecordIsCoalesced() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+
+		fedora.readRecord(dataDivider, SOME_RECORD_ID);
+
+		readCoalescer.MCR.assertParameter("read", 0, "key",
+				RECORD + expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
 	@Test
 	public void testReadRecordRecordNotFound() {
 		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
@@ -388,259 +798,1491 @@ public class FedoraAdapterTest {
 	}
 
 	@Test
-	public void testReadResourceOk() throws Exception {
+	public void testReadVersionedRecord() {
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseText",
+				() -> "someResponseText");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getHeaderField", () -> "someETag");
 		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
 
-		InputStream resourceFromFedora = fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+		VersionedRecord versionedRecord = fedora.readVersionedRecord(dataDivider, SOME_RECORD_ID);
 
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
 		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 0, "ETag");
+		httpHandlerSpy0.MCR.assertReturn("getResponseText", 0, versionedRecord.recordXml());
+		assertEquals(versionedRecord.etag(), "someETag");
+	}
+
+	@Test
+	public void testReadRecords() {
+		setUpReadResponse("found", OK, "<found/>");
+		setUpReadResponse("missing", NOT_FOUND, "");
+
+		ReadRecordsResult result = fedora.readRecords(dataDivider,
+				List.of("found", "missing", "found"), 2);
+
+		assertEquals(result.records(), Map.of("found", "<found/>"));
+		assertEquals(result.missingIds(), Set.of("missing"));
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+	}
+
+	private void setUpReadResponse(String recordId, int responseCode, String responseText) {
+		HttpHandlerSpy readHandler = new HttpHandlerSpy();
+		readHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> responseCode);
+		readHandler.MRV.setDefaultReturnValuesSupplier("getResponseText", () -> responseText);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> readHandler,
+				expectedRecordPath + recordId);
+	}
+
+	@Test
+	public void testReadRecordsErrorReadingFromFedora() {
+		setUpReadResponse("found", OK, "<found/>");
+		setUpReadResponse("error", INTERNAL_SERVER_ERROR, "");
+
+		try {
+			fedora.readRecords(dataDivider, List.of("found", "error"), 2);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					"error", RECORD, INTERNAL_SERVER_ERROR));
+		}
+	}
+
+	@Test
+	public void testListIds() {
+		String containerAsNTriples = "<" + baseUrl + "> <http://www.w3.org/ns/ldp#contains> <"
+				+ expectedRecordPath + SOME_RECORD_ID + "> .";
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new ByteArrayInputStream(
+						containerAsNTriples.getBytes(StandardCharsets.UTF_8)));
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> httpHandlerSpy0,
+				baseUrl);
+
+		try (Stream<String> ids = fedora.listIds(dataDivider)) {
+			assertEquals(ids.toList(), List.of(SOME_RECORD_ID));
+		}
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"application/n-triples");
+	}
+
+	@Test
+	public void testListIdsErrorFromFedora() {
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseCode",
+				() -> INTERNAL_SERVER_ERROR);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> httpHandlerSpy0,
+				baseUrl);
+
+		try {
+			fedora.listIds(dataDivider);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error listing ids in Fedora for dataDivider "
+					+ "someDataDivider failed due to error 500 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testListIdsModifiedSince() {
+		String containerAsNTriples = "<" + baseUrl + "> <http://www.w3.org/ns/ldp#contains> <"
+				+ expectedRecordPath + SOME_RECORD_ID + "> .\n<" + expectedRecordPath
+				+ SOME_RECORD_ID + "> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>"
+				+ " <http://fedora.info/definitions/v4/repository#Binary> .";
+		HttpHandlerSpy containerHandler = new HttpHandlerSpy();
+		containerHandler.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new ByteArrayInputStream(
+						containerAsNTriples.getBytes(StandardCharsets.UTF_8)));
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> containerHandler,
+				baseUrl);
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> OK);
+
+		List<String> ids = fedora.listIdsModifiedSince(dataDivider,
+				Instant.parse("2026-03-05T10:15:30Z"), 2);
+
+		assertEquals(ids, List.of(SOME_RECORD_ID));
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "If-Modified-Since",
+				"Thu, 05 Mar 2026 10:15:29 GMT");
+	}
+
+	@Test
+	public void testReadRecordIfChangedNotModified() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_MODIFIED));
+
+		Optional<VersionedRecord> changedRecord = fedora.readRecordIfChanged(dataDivider,
+				SOME_RECORD_ID, "someETag");
+
+		assertTrue(changedRecord.isEmpty());
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"text/plain;charset=utf-8");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 1, "If-None-Match",
+				"someETag");
 		httpHandlerSpy0.MCR.assertMethodNotCalled("getResponseText");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseBinary");
-		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0, resourceFromFedora);
 	}
 
 	@Test
-	public void testReadResourceMetadataSetupHttpCall() {
-		fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+	public void testReadRecordIfChangedModified() {
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseText",
+				() -> "someResponseText");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getHeaderField", () -> "newETag");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
 
-		httpHandlerFactory.MCR.assertParameters("factor", 0,
-				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
-		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "GET");
-		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Accept",
-				"application/ld+json");
+		Optional<VersionedRecord> changedRecord = fedora.readRecordIfChanged(dataDivider,
+				SOME_RECORD_ID, "someETag");
 
+		assertEquals(changedRecord.get().recordXml(), "someResponseText");
+		assertEquals(changedRecord.get().etag(), "newETag");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 0, "ETag");
 	}
 
 	@Test
-	public void testReadResourceMetadataParseJson() {
-		ResourceMetadata readResourceMetadata = fedora.readResourceMetadata(dataDivider,
-				SOME_RESOURCE_ID);
+	public void testReadRecordIfChangedIsCoalesced() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_MODIFIED));
+
+		fedora.readRecordIfChanged(dataDivider, SOME_RECORD_ID, "someETag");
 
+		readCoalescer.MCR.assertParameter("read", 0, "key",
+				"revalidate" + expectedRecordPath + SOME_RECORD_ID + "someETag");
+	}
+
+	@Test
+	public void testReadRecordIfChangedRecordNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readRecordIfChanged(dataDivider, SOME_RECORD_ID, "someETag");
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RECORD, SOME_RECORD_ID));
+		}
+	}
+
+	@Test
+	public void testReadRecordIfChangedErrorReadingFromFedora() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.readRecordIfChanged(dataDivider, SOME_RECORD_ID, "someETag");
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
+		}
+	}
+
+	@Test
+	public void testReadRecordIfChangedErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RECORD_ID);
+		try {
+			fedora.readRecordIfChanged(dataDivider, SOME_RECORD_ID, "someETag");
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(),
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING, RECORD, SOME_RECORD_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testReadResourceOk() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+
+		InputStream resourceFromFedora = fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+		httpHandlerSpy0.MCR.assertMethodNotCalled("getResponseText");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseBinary");
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0, resourceFromFedora);
+	}
+
+	@Test
+	public void testReadResourceMetadataSetupHttpCall() {
+		fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Accept",
+				"application/ld+json");
+
+	}
+
+	@Test
+	public void testReadResourceMetadataParseJson() {
+		ResourceMetadata readResourceMetadata = fedora.readResourceMetadata(dataDivider,
+				SOME_RESOURCE_ID);
+
+		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
+		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseText");
+		var jsonString = httpHandlerSpy1.MCR.getReturnValue("getResponseText", 0);
+
+		resourceMetadataParser.MCR.assertParameters("parse", 0, jsonString);
+		resourceMetadataParser.MCR.assertReturn("parse", 0, readResourceMetadata);
+
+	}
+
+	@Test
+	public void testReadResourceMetadataIsCoalesced() {
+		fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+
+		readCoalescer.MCR.assertParameter("read", 0, "key",
+				RESOURCE + expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testReadResourceMetadataNotFound() {
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
+					READING_METADATA, RESOURCE, SOME_RESOURCE_ID));
+		}
+	}
+
+	@Test
+	public void testReadResourceMetadataInternalServerError() {
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+		}
+	}
+
+	@Test
+	public void testReadResourceMetadataHttpHandlerException() throws Exception {
+		httpHandlerSpy1.MRV.setAlwaysThrowException("getResponseText",
+				new RuntimeException("someError"));
+
+		try {
+			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR,
+					READING_METADATA, RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "someError");
+		}
+	}
+
+	@Test
+	public void testReadResourceNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+		}
+	}
+
+	@Test
+	public void testReadResourceErrorReadingFromFedora() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+		}
+	}
+
+	@Test
+	public void testReadResourceErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RESOURCE_ID);
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testReadVerifiedResourceUsesDigestFromResponse() throws Exception {
+		String digest = "md5=someMd5, sha-512="
+				+ Base64.getEncoder().encodeToString(sha512("someContent"));
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> digest,
+				"Digest");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> "11",
+				"Content-Length");
+
+		InputStream resourceFromFedora = fedora.readVerifiedResource(dataDivider,
+				SOME_RESOURCE_ID);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Want-Digest", "sha-512");
+		VerifyingInputStream verifyingStream = (VerifyingInputStream) resourceFromFedora;
+		assertEquals(verifyingStream.onlyForTestGetExpectedMetadata(),
+				new ResourceMetadata("11", sha512Hex("someContent")));
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0,
+				verifyingStream.onlyForTestGetResource());
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithoutDigestReadsMetadata() throws Exception {
+		ResourceMetadata metadata = new ResourceMetadata("11", sha512Hex("someContent"));
+		resourceMetadataParser.MRV.setDefaultReturnValuesSupplier("parse", () -> metadata);
+
+		InputStream resourceFromFedora = fedora.readVerifiedResource(dataDivider,
+				SOME_RESOURCE_ID);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		VerifyingInputStream verifyingStream = (VerifyingInputStream) resourceFromFedora;
+		assertSame(verifyingStream.onlyForTestGetExpectedMetadata(), metadata);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithUnreadableDigestReadsMetadata() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField",
+				() -> "sha-512=notBase64!", "Digest");
+
+		fedora.readVerifiedResource(dataDivider, SOME_RESOURCE_ID);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+	}
+
+	@Test
+	public void testReadVerifiedResourceErrorReadingMetadataClosesResource() throws Exception {
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readVerifiedResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
+					READING_METADATA, RESOURCE, SOME_RESOURCE_ID));
+			InputStreamSpy resource = (InputStreamSpy) httpHandlerSpy0.MCR
+					.getReturnValue("getResponseBinary", 0);
+			resource.MCR.assertMethodWasCalled("close");
+		}
+	}
+
+	@Test
+	public void testReadVerifiedResourceNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readVerifiedResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+		}
+	}
+
+	@Test
+	public void testReadVerifiedResourceErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RESOURCE_ID);
+		try {
+			fedora.readVerifiedResource(dataDivider, SOME_RESOURCE_ID);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testReadVerifiedResourceCorruptedInFedora() throws Exception {
+		String digest = "sha-512=" + Base64.getEncoder().encodeToString(sha512("someContent"));
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> digest,
+				"Digest");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new ByteArrayInputStream("someCorrupt".getBytes(StandardCharsets.UTF_8)));
+
+		InputStream resourceFromFedora = fedora.readVerifiedResource(dataDivider,
+				SOME_RESOURCE_ID);
+
+		try {
+			resourceFromFedora.readAllBytes();
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraFixityException);
+		}
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadata() throws Exception {
+		ResourceMetadata expectedMetadata = new ResourceMetadata("11", sha512Hex("someContent"));
+
+		InputStream resourceFromFedora = fedora.readVerifiedResource(dataDivider,
+				SOME_RESOURCE_ID, expectedMetadata);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertMethodNotCalled("setRequestProperty");
+		VerifyingInputStream verifyingStream = (VerifyingInputStream) resourceFromFedora;
+		assertSame(verifyingStream.onlyForTestGetExpectedMetadata(), expectedMetadata);
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0,
+				verifyingStream.onlyForTestGetResource());
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadataNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readVerifiedResource(dataDivider, SOME_RESOURCE_ID,
+					new ResourceMetadata("11", "someChecksum"));
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+		}
+	}
+
+	@Test
+	public void testReadResumableResourceReturnsResumingStream() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> "someETag",
+				"ETag");
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 3);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 0, "ETag");
+		ResumingInputStream resumingStream = (ResumingInputStream) resourceFromFedora;
+		assertEquals(resumingStream.onlyForTestGetMaxResumeAttempts(), 3);
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testReadResumableResourceWithoutETagIsNotResumed() throws Exception {
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 3);
+
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0, resourceFromFedora);
+	}
+
+	@Test
+	public void testReadResumableResourceWithoutResumeAttemptsIsNotResumed() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> "someETag",
+				"ETag");
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 0);
+
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0, resourceFromFedora);
+	}
+
+	@Test
+	public void testReadResumableResourceNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readResumableResource(dataDivider, SOME_RESOURCE_ID, 3);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+		}
+	}
+
+	@Test
+	public void testReadResumableResourceErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RESOURCE_ID);
+		try {
+			fedora.readResumableResource(dataDivider, SOME_RESOURCE_ID, 3);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testReadResumableResourceResumesWithRangeAndIfRange() throws Exception {
+		byte[] content = "someContent".getBytes(StandardCharsets.UTF_8);
+		setUpResumableResourceFailingAfter(content, 4);
+		setPartialContentResponse(httpHandlerSpy1, "bytes 4-10/11");
+		httpHandlerSpy1.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new ByteArrayInputStream(content, 4, 7));
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 3);
+
+		assertEquals(resourceFromFedora.readAllBytes(), content);
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=4-");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 1, "If-Range", "someETag");
+	}
+
+	private void setUpResumableResourceFailingAfter(byte[] content, int numberOfBytes) {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> "someETag",
+				"ETag");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new SequenceInputStream(new ByteArrayInputStream(content, 0, numberOfBytes),
+						new FailingInputStream()));
+	}
+
+	private static class FailingInputStream extends InputStream {
+		@Override
+		public int read() throws IOException {
+			throw new IOException("connectionReset");
+		}
+	}
+
+	@Test
+	public void testReadResumableResourceChangedInFedoraIsNotResumed() throws Exception {
+		setUpResumableResourceFailingAfter(new byte[4], 4);
+		httpHandlerSpy1.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> OK);
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 3);
+
+		IOException error = assertReadFailsWithOneResumeError(resourceFromFedora);
+		assertTrue(error.getSuppressed()[0] instanceof FedoraException);
+		assertEquals(error.getSuppressed()[0].getMessage(), MessageFormat
+				.format(ERR_MSG_RESOURCE_CHANGED, SOME_RESOURCE_ID, String.valueOf(4)));
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+		httpHandlerSpy1.MCR.assertMethodNotCalled("getResponseBinary");
+	}
+
+	private IOException assertReadFailsWithOneResumeError(InputStream resourceFromFedora) {
+		try {
+			resourceFromFedora.readAllBytes();
+			fail("It failed");
+			return null;
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "connectionReset");
+			assertEquals(e.getSuppressed().length, 1);
+			return e;
+		}
+	}
+
+	@Test
+	public void testReadResumableResourceErrorFromFedoraWhenResuming() throws Exception {
+		setUpResumableResourceFailingAfter(new byte[4], 4);
+		httpHandlerSpy1.MRV.setDefaultReturnValuesSupplier("getResponseCode",
+				() -> INTERNAL_SERVER_ERROR);
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 1);
+
+		IOException error = assertReadFailsWithOneResumeError(resourceFromFedora);
+		assertTrue(error.getSuppressed()[0] instanceof IOException);
+		assertEquals(error.getSuppressed()[0].getMessage(), MessageFormat.format(
+				ERR_MSG_FEDORA_ERROR, RESUMING, SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+	}
+
+	@Test
+	public void testReadResumableResourceErrorOnHttpHandlerWhenResuming() throws Exception {
+		setUpResumableResourceFailingAfter(new byte[4], 4);
+		httpHandlerSpy1.MRV.setAlwaysThrowException("getResponseCode",
+				new RuntimeException("errorFromSpy"));
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 1);
+
+		IOException error = assertReadFailsWithOneResumeError(resourceFromFedora);
+		assertTrue(error.getSuppressed()[0] instanceof IOException);
+		assertEquals(error.getSuppressed()[0].getMessage(), MessageFormat
+				.format(ERR_MSG_INTERNAL_ERROR, RESUMING, RESOURCE, SOME_RESOURCE_ID));
+		assertEquals(error.getSuppressed()[0].getCause().getMessage(), "errorFromSpy");
+	}
+
+	@Test
+	public void testReadResumableResourceResumedAtWrongPosition() throws Exception {
+		setUpResumableResourceFailingAfter(new byte[4], 4);
+		InputStreamSpy resumedStream = new InputStreamSpy();
+		setPartialContentResponse(httpHandlerSpy1, "bytes 0-10/11");
+		httpHandlerSpy1.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> resumedStream);
+
+		InputStream resourceFromFedora = fedora.readResumableResource(dataDivider,
+				SOME_RESOURCE_ID, 3);
+
+		IOException error = assertReadFailsWithOneResumeError(resourceFromFedora);
+		assertTrue(error.getSuppressed()[0] instanceof FedoraException);
+		assertEquals(error.getSuppressed()[0].getMessage(),
+				MessageFormat.format(ERR_MSG_RESUMED_AT_WRONG_POSITION, SOME_RESOURCE_ID,
+						String.valueOf(4), "bytes 0-10/11"));
+		resumedStream.MCR.assertMethodWasCalled("close");
+	}
+
+	@Test
+	public void testReadResourceRangeOk() throws Exception {
+		setPartialContentResponse(httpHandlerSpy0, "bytes 100-149/1000");
+
+		ResourceRange resourceRange = fedora.readResource(dataDivider, SOME_RESOURCE_ID, 100, 50);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "GET");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=100-149");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 0, "Content-Range");
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0, resourceRange.resource());
+		assertEquals(resourceRange.offset(), 100);
+		assertEquals(resourceRange.length(), 50);
+		assertEquals(resourceRange.totalLength(), 1000);
+	}
+
+	private void setPartialContentResponse(HttpHandlerSpy httpHandler, String contentRange) {
+		httpHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> PARTIAL_CONTENT);
+		httpHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> contentRange,
+				"Content-Range");
+	}
+
+	@Test
+	public void testReadResourceRangeIsShortenedAtEndOfResource() throws Exception {
+		setPartialContentResponse(httpHandlerSpy0, "bytes 990-999/1000");
+
+		ResourceRange resourceRange = fedora.readResource(dataDivider, SOME_RESOURCE_ID, 990, 50);
+
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=990-1039");
+		assertEquals(resourceRange.offset(), 990);
+		assertEquals(resourceRange.length(), 10);
+		assertEquals(resourceRange.totalLength(), 1000);
+	}
+
+	@Test
+	public void testReadResourceRangeWithUnknownTotalLength() throws Exception {
+		setPartialContentResponse(httpHandlerSpy0, "bytes 0-9/*");
+
+		ResourceRange resourceRange = fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+
+		assertEquals(resourceRange.totalLength(), -1);
+	}
+
+	@Test
+	public void testReadResourceRangeNegativeOffset() throws Exception {
+		assertInvalidRange(-1, 10);
+	}
+
+	@Test
+	public void testReadResourceRangeLengthLessThanOne() throws Exception {
+		assertInvalidRange(0, 0);
+	}
+
+	@Test
+	public void testReadResourceRangeEndingAfterLargestPossibleOffset() throws Exception {
+		assertInvalidRange(Long.MAX_VALUE, 2);
+	}
+
+	private void assertInvalidRange(long offset, long length) {
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, offset, length);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INVALID_RANGE,
+					SOME_RESOURCE_ID, String.valueOf(offset), String.valueOf(length)));
+			httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeNotFound() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+			httpHandlerSpy0.MCR.assertMethodNotCalled("getResponseBinary");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeNotSatisfiable() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(RANGE_NOT_SATISFIABLE));
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField",
+				() -> "bytes */1000", "Content-Range");
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 1000, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraRangeNotSatisfiableException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_RANGE_NOT_SATISFIABLE,
+					SOME_RESOURCE_ID, "bytes=1000-1009", "bytes */1000"));
+			httpHandlerSpy0.MCR.assertMethodNotCalled("getResponseBinary");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeErrorReadingFromFedora() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeWholeResourceReturnedIsAnError() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+					SOME_RESOURCE_ID, RESOURCE, OK));
+			httpHandlerSpy0.MCR.assertMethodNotCalled("getResponseBinary");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeInvalidContentRangeClosesResource() {
+		InputStreamSpy rangeStream = new InputStreamSpy();
+		setPartialContentResponse(httpHandlerSpy0, "bytes 0-9");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary", () -> rangeStream);
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INVALID_CONTENT_RANGE,
+					SOME_RESOURCE_ID, "bytes 0-9"));
+			rangeStream.MCR.assertMethodWasCalled("close");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeMissingContentRange() {
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseCode",
+				() -> PARTIAL_CONTENT);
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INVALID_CONTENT_RANGE,
+					SOME_RESOURCE_ID, null));
+		}
+	}
+
+	@Test
+	public void testReadResourceRangeErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RESOURCE_ID);
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID, 0, 10);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testReadResourceRanges() throws Exception {
+		setPartialContentResponse(httpHandlerSpy0, "bytes 0-9/1000");
+		setPartialContentResponse(httpHandlerSpy1, "bytes 500-599/1000");
+
+		List<ResourceRange> resourceRanges = fedora.readResource(dataDivider, SOME_RESOURCE_ID,
+				List.of(new ByteRange(0, 10), new ByteRange(500, 100)));
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=0-9");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=500-599");
+		assertEquals(resourceRanges.size(), 2);
+		httpHandlerSpy0.MCR.assertReturn("getResponseBinary", 0,
+				resourceRanges.get(0).resource());
+		httpHandlerSpy1.MCR.assertReturn("getResponseBinary", 0,
+				resourceRanges.get(1).resource());
+		assertEquals(resourceRanges.get(1).offset(), 500);
+		assertEquals(resourceRanges.get(1).length(), 100);
+	}
+
+	@Test
+	public void testReadResourceRangesValidatesAllRangesBeforeReading() throws Exception {
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID,
+					List.of(new ByteRange(0, 10), new ByteRange(-5, 10)));
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INVALID_RANGE,
+					SOME_RESOURCE_ID, "-5", "10"));
+			httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+		}
+	}
+
+	@Test
+	public void testReadResourceRangesClosesReadRangesOnError() throws Exception {
+		InputStreamSpy firstRangeStream = new InputStreamSpy();
+		setPartialContentResponse(httpHandlerSpy0, "bytes 0-9/1000");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> firstRangeStream);
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(RANGE_NOT_SATISFIABLE));
+
+		try {
+			fedora.readResource(dataDivider, SOME_RESOURCE_ID,
+					List.of(new ByteRange(0, 10), new ByteRange(2000, 10)));
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraRangeNotSatisfiableException);
+			firstRangeStream.MCR.assertMethodWasCalled("close");
+		}
+	}
+
+	@Test
+	public void testDownloadResource() throws Exception {
+		byte[] content = "someContent".getBytes(StandardCharsets.UTF_8);
+		ResourceMetadata metadata = new ResourceMetadata(String.valueOf(content.length),
+				sha512Hex("someContent"));
+		resourceMetadataParser.MRV.setDefaultReturnValuesSupplier("parse", () -> metadata);
+		setPartialContentResponse(httpHandlerSpy0, "bytes 0-10/11");
+		httpHandlerSpy0.MRV.setDefaultReturnValuesSupplier("getResponseBinary",
+				() -> new ByteArrayInputStream(content));
+		resourceFile = Files.createTempFile("fedoraAdapterTest", ".bin");
+
+		ResourceMetadata verifiedMetadata = fedora.downloadResource(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, 1024, 2);
+
+		assertEquals(verifiedMetadata, metadata);
+		httpHandlerFactory.MCR.assertParameters("factor", 0,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Range", "bytes=0-10");
+		assertEquals(Files.readAllBytes(resourceFile), content);
+	}
+
+	@Test
+	public void testUpdateRecordOk() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(NO_CONTENT));
+
+		fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Content-Type",
+				"text/plain;charset=utf-8");
+		httpHandlerSpy1.MCR.assertParameters("setOutput", 0, recordXML);
+		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
+	}
+
+	@Test
+	public void testUpdateRecordNoRecordExistsWithId() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
+					"updating", RECORD, SOME_RECORD_ID));
+		}
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testUpdateRecordErrorCheckingIfRecordExists() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
+					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
+		}
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+	}
+
+	@Test
+	public void testUpdateRecordErrorUpdatingInFedora() {
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertFalse(e instanceof FedoraRejectedException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
+					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
+		}
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+	}
+
+	@Test
+	public void testUpdateRecordRejectedByFedora() {
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(BAD_REQUEST));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraRejectedException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
+					SOME_RECORD_ID, RECORD, BAD_REQUEST));
+		}
+	}
+
+	@Test
+	public void testUpdateRecordRejectedWhenCheckingIfRecordExists() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(FORBIDDEN));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraRejectedException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
+					SOME_RECORD_ID, RECORD, FORBIDDEN));
+		}
+	}
+
+	@Test
+	public void testUpdateRecordErrorOnHttpHandler() {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				expectedRecordPath + SOME_RECORD_ID);
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(),
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING, RECORD, SOME_RECORD_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testUpdateRecordErrorOnSecondHttpHandler() {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
+		httpHandlerSpy1.MRV.setAlwaysThrowException("setOutput",
+				new RuntimeException("errorFromSpy"));
+
+		try {
+			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(),
+					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING, RECORD, SOME_RECORD_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testUpdateResourceOk() {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy1.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> NO_CONTENT);
+
+		fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resource, mimeType);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Content-Type", mimeType);
+		assertUploadedThroughChecksummingStream(httpHandlerSpy1);
 		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
-		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseText");
-		var jsonString = httpHandlerSpy1.MCR.getReturnValue("getResponseText", 0);
+	}
 
-		resourceMetadataParser.MCR.assertParameters("parse", 0, jsonString);
-		resourceMetadataParser.MCR.assertReturn("parse", 0, readResourceMetadata);
+	@Test
+	public void testUpdateExternalResource() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy1.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> NO_CONTENT);
 
+		fedora.updateExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT, mimeType,
+				ExternalContentHandling.REDIRECT);
+
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
+		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
+		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Link",
+				createExpectedExternalContentLink("redirect"));
+		httpHandlerSpy1.MCR.assertMethodNotCalled("setStreamOutput");
 	}
 
 	@Test
-	public void testReadResourceMetadataNotFound() {
-		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+	public void testUpdateExternalResourceNotFound() throws Exception {
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
 
 		try {
-			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fedora.updateExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraNotFoundException);
 			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
-					READING_METADATA, RESOURCE, SOME_RESOURCE_ID));
+					UPDATING, RESOURCE, SOME_RESOURCE_ID));
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
 		}
 	}
 
 	@Test
-	public void testReadResourceMetadataInternalServerError() {
-		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+	public void testUpdateExternalResourceErrorUpdatingInFedora() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(BAD_REQUEST));
 
 		try {
-			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fedora.updateExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
-					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING,
+					SOME_RESOURCE_ID, RESOURCE, BAD_REQUEST));
 		}
 	}
 
 	@Test
-	public void testReadResourceMetadataHttpHandlerException() throws Exception {
-		httpHandlerSpy1.MRV.setAlwaysThrowException("getResponseText",
-				new RuntimeException("someError"));
+	public void testUpdateExternalResourceErrorOnHttpHandler() throws Exception {
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy1.MRV.setAlwaysThrowException("getResponseCode",
+				new RuntimeException("errorFromSpy"));
 
 		try {
-			fedora.readResourceMetadata(dataDivider, SOME_RESOURCE_ID);
+			fedora.updateExternalResource(dataDivider, SOME_RESOURCE_ID, EXTERNAL_CONTENT,
+					mimeType, ExternalContentHandling.PROXY);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR,
-					READING_METADATA, RESOURCE, SOME_RESOURCE_ID));
-			assertEquals(e.getCause().getMessage(), "someError");
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
 		}
 	}
 
 	@Test
-	public void testReadResourceNotFound() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+	public void testUpdateResourceFromFile() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
 
-		try {
-			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
-			fail("It failed");
-		} catch (Exception e) {
-			assertTrue(e instanceof FedoraNotFoundException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA, READING,
-					RESOURCE, SOME_RESOURCE_ID));
-		}
+		fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		fileUploader.MCR.assertParameter("upload", 0, "url",
+				expectedRecordPath + SOME_RESOURCE_ID);
+		fileUploader.MCR.assertParameter("upload", 0, "requestMethod", "PUT");
+		fileUploader.MCR.assertParameter("upload", 0, "requestProperties",
+				Map.of("Content-Type", mimeType, "Digest", createDigestValue("someNewContent")));
+		fileUploader.MCR.assertParameter("upload", 0, "contentLength", 14L);
+		assertEquals(readFileUploaderContent(0), "someNewContent");
 	}
 
 	@Test
-	public void testReadResourceErrorReadingFromFedora() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+	public void testUpdateResourceFromFileReturnsMetadataCalculatedBeforeUploading()
+			throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+
+		ResourceMetadata metadata = fedora.updateResource(dataDivider, SOME_RESOURCE_ID,
+				resourceFile, mimeType);
+
+		assertEquals(metadata, new ResourceMetadata("14", sha512Hex("someNewContent")));
+	}
+
+	@Test
+	public void testUpdateResourceFromFileErrorUpdatingInFedora() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> INTERNAL_SERVER_ERROR);
 
 		try {
-			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+			fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, READING,
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING,
 					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
 		}
 	}
 
 	@Test
-	public void testReadResourceErrorOnHttpHandler() {
-		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
-				expectedRecordPath + SOME_RESOURCE_ID);
+	public void testUpdateResourceFromFileErrorFromUploader() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		fileUploader.MRV.setAlwaysThrowException("upload", new RuntimeException("errorFromSpy"));
+
 		try {
-			fedora.readResource(dataDivider, SOME_RESOURCE_ID);
+			fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, READING,
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING,
 					RESOURCE, SOME_RESOURCE_ID));
 			assertEquals(e.getCause().getMessage(), "errorFromSpy");
 		}
 	}
 
 	@Test
-	public void testUpdateRecordOk() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
-		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(NO_CONTENT));
+	public void testUpdateResourceIfChangedUnchanged() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someNewContent");
 
-		fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
 
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
+		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
 		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+		httpHandlerSpy0.MCR.assertParameters("setRequestProperty", 0, "Want-Digest", "sha-512");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 0, "Digest");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 1, "Content-Type");
+		httpHandlerSpy0.MCR.assertParameters("getHeaderField", 2, "ETag");
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		fileUploader.MCR.assertMethodNotCalled("upload");
+		assertEquals(result,
+				new ResourceUpdateResult(
+						new ResourceMetadata("14", sha512Hex("someNewContent")), true));
+	}
 
-		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RECORD_ID);
-		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
-		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Content-Type",
-				"text/plain;charset=utf-8");
-		httpHandlerSpy1.MCR.assertParameters("setOutput", 0, recordXML);
-		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
+	private void setStoredResourceHeaders(HttpHandlerSpy httpHandler, String content)
+			throws Exception {
+		setStoredResourceHeaders(httpHandler, content, mimeType);
+	}
+
+	private void setStoredResourceHeaders(HttpHandlerSpy httpHandler, String content,
+			String storedMimeType) throws Exception {
+		String digest = createDigestValue(content);
+		httpHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> digest,
+				"Digest");
+		httpHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> storedMimeType,
+				"Content-Type");
+		httpHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField",
+				() -> SOME_STORED_ETAG, "ETag");
 	}
 
 	@Test
-	public void testUpdateRecordNoRecordExistsWithId() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+	public void testUpdateResourceIfChangedChanged() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someOldContent");
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		fileUploader.MCR.assertParameter("upload", 0, "url",
+				expectedRecordPath + SOME_RESOURCE_ID);
+		fileUploader.MCR.assertParameter("upload", 0, "requestMethod", "PUT");
+		fileUploader.MCR.assertParameter("upload", 0, "requestProperties",
+				Map.of("Content-Type", mimeType, "Digest", createDigestValue("someNewContent"),
+						"If-Match", SOME_STORED_ETAG));
+		fileUploader.MCR.assertParameter("upload", 0, "contentLength", 14L);
+		assertEquals(readFileUploaderContent(0), "someNewContent");
+		assertEquals(result,
+				new ResourceUpdateResult(
+						new ResourceMetadata("14", sha512Hex("someNewContent")), false));
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedWithoutDigestReadsMetadata() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		ResourceMetadata storedMetadata = new ResourceMetadata("14",
+				sha512Hex("someNewContent").toUpperCase(), mimeType);
+		resourceMetadataParser.MRV.setDefaultReturnValuesSupplier("parse", () -> storedMetadata);
+
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+		assertTrue(result.unchanged());
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedSameContentOtherMimeTypeUploads() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someNewContent", "image/png");
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		fileUploader.MCR.assertParameter("upload", 0, "requestProperties",
+				Map.of("Content-Type", mimeType, "Digest", createDigestValue("someNewContent"),
+						"If-Match", SOME_STORED_ETAG));
+		assertEquals(result,
+				new ResourceUpdateResult(
+						new ResourceMetadata("14", sha512Hex("someNewContent")), false));
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedMimeTypeComparedIgnoringCaseAndSpaces()
+			throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someNewContent", "Text/Plain; charset=UTF-8");
+
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, "text/plain;charset=utf-8");
+
+		fileUploader.MCR.assertMethodNotCalled("upload");
+		assertTrue(result.unchanged());
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedWithoutContentTypeUsesMimeTypeFromMetadata()
+			throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someNewContent", null);
+		resourceMetadataParser.MRV.setDefaultReturnValuesSupplier("parse",
+				() -> new ResourceMetadata("14", "someChecksumNotUsed", "image/png"));
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 1,
+				expectedRecordPath + SOME_RESOURCE_ID + FCR_METADATA);
+		fileUploader.MCR.assertNumberOfCallsToMethod("upload", 1);
+		assertFalse(result.unchanged());
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedWithoutETagUploadsWithoutIfMatch() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someOldContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> null,
+				"ETag");
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+
+		fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		fileUploader.MCR.assertParameter("upload", 0, "requestProperties",
+				Map.of("Content-Type", mimeType, "Digest", createDigestValue("someNewContent")));
+	}
+
+	@Test
+	public void testUpdateResourceIfChangedChangedAfterComparison() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someOldContent");
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> PRECONDITION_FAILED);
 
 		try {
-			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
-			assertTrue(e instanceof FedoraNotFoundException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
-					"updating", RECORD, SOME_RECORD_ID));
+			assertTrue(e instanceof FedoraConflictException);
+			assertEquals(e.getMessage(), "Error updating in Fedora: resource id "
+					+ SOME_RESOURCE_ID
+					+ " was changed in Fedora after it was compared with the file.");
 		}
+	}
 
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
-		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+	@Test
+	public void testUpdateResourceIfChangedWithoutDigestChanged() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(OK));
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> NO_CONTENT);
+		resourceMetadataParser.MRV.setDefaultReturnValuesSupplier("parse",
+				() -> new ResourceMetadata("14", "someOtherChecksum"));
 
-		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		ResourceUpdateResult result = fedora.updateResourceIfChanged(dataDivider,
+				SOME_RESOURCE_ID, resourceFile, mimeType);
+
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
+		fileUploader.MCR.assertParameter("upload", 0, "requestMethod", "PUT");
+		assertEquals(readFileUploaderContent(0), "someNewContent");
+		assertFalse(result.unchanged());
 	}
 
 	@Test
-	public void testUpdateRecordErrorCheckingIfRecordExists() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+	public void testUpdateResourceIfChangedNotFound() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
 
 		try {
-			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
-			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
-					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
+					UPDATING, RESOURCE, SOME_RESOURCE_ID));
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
 		}
-
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
-		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
-
-		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
 	}
 
 	@Test
-	public void testUpdateRecordErrorUpdatingInFedora() {
-		httpHandlerSpy1.MRV.setReturnValues("getResponseCode", List.of(INTERNAL_SERVER_ERROR));
+	public void testUpdateResourceIfChangedErrorOnHead() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setAlwaysThrowException("getResponseCode",
+				new RuntimeException("errorFromSpy"));
 
 		try {
-			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, "updating",
-					SOME_RECORD_ID, RECORD, INTERNAL_SERVER_ERROR));
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
 		}
-
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RECORD_ID);
-		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
-
-		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 2);
 	}
 
 	@Test
-	public void testUpdateRecordErrorOnHttpHandler() {
-		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
-				expectedRecordPath + SOME_RECORD_ID);
+	public void testUpdateResourceIfChangedFromMissingFile() throws Exception {
+		Path missingFile = Path.of("someMissingDirectory", "someMissingFile");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someOldContent");
+
 		try {
-			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, missingFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(),
-					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING, RECORD, SOME_RECORD_ID));
-			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
 		}
 	}
 
 	@Test
-	public void testUpdateRecordErrorOnSecondHttpHandler() {
-		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(OK));
-		httpHandlerSpy1.MRV.setAlwaysThrowException("setOutput",
-				new RuntimeException("errorFromSpy"));
+	public void testUpdateResourceIfChangedErrorUpdatingInFedora() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+		setStoredResourceHeaders(httpHandlerSpy0, "someOldContent");
+		fileUploader.MRV.setDefaultReturnValuesSupplier("upload", () -> INTERNAL_SERVER_ERROR);
 
 		try {
-			fedora.updateRecord(dataDivider, SOME_RECORD_ID, recordXML);
+			fedora.updateResourceIfChanged(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
 			fail("It failed");
 		} catch (Exception e) {
 			assertTrue(e instanceof FedoraException);
-			assertEquals(e.getMessage(),
-					MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING, RECORD, SOME_RECORD_ID));
-			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING,
+					SOME_RESOURCE_ID, RESOURCE, INTERNAL_SERVER_ERROR));
 		}
 	}
 
 	@Test
-	public void testUpdateResourceOk() {
+	public void testUpdateResourceReturnsMetadataCalculatedWhileUploading() throws Exception {
+		InputStream content = new ByteArrayInputStream(
+				"someNewContent".getBytes(StandardCharsets.UTF_8));
 		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
-		httpHandlerSpy1.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> NO_CONTENT);
+		setResponseCodeReadingUploadedContent(httpHandlerSpy1, NO_CONTENT);
 
-		fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resource, mimeType);
+		ResourceMetadata metadata = fedora.updateResource(dataDivider, SOME_RESOURCE_ID, content,
+				mimeType);
 
-		httpHandlerFactory.MCR.assertParameters("factor", 0, expectedRecordPath + SOME_RESOURCE_ID);
-		httpHandlerSpy0.MCR.assertParameters("setRequestMethod", 0, "HEAD");
-		httpHandlerSpy0.MCR.assertMethodWasCalled("getResponseCode");
+		assertEquals(uploadedContent, "someNewContent");
+		assertEquals(metadata, new ResourceMetadata("14", sha512Hex("someNewContent")));
+	}
 
-		httpHandlerFactory.MCR.assertParameters("factor", 1, expectedRecordPath + SOME_RESOURCE_ID);
-		httpHandlerSpy1.MCR.assertParameters("setRequestMethod", 0, "PUT");
-		httpHandlerSpy1.MCR.assertParameters("setRequestProperty", 0, "Content-Type", mimeType);
-		httpHandlerSpy1.MCR.assertParameters("setStreamOutput", 0, resource);
-		httpHandlerSpy1.MCR.assertMethodWasCalled("getResponseCode");
+	@Test
+	public void testUpdateResourceFromFileNotFound() throws Exception {
+		resourceFile = createResourceFile("someNewContent");
+		httpHandlerSpy0.MRV.setReturnValues("getResponseCode", List.of(NOT_FOUND));
+
+		try {
+			fedora.updateResource(dataDivider, SOME_RESOURCE_ID, resourceFile, mimeType);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraNotFoundException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_NOT_FOUND_IN_FEDORA,
+					"updating", RESOURCE, SOME_RESOURCE_ID));
+			httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 1);
+		}
+	}
+
+	@Test
+	public void testUpdateResourceFromMissingFile() throws Exception {
+		Path missingFile = Path.of("someMissingDirectory", "someMissingFile");
+		httpHandlerSpy0.MRV.setSpecificReturnValuesSupplier("getResponseCode", () -> OK);
+
+		try {
+			fedora.updateResource(dataDivider, SOME_RESOURCE_ID, missingFile, mimeType);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), MessageFormat.format(ERR_MSG_INTERNAL_ERROR, UPDATING,
+					RESOURCE, SOME_RESOURCE_ID));
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
 	}
 
 	@Test
@@ -933,4 +2575,75 @@ public class FedoraAdapterTest {
 		}
 	}
 
+	@Test
+	public void testUpdateResourceMetadataEscapesValues() throws Exception {
+		httpHandlerSpy1.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> NO_CONTENT);
+
+		fedora.updateResourceMetadata(dataDivider, SOME_RESOURCE_ID,
+				new ResourceMetadataToUpdate("some \"quoted\" {0} name\n.txt", "text/plain"));
+
+		String body = """
+				PREFIX ebucore: <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#>
+				INSERT {<> ebucore:filename "some \\"quoted\\" {0} name\\n.txt" \
+				. <> ebucore:hasMimeType "text/plain" .}
+				WHERE {}
+				""";
+		httpHandlerSpy1.MCR.assertParameters("setOutput", 0, body);
+	}
+
+	@Test
+	public void testUpdateResourcesMetadataEmptyBatch() throws Exception {
+		List<BatchItemResult> results = fedora.updateResourcesMetadata(List.of(), 4);
+
+		assertTrue(results.isEmpty());
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+	}
+
+	@Test
+	public void testUpdateResourcesMetadataReturnsOutcomeForEachUpdateInOrder()
+			throws Exception {
+		setUpPatchResponseCode("updated", NO_CONTENT);
+		setUpPatchResponseCode("notFound", NOT_FOUND);
+		setUpPatchResponseCode("error", INTERNAL_SERVER_ERROR);
+
+		List<BatchItemResult> results = fedora.updateResourcesMetadata(
+				List.of(createMetadataUpdate("updated"), createMetadataUpdate("notFound"),
+						createMetadataUpdate("error")),
+				2);
+
+		assertEquals(results.get(0),
+				new BatchItemResult(dataDivider, "updated", BatchOutcome.UPDATED, null));
+		assertEquals(results.get(1), new BatchItemResult(dataDivider, "notFound",
+				BatchOutcome.NOT_FOUND, MessageFormat.format(ERR_MSG_FEDORA_ERROR,
+						UPDATING_METADATA, "notFound", RESOURCE, NOT_FOUND)));
+		assertEquals(results.get(2), new BatchItemResult(dataDivider, "error",
+				BatchOutcome.ERROR, MessageFormat.format(ERR_MSG_FEDORA_ERROR, UPDATING_METADATA,
+						"error", RESOURCE, INTERNAL_SERVER_ERROR)));
+	}
+
+	private void setUpPatchResponseCode(String resourceId, int responseCode) {
+		HttpHandlerSpy patchHandler = new HttpHandlerSpy();
+		patchHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> responseCode);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> patchHandler,
+				expectedRecordPath + resourceId + FCR_METADATA);
+	}
+
+	private ResourceMetadataUpdate createMetadataUpdate(String resourceId) {
+		return new ResourceMetadataUpdate(dataDivider, resourceId, metadataResourceToUpdate);
+	}
+
+	@Test
+	public void testUpdateResourcesMetadataSendsSparqlPatch() throws Exception {
+		setUpPatchResponseCode("updated", NO_CONTENT);
+
+		fedora.updateResourcesMetadata(List.of(createMetadataUpdate("updated")), 1);
+
+		HttpHandlerSpy patchHandler = (HttpHandlerSpy) httpHandlerFactory.MCR
+				.getReturnValue("factor", 0);
+		patchHandler.MCR.assertParameters("setRequestMethod", 0, "PATCH");
+		patchHandler.MCR.assertParameters("setRequestProperty", 0, "Content-Type",
+				"application/sparql-update");
+		patchHandler.MCR.assertParameters("setOutput", 0,
+				ResourceMetadataSparql.createUpdateBody(metadataResourceToUpdate));
+	}
 }
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+
+public class FedoraItemPublisherTest {
+	private static final List<String> IDS = List.of("id1", "id2", "id3", "id4", "id5");
+
+	private AtomicInteger numberOfListings;
+	private CountDownLatch idsClosed;
+	private AtomicInteger numberOfFetches;
+	private AtomicInteger inFlight;
+	private AtomicInteger maxInFlight;
+	private CountDownLatch gate;
+	private RecordingSubscriber subscriber;
+
+	@BeforeMethod
+	public void setUp() {
+		numberOfListings = new AtomicInteger();
+		idsClosed = new CountDownLatch(1);
+		numberOfFetches = new AtomicInteger();
+		inFlight = new AtomicInteger();
+		maxInFlight = new AtomicInteger();
+		gate = new CountDownLatch(0);
+		subscriber = new RecordingSubscriber();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		gate.countDown();
+	}
+
+	private Supplier<Stream<String>> createIdSource(List<String> ids) {
+		return () -> {
+			numberOfListings.incrementAndGet();
+			return ids.stream().onClose(idsClosed::countDown);
+		};
+	}
+
+	private String fetch(String id) {
+		numberOfFetches.incrementAndGet();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			gate.await(5, TimeUnit.SECONDS);
+			return "item " + id;
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private FedoraItemPublisher<String> createPublisher(List<String> ids, int maxInFlight) {
+		return new FedoraItemPublisher<>(createIdSource(ids), this::fetch, maxInFlight);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		Supplier<Stream<String>> idSource = createIdSource(IDS);
+		FedoraItemPublisher<String> publisher = new FedoraItemPublisher<>(idSource, this::fetch,
+				3);
+
+		assertSame(publisher.onlyForTestGetIdSource(), idSource);
+		assertEquals(publisher.onlyForTestGetMaxInFlight(), 3);
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void testSubscribeWithNullSubscriber() throws Exception {
+		createPublisher(IDS, 2).subscribe(null);
+	}
+
+	@Test
+	public void testNothingIsListedOrFetchedBeforeRequest() throws Exception {
+		createPublisher(IDS, 2).subscribe(subscriber);
+
+		assertEquals(numberOfListings.get(), 0);
+		assertEquals(numberOfFetches.get(), 0);
+		assertTrue(subscriber.items.isEmpty());
+	}
+
+	@Test
+	public void testAllItemsArePublishedAndCompleted() throws Exception {
+		createPublisher(IDS, 2).subscribe(subscriber);
+
+		subscriber.request(Long.MAX_VALUE);
+
+		subscriber.awaitTermination();
+		assertEquals(sorted(subscriber.items),
+				List.of("item id1", "item id2", "item id3", "item id4", "item id5"));
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.error);
+		assertEquals(numberOfListings.get(), 1);
+		assertTrue(idsClosed.await(5, TimeUnit.SECONDS));
+	}
+
+	private List<String> sorted(List<String> items) {
+		List<String> sortedItems = new ArrayList<>(items);
+		Collections.sort(sortedItems);
+		return sortedItems;
+	}
+
+	@Test
+	public void testOnlyRequestedItemsAreFetched() throws Exception {
+		createPublisher(IDS, 4).subscribe(subscriber);
+
+		subscriber.request(2);
+
+		subscriber.awaitItems(2);
+		assertEquals(numberOfFetches.get(), 2);
+		assertFalse(subscriber.completed);
+
+		subscriber.request(1);
+
+		subscriber.awaitItems(3);
+		assertEquals(numberOfFetches.get(), 3);
+	}
+
+	@Test
+	public void testFetchesInProgressAreLimitedByDemand() throws Exception {
+		gate = new CountDownLatch(1);
+		createPublisher(IDS, 4).subscribe(subscriber);
+
+		subscriber.request(1);
+		waitForFetchesInProgress(1);
+		Thread.sleep(50);
+
+		assertEquals(numberOfFetches.get(), 1);
+		gate.countDown();
+		subscriber.awaitItems(1);
+	}
+
+	private void waitForFetchesInProgress(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (inFlight.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void testFetchesInProgressAreLimitedByMaxInFlight() throws Exception {
+		gate = new CountDownLatch(1);
+		createPublisher(IDS, 2).subscribe(subscriber);
+
+		subscriber.request(Long.MAX_VALUE);
+		waitForFetchesInProgress(2);
+		Thread.sleep(50);
+
+		assertEquals(numberOfFetches.get(), 2);
+		gate.countDown();
+		subscriber.awaitTermination();
+		assertEquals(subscriber.items.size(), 5);
+		assertEquals(maxInFlight.get(), 2);
+	}
+
+	@Test
+	public void testRequestingFromOnNext() throws Exception {
+		subscriber.requestOneOnEachItem = true;
+		createPublisher(IDS, 3).subscribe(subscriber);
+
+		subscriber.request(1);
+
+		subscriber.awaitTermination();
+		assertEquals(subscriber.items.size(), 5);
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void testRequestingExactlyAllItemsCompletes() throws Exception {
+		createPublisher(IDS, 2).subscribe(subscriber);
+
+		subscriber.request(IDS.size());
+
+		subscriber.awaitTermination();
+		assertEquals(subscriber.items.size(), 5);
+		assertTrue(subscriber.completed);
+		assertTrue(idsClosed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRequestingOneAtATimeUpToAllItemsCompletes() throws Exception {
+		subscriber.numberOfItemsToRequestOneAtATime = IDS.size();
+		createPublisher(IDS, 3).subscribe(subscriber);
+
+		subscriber.request(1);
+
+		subscriber.awaitTermination();
+		assertEquals(subscriber.items.size(), 5);
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void testEmptyIdsCompletes() throws Exception {
+		createPublisher(Collections.emptyList(), 2).subscribe(subscriber);
+
+		subscriber.request(1);
+
+		subscriber.awaitTermination();
+		assertTrue(subscriber.items.isEmpty());
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void testIdsNotFoundAreSkipped() throws Exception {
+		Function<String, String> fetchWithMissing = id -> {
+			if ("id2".equals(id)) {
+				throw FedoraNotFoundException.withMessage("notFoundFromTest");
+			}
+			return "item " + id;
+		};
+		new FedoraItemPublisher<>(createIdSource(List.of("id1", "id2", "id3")),
+				fetchWithMissing, 2).subscribe(subscriber);
+
+		subscriber.request(Long.MAX_VALUE);
+
+		subscriber.awaitTermination();
+		assertEquals(sorted(subscriber.items), List.of("item id1", "item id3"));
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void testFetchErrorEndsSubscriptionWithError() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromTest");
+		Function<String, String> failingFetch = id -> {
+			throw error;
+		};
+		new FedoraItemPublisher<>(createIdSource(IDS), failingFetch, 2).subscribe(subscriber);
+
+		subscriber.request(Long.MAX_VALUE);
+
+		subscriber.awaitTermination();
+		assertSame(subscriber.error, error);
+		assertFalse(subscriber.completed);
+		assertTrue(idsClosed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testListingErrorEndsSubscriptionWithError() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromTest");
+		Supplier<Stream<String>> failingIdSource = () -> {
+			throw error;
+		};
+		new FedoraItemPublisher<>(failingIdSource, this::fetch, 2).subscribe(subscriber);
+
+		subscriber.request(1);
+
+		subscriber.awaitTermination();
+		assertSame(subscriber.error, error);
+		assertEquals(numberOfFetches.get(), 0);
+	}
+
+	@Test
+	public void testNonPositiveRequestEndsSubscriptionWithError() throws Exception {
+		createPublisher(IDS, 2).subscribe(subscriber);
+
+		subscriber.request(0);
+
+		subscriber.awaitTermination();
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+		assertEquals(subscriber.error.getMessage(),
+				"Requested number of items must be positive, was 0");
+	}
+
+	@Test
+	public void testCancelStopsPublishingAndClosesIds() throws Exception {
+		createPublisher(IDS, 2).subscribe(subscriber);
+		subscriber.request(1);
+		subscriber.awaitItems(1);
+
+		subscriber.cancel();
+		subscriber.request(2);
+
+		assertTrue(idsClosed.await(5, TimeUnit.SECONDS));
+		assertEquals(subscriber.items.size(), 1);
+		assertFalse(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	@Test
+	public void testEachSubscriptionListsIds() throws Exception {
+		FedoraItemPublisher<String> publisher = createPublisher(IDS, 2);
+		RecordingSubscriber otherSubscriber = new RecordingSubscriber();
+		publisher.subscribe(subscriber);
+		publisher.subscribe(otherSubscriber);
+
+		subscriber.request(Long.MAX_VALUE);
+		otherSubscriber.request(Long.MAX_VALUE);
+
+		subscriber.awaitTermination();
+		otherSubscriber.awaitTermination();
+		assertEquals(subscriber.items.size(), 5);
+		assertEquals(otherSubscriber.items.size(), 5);
+		assertEquals(numberOfListings.get(), 2);
+	}
+
+	private static class RecordingSubscriber implements Flow.Subscriber<String> {
+		private Flow.Subscription subscription;
+		private List<String> items = Collections.synchronizedList(new ArrayList<>());
+		private volatile boolean completed = false;
+		private volatile Throwable error;
+		private boolean requestOneOnEachItem = false;
+		private int numberOfItemsToRequestOneAtATime = 0;
+		private CountDownLatch terminated = new CountDownLatch(1);
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		void request(long n) {
+			subscription.request(n);
+		}
+
+		void cancel() {
+			subscription.cancel();
+		}
+
+		@Override
+		public void onNext(String item) {
+			items.add(item);
+			if (requestOneOnEachItem || items.size() < numberOfItemsToRequestOneAtATime) {
+				subscription.request(1);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			terminated.countDown();
+		}
+
+		void awaitTermination() throws InterruptedException {
+			assertTrue(terminated.await(5, TimeUnit.SECONDS));
+		}
+
+		void awaitItems(int expected) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (items.size() < expected && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(items.size(), expected);
+		}
+	}
+}
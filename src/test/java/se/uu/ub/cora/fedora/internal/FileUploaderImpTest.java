@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class FileUploaderImpTest {
+	private static final String SOME_CONTENT = "someContent";
+
+	private ServerSocket serverSocket;
+	private String url;
+	private FileUploaderImp uploader;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		url = "http://localhost:" + serverSocket.getLocalPort() + "/fcrepo/rest/someId";
+		uploader = new FileUploaderImp();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		serverSocket.close();
+	}
+
+	@Test
+	public void testUploadSendsFixedLengthBody() throws Exception {
+		CompletableFuture<ReceivedRequest> received = respondOnceWith("201 Created");
+
+		int responseCode = uploader.upload(url, "PUT", createRequestProperties(),
+				createContent(SOME_CONTENT), SOME_CONTENT.length());
+
+		assertEquals(responseCode, 201);
+		ReceivedRequest request = received.get(10, TimeUnit.SECONDS);
+		assertEquals(request.requestLine, "PUT /fcrepo/rest/someId HTTP/1.1");
+		assertEquals(request.headers.get("content-length"), "11");
+		assertFalse(request.headers.containsKey("transfer-encoding"));
+		assertEquals(request.headers.get("content-type"), "text/plain");
+		assertEquals(request.headers.get("digest"), "someDigest");
+		assertEquals(request.body, SOME_CONTENT);
+	}
+
+	private Map<String, String> createRequestProperties() {
+		Map<String, String> requestProperties = new LinkedHashMap<>();
+		requestProperties.put("Content-Type", "text/plain");
+		requestProperties.put("Digest", "someDigest");
+		return requestProperties;
+	}
+
+	private InputStream createContent(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUploadReturnsErrorResponseCode() throws Exception {
+		CompletableFuture<ReceivedRequest> received = respondOnceWith("500 Internal Server Error");
+
+		int responseCode = uploader.upload(url, "PUT", createRequestProperties(),
+				createContent(SOME_CONTENT), SOME_CONTENT.length());
+
+		assertEquals(responseCode, 500);
+		assertEquals(received.get(10, TimeUnit.SECONDS).body, SOME_CONTENT);
+	}
+
+	@Test
+	public void testUploadContentShorterThanContentLength() throws Exception {
+		respondOnceWith("201 Created");
+
+		try {
+			uploader.upload(url, "PUT", createRequestProperties(), createContent(SOME_CONTENT),
+					SOME_CONTENT.length() + 1L);
+			fail("It failed");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains(
+					"Content length 12 does not match the 11 bytes read from the content."),
+					e.getMessage());
+		}
+	}
+
+	private CompletableFuture<ReceivedRequest> respondOnceWith(String status) {
+		return CompletableFuture.supplyAsync(() -> {
+			try (Socket socket = serverSocket.accept()) {
+				ReceivedRequest request = readRequest(socket.getInputStream());
+				writeResponse(socket.getOutputStream(), status);
+				return request;
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private ReceivedRequest readRequest(InputStream input) throws IOException {
+		ReceivedRequest request = new ReceivedRequest();
+		request.requestLine = readLine(input);
+		String line;
+		while (!(line = readLine(input)).isEmpty()) {
+			int colon = line.indexOf(':');
+			request.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+					line.substring(colon + 1).trim());
+		}
+		int contentLength = Integer.parseInt(request.headers.getOrDefault("content-length", "0"));
+		request.body = new String(input.readNBytes(contentLength), StandardCharsets.UTF_8);
+		return request;
+	}
+
+	private String readLine(InputStream input) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int read;
+		while ((read = input.read()) != -1 && read != '\n') {
+			if (read != '\r') {
+				line.write(read);
+			}
+		}
+		return line.toString(StandardCharsets.UTF_8);
+	}
+
+	private void writeResponse(OutputStream output, String status) throws IOException {
+		String response = "HTTP/1.1 " + status + "\r\nContent-Length: 2\r\n\r\nok";
+		output.write(response.getBytes(StandardCharsets.UTF_8));
+		output.flush();
+	}
+
+	private static class ReceivedRequest {
+		String requestLine;
+		Map<String, String> headers = new HashMap<>();
+		String body;
+	}
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertSame;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.fedora.spy.HotKeyTrackerSpy;
+import se.uu.ub.cora.fedora.spy.TransactionRunningFedoraAdapterSpy;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class HotKeyTrackingFedoraAdapterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String ID = "someId";
+	private static final String KEY = DATA_DIVIDER + ":" + ID;
+	private static final String RECORD_XML = "<someXml/>";
+	private static final String MIME_TYPE = "image/jpeg";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private HotKeyTrackerSpy hotKeyTracker;
+	private HotKeyTrackingFedoraAdapter trackingAdapter;
+	private InputStreamSpy resource;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new FedoraAdapterSpy();
+		hotKeyTracker = new HotKeyTrackerSpy();
+		trackingAdapter = new HotKeyTrackingFedoraAdapter(fedoraAdapter, hotKeyTracker);
+		resource = new InputStreamSpy();
+	}
+
+	private void assertAccessRecorded() {
+		hotKeyTracker.MCR.assertNumberOfCallsToMethod("recordAccess", 1);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 0, KEY);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(trackingAdapter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(trackingAdapter.onlyForTestGetHotKeyTracker(), hotKeyTracker);
+	}
+
+	@Test
+	public void testCreateRecord() throws Exception {
+		trackingAdapter.createRecord(DATA_DIVIDER, ID, RECORD_XML);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, ID, RECORD_XML);
+	}
+
+	@Test
+	public void testCreateRecords() throws Exception {
+		List<RecordToCreate> records = List.of(new RecordToCreate(DATA_DIVIDER, ID, RECORD_XML),
+				new RecordToCreate(DATA_DIVIDER, "otherId", RECORD_XML));
+
+		List<BatchItemResult> results = trackingAdapter.createRecords(records, 4);
+
+		hotKeyTracker.MCR.assertNumberOfCallsToMethod("recordAccess", 2);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 0, KEY);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 1, DATA_DIVIDER + ":otherId");
+		fedoraAdapter.MCR.assertParameters("createRecords", 0, records, 4);
+		fedoraAdapter.MCR.assertReturn("createRecords", 0, results);
+	}
+
+	@Test
+	public void testCreateResource() throws Exception {
+		var createdMetadata = trackingAdapter.createResource(DATA_DIVIDER, ID, resource, MIME_TYPE);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+	}
+
+	@Test
+	public void testCreateResourceFromFile() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var createdMetadata = trackingAdapter.createResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+	}
+
+	@Test
+	public void testCreateExternalResource() throws Exception {
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		trackingAdapter.createExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.PROXY);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("createExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.PROXY);
+	}
+
+	@Test
+	public void testReadRecord() throws Exception {
+		String recordXml = trackingAdapter.readRecord(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readRecord", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readRecord", 0, recordXml);
+	}
+
+	@Test
+	public void testReadVersionedRecord() throws Exception {
+		VersionedRecord versionedRecord = trackingAdapter.readVersionedRecord(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readVersionedRecord", 0, versionedRecord);
+	}
+
+	@Test
+	public void testReadRecordIfChanged() throws Exception {
+		Optional<VersionedRecord> changedRecord = trackingAdapter.readRecordIfChanged(DATA_DIVIDER,
+				ID, "someETag");
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, ID,
+				"someETag");
+		fedoraAdapter.MCR.assertReturn("readRecordIfChanged", 0, changedRecord);
+	}
+
+	@Test
+	public void testReadResource() throws Exception {
+		InputStream readResource = trackingAdapter.readResource(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadResourceRange() throws Exception {
+		ResourceRange resourceRange = trackingAdapter.readResource(DATA_DIVIDER, ID, 0, 10);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, ID, 0L, 10L);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, resourceRange);
+	}
+
+	@Test
+	public void testReadResourceRanges() throws Exception {
+		List<ByteRange> ranges = List.of(new ByteRange(0, 10));
+
+		List<ResourceRange> resourceRanges = trackingAdapter.readResource(DATA_DIVIDER, ID,
+				ranges);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, ID, ranges);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, resourceRanges);
+	}
+
+	@Test
+	public void testDownloadResource() throws Exception {
+		Path target = Path.of("someTarget");
+
+		var metadata = trackingAdapter.downloadResource(DATA_DIVIDER, ID, target, 1024, 3);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("downloadResource", 0, DATA_DIVIDER, ID, target,
+				1024L, 3);
+		fedoraAdapter.MCR.assertReturn("downloadResource", 0, metadata);
+	}
+
+	@Test
+	public void testReadResumableResource() throws Exception {
+		InputStream readResource = trackingAdapter.readResumableResource(DATA_DIVIDER, ID, 3);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readResumableResource", 0, DATA_DIVIDER, ID, 3);
+		fedoraAdapter.MCR.assertReturn("readResumableResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResource() throws Exception {
+		InputStream readResource = trackingAdapter.readVerifiedResource(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadata() throws Exception {
+		var expectedMetadata = new ResourceMetadata("someFileSize", "someChecksum");
+
+		InputStream readResource = trackingAdapter.readVerifiedResource(DATA_DIVIDER, ID,
+				expectedMetadata);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID,
+				expectedMetadata);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadResourceMetadata() throws Exception {
+		ResourceMetadata metadata = trackingAdapter.readResourceMetadata(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("readResourceMetadata", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readResourceMetadata", 0, metadata);
+	}
+
+	@Test
+	public void testUpdateResourceMetadata() throws Exception {
+		ResourceMetadataToUpdate metadataToUpdate = new ResourceMetadataToUpdate(
+				"someFileName", MIME_TYPE);
+
+		trackingAdapter.updateResourceMetadata(DATA_DIVIDER, ID, metadataToUpdate);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateResourceMetadata", 0, DATA_DIVIDER, ID,
+				metadataToUpdate);
+	}
+
+	@Test
+	public void testListIdsDoesNotRecordAccess() throws Exception {
+		var ids = trackingAdapter.listIds(DATA_DIVIDER);
+
+		hotKeyTracker.MCR.assertMethodNotCalled("recordAccess");
+		fedoraAdapter.MCR.assertParameters("listIds", 0, DATA_DIVIDER);
+		fedoraAdapter.MCR.assertReturn("listIds", 0, ids);
+	}
+
+	@Test
+	public void testListIdsModifiedSinceDoesNotRecordAccess() throws Exception {
+		Instant since = Instant.now();
+
+		var ids = trackingAdapter.listIdsModifiedSince(DATA_DIVIDER, since, 3);
+
+		hotKeyTracker.MCR.assertMethodNotCalled("recordAccess");
+		fedoraAdapter.MCR.assertParameters("listIdsModifiedSince", 0, DATA_DIVIDER, since, 3);
+		fedoraAdapter.MCR.assertReturn("listIdsModifiedSince", 0, ids);
+	}
+
+	@Test
+	public void testUpdateResourcesMetadata() throws Exception {
+		ResourceMetadataToUpdate metadataToUpdate = new ResourceMetadataToUpdate(
+				"someFileName", MIME_TYPE);
+		List<ResourceMetadataUpdate> updates = List.of(
+				new ResourceMetadataUpdate(DATA_DIVIDER, ID, metadataToUpdate),
+				new ResourceMetadataUpdate(DATA_DIVIDER, "otherId", metadataToUpdate));
+
+		List<BatchItemResult> results = trackingAdapter.updateResourcesMetadata(updates, 4);
+
+		hotKeyTracker.MCR.assertNumberOfCallsToMethod("recordAccess", 2);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 0, KEY);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 1, DATA_DIVIDER + ":otherId");
+		fedoraAdapter.MCR.assertParameters("updateResourcesMetadata", 0, updates, 4);
+		fedoraAdapter.MCR.assertReturn("updateResourcesMetadata", 0, results);
+	}
+
+	@Test
+	public void testReadRecords() throws Exception {
+		ReadRecordsResult result = trackingAdapter.readRecords(DATA_DIVIDER,
+				List.of(ID, "otherId"), 3);
+
+		hotKeyTracker.MCR.assertNumberOfCallsToMethod("recordAccess", 2);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 0, KEY);
+		hotKeyTracker.MCR.assertParameters("recordAccess", 1, DATA_DIVIDER + ":otherId");
+		fedoraAdapter.MCR.assertParameters("readRecords", 0, DATA_DIVIDER,
+				List.of(ID, "otherId"), 3);
+		fedoraAdapter.MCR.assertReturn("readRecords", 0, result);
+	}
+
+	@Test
+	public void testUpdateRecord() throws Exception {
+		trackingAdapter.updateRecord(DATA_DIVIDER, ID, RECORD_XML);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER, ID, RECORD_XML);
+	}
+
+	@Test
+	public void testUpdateResource() throws Exception {
+		var updatedMetadata = trackingAdapter.updateResource(DATA_DIVIDER, ID, resource, MIME_TYPE);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceFromFile() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var updatedMetadata = trackingAdapter.updateResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceIfChanged() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var result = trackingAdapter.updateResourceIfChanged(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateResourceIfChanged", 0, DATA_DIVIDER, ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResourceIfChanged", 0, result);
+	}
+
+	@Test
+	public void testUpdateExternalResource() throws Exception {
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		trackingAdapter.updateExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.REDIRECT);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("updateExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.REDIRECT);
+	}
+
+	@Test
+	public void testDeleteRecord() throws Exception {
+		trackingAdapter.deleteRecord(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("deleteRecord", 0, DATA_DIVIDER, ID);
+	}
+
+	@Test
+	public void testDeleteResource() throws Exception {
+		trackingAdapter.deleteResource(DATA_DIVIDER, ID);
+
+		assertAccessRecorded();
+		fedoraAdapter.MCR.assertParameters("deleteResource", 0, DATA_DIVIDER, ID);
+	}
+
+	@Test
+	public void testRunInTransactionTracksAccessesInsideTransaction() throws Exception {
+		TransactionRunningFedoraAdapterSpy runningAdapter =
+				new TransactionRunningFedoraAdapterSpy();
+		trackingAdapter = new HotKeyTrackingFedoraAdapter(runningAdapter, hotKeyTracker);
+
+		trackingAdapter.runInTransaction(
+				List.of(adapter -> adapter.updateRecord(DATA_DIVIDER, ID, RECORD_XML)), 3);
+
+		runningAdapter.MCR.assertParameter("runInTransaction", 0, "maxParallelOperations", 3);
+		assertAccessRecorded();
+		runningAdapter.transactionAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER,
+				ID, RECORD_XML);
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.bulk.ImportType;
+
+public class ImportCheckpointTest {
+	private static final String HEADER = "# fedora import checkpoint for dataDivider "
+			+ "someDataDivider of type RECORDS\n";
+	private Path directory;
+	private Path checkpointFile;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("importCheckpointTest");
+		checkpointFile = directory.resolve("checkpoint.txt");
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private ImportCheckpoint openCheckpoint() throws IOException {
+		return ImportCheckpoint.usingFileForImport(checkpointFile, "someDataDivider",
+				ImportType.RECORDS);
+	}
+
+	@Test
+	public void testCheckpointFileIsCreated() throws Exception {
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertFalse(checkpoint.isCompleted("someId"));
+		}
+
+		assertEquals(readCheckpointFile(), HEADER);
+	}
+
+	@Test
+	public void testCompletedIdsAreWrittenAsTheyAreMarked() throws Exception {
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			checkpoint.markAsCompleted("id1");
+			checkpoint.markAsCompleted("id2");
+
+			assertEquals(readCheckpointFile(), HEADER + "id1\nid2\n");
+		}
+	}
+
+	private String readCheckpointFile() throws IOException {
+		return Files.readString(checkpointFile, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testCompletedIdsAreReadWhenOpened() throws Exception {
+		Files.writeString(checkpointFile, HEADER + "id1\nid2\n");
+
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertTrue(checkpoint.isCompleted("id1"));
+			assertTrue(checkpoint.isCompleted("id2"));
+			assertFalse(checkpoint.isCompleted("id3"));
+			checkpoint.markAsCompleted("id3");
+		}
+
+		assertEquals(readCheckpointFile(), HEADER + "id1\nid2\nid3\n");
+	}
+
+	@Test
+	public void testIncompleteLastLineIsRemovedWhenOpened() throws Exception {
+		Files.writeString(checkpointFile, HEADER + "id1\nid2\nid3");
+
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertTrue(checkpoint.isCompleted("id2"));
+			assertFalse(checkpoint.isCompleted("id3"));
+			checkpoint.markAsCompleted("id3");
+		}
+
+		assertEquals(readCheckpointFile(), HEADER + "id1\nid2\nid3\n");
+	}
+
+	@Test
+	public void testIncompleteLineLongerThanScanBufferIsRemoved() throws Exception {
+		String longId = "x".repeat(20_000);
+		Files.writeString(checkpointFile, HEADER + "id1\n" + longId);
+
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertTrue(checkpoint.isCompleted("id1"));
+		}
+
+		assertEquals(readCheckpointFile(), HEADER + "id1\n");
+	}
+
+	@Test
+	public void testIncompleteHeaderIsReplaced() throws Exception {
+		Files.writeString(checkpointFile, "# fedora import");
+
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertFalse(checkpoint.isCompleted("# fedora import"));
+		}
+
+		assertEquals(readCheckpointFile(), HEADER);
+	}
+
+	@Test
+	public void testOnlyIncompleteLineAfterHeaderIsRemoved() throws Exception {
+		Files.writeString(checkpointFile, HEADER + "id1");
+
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertFalse(checkpoint.isCompleted("id1"));
+		}
+
+		assertEquals(readCheckpointFile(), HEADER);
+	}
+
+	@Test
+	public void testCheckpointForOtherDataDividerIsRefused() throws Exception {
+		Files.writeString(checkpointFile, "# fedora import checkpoint for dataDivider "
+				+ "otherDataDivider of type RECORDS\nid1\n");
+
+		assertCheckpointIsRefused();
+	}
+
+	private void assertCheckpointIsRefused() throws IOException {
+		try {
+			openCheckpoint();
+			fail("It should throw an exception");
+		} catch (FedoraException e) {
+			assertEquals(e.getMessage(), "Unable to use checkpoint file " + checkpointFile
+					+ " for an import of type RECORDS into dataDivider someDataDivider, it was "
+					+ "written for another import.");
+		}
+	}
+
+	@Test
+	public void testCheckpointForOtherTypeIsRefused() throws Exception {
+		Files.writeString(checkpointFile, "# fedora import checkpoint for dataDivider "
+				+ "someDataDivider of type RESOURCES\nid1\n");
+
+		assertCheckpointIsRefused();
+	}
+
+	@Test
+	public void testCheckpointWithoutHeaderIsRefused() throws Exception {
+		Files.writeString(checkpointFile, "id1\nid2\n");
+
+		assertCheckpointIsRefused();
+	}
+
+	@Test
+	public void testIdsWithLineBreaksAndBackslashesAreEscaped() throws Exception {
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			checkpoint.markAsCompleted("id\n1");
+			checkpoint.markAsCompleted("id\\n1");
+			checkpoint.markAsCompleted("id\r2");
+		}
+
+		assertEquals(readCheckpointFile(), HEADER + "id\\n1\nid\\\\n1\nid\\r2\n");
+		try (ImportCheckpoint checkpoint = openCheckpoint()) {
+			assertTrue(checkpoint.isCompleted("id\n1"));
+			assertTrue(checkpoint.isCompleted("id\\n1"));
+			assertTrue(checkpoint.isCompleted("id\r2"));
+			assertFalse(checkpoint.isCompleted("id"));
+			assertFalse(checkpoint.isCompleted("1"));
+		}
+	}
+
+	@Test
+	public void testDataDividerWithLineBreakIsEscapedInHeader() throws Exception {
+		try (ImportCheckpoint checkpoint = ImportCheckpoint.usingFileForImport(checkpointFile,
+				"some\nDataDivider", ImportType.RESOURCES)) {
+			checkpoint.markAsCompleted("id1");
+		}
+
+		assertEquals(readCheckpointFile(), "# fedora import checkpoint for dataDivider "
+				+ "some\\nDataDivider of type RESOURCES\nid1\n");
+	}
+}
@@ -0,0 +1,837 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraConflictException;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.FedoraRejectedException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.internal.JournalEntry.Operation;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class JournalingFedoraAdapterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String ID = "someId";
+	private static final String KEY = DATA_DIVIDER + ":" + ID;
+	private static final String MIME_TYPE = "someMimeType";
+	private static final long INITIAL_RETRY_DELAY = 1;
+	private static final long MAX_RETRY_DELAY = 4;
+	private static final long MAX_WAIT_FOR_WRITES = 10_000;
+
+	private Path directory;
+	private Path journalFile;
+	private ReplayingFedoraAdapterSpy fedoraAdapter;
+	private WriteAheadJournal journal;
+	private JournalingFedoraAdapterImp journalingAdapter;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("journalingFedoraAdapterTest");
+		journalFile = directory.resolve("journal.log");
+		fedoraAdapter = new ReplayingFedoraAdapterSpy();
+	}
+
+	private void startAdapter() {
+		startAdapterUsing(INITIAL_RETRY_DELAY, MAX_RETRY_DELAY, MAX_WAIT_FOR_WRITES);
+	}
+
+	private void startAdapterUsing(long initialRetryDelay, long maxRetryDelay,
+			long maxWaitForWrites) {
+		journal = WriteAheadJournal.usingFile(journalFile);
+		journalingAdapter = new JournalingFedoraAdapterImp(fedoraAdapter, journal,
+				initialRetryDelay, maxRetryDelay, maxWaitForWrites);
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		fedoraAdapter.openGate();
+		if (journalingAdapter != null) {
+			journalingAdapter.close();
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		startAdapter();
+
+		assertSame(journalingAdapter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(journalingAdapter.onlyForTestGetJournal(), journal);
+		assertEquals(journalingAdapter.onlyForTestGetInitialRetryDelayInMillis(),
+				INITIAL_RETRY_DELAY);
+		assertEquals(journalingAdapter.onlyForTestGetMaxRetryDelayInMillis(), MAX_RETRY_DELAY);
+		assertEquals(journalingAdapter.onlyForTestGetMaxWaitForWritesInMillis(),
+				MAX_WAIT_FOR_WRITES);
+	}
+
+	@Test
+	public void testCreateRecordIsAppliedInBackground() throws Exception {
+		startAdapter();
+
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+		journalingAdapter.flush();
+
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, ID, "<v1/>");
+		assertEquals(fedoraAdapter.events, List.of("created someId <v1/>"));
+		assertEquals(Files.size(journalFile), 0L);
+	}
+
+	@Test
+	public void testUpdateRecordIsAppliedInBackground() throws Exception {
+		startAdapter();
+
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		journalingAdapter.flush();
+
+		fedoraAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER, ID, "<v1/>");
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+	}
+
+	@Test
+	public void testWriteIsDurableWhenAcknowledged() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		assertEquals(journal.getDurableSequence(), 1L);
+		assertTrue(Files.size(journalFile) > 0);
+		assertTrue(fedoraAdapter.events.isEmpty());
+	}
+
+	@Test
+	public void testWritesOfSameRecordAreAppliedInOrder() throws Exception {
+		startAdapter();
+
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v2/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v3/>");
+		journalingAdapter.flush();
+
+		assertEquals(fedoraAdapter.events, List.of("created someId <v1/>",
+				"updated someId <v2/>", "updated someId <v3/>"));
+	}
+
+	@Test
+	public void testReadRecordReturnsLatestJournaledWrite() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+		assertEquals(journalingAdapter.readRecord(DATA_DIVIDER, ID), "<v1/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v2/>");
+		assertEquals(journalingAdapter.readRecord(DATA_DIVIDER, ID), "<v2/>");
+
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecord");
+	}
+
+	@Test
+	public void testReadRecordReadsFromFedoraWhenNothingIsJournaled() throws Exception {
+		startAdapter();
+
+		String recordXml = journalingAdapter.readRecord(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("readRecord", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readRecord", 0, recordXml);
+	}
+
+	@Test
+	public void testReadRecordsWithoutJournaledRecords() throws Exception {
+		startAdapter();
+		List<String> ids = List.of("id1", "id2");
+
+		ReadRecordsResult result = journalingAdapter.readRecords(DATA_DIVIDER, ids, 3);
+
+		fedoraAdapter.MCR.assertParameters("readRecords", 0, DATA_DIVIDER, ids, 3);
+		fedoraAdapter.MCR.assertReturn("readRecords", 0, result);
+	}
+
+	@Test
+	public void testReadRecordsMergesJournaledRecords() throws Exception {
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readRecords",
+				() -> new ReadRecordsResult(Map.of("id1", "<fromFedora/>"), Set.of("id3")));
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, "id2", "<journaled/>");
+
+		ReadRecordsResult result = journalingAdapter.readRecords(DATA_DIVIDER,
+				List.of("id1", "id2", "id3"), 3);
+
+		fedoraAdapter.MCR.assertParameters("readRecords", 0, DATA_DIVIDER, List.of("id1", "id3"),
+				3);
+		assertEquals(result.records(), Map.of("id1", "<fromFedora/>", "id2", "<journaled/>"));
+		assertEquals(result.missingIds(), Set.of("id3"));
+	}
+
+	@Test
+	public void testFailedWriteIsRetriedUntilApplied() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, 3);
+		startAdapter();
+
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		journalingAdapter.flush();
+
+		assertEquals(fedoraAdapter.attempts.get(), 4);
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+	}
+
+	@Test
+	public void testRetryWaitsFullDelayWhenNewWritesAreJournaled() throws Exception {
+		long retryDelay = 200;
+		fedoraAdapter.failuresBeforeSuccess.put(ID, 1);
+		startAdapterUsing(retryDelay, retryDelay, MAX_WAIT_FOR_WRITES);
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		fedoraAdapter.awaitAttempts(1);
+
+		for (int i = 0; i < 5; i++) {
+			journalingAdapter.updateRecord(DATA_DIVIDER, "otherId" + i, "<v1/>");
+		}
+		journalingAdapter.flush();
+
+		List<Long> attemptTimes = fedoraAdapter.attemptTimes.get(ID);
+		assertEquals(attemptTimes.size(), 2);
+		long waitedInMillis = TimeUnit.NANOSECONDS
+				.toMillis(attemptTimes.get(1) - attemptTimes.get(0));
+		assertTrue(waitedInMillis >= retryDelay, "waited only " + waitedInMillis + " ms");
+	}
+
+	@Test
+	public void testRetryWaitIsEndedByClose() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, Integer.MAX_VALUE);
+		startAdapterUsing(60_000, 60_000, MAX_WAIT_FOR_WRITES);
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		fedoraAdapter.awaitAttempts(1);
+		long start = System.nanoTime();
+
+		journalingAdapter.close();
+
+		long closingInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(closingInMillis < 5_000, "closing took " + closingInMillis + " ms");
+		assertEquals(fedoraAdapter.attempts.get(), 1);
+	}
+
+	@Test
+	public void testOtherRecordsAreAppliedWhileOneIsRetried() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put("failingId", Integer.MAX_VALUE);
+		startAdapter();
+
+		journalingAdapter.updateRecord(DATA_DIVIDER, "failingId", "<v1/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, "failingId", "<v2/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v3/>");
+		journalingAdapter.readVersionedRecord(DATA_DIVIDER, ID);
+
+		assertEquals(fedoraAdapter.events,
+				List.of("updated someId <v3/>", "readVersionedRecord"));
+		assertEquals(journalingAdapter.readRecord(DATA_DIVIDER, "failingId"), "<v2/>");
+		fedoraAdapter.failuresBeforeSuccess.put("failingId", 0);
+		journalingAdapter.flush();
+		assertEquals(fedoraAdapter.events.subList(2, 4),
+				List.of("updated failingId <v1/>", "updated failingId <v2/>"));
+	}
+
+	@Test
+	public void testCreateConflictIsDroppedAndReportedByFlush() throws Exception {
+		FedoraConflictException conflict = FedoraConflictException.withMessage("conflictFromSpy");
+		fedoraAdapter.MRV.setAlwaysThrowException("createRecord", conflict);
+		startAdapter();
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			journalingAdapter.flush();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error applying journaled writes to Fedora, writes were "
+					+ "dropped for records: " + KEY);
+			assertSame(e.getCause(), conflict);
+		}
+		journalingAdapter.flush();
+		assertEquals(fedoraAdapter.attempts.get(), 1);
+	}
+
+	@Test
+	public void testUpdateOfMissingRecordIsDroppedAndReportedByFlush() throws Exception {
+		fedoraAdapter.MRV.setAlwaysThrowException("updateRecord",
+				FedoraNotFoundException.withMessage("notFoundFromSpy"));
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			journalingAdapter.flush();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "Error applying journaled writes to Fedora, writes were "
+					+ "dropped for records: " + KEY);
+		}
+	}
+
+	@Test
+	public void testRejectedWriteIsDroppedAndDoesNotBlockLaterWrites() throws Exception {
+		FedoraRejectedException rejected = FedoraRejectedException.withMessage("rejectedFromSpy");
+		fedoraAdapter.MRV.setThrowException("updateRecord", rejected, DATA_DIVIDER, ID,
+				"<invalid/>");
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<invalid/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, "otherId", "<v1/>");
+
+		try {
+			journalingAdapter.flush();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "Error applying journaled writes to Fedora, writes were "
+					+ "dropped for records: " + KEY);
+			assertSame(e.getCause(), rejected);
+		}
+		assertEquals(fedoraAdapter.attempts.get(), 2);
+		assertEquals(fedoraAdapter.events, List.of("updated otherId <v1/>"));
+	}
+
+	@Test
+	public void testWriteFailingWithOtherErrorIsDropped() throws Exception {
+		RuntimeException error = new IllegalStateException("errorFromSpy");
+		fedoraAdapter.MRV.setAlwaysThrowException("updateRecord", error);
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			journalingAdapter.flush();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e.getCause(), error);
+		}
+		assertEquals(fedoraAdapter.attempts.get(), 1);
+	}
+
+	@Test
+	public void testDroppedWriteIsForgottenWhenLaterWriteIsApplied() throws Exception {
+		fedoraAdapter.MRV.setThrowException("updateRecord",
+				FedoraNotFoundException.withMessage("notFoundFromSpy"), DATA_DIVIDER, ID,
+				"<bad/>");
+		startAdapter();
+
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<bad/>");
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<good/>");
+		journalingAdapter.flush();
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <good/>"));
+	}
+
+	@Test
+	public void testCreateOfRecordWithUnappliedWritesThrowsConflict() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v2/>");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraConflictException);
+			assertEquals(e.getMessage(), "Unable to create record " + KEY + ", it has journaled "
+					+ "writes that are not yet applied to Fedora.");
+		}
+	}
+
+	@Test
+	public void testRecoveredWritesAreAppliedWhenStarted() throws Exception {
+		writeToJournalFile(Operation.CREATE, "<v1/>");
+		writeToJournalFile(Operation.UPDATE, "<v2/>");
+
+		startAdapter();
+		journalingAdapter.flush();
+
+		assertEquals(fedoraAdapter.events,
+				List.of("created someId <v1/>", "updated someId <v2/>"));
+		assertEquals(Files.size(journalFile), 0L);
+	}
+
+	private void writeToJournalFile(Operation operation, String recordXml) {
+		try (WriteAheadJournal previousJournal = WriteAheadJournal.usingFile(journalFile)) {
+			JournalEntry entry = previousJournal.write(operation, DATA_DIVIDER, ID, recordXml);
+			previousJournal.awaitDurable(entry.sequence());
+		}
+	}
+
+	@Test
+	public void testRecoveredCreateThatConflictsIsTreatedAsApplied() throws Exception {
+		fedoraAdapter.MRV.setAlwaysThrowException("createRecord",
+				FedoraConflictException.withMessage("conflictFromSpy"));
+		writeToJournalFile(Operation.CREATE, "<v1/>");
+		writeToJournalFile(Operation.UPDATE, "<v2/>");
+
+		startAdapter();
+		journalingAdapter.flush();
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v2/>"));
+	}
+
+	@Test
+	public void testUnappliedWritesStayInJournalWhenClosed() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, Integer.MAX_VALUE);
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		journalingAdapter.close();
+
+		try (WriteAheadJournal reopenedJournal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(reopenedJournal.getRecoveredEntries(),
+					List.of(new JournalEntry(1, Operation.UPDATE, DATA_DIVIDER, ID, "<v1/>")));
+		}
+	}
+
+	@Test
+	public void testWriteAfterCloseThrowsError() throws Exception {
+		startAdapter();
+		journalingAdapter.close();
+		journalingAdapter.close();
+
+		try {
+			journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to write record " + KEY + ", the journaling "
+					+ "adapter is closed.");
+		}
+	}
+
+	@Test
+	public void testWaitForUnappliedWritesAfterCloseThrowsError() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, Integer.MAX_VALUE);
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		journalingAdapter.close();
+
+		try {
+			journalingAdapter.readVersionedRecord(DATA_DIVIDER, ID);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to wait for journaled writes of record " + KEY
+					+ " to be applied to Fedora, the journaling adapter is closed.");
+		}
+		fedoraAdapter.MCR.assertMethodNotCalled("readVersionedRecord");
+	}
+
+	@Test
+	public void testWaitingForUnappliedWritesIsEndedByClose() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, Integer.MAX_VALUE);
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		CompletableFuture<Void> flush = CompletableFuture.runAsync(journalingAdapter::flush);
+		fedoraAdapter.awaitAttempts(2);
+
+		journalingAdapter.close();
+
+		try {
+			flush.get(5, TimeUnit.SECONDS);
+			fail("It should throw an exception");
+		} catch (ExecutionException e) {
+			assertEquals(e.getCause().getMessage(), "Unable to wait for journaled writes of all "
+					+ "records to be applied to Fedora, the journaling adapter is closed.");
+		}
+	}
+
+	@Test
+	public void testWaitForUnappliedWritesIsBounded() throws Exception {
+		fedoraAdapter.failuresBeforeSuccess.put(ID, Integer.MAX_VALUE);
+		startAdapterUsing(INITIAL_RETRY_DELAY, MAX_RETRY_DELAY, 50);
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			journalingAdapter.listIds(DATA_DIVIDER);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Timed out after 50 ms waiting for journaled writes of "
+					+ "records in dataDivider " + DATA_DIVIDER + " to be applied to Fedora.");
+		}
+		fedoraAdapter.MCR.assertMethodNotCalled("listIds");
+	}
+
+	@Test
+	public void testDeleteRecordWaitsForUnappliedWrites() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		Thread deleter = startThread(() -> journalingAdapter.deleteRecord(DATA_DIVIDER, ID));
+		fedoraAdapter.openGate();
+		deleter.join(5_000);
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>", "deleteRecord"));
+		fedoraAdapter.MCR.assertParameters("deleteRecord", 0, DATA_DIVIDER, ID);
+	}
+
+	private Thread startThread(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	public void testListIdsWaitsForUnappliedWritesInDataDivider() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		Thread lister = startThread(() -> journalingAdapter.listIds(DATA_DIVIDER));
+		fedoraAdapter.openGate();
+		lister.join(5_000);
+
+		assertEquals(fedoraAdapter.events, List.of("created someId <v1/>", "listIds"));
+		fedoraAdapter.MCR.assertParameters("listIds", 0, DATA_DIVIDER);
+	}
+
+	@Test
+	public void testListIdsDoesNotWaitForUnappliedWritesInOtherDataDivider() throws Exception {
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.createRecord(DATA_DIVIDER + "Longer", ID, "<v1/>");
+
+		var ids = journalingAdapter.listIds(DATA_DIVIDER);
+
+		assertEquals(fedoraAdapter.events, List.of("listIds"));
+		fedoraAdapter.MCR.assertReturn("listIds", 0, ids);
+	}
+
+	@Test
+	public void testListIdsModifiedSinceWaitsForUnappliedWritesInDataDivider()
+			throws Exception {
+		Instant since = Instant.now();
+		fedoraAdapter.closeGate();
+		startAdapter();
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		Thread lister = startThread(
+				() -> journalingAdapter.listIdsModifiedSince(DATA_DIVIDER, since, 3));
+		fedoraAdapter.openGate();
+		lister.join(5_000);
+
+		assertEquals(fedoraAdapter.events,
+				List.of("updated someId <v1/>", "listIdsModifiedSince"));
+		fedoraAdapter.MCR.assertParameters("listIdsModifiedSince", 0, DATA_DIVIDER, since, 3);
+	}
+
+	@Test
+	public void testReadRecordIfChanged() throws Exception {
+		startAdapter();
+
+		var result = journalingAdapter.readRecordIfChanged(DATA_DIVIDER, ID, "someETag");
+
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, ID,
+				"someETag");
+		fedoraAdapter.MCR.assertReturn("readRecordIfChanged", 0, result);
+	}
+
+	@Test
+	public void testCreateRecords() throws Exception {
+		startAdapter();
+		List<RecordToCreate> records = List.of(new RecordToCreate(DATA_DIVIDER, ID, "<v1/>"));
+
+		var results = journalingAdapter.createRecords(records, 4);
+
+		fedoraAdapter.MCR.assertParameters("createRecords", 0, records, 4);
+		fedoraAdapter.MCR.assertReturn("createRecords", 0, results);
+	}
+
+	@Test
+	public void testResourceOperationsAreDelegated() throws Exception {
+		startAdapter();
+		InputStream resource = new InputStreamSpy();
+		ResourceMetadataToUpdate metadataToUpdate = new ResourceMetadataToUpdate("someFileName",
+				MIME_TYPE);
+		List<ResourceMetadataUpdate> updates = List
+				.of(new ResourceMetadataUpdate(DATA_DIVIDER, ID, metadataToUpdate));
+
+		var createdMetadata = journalingAdapter.createResource(DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		InputStream readResource = journalingAdapter.readResource(DATA_DIVIDER, ID);
+		var metadata = journalingAdapter.readResourceMetadata(DATA_DIVIDER, ID);
+		journalingAdapter.updateResourceMetadata(DATA_DIVIDER, ID, metadataToUpdate);
+		var results = journalingAdapter.updateResourcesMetadata(updates, 3);
+		var updatedMetadata = journalingAdapter.updateResource(DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		journalingAdapter.deleteResource(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, readResource);
+		fedoraAdapter.MCR.assertReturn("readResourceMetadata", 0, metadata);
+		fedoraAdapter.MCR.assertParameters("updateResourceMetadata", 0, DATA_DIVIDER, ID,
+				metadataToUpdate);
+		fedoraAdapter.MCR.assertParameters("updateResourcesMetadata", 0, updates, 3);
+		fedoraAdapter.MCR.assertReturn("updateResourcesMetadata", 0, results);
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+		fedoraAdapter.MCR.assertParameters("deleteResource", 0, DATA_DIVIDER, ID);
+	}
+
+	@Test
+	public void testResourceOperationsFromFileAreDelegated() throws Exception {
+		startAdapter();
+		Path resourceFile = Path.of("someResourceFile");
+
+		var createdMetadata = journalingAdapter.createResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		var updatedMetadata = journalingAdapter.updateResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceIfChanged() throws Exception {
+		startAdapter();
+		Path resourceFile = Path.of("someResourceFile");
+
+		var result = journalingAdapter.updateResourceIfChanged(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("updateResourceIfChanged", 0, DATA_DIVIDER, ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResourceIfChanged", 0, result);
+	}
+
+	@Test
+	public void testExternalResourceOperationsAreDelegated() throws Exception {
+		startAdapter();
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		journalingAdapter.createExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.PROXY);
+		journalingAdapter.updateExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.COPY);
+
+		fedoraAdapter.MCR.assertParameters("createExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.PROXY);
+		fedoraAdapter.MCR.assertParameters("updateExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.COPY);
+	}
+
+	@Test
+	public void testReadResourceRanges() throws Exception {
+		startAdapter();
+		List<ByteRange> ranges = List.of(new ByteRange(0, 10));
+
+		ResourceRange resourceRange = journalingAdapter.readResource(DATA_DIVIDER, ID, 0, 10);
+		List<ResourceRange> resourceRanges = journalingAdapter.readResource(DATA_DIVIDER, ID,
+				ranges);
+
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, ID, 0L, 10L);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, resourceRange);
+		fedoraAdapter.MCR.assertParameters("readResource", 1, DATA_DIVIDER, ID, ranges);
+		fedoraAdapter.MCR.assertReturn("readResource", 1, resourceRanges);
+	}
+
+	@Test
+	public void testDownloadResource() throws Exception {
+		startAdapter();
+		Path target = Path.of("someTarget");
+
+		var metadata = journalingAdapter.downloadResource(DATA_DIVIDER, ID, target, 1024, 3);
+
+		fedoraAdapter.MCR.assertParameters("downloadResource", 0, DATA_DIVIDER, ID, target,
+				1024L, 3);
+		fedoraAdapter.MCR.assertReturn("downloadResource", 0, metadata);
+	}
+
+	@Test
+	public void testReadResumableResource() throws Exception {
+		startAdapter();
+		InputStream readResource = journalingAdapter.readResumableResource(DATA_DIVIDER, ID, 3);
+
+		fedoraAdapter.MCR.assertParameters("readResumableResource", 0, DATA_DIVIDER, ID, 3);
+		fedoraAdapter.MCR.assertReturn("readResumableResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResource() throws Exception {
+		startAdapter();
+		InputStream readResource = journalingAdapter.readVerifiedResource(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadata() throws Exception {
+		startAdapter();
+		var expectedMetadata = new ResourceMetadata("someFileSize", "someChecksum");
+
+		InputStream readResource = journalingAdapter.readVerifiedResource(DATA_DIVIDER, ID,
+				expectedMetadata);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID,
+				expectedMetadata);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testRunInTransactionWaitsForAllUnappliedWrites() throws Exception {
+		startAdapter();
+		List<TransactionOperation> operations = List.of(adapter -> {
+		});
+		journalingAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		journalingAdapter.runInTransaction(operations, 2);
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+		fedoraAdapter.MCR.assertParameters("runInTransaction", 0, operations, 2);
+	}
+
+	private static class ReplayingFedoraAdapterSpy extends FedoraAdapterSpy {
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+		private Map<String, Integer> failuresBeforeSuccess = new ConcurrentHashMap<>();
+		private AtomicInteger attempts = new AtomicInteger();
+		private Map<String, List<Long>> attemptTimes = new ConcurrentHashMap<>();
+		private List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		void closeGate() {
+			gate = new CountDownLatch(1);
+		}
+
+		void openGate() {
+			gate.countDown();
+		}
+
+		void awaitAttempts(int expectedAttempts) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (attempts.get() < expectedAttempts && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+		}
+
+		@Override
+		public void createRecord(String dataDivider, String recordId, String recordXml) {
+			startAttempt(recordId);
+			super.createRecord(dataDivider, recordId, recordXml);
+			events.add("created " + recordId + " " + recordXml);
+		}
+
+		private void startAttempt(String recordId) {
+			attemptTimes.computeIfAbsent(recordId, id -> Collections.synchronizedList(
+					new ArrayList<>())).add(System.nanoTime());
+			attempts.incrementAndGet();
+			awaitGate();
+			int failuresLeft = failuresBeforeSuccess.getOrDefault(recordId, 0);
+			if (failuresLeft > 0) {
+				failuresBeforeSuccess.put(recordId, failuresLeft - 1);
+				throw FedoraException.withMessage("unavailableFromSpy");
+			}
+		}
+
+		private void awaitGate() {
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void updateRecord(String dataDivider, String recordId, String recordXml) {
+			startAttempt(recordId);
+			super.updateRecord(dataDivider, recordId, recordXml);
+			events.add("updated " + recordId + " " + recordXml);
+		}
+
+		@Override
+		public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+			events.add("readVersionedRecord");
+			return super.readVersionedRecord(dataDivider, recordId);
+		}
+
+		@Override
+		public Stream<String> listIds(String dataDivider) {
+			events.add("listIds");
+			return super.listIds(dataDivider);
+		}
+
+		@Override
+		public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+				int maxParallelChecks) {
+			events.add("listIdsModifiedSince");
+			return super.listIdsModifiedSince(dataDivider, since, maxParallelChecks);
+		}
+
+		@Override
+		public void deleteRecord(String dataDivider, String recordId) {
+			events.add("deleteRecord");
+			super.deleteRecord(dataDivider, recordId);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.spy.ContainerListerSpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
+
+public class ModifiedIdFinderTest {
+	private static final String BASE_URL = "http://localhost:38088/fcrepo/rest/";
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String RECORD_URL = BASE_URL + DATA_DIVIDER + ":";
+	private static final Instant SINCE = Instant.parse("2026-03-05T10:15:30.500Z");
+
+	private ContainerListerSpy containerLister;
+	private HttpHandlerFactorySpy httpHandlerFactory;
+	private ModifiedIdFinder finder;
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
+		containerLister = new ContainerListerSpy();
+		httpHandlerFactory = new HttpHandlerFactorySpy();
+		finder = new ModifiedIdFinder(containerLister, httpHandlerFactory, BASE_URL,
+				batchExecutor);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testNoIdsInDataDivider() throws Exception {
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+
+		assertTrue(modifiedIds.isEmpty());
+		containerLister.MCR.assertParameters("streamChildrenWithLastModified", 0, DATA_DIVIDER);
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+	}
+
+	@Test
+	public void testLastModifiedFromListingIsUsedWithoutRequests() throws Exception {
+		setListedChildren(
+				new ListedChild("modifiedLongAfter", Instant.parse("2026-03-06T00:00:00Z")),
+				new ListedChild("modifiedLongBefore", Instant.parse("2026-03-04T00:00:00Z")),
+				new ListedChild("modifiedInSecondBefore",
+						Instant.parse("2026-03-05T10:15:29.001Z")),
+				new ListedChild("modifiedAtStartOfSecondBefore",
+						Instant.parse("2026-03-05T10:15:29Z")));
+
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+
+		assertEquals(modifiedIds, List.of("modifiedLongAfter", "modifiedInSecondBefore"));
+		httpHandlerFactory.MCR.assertMethodNotCalled("factor");
+	}
+
+	private void setListedChildren(ListedChild... children) {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamChildrenWithLastModified",
+				() -> Stream.of(children));
+	}
+
+	@Test
+	public void testOnlyChildrenWithoutLastModifiedAreCheckedKeepingListedOrder()
+			throws Exception {
+		setListedChildren(new ListedChild("checkedModified", null),
+				new ListedChild("listedModified", Instant.parse("2026-03-06T00:00:00Z")),
+				new ListedChild("checkedNotModified", null),
+				new ListedChild("listedNotModified", Instant.parse("2026-03-04T00:00:00Z")),
+				new ListedChild("checkedModified2", null));
+		setUpHandlerWithResponseCode("checkedModified", 200);
+		setUpHandlerWithResponseCode("checkedNotModified", 304);
+		setUpHandlerWithResponseCode("checkedModified2", 200);
+
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+
+		assertEquals(modifiedIds, List.of("checkedModified", "listedModified", "checkedModified2"));
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 3);
+	}
+
+	@Test
+	public void testChildListedMoreThanOnceIsReturnedOnce() throws Exception {
+		setListedChildren(new ListedChild("id1", null),
+				new ListedChild("id1", Instant.parse("2026-03-06T00:00:00Z")));
+		setUpHandlerWithResponseCode("id1", 200);
+
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+
+		assertEquals(modifiedIds, List.of("id1"));
+	}
+
+	@Test
+	public void testChecksIdWithConditionalHeadRequest() throws Exception {
+		setListedIds("id1");
+		HttpHandlerSpy handler = setUpHandlerWithResponseCode("id1", 200);
+
+		finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, RECORD_URL + "id1");
+		handler.MCR.assertParameters("setRequestMethod", 0, "HEAD");
+		handler.MCR.assertParameters("setRequestProperty", 0, "If-Modified-Since",
+				"Thu, 05 Mar 2026 10:15:29 GMT");
+		handler.MCR.assertMethodNotCalled("getResponseText");
+		handler.MCR.assertMethodNotCalled("getResponseBinary");
+	}
+
+	private void setListedIds(String... ids) {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamChildrenWithLastModified",
+				() -> Stream.of(ids).map(id -> new ListedChild(id, null)));
+	}
+
+	private HttpHandlerSpy setUpHandlerWithResponseCode(String id, int responseCode) {
+		HttpHandlerSpy handler = new HttpHandlerSpy();
+		handler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> responseCode);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> handler,
+				RECORD_URL + id);
+		return handler;
+	}
+
+	@Test
+	public void testOnlyModifiedIdsAreReturnedInListedOrder() throws Exception {
+		setListedIds("modified1", "notModified", "removed", "modified2");
+		setUpHandlerWithResponseCode("modified1", 200);
+		setUpHandlerWithResponseCode("notModified", 304);
+		setUpHandlerWithResponseCode("removed", 404);
+		setUpHandlerWithResponseCode("modified2", 200);
+
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 3);
+
+		assertEquals(modifiedIds, List.of("modified1", "modified2"));
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", 4);
+	}
+
+	@Test
+	public void testIdsAreCheckedInBatches() throws Exception {
+		int numberOfIds = ModifiedIdFinder.CHECK_BATCH_SIZE + 1;
+		List<String> ids = IntStream.range(0, numberOfIds).mapToObj(i -> "id" + i).toList();
+		AtomicBoolean closed = new AtomicBoolean(false);
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamChildrenWithLastModified",
+				() -> ids.stream().map(id -> new ListedChild(id, null))
+						.onClose(() -> closed.set(true)));
+
+		List<String> modifiedIds = finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 4);
+
+		assertEquals(modifiedIds, ids);
+		httpHandlerFactory.MCR.assertNumberOfCallsToMethod("factor", numberOfIds);
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void testErrorFromFedora() throws Exception {
+		setListedIds("id1", "id2");
+		setUpHandlerWithResponseCode("id2", 500);
+
+		try {
+			finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error checking modification in Fedora of id id2 in "
+					+ "dataDivider someDataDivider failed due to error 500 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testErrorOnHttpHandler() throws Exception {
+		setListedIds("id1");
+		httpHandlerFactory.MRV.setAlwaysThrowException("factor",
+				new RuntimeException("errorFromSpy"));
+
+		try {
+			finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error checking modification of id id1 in dataDivider "
+					+ "someDataDivider. An internal error has been thrown.");
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testListingErrorIsThrown() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromSpy");
+		containerLister.MRV.setAlwaysThrowException("streamChildrenWithLastModified", error);
+
+		try {
+			finder.findIdsModifiedSince(DATA_DIVIDER, SINCE, 2);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e, error);
+		}
+	}
+}
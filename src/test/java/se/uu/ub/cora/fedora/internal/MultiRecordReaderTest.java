@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+
+public class MultiRecordReaderTest {
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testNoRecordIds() throws Exception {
+		ReadRecordsResult result = MultiRecordReader.readRecords(batchExecutor, List.of(), 2,
+				recordId -> "<" + recordId + "/>");
+
+		assertTrue(result.records().isEmpty());
+		assertTrue(result.missingIds().isEmpty());
+	}
+
+	@Test
+	public void testFoundAndMissingRecords() throws Exception {
+		ReadRecordsResult result = MultiRecordReader.readRecords(batchExecutor, 
+				List.of("id1", "missingId", "id2"), 2, this::readRecordOrThrowNotFound);
+
+		assertEquals(result.records(), Map.of("id1", "<id1/>", "id2", "<id2/>"));
+		assertEquals(result.missingIds(), Set.of("missingId"));
+	}
+
+	private String readRecordOrThrowNotFound(String recordId) {
+		if (recordId.startsWith("missing")) {
+			throw FedoraNotFoundException.withMessage("not found " + recordId);
+		}
+		return "<" + recordId + "/>";
+	}
+
+	@Test
+	public void testEachRecordIdIsOnlyReadOnce() throws Exception {
+		List<String> readIds = Collections.synchronizedList(new ArrayList<>());
+
+		ReadRecordsResult result = MultiRecordReader.readRecords(batchExecutor, 
+				List.of("id1", "id1", "missingId", "missingId"), 2, recordId -> {
+					readIds.add(recordId);
+					return readRecordOrThrowNotFound(recordId);
+				});
+
+		assertEquals(readIds.size(), 2);
+		assertEquals(result.records(), Map.of("id1", "<id1/>"));
+		assertEquals(result.missingIds(), Set.of("missingId"));
+	}
+
+	@Test
+	public void testOtherErrorIsThrownAfterAllRecordsHaveBeenRead() throws Exception {
+		RuntimeException error = new RuntimeException("errorFromReader");
+		List<String> readIds = Collections.synchronizedList(new ArrayList<>());
+
+		try {
+			MultiRecordReader.readRecords(batchExecutor, List.of("errorId", "id1", "id2"), 1,
+					recordId -> {
+						readIds.add(recordId);
+						if ("errorId".equals(recordId)) {
+							throw error;
+						}
+						return "<" + recordId + "/>";
+					});
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e, error);
+		}
+		assertEquals(readIds, List.of("errorId", "id1", "id2"));
+	}
+
+	@Test
+	public void testRecordsAreReadInParallel() throws Exception {
+		CountDownLatch allReading = new CountDownLatch(3);
+
+		ReadRecordsResult result = MultiRecordReader.readRecords(batchExecutor,
+				List.of("id1", "id2", "id3"), 3, recordId -> {
+					allReading.countDown();
+					return Boolean.toString(awaitLatch(allReading));
+				});
+
+		assertEquals(result.records(), Map.of("id1", "true", "id2", "true", "id3", "true"));
+	}
+
+	private boolean awaitLatch(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.spy.JsonObjectSpy;
+import se.uu.ub.cora.fedora.spy.JsonParserSpy;
+import se.uu.ub.cora.fedora.spy.JsonStringSpy;
+
+public class NdjsonImportSourceTest {
+	private Path ndjsonFile;
+	private JsonParserSpy jsonParser;
+	private NdjsonImportSource source;
+	private List<String> itemsRead;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		ndjsonFile = Files.createTempFile("ndjsonImportSourceTest", ".ndjson");
+		jsonParser = new JsonParserSpy();
+		source = new NdjsonImportSource(ndjsonFile, jsonParser);
+		itemsRead = new ArrayList<>();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		Files.delete(ndjsonFile);
+	}
+
+	@Test
+	public void testEachLineIsARecordItem() throws Exception {
+		Files.writeString(ndjsonFile, "line1\n\nline2\nline3\n");
+		setParsedLine("line1", "id1", "<record1/>");
+		setParsedLine("line2", "unwantedId", "<unwanted/>");
+		setParsedLine("line3", "id3", "<record3/>");
+
+		source.forEachItem(id -> !id.startsWith("unwanted"), item -> itemsRead
+				.add(item.id() + "=" + new String(item.content(), StandardCharsets.UTF_8)));
+
+		assertEquals(itemsRead, List.of("id1=<record1/>", "id3=<record3/>"));
+		jsonParser.MCR.assertNumberOfCallsToMethod("parseStringAsObject", 3);
+	}
+
+	private void setParsedLine(String line, String id, String recordXml) {
+		JsonObjectSpy recordObject = new JsonObjectSpy();
+		recordObject.MRV.setSpecificReturnValuesSupplier("getValueAsJsonString",
+				() -> createJsonString(id), "id");
+		recordObject.MRV.setSpecificReturnValuesSupplier("getValueAsJsonString",
+				() -> createJsonString(recordXml), "recordXml");
+		jsonParser.MRV.setSpecificReturnValuesSupplier("parseStringAsObject", () -> recordObject,
+				line);
+	}
+
+	private JsonStringSpy createJsonString(String value) {
+		JsonStringSpy jsonString = new JsonStringSpy();
+		jsonString.MRV.setDefaultReturnValuesSupplier("getStringValue", () -> value);
+		return jsonString;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+public class OrderedPrefetcherTest {
+
+	@Test
+	public void testNoItems() throws Exception {
+		List<String> consumed = new ArrayList<>();
+
+		OrderedPrefetcher.forEachInOrder(List.of().iterator(), 2, item -> "fetched" + item,
+				consumed::add, consumed::add);
+
+		assertTrue(consumed.isEmpty());
+	}
+
+	@Test
+	public void testResultsAreConsumedInItemOrder() throws Exception {
+		List<Integer> items = IntStream.range(0, 20).boxed().toList();
+		List<String> consumed = new ArrayList<>();
+
+		OrderedPrefetcher.forEachInOrder(items.iterator(), 4, this::fetchSlowerForLowerItems,
+				consumed::add, result -> fail("nothing should be discarded"));
+
+		assertEquals(consumed, items.stream().map(item -> "fetched" + item).toList());
+	}
+
+	private String fetchSlowerForLowerItems(int item) {
+		sleep(20 - item);
+		return "fetched" + item;
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testItemsAreFetchedInParallel() throws Exception {
+		CountDownLatch allFetching = new CountDownLatch(3);
+		List<Boolean> consumed = new ArrayList<>();
+
+		OrderedPrefetcher.forEachInOrder(List.of(1, 2, 3).iterator(), 3, item -> {
+			allFetching.countDown();
+			return awaitLatch(allFetching);
+		}, consumed::add, result -> {
+		});
+
+		assertEquals(consumed, List.of(true, true, true));
+	}
+
+	private boolean awaitLatch(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Test
+	public void testOnlyALimitedNumberOfItemsAreFetchedAhead() throws Exception {
+		List<Integer> items = IntStream.range(0, 50).boxed().toList();
+		AtomicInteger fetched = new AtomicInteger();
+		List<Integer> fetchedAheadWhenConsuming = new ArrayList<>();
+
+		OrderedPrefetcher.forEachInOrder(items.iterator(), 2, item -> {
+			fetched.incrementAndGet();
+			return item;
+		}, item -> fetchedAheadWhenConsuming.add(fetched.get() - item), item -> {
+		});
+
+		assertEquals(fetchedAheadWhenConsuming.size(), 50);
+		assertTrue(fetchedAheadWhenConsuming.stream().allMatch(ahead -> ahead <= 5),
+				fetchedAheadWhenConsuming.toString());
+	}
+
+	@Test
+	public void testItemsAreTakenFromIteratorAsTheyAreNeeded() throws Exception {
+		AtomicInteger taken = new AtomicInteger();
+		Iterator<Integer> items = IntStream.range(0, 50).boxed()
+				.peek(item -> taken.incrementAndGet()).iterator();
+		List<Integer> takenAheadWhenConsuming = new ArrayList<>();
+
+		OrderedPrefetcher.forEachInOrder(items, 2, item -> item,
+				item -> takenAheadWhenConsuming.add(taken.get() - item), item -> {
+				});
+
+		assertEquals(takenAheadWhenConsuming.size(), 50);
+		assertTrue(takenAheadWhenConsuming.stream().allMatch(ahead -> ahead <= 5),
+				takenAheadWhenConsuming.toString());
+	}
+
+	@Test
+	public void testFetchedResultsAreDiscardedWhenConsumerFails() throws Exception {
+		RuntimeException error = new RuntimeException("errorFromConsumer");
+		List<String> discarded = Collections.synchronizedList(new ArrayList<>());
+
+		try {
+			OrderedPrefetcher.forEachInOrder(List.of(1, 2, 3, 4, 5, 6).iterator(), 2,
+					item -> "fetched" + item, result -> {
+						if ("fetched2".equals(result)) {
+							throw error;
+						}
+					}, discarded::add);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertSame(e, error);
+		}
+		assertEquals(discarded, List.of("fetched3", "fetched4", "fetched5", "fetched6"));
+	}
+
+	@Test
+	public void testFetchThatThrowsFailsPrefetch() throws Exception {
+		RuntimeException error = new RuntimeException("errorFromFetch");
+
+		try {
+			OrderedPrefetcher.forEachInOrder(List.of(1).iterator(), 2, item -> {
+				throw error;
+			}, result -> {
+			}, result -> {
+			});
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Prefetch failed");
+			assertTrue(e.getCause() instanceof ExecutionException);
+			assertSame(e.getCause().getCause(), error);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+
+public class ParallelBatchTest {
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testEmptyBatch() throws Exception {
+		List<String> results = ParallelBatch.runInParallel(batchExecutor, List.<String> of(), 4,
+				item -> item + "Result");
+
+		assertTrue(results.isEmpty());
+	}
+
+	@Test
+	public void testResultsAreInItemOrder() throws Exception {
+		List<String> results = ParallelBatch.runInParallel(batchExecutor,
+				List.of("a", "b", "c", "d"), 3, item -> item + "Result");
+
+		assertEquals(results, List.of("aResult", "bResult", "cResult", "dResult"));
+	}
+
+	@Test
+	public void testTasksRunInParallelUpToMaxParallelism() throws Exception {
+		CountDownLatch allStarted = new CountDownLatch(2);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		ParallelBatch.runInParallel(batchExecutor, List.of("a", "b", "c", "d", "e"), 2, item -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			allStarted.countDown();
+			awaitLatch(allStarted);
+			inFlight.decrementAndGet();
+			return item;
+		});
+
+		assertEquals(maxInFlight.get(), 2);
+	}
+
+	private void awaitLatch(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testMaxParallelismIsAtLeastOne() throws Exception {
+		List<String> results = ParallelBatch.runInParallel(batchExecutor, List.of("a"), 0,
+				item -> item);
+
+		assertEquals(results, List.of("a"));
+	}
+
+	@Test
+	public void testTaskThrowingFailsBatch() throws Exception {
+		try {
+			ParallelBatch.runInParallel(batchExecutor, List.of("a", "b"), 2, item -> {
+				throw new RuntimeException("errorFromTask");
+			});
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Batch failed");
+			assertEquals(e.getCause().getMessage(), "errorFromTask");
+		}
+	}
+
+	@Test
+	public void testOnlyHelpersThatAreNeededAreStarted() throws Exception {
+		List<Runnable> helpers = new ArrayList<>();
+
+		ParallelBatch.runInParallel(helpers::add, List.of("a", "b"), 4, item -> item);
+
+		assertEquals(helpers.size(), 1);
+	}
+
+	@Test
+	public void testCallingThreadHandlesAllItemsWhenExecutorRejectsHelpers() throws Exception {
+		Thread callingThread = Thread.currentThread();
+		List<Thread> threads = new ArrayList<>();
+
+		List<String> results = ParallelBatch.runInParallel(runnable -> {
+			throw new RejectedExecutionException();
+		}, List.of("a", "b", "c"), 3, item -> {
+			threads.add(Thread.currentThread());
+			return item + "Result";
+		});
+
+		assertEquals(results, List.of("aResult", "bResult", "cResult"));
+		assertEquals(threads, List.of(callingThread, callingThread, callingThread));
+	}
+
+	@Test
+	public void testNestedBatchesFinishWhenExecutorHasNoFreeThreads() throws Exception {
+		ThreadPoolExecutor oneThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new SynchronousQueue<>());
+		try {
+			List<List<String>> results = ParallelBatch.runInParallel(oneThread,
+					List.of("a", "b"), 2, item -> ParallelBatch.runInParallel(oneThread,
+							List.of(item + "1", item + "2"), 2, innerItem -> innerItem));
+
+			assertEquals(results, List.of(List.of("a1", "a2"), List.of("b1", "b2")));
+		} finally {
+			oneThread.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testItemsAreNotStartedAfterTaskHasThrown() throws Exception {
+		List<String> startedItems = new ArrayList<>();
+
+		try {
+			ParallelBatch.runInParallel(batchExecutor, List.of("a", "b", "c"), 1, item -> {
+				startedItems.add(item);
+				throw new RuntimeException("errorFromTask");
+			});
+			fail("It should throw an exception");
+		} catch (FedoraException e) {
+			assertEquals(startedItems, List.of("a"));
+		}
+	}
+}
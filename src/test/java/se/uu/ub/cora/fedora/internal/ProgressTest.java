@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ProgressTest {
+	private List<String> progressCalls;
+	private Progress progress;
+
+	@BeforeMethod
+	public void setUp() {
+		progressCalls = Collections.synchronizedList(new ArrayList<>());
+		progress = new Progress((handled, total) -> progressCalls.add(handled + "/" + total), 2);
+	}
+
+	@Test
+	public void testItemHandledNotifiesListener() throws Exception {
+		progress.itemHandled();
+		progress.itemHandled();
+
+		assertEquals(progressCalls, List.of("1/2", "2/2"));
+	}
+
+	@Test
+	public void testItemListedAddsToNumberOfItems() throws Exception {
+		progress = new Progress((handled, total) -> progressCalls.add(handled + "/" + total), 0);
+
+		progress.itemListed();
+		progress.itemListed();
+		progress.itemHandled();
+		progress.itemListed();
+
+		assertEquals(progress.getNumberOfItems(), 3);
+		assertEquals(progressCalls, List.of("1/2"));
+	}
+
+	@Test
+	public void testItemsHandledFromSeveralThreadsAreCountedInOrder() throws Exception {
+		List<Thread> threads = new ArrayList<>();
+		progress = new Progress((handled, total) -> progressCalls.add(handled + "/" + total),
+				400);
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(this::handleHundredItems));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(progressCalls.size(), 400);
+		for (int i = 0; i < 400; i++) {
+			assertEquals(progressCalls.get(i), (i + 1) + "/400");
+		}
+	}
+
+	private void handleHundredItems() {
+		for (int i = 0; i < 100; i++) {
+			progress.itemHandled();
+		}
+	}
+}
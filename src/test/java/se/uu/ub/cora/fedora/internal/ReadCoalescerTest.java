@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+
+public class ReadCoalescerTest {
+	private static final int NUMBER_OF_WAITING_READS = 5;
+	private ReadCoalescerImp coalescer;
+	private ExecutorService executor;
+	private AtomicInteger numberOfReads;
+	private CountDownLatch readStarted;
+	private CountDownLatch releaseRead;
+
+	@BeforeMethod
+	public void setUp() {
+		coalescer = new ReadCoalescerImp();
+		executor = Executors.newFixedThreadPool(NUMBER_OF_WAITING_READS + 1);
+		numberOfReads = new AtomicInteger();
+		readStarted = new CountDownLatch(1);
+		releaseRead = new CountDownLatch(1);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testReadReturnsResultFromReader() throws Exception {
+		String result = coalescer.read("someKey", () -> "someResult");
+
+		assertEquals(result, "someResult");
+		assertEquals(coalescer.onlyForTestGetNumberOfReadsInFlight(), 0);
+	}
+
+	@Test
+	public void testSequentialReadsAreNotCoalesced() throws Exception {
+		coalescer.read("someKey", this::countRead);
+		coalescer.read("someKey", this::countRead);
+
+		assertEquals(numberOfReads.get(), 2);
+	}
+
+	private String countRead() {
+		return "read" + numberOfReads.incrementAndGet();
+	}
+
+	@Test
+	public void testConcurrentReadsWithSameKeyShareOneRead() throws Exception {
+		Future<String> firstRead = executor
+				.submit(() -> coalescer.read("someKey", this::blockingRead));
+		readStarted.await(5, TimeUnit.SECONDS);
+		List<Future<String>> waitingReads = startWaitingReads("someKey", this::countRead);
+		waitUntilAllReadsAreWaiting();
+
+		releaseRead.countDown();
+
+		assertEquals(firstRead.get(5, TimeUnit.SECONDS), "read1");
+		for (Future<String> waitingRead : waitingReads) {
+			assertEquals(waitingRead.get(5, TimeUnit.SECONDS), "read1");
+		}
+		assertEquals(numberOfReads.get(), 1);
+		assertEquals(coalescer.onlyForTestGetNumberOfReadsInFlight(), 0);
+	}
+
+	private String blockingRead() {
+		readStarted.countDown();
+		awaitRelease();
+		return countRead();
+	}
+
+	private void awaitRelease() {
+		try {
+			releaseRead.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private List<Future<String>> startWaitingReads(String key,
+			Supplier<String> reader) {
+		List<Future<String>> waitingReads = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_WAITING_READS; i++) {
+			waitingReads.add(executor.submit(() -> coalescer.read(key, reader)));
+		}
+		return waitingReads;
+	}
+
+	private void waitUntilAllReadsAreWaiting() throws InterruptedException {
+		Thread.sleep(100);
+	}
+
+	@Test
+	public void testConcurrentReadsWithDifferentKeysAreNotCoalesced() throws Exception {
+		Future<String> firstRead = executor
+				.submit(() -> coalescer.read("someKey", this::blockingRead));
+		readStarted.await(5, TimeUnit.SECONDS);
+
+		String otherResult = coalescer.read("someOtherKey", this::countRead);
+		releaseRead.countDown();
+
+		assertEquals(otherResult, "read1");
+		assertEquals(firstRead.get(5, TimeUnit.SECONDS), "read2");
+		assertEquals(numberOfReads.get(), 2);
+	}
+
+	@Test
+	public void testExceptionFromReadIsThrownToAllWaitingReads() throws Exception {
+		FedoraNotFoundException notFound = FedoraNotFoundException.withMessage("someMessage");
+		Future<String> firstRead = executor.submit(() -> coalescer.read("someKey", () -> {
+			blockingRead();
+			throw notFound;
+		}));
+		readStarted.await(5, TimeUnit.SECONDS);
+		List<Future<String>> waitingReads = startWaitingReads("someKey", this::countRead);
+		waitUntilAllReadsAreWaiting();
+
+		releaseRead.countDown();
+
+		assertReadThrew(firstRead, notFound);
+		for (Future<String> waitingRead : waitingReads) {
+			assertReadThrew(waitingRead, notFound);
+		}
+		assertEquals(numberOfReads.get(), 1);
+		assertEquals(coalescer.onlyForTestGetNumberOfReadsInFlight(), 0);
+	}
+
+	private void assertReadThrew(Future<String> read, Exception expected) throws Exception {
+		try {
+			read.get(5, TimeUnit.SECONDS);
+			fail("It should throw an exception");
+		} catch (ExecutionException e) {
+			assertSame(e.getCause(), expected);
+		}
+	}
+
+	@Test
+	public void testReadIsPossibleAgainAfterException() throws Exception {
+		try {
+			coalescer.read("someKey", () -> {
+				throw new RuntimeException("someError");
+			});
+			fail("It should throw an exception");
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "someError");
+		}
+
+		String result = coalescer.read("someKey", () -> "someResult");
+
+		assertEquals(result, "someResult");
+		assertEquals(coalescer.onlyForTestGetNumberOfReadsInFlight(), 0);
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022 Uppsala University Library
+ * Copyright 2022, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -27,7 +27,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -42,14 +45,23 @@ public class RealFedoraTest {
 	private FedoraAdapter fedora;
 	private String baseUrl;
 
+	private ExecutorService batchExecutor;
+
 	@BeforeMethod
 	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
 		baseUrl = "http://systemone-fedora:8080/fcrepo/rest/";
 		httpHandlerFactory = new HttpHandlerFactoryImp();
 		OrgJsonParser orgJsonParser = new OrgJsonParser();
 		ResourceMetadataParserImp resourceMetadataParser = ResourceMetadataParserImp
 				.usingJsonParser(orgJsonParser);
-		fedora = new FedoraAdapterImp(httpHandlerFactory, baseUrl, resourceMetadataParser);
+		fedora = new FedoraAdapterImp(httpHandlerFactory, baseUrl, resourceMetadataParser,
+				new ReadCoalescerImp(), new FileUploaderImp(), batchExecutor);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
 	}
 
 	@Test(enabled = false)
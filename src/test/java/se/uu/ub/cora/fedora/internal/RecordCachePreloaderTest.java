@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.cache.PreloadReport;
+import se.uu.ub.cora.fedora.spy.ContainerListerSpy;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+
+public class RecordCachePreloaderTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private ContainerListerSpy containerLister;
+	private RecordCachePreloaderImp preloader;
+	private List<String> progressCalls;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new FedoraAdapterSpy();
+		containerLister = new ContainerListerSpy();
+		preloader = new RecordCachePreloaderImp(fedoraAdapter, containerLister, 2);
+		progressCalls = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	private PreloadReport preload() {
+		return preloader.preload(DATA_DIVIDER,
+				(handled, total) -> progressCalls.add(handled + "/" + total));
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertEquals(preloader.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertEquals(preloader.onlyForTestGetContainerLister(), containerLister);
+		assertEquals(preloader.onlyForTestGetMaxParallelReads(), 2);
+	}
+
+	@Test
+	public void testPreloadEmptyDataDivider() throws Exception {
+		PreloadReport report = preload();
+
+		containerLister.MCR.assertParameters("streamRecordIds", 0, DATA_DIVIDER);
+		containerLister.MCR.assertMethodNotCalled("listIds");
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecord");
+		assertEquals(report.dataDivider(), DATA_DIVIDER);
+		assertEquals(report.numberOfRecords(), 0);
+		assertEquals(report.numberOfPreloadedRecords(), 0);
+		assertTrue(report.failedRecordIds().isEmpty());
+		assertTrue(progressCalls.isEmpty());
+	}
+
+	@Test
+	public void testPreloadReadsAllListedRecords() throws Exception {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2", "id3"));
+
+		PreloadReport report = preload();
+
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readRecord", 3);
+		List<String> readIds = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(fedoraAdapter.MCR.getValueForMethodNameAndCallNumberAndParameterName(
+					"readRecord", i, "dataDivider"), DATA_DIVIDER);
+			readIds.add((String) fedoraAdapter.MCR
+					.getValueForMethodNameAndCallNumberAndParameterName("readRecord", i,
+							"recordId"));
+		}
+		Collections.sort(readIds);
+		assertEquals(readIds, List.of("id1", "id2", "id3"));
+		assertEquals(report.numberOfRecords(), 3);
+		assertEquals(report.numberOfPreloadedRecords(), 3);
+		assertTrue(report.failedRecordIds().isEmpty());
+		assertTrue(report.duration().toNanos() >= 0);
+	}
+
+	@Test
+	public void testPreloadReportsProgressInOrder() throws Exception {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2", "id3"));
+
+		preload();
+
+		assertEquals(progressCalls, List.of("1/3", "2/3", "3/3"));
+	}
+
+	@Test
+	public void testPreloadReportsRecordsListedSoFarAsRecordsAreReadWhileListing()
+			throws Exception {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2", "id3", "id4"));
+		preloader = new RecordCachePreloaderImp(fedoraAdapter, containerLister, 1);
+
+		PreloadReport report = preload();
+
+		assertEquals(progressCalls, List.of("1/3", "2/4", "3/4", "4/4"));
+		assertEquals(report.numberOfRecords(), 4);
+	}
+
+	@Test
+	public void testPreloadClosesListing() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean(false);
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2").onClose(() -> closed.set(true)));
+
+		preload();
+
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void testPreloadClosesListingOnError() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean(false);
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2").onClose(() -> closed.set(true)));
+
+		try {
+			preloader.preload(DATA_DIVIDER, (handled, total) -> {
+				throw new RuntimeException("errorFromListener");
+			});
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "errorFromListener");
+			assertTrue(closed.get());
+		}
+	}
+
+	@Test
+	public void testPreloadReportsFailedRecordsInListedOrder() throws Exception {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2", "id3", "id4"));
+		fedoraAdapter.MRV.setThrowException("readRecord",
+				FedoraNotFoundException.withMessage("notFound"), DATA_DIVIDER, "id3");
+		fedoraAdapter.MRV.setThrowException("readRecord", FedoraException.withMessage("error"),
+				DATA_DIVIDER, "id1");
+
+		PreloadReport report = preload();
+
+		assertEquals(report.numberOfRecords(), 4);
+		assertEquals(report.numberOfPreloadedRecords(), 2);
+		assertEquals(report.failedRecordIds(), List.of("id1", "id3"));
+		assertEquals(progressCalls.size(), 4);
+	}
+
+	@Test
+	public void testPreloadListingErrorIsThrown() throws Exception {
+		containerLister.MRV.setAlwaysThrowException("streamRecordIds",
+				FedoraException.withMessage("listingError"));
+
+		try {
+			preload();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "listingError");
+			fedoraAdapter.MCR.assertMethodNotCalled("readRecord");
+		}
+	}
+
+	@Test
+	public void testPreloadReadsInParallelUpToMaxParallelReads() throws Exception {
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("id1", "id2", "id3", "id4"));
+		BlockingFedoraAdapterSpy blockingAdapter = new BlockingFedoraAdapterSpy(2);
+		preloader = new RecordCachePreloaderImp(blockingAdapter, containerLister, 2);
+
+		PreloadReport report = preload();
+
+		assertEquals(blockingAdapter.maxInFlight.get(), 2);
+		assertEquals(report.numberOfPreloadedRecords(), 4);
+	}
+
+	private static class BlockingFedoraAdapterSpy extends FedoraAdapterSpy {
+		private CountDownLatch allStarted;
+		private AtomicInteger inFlight = new AtomicInteger();
+		private AtomicInteger maxInFlight = new AtomicInteger();
+
+		BlockingFedoraAdapterSpy(int numberOfReadsToWaitFor) {
+			allStarted = new CountDownLatch(numberOfReadsToWaitFor);
+		}
+
+		@Override
+		public String readRecord(String dataDivider, String recordId) {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			allStarted.countDown();
+			awaitAllStarted();
+			inFlight.decrementAndGet();
+			return super.readRecord(dataDivider, recordId);
+		}
+
+		private void awaitAllStarted() {
+			try {
+				allStarted.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RecordCacheVersionsTest {
+	private static final String KEY = "someDataDivider:someId";
+	private RecordCacheVersions versions;
+	private AtomicBoolean ran;
+
+	@BeforeMethod
+	public void setUp() {
+		versions = new RecordCacheVersions();
+		ran = new AtomicBoolean(false);
+	}
+
+	@Test
+	public void testRunIfUnchangedRunsWhenKeyIsUnchanged() {
+		long version = versions.getVersion(KEY);
+
+		versions.runIfUnchanged(KEY, version, () -> ran.set(true));
+
+		assertTrue(ran.get());
+	}
+
+	@Test
+	public void testChangeAndRunRunsAndChangesVersion() {
+		long version = versions.getVersion(KEY);
+
+		versions.changeAndRun(KEY, () -> ran.set(true));
+
+		assertTrue(ran.get());
+		assertEquals(versions.getVersion(KEY), version + 1);
+	}
+
+	@Test
+	public void testRunIfUnchangedDoesNotRunWhenKeyIsChanged() {
+		long version = versions.getVersion(KEY);
+		versions.changeAndRun(KEY, () -> {
+		});
+
+		versions.runIfUnchanged(KEY, version, () -> ran.set(true));
+
+		assertFalse(ran.get());
+	}
+
+	@Test
+	public void testRunIfUnchangedRunsForVersionReadAfterChange() {
+		versions.changeAndRun(KEY, () -> {
+		});
+		long version = versions.getVersion(KEY);
+
+		versions.runIfUnchanged(KEY, version, () -> ran.set(true));
+
+		assertTrue(ran.get());
+	}
+
+	@Test
+	public void testEachInstanceHasItsOwnVersions() {
+		long version = versions.getVersion(KEY);
+		new RecordCacheVersions().changeAndRun(KEY, () -> {
+		});
+
+		versions.runIfUnchanged(KEY, version, () -> ran.set(true));
+
+		assertTrue(ran.get());
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.bulk.PublishedRecord;
+import se.uu.ub.cora.fedora.bulk.PublishedResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.spy.ContainerListerSpy;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+
+public class RecordPublisherTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private ContainerListerSpy containerLister;
+	private RecordPublisherImp recordPublisher;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new FedoraAdapterSpy();
+		containerLister = new ContainerListerSpy();
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamRecordIds",
+				() -> Stream.of("someRecordId"));
+		containerLister.MRV.setDefaultReturnValuesSupplier("streamResourceIds",
+				() -> Stream.of("someResourceId"));
+		recordPublisher = new RecordPublisherImp(fedoraAdapter, containerLister, 3);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(recordPublisher.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertSame(recordPublisher.onlyForTestGetContainerLister(), containerLister);
+		assertEquals(recordPublisher.onlyForTestGetMaxParallelReads(), 3);
+	}
+
+	@Test
+	public void testPublishersUseMaxParallelReads() throws Exception {
+		var publisher = (FedoraItemPublisher<PublishedRecord>) recordPublisher
+				.publishRecords(DATA_DIVIDER);
+
+		assertEquals(publisher.onlyForTestGetMaxInFlight(), 3);
+	}
+
+	@Test
+	public void testPublishRecordsForDataDivider() throws Exception {
+		List<PublishedRecord> published = collectAll(recordPublisher.publishRecords(DATA_DIVIDER));
+
+		containerLister.MCR.assertParameters("streamRecordIds", 0, DATA_DIVIDER);
+		containerLister.MCR.assertMethodNotCalled("streamResourceIds");
+		fedoraAdapter.MCR.assertMethodNotCalled("listIds");
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readRecord", 1);
+		fedoraAdapter.MCR.assertParameters("readRecord", 0, DATA_DIVIDER, "someRecordId");
+		assertEquals(published,
+				List.of(new PublishedRecord("someRecordId", "someRecordXmlFromSpy")));
+	}
+
+	@Test
+	public void testPublishRecordsForIds() throws Exception {
+		List<PublishedRecord> published = collectAll(
+				recordPublisher.publishRecords(DATA_DIVIDER, List.of("id2")));
+
+		containerLister.MCR.assertMethodNotCalled("streamRecordIds");
+		fedoraAdapter.MCR.assertParameters("readRecord", 0, DATA_DIVIDER, "id2");
+		assertEquals(published, List.of(new PublishedRecord("id2", "someRecordXmlFromSpy")));
+	}
+
+	@Test
+	public void testPublishResourcesMetadataForDataDivider() throws Exception {
+		List<PublishedResourceMetadata> published = collectAll(
+				recordPublisher.publishResourcesMetadata(DATA_DIVIDER));
+
+		containerLister.MCR.assertParameters("streamResourceIds", 0, DATA_DIVIDER);
+		containerLister.MCR.assertMethodNotCalled("streamRecordIds");
+		fedoraAdapter.MCR.assertMethodNotCalled("listIds");
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readResourceMetadata", 1);
+		fedoraAdapter.MCR.assertParameters("readResourceMetadata", 0, DATA_DIVIDER,
+				"someResourceId");
+		var resourceMetadata = (ResourceMetadata) fedoraAdapter.MCR
+				.getReturnValue("readResourceMetadata", 0);
+		assertEquals(published,
+				List.of(new PublishedResourceMetadata("someResourceId", resourceMetadata)));
+	}
+
+	@Test
+	public void testPublishResourcesMetadataForIds() throws Exception {
+		List<PublishedResourceMetadata> published = collectAll(
+				recordPublisher.publishResourcesMetadata(DATA_DIVIDER, List.of("id2")));
+
+		containerLister.MCR.assertMethodNotCalled("streamResourceIds");
+		fedoraAdapter.MCR.assertParameters("readResourceMetadata", 0, DATA_DIVIDER, "id2");
+		var resourceMetadata = (ResourceMetadata) fedoraAdapter.MCR
+				.getReturnValue("readResourceMetadata", 0);
+		assertEquals(published, List.of(new PublishedResourceMetadata("id2", resourceMetadata)));
+	}
+
+	private <T> List<T> collectAll(Flow.Publisher<T> publisher) throws InterruptedException {
+		List<T> items = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch completed = new CountDownLatch(1);
+		publisher.subscribe(new Flow.Subscriber<T>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(T item) {
+				items.add(item);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				throw new AssertionError(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		assertTrue(completed.await(5, TimeUnit.SECONDS));
+		return items;
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.FedoraFixityException;
+import se.uu.ub.cora.fedora.FedoraNotFoundException;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+
+public class ResourceDownloaderTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String RESOURCE_ID = "someResourceId";
+
+	private FedoraAdapterSpy fedoraAdapter;
+	private ResourceDownloader downloader;
+	private Path target;
+	private byte[] content;
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		batchExecutor = Executors.newCachedThreadPool();
+		fedoraAdapter = new FedoraAdapterSpy();
+		downloader = new ResourceDownloader(fedoraAdapter, batchExecutor);
+		target = Files.createTempFile("resourceDownloaderTest", ".bin");
+		content = new byte[25];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		batchExecutor.shutdownNow();
+		Files.deleteIfExists(target);
+	}
+
+	@Test
+	public void testDownloadResourceInRanges() throws Exception {
+		ResourceMetadata metadata = setResourceMetadata(content.length, sha512(content));
+		setRange(0, 10);
+		setRange(10, 10);
+		setRange(20, 5);
+
+		ResourceMetadata verifiedMetadata = downloader.download(DATA_DIVIDER, RESOURCE_ID, target,
+				10, 3);
+
+		assertSame(verifiedMetadata, metadata);
+		fedoraAdapter.MCR.assertParameters("readResourceMetadata", 0, DATA_DIVIDER, RESOURCE_ID);
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readResource", 3);
+		fedoraAdapter.MCR.assertCalledParameters("readResource", DATA_DIVIDER, RESOURCE_ID, 0L,
+				10L);
+		fedoraAdapter.MCR.assertCalledParameters("readResource", DATA_DIVIDER, RESOURCE_ID, 10L,
+				10L);
+		fedoraAdapter.MCR.assertCalledParameters("readResource", DATA_DIVIDER, RESOURCE_ID, 20L,
+				5L);
+		assertEquals(Files.readAllBytes(target), content);
+	}
+
+	private ResourceMetadata setResourceMetadata(long fileSize, String checksum) {
+		ResourceMetadata metadata = new ResourceMetadata(String.valueOf(fileSize), checksum);
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readResourceMetadata", () -> metadata);
+		return metadata;
+	}
+
+	private void setRange(long offset, long length) {
+		setRangeWithContent(offset, length, (int) length);
+	}
+
+	private void setRangeWithContent(long offset, long length, int contentLength) {
+		fedoraAdapter.MRV.setSpecificReturnValuesSupplier("readResourceRange",
+				() -> new ResourceRange(
+						new ByteArrayInputStream(content, (int) offset, contentLength), offset,
+						length, content.length),
+				DATA_DIVIDER, RESOURCE_ID, offset, length);
+	}
+
+	private String sha512(byte[] bytes) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512").digest(bytes));
+	}
+
+	@Test
+	public void testRangeSizeLargerThanResourceReadsOneRange() throws Exception {
+		setResourceMetadata(content.length, sha512(content));
+		setRange(0, 25);
+
+		downloader.download(DATA_DIVIDER, RESOURCE_ID, target, Long.MAX_VALUE, 3);
+
+		fedoraAdapter.MCR.assertNumberOfCallsToMethod("readResource", 1);
+		assertEquals(Files.readAllBytes(target), content);
+	}
+
+	@Test
+	public void testChecksumIsComparedIgnoringCase() throws Exception {
+		setResourceMetadata(content.length, sha512(content).toUpperCase());
+		setRange(0, 25);
+
+		downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 25, 1);
+
+		assertEquals(Files.readAllBytes(target), content);
+	}
+
+	@Test
+	public void testDownloadEmptyResource() throws Exception {
+		Files.write(target, content);
+		setResourceMetadata(0, sha512(new byte[0]));
+
+		downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 10, 3);
+
+		fedoraAdapter.MCR.assertMethodNotCalled("readResource");
+		assertEquals(Files.size(target), 0);
+	}
+
+	@Test
+	public void testExistingFileIsOverwritten() throws Exception {
+		Files.write(target, new byte[100]);
+		setResourceMetadata(content.length, sha512(content));
+		setRange(0, 25);
+
+		downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 25, 1);
+
+		assertEquals(Files.readAllBytes(target), content);
+	}
+
+	@Test
+	public void testRangeSizeLessThanOne() throws Exception {
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 0, 3);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error downloading resource id someResourceId: "
+					+ "range size 0 must be at least 1.");
+			fedoraAdapter.MCR.assertMethodNotCalled("readResourceMetadata");
+		}
+	}
+
+	@Test
+	public void testInvalidFileSizeInMetadata() throws Exception {
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("notANumber", "someChecksum"));
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 10, 3);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error downloading resource id someResourceId: "
+					+ "Fedora returned the invalid file size notANumber.");
+			assertTrue(e.getCause() instanceof NumberFormatException);
+			fedoraAdapter.MCR.assertMethodNotCalled("readResource");
+		}
+	}
+
+	@Test
+	public void testResourceNotFound() throws Exception {
+		FedoraNotFoundException notFound = FedoraNotFoundException.withMessage("notFound");
+		fedoraAdapter.MRV.setAlwaysThrowException("readResourceMetadata", notFound);
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 10, 3);
+			fail("It failed");
+		} catch (Exception e) {
+			assertSame(e, notFound);
+			fedoraAdapter.MCR.assertMethodNotCalled("readResource");
+		}
+	}
+
+	@Test
+	public void testChecksumMismatchRemovesFile() throws Exception {
+		setResourceMetadata(content.length, "someOtherChecksum");
+		setRange(0, 25);
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 25, 1);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraFixityException);
+			assertEquals(e.getMessage(), "Error downloading resource id someResourceId: "
+					+ "the downloaded file has checksum " + sha512(content)
+					+ " but Fedora reports checksum someOtherChecksum.");
+			assertFalse(Files.exists(target));
+		}
+	}
+
+	@Test
+	public void testIncompleteRangeRemovesFile() throws Exception {
+		setResourceMetadata(content.length, sha512(content));
+		setRange(0, 10);
+		setRangeWithContent(10, 10, 4);
+		setRange(20, 5);
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 10, 1);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error downloading resource id someResourceId: "
+					+ "range at offset 10 ended after 4 of 10 bytes.");
+			assertFalse(Files.exists(target));
+		}
+	}
+
+	@Test
+	public void testErrorReadingRangeStopsDownload() throws Exception {
+		setResourceMetadata(content.length, sha512(content));
+		FedoraException error = FedoraException.withMessage("someError");
+		fedoraAdapter.MRV.setThrowException("readResourceRange", error, DATA_DIVIDER,
+				RESOURCE_ID, 0L, 10L);
+		setRange(10, 10);
+		setRange(20, 5);
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, target, 10, 1);
+			fail("It failed");
+		} catch (Exception e) {
+			assertSame(e, error);
+			fedoraAdapter.MCR.assertNumberOfCallsToMethod("readResource", 1);
+			assertFalse(Files.exists(target));
+		}
+	}
+
+	@Test
+	public void testErrorOpeningFile() throws Exception {
+		Path missingDirectoryTarget = target.resolveSibling("missingDirectory")
+				.resolve("target.bin");
+		setResourceMetadata(content.length, sha512(content));
+		try {
+			downloader.download(DATA_DIVIDER, RESOURCE_ID, missingDirectoryTarget, 10, 1);
+			fail("It failed");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error downloading resource id someResourceId to file "
+					+ missingDirectoryTarget + ". An internal error has been thrown.");
+			assertTrue(e.getCause() instanceof NoSuchFileException);
+			fedoraAdapter.MCR.assertMethodNotCalled("readResource");
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Uppsala University Library
+ * Copyright 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -20,6 +20,7 @@ package se.uu.ub.cora.fedora.internal;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -116,6 +117,25 @@ public class ResourceMetadataParserTest {
 		assertEquals(metadata.fileSize(), FILESIZE);
 	}
 
+	@Test
+	public void parseMimeTypeTest() throws Exception {
+		String mimeTypeKey = "http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#hasMimeType";
+		surroundingObjectSpy.MRV.setSpecificReturnValuesSupplier("containsKey", () -> true,
+				mimeTypeKey);
+		setUpInnerObjectKeyValue(mimeTypeKey, "@value", "application/octet-stream");
+
+		ResourceMetadata metadata = parser.parse(METADATA_LD_JSON);
+
+		assertEquals(metadata.mimeType(), "application/octet-stream");
+	}
+
+	@Test
+	public void parseWithoutMimeTypeTest() throws Exception {
+		ResourceMetadata metadata = parser.parse(METADATA_LD_JSON);
+
+		assertNull(metadata.mimeType());
+	}
+
 	@Test
 	public void parserOnlyForTestGetJsonParserTest() throws Exception {
 		ResourceMetadataParserImp parserImp = (ResourceMetadataParserImp) parser;
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+
+public class ResourceMetadataSparqlTest {
+
+	@Test
+	public void testCreateUpdateBody() throws Exception {
+		String body = ResourceMetadataSparql.createUpdateBody(
+				new ResourceMetadataToUpdate("someOriginalFileName", "someMimeType"));
+
+		assertEquals(body, """
+				PREFIX ebucore: <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#>
+				INSERT {<> ebucore:filename "someOriginalFileName" \
+				. <> ebucore:hasMimeType "someMimeType" .}
+				WHERE {}
+				""");
+	}
+
+	@Test
+	public void testCreateUpdateBodyEscapesValues() throws Exception {
+		String body = ResourceMetadataSparql.createUpdateBody(
+				new ResourceMetadataToUpdate("a\"b", "c\\d"));
+
+		assertEquals(body, """
+				PREFIX ebucore: <http://www.ebu.ch/metadata/ontologies/ebucore/ebucore#>
+				INSERT {<> ebucore:filename "a\\"b" . <> ebucore:hasMimeType "c\\\\d" .}
+				WHERE {}
+				""");
+	}
+
+	@Test
+	public void testEscapeStringLiteral() throws Exception {
+		assertEquals(ResourceMetadataSparql.escapeStringLiteral("plain {0} åäö"),
+				"plain {0} åäö");
+		assertEquals(ResourceMetadataSparql.escapeStringLiteral("\\\"'\n\r\t\b\f"),
+				"\\\\\\\"\\'\\n\\r\\t\\b\\f");
+	}
+
+	@Test
+	public void testEscapeNullValue() throws Exception {
+		assertEquals(ResourceMetadataSparql.escapeStringLiteral(null), "null");
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class ResumingInputStreamTest {
+	private byte[] content;
+	private List<Long> resumedPositions;
+	private List<InputStream> resumedStreams;
+
+	@BeforeMethod
+	public void setUp() {
+		content = new byte[10];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i + 1);
+		}
+		resumedPositions = new ArrayList<>();
+		resumedStreams = new ArrayList<>();
+	}
+
+	@Test
+	public void testReadWithoutFailureDoesNotResume() throws Exception {
+		ResumingInputStream resumingStream = new ResumingInputStream(
+				new ByteArrayInputStream(content), this::resumeFrom, 3);
+
+		assertEquals(resumingStream.readAllBytes(), content);
+		assertEquals(resumingStream.onlyForTestGetPosition(), 10);
+		assertTrue(resumedPositions.isEmpty());
+	}
+
+	private InputStream resumeFrom(long position) {
+		resumedPositions.add(position);
+		return resumedStreams.remove(0);
+	}
+
+	@Test
+	public void testResumesFromFirstByteNotDelivered() throws Exception {
+		resumedStreams.add(new ByteArrayInputStream(content, 4, 6));
+		ResumingInputStream resumingStream = new ResumingInputStream(failingAfter(0, 4),
+				this::resumeFrom, 3);
+
+		assertEquals(resumingStream.readAllBytes(), content);
+		assertEquals(resumedPositions, List.of(4L));
+	}
+
+	private InputStream failingAfter(int offset, int numberOfBytes) {
+		return new FailingInputStream(new ByteArrayInputStream(content, offset, numberOfBytes));
+	}
+
+	@Test
+	public void testSingleByteReadsResume() throws Exception {
+		resumedStreams.add(new ByteArrayInputStream(content, 2, 8));
+		ResumingInputStream resumingStream = new ResumingInputStream(failingAfter(0, 2),
+				this::resumeFrom, 3);
+
+		ByteArrayOutputStream readBytes = new ByteArrayOutputStream();
+		int read = resumingStream.read();
+		while (read != -1) {
+			readBytes.write(read);
+			read = resumingStream.read();
+		}
+
+		assertEquals(readBytes.toByteArray(), content);
+		assertEquals(resumedPositions, List.of(2L));
+	}
+
+	@Test
+	public void testAttemptsStartOverWhenBytesAreDelivered() throws Exception {
+		resumedStreams.add(failingAfter(3, 3));
+		resumedStreams.add(new ByteArrayInputStream(content, 6, 4));
+		ResumingInputStream resumingStream = new ResumingInputStream(failingAfter(0, 3),
+				this::resumeFrom, 1);
+
+		assertEquals(resumingStream.readAllBytes(), content);
+		assertEquals(resumedPositions, List.of(3L, 6L));
+	}
+
+	@Test
+	public void testGivesUpAfterMaxResumeAttempts() throws Exception {
+		FailingInputStream failingStream = new FailingInputStream(InputStream.nullInputStream());
+		IOException resumeError = new IOException("resumeError");
+		ResumingInputStream resumingStream = new ResumingInputStream(failingStream, position -> {
+			resumedPositions.add(position);
+			throw resumeError;
+		}, 2);
+
+		try {
+			resumingStream.readAllBytes();
+			fail("It failed");
+		} catch (IOException e) {
+			assertSame(e, failingStream.error);
+			assertEquals(e.getSuppressed().length, 2);
+			assertSame(e.getSuppressed()[0], resumeError);
+			assertEquals(resumedPositions, List.of(0L, 0L));
+		}
+	}
+
+	@Test
+	public void testRuntimeExceptionFromResumerEndsResuming() throws Exception {
+		FailingInputStream failingStream = new FailingInputStream(InputStream.nullInputStream());
+		FedoraException changedError = FedoraException.withMessage("changed");
+		ResumingInputStream resumingStream = new ResumingInputStream(failingStream, position -> {
+			resumedPositions.add(position);
+			throw changedError;
+		}, 3);
+
+		try {
+			resumingStream.readAllBytes();
+			fail("It failed");
+		} catch (IOException e) {
+			assertSame(e, failingStream.error);
+			assertEquals(e.getSuppressed().length, 1);
+			assertSame(e.getSuppressed()[0], changedError);
+			assertEquals(resumedPositions, List.of(0L));
+		}
+	}
+
+	@Test
+	public void testNoResumeAttemptsThrowsReadError() throws Exception {
+		FailingInputStream failingStream = new FailingInputStream(InputStream.nullInputStream());
+		ResumingInputStream resumingStream = new ResumingInputStream(failingStream,
+				this::resumeFrom, 0);
+
+		try {
+			resumingStream.readAllBytes();
+			fail("It failed");
+		} catch (IOException e) {
+			assertSame(e, failingStream.error);
+			assertTrue(resumedPositions.isEmpty());
+		}
+	}
+
+	@Test
+	public void testFailedStreamIsClosedBeforeResuming() throws Exception {
+		FailingInputStream failingStream = new FailingInputStream(InputStream.nullInputStream());
+		resumedStreams.add(new ByteArrayInputStream(content));
+		ResumingInputStream resumingStream = new ResumingInputStream(failingStream,
+				this::resumeFrom, 1);
+
+		resumingStream.readAllBytes();
+
+		assertTrue(failingStream.closed);
+	}
+
+	@Test
+	public void testCloseClosesCurrentStream() throws Exception {
+		InputStreamSpy resumedStream = new InputStreamSpy();
+		resumedStreams.add(resumedStream);
+		ResumingInputStream resumingStream = new ResumingInputStream(failingAfter(0, 0),
+				this::resumeFrom, 1);
+		resumingStream.read();
+
+		resumingStream.close();
+
+		resumedStream.MCR.assertMethodWasCalled("close");
+	}
+
+	private static class FailingInputStream extends InputStream {
+		private InputStream delivered;
+		private IOException error = new IOException("connectionReset");
+		private boolean closed = false;
+
+		FailingInputStream(InputStream delivered) {
+			this.delivered = delivered;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = delivered.read();
+			if (read == -1) {
+				throw error;
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = delivered.read(buffer, offset, length);
+			if (read == -1) {
+				throw error;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TarArchiveWriterTest {
+	private static final long MODIFICATION_TIME = 1_700_000_000L;
+
+	private ByteArrayOutputStream outputStream;
+	private TarArchiveWriter tarWriter;
+
+	@BeforeMethod
+	public void setUp() {
+		outputStream = new ByteArrayOutputStream();
+		tarWriter = new TarArchiveWriter(outputStream, MODIFICATION_TIME);
+	}
+
+	@Test
+	public void testFinishWritesTwoEmptyBlocks() throws Exception {
+		tarWriter.finish();
+
+		assertEquals(outputStream.toByteArray(), new byte[1024]);
+	}
+
+	@Test
+	public void testWriteEntryHeader() throws Exception {
+		tarWriter.writeEntry("someName", 5, toStream("hello"));
+
+		byte[] tar = outputStream.toByteArray();
+		assertEquals(readString(tar, 0, 100), "someName");
+		assertEquals(readString(tar, 100, 8), "0000644");
+		assertEquals(readString(tar, 124, 12), "00000000005");
+		assertEquals(Long.parseLong(readString(tar, 136, 12), 8), MODIFICATION_TIME);
+		assertEquals(tar[156], (byte) '0');
+		assertEquals(readString(tar, 257, 6), "ustar");
+		assertEquals(readString(tar, 263, 2), "00");
+		assertEquals(Long.parseLong(readString(tar, 148, 8).trim(), 8), calculateChecksum(tar));
+	}
+
+	private InputStream toStream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String readString(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0) {
+			end++;
+		}
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private long calculateChecksum(byte[] tar) {
+		byte[] header = Arrays.copyOf(tar, 512);
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xFF;
+		}
+		return checksum;
+	}
+
+	@Test
+	public void testWriteEntryContentIsPaddedToFullBlocks() throws Exception {
+		tarWriter.writeEntry("first", 5, toStream("hello"));
+		tarWriter.writeEntry("second", 512, new ByteArrayInputStream(new byte[512]));
+		tarWriter.finish();
+
+		byte[] tar = outputStream.toByteArray();
+		assertEquals(tar.length, 512 + 512 + 512 + 512 + 1024);
+		assertEquals(readString(tar, 512, 512), "hello");
+		assertEquals(readString(tar, 1024, 100), "second");
+	}
+
+	@Test
+	public void testLargeSizeIsWrittenInBase256() throws Exception {
+		long size = 0x2_0000_0000L;
+		InputStream largeContent = new InputStream() {
+			@Override
+			public int read() {
+				return -1;
+			}
+		};
+
+		try {
+			tarWriter.writeEntry("large", size, largeContent);
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			byte[] tar = outputStream.toByteArray();
+			assertEquals(tar[124], (byte) 0x80);
+			assertEquals(tar[131], (byte) 0x02);
+			assertEquals(tar[135], (byte) 0x00);
+		}
+	}
+
+	@Test
+	public void testNameLongerThan100BytesIsWrittenInPaxHeader() throws Exception {
+		String longName = "n".repeat(95) + "ååå";
+
+		tarWriter.writeEntry(longName, 5, toStream("hello"));
+
+		byte[] tar = outputStream.toByteArray();
+		String paxRecord = "111 path=" + longName + "\n";
+		assertEquals(readString(tar, 0, 100), "PaxHeader");
+		assertEquals(tar[156], (byte) 'x');
+		assertEquals(Long.parseLong(readString(tar, 124, 12), 8), 111);
+		assertEquals(paxRecord.getBytes(StandardCharsets.UTF_8).length, 111);
+		assertEquals(readString(tar, 512, 512), paxRecord);
+		assertEquals(readString(tar, 1024, 100), "n".repeat(95) + "åå");
+		assertEquals(tar[1024 + 156], (byte) '0');
+		assertEquals(readString(tar, 1536, 512), "hello");
+		assertEquals(tar.length, 4 * 512);
+	}
+
+	@Test
+	public void testPaxRecordLengthIncludesItsOwnDigits() throws Exception {
+		String longName = "n".repeat(991);
+
+		tarWriter.writeEntry(longName, 0, toStream(""));
+
+		byte[] tar = outputStream.toByteArray();
+		assertEquals(readString(tar, 512, 1024), "1002 path=" + longName + "\n");
+	}
+
+	@Test
+	public void testContentShorterThanSize() throws Exception {
+		try {
+			tarWriter.writeEntry("someName", 10, toStream("hello"));
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Entry someName ended 5 bytes before its size 10");
+		}
+	}
+
+	@Test
+	public void testContentLongerThanSize() throws Exception {
+		try {
+			tarWriter.writeEntry("someName", 3, toStream("hello"));
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Entry someName is longer than its size 3");
+		}
+		assertTrue(outputStream.size() > 512);
+	}
+}
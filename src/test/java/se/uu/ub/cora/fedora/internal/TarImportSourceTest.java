@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TarImportSourceTest {
+	private Path tarFile;
+	private TarImportSource source;
+	private ByteArrayOutputStream tar;
+	private TarArchiveWriter tarWriter;
+	private List<String> itemsRead;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		tarFile = Files.createTempFile("tarImportSourceTest", ".tar");
+		source = new TarImportSource(tarFile);
+		tar = new ByteArrayOutputStream();
+		tarWriter = new TarArchiveWriter(tar, 0);
+		itemsRead = new ArrayList<>();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		Files.delete(tarFile);
+	}
+
+	private void addEntry(String name, String content) throws IOException {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		tarWriter.writeEntry(name, bytes.length, new ByteArrayInputStream(bytes));
+	}
+
+	private void readItems() throws IOException {
+		source.forEachItem(id -> !id.startsWith("unwanted"), item -> itemsRead
+				.add(item.id() + "=" + readAndDiscard(item)));
+	}
+
+	private String readAndDiscard(ImportItem item) {
+		assertTrue(item.temporary());
+		try (InputStream content = item.openContent()) {
+			String read = new String(content.readAllBytes(), StandardCharsets.UTF_8);
+			item.discard();
+			assertFalse(Files.exists(item.file()));
+			return read;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	public void testEmptyArchive() throws Exception {
+		tarWriter.finish();
+		Files.write(tarFile, tar.toByteArray());
+
+		readItems();
+
+		assertEquals(itemsRead, List.of());
+	}
+
+	@Test
+	public void testEachEntryIsAnItem() throws Exception {
+		addEntry("id1.metadata.json", "{}");
+		addEntry("id1", "content1");
+		addEntry("unwantedId", "x".repeat(600));
+		addEntry("id2", "x".repeat(512));
+		tarWriter.finish();
+		Files.write(tarFile, tar.toByteArray());
+
+		readItems();
+
+		assertEquals(itemsRead, List.of("id1=content1", "id2=" + "x".repeat(512)));
+	}
+
+	@Test
+	public void testMetadataIsHandedOnWithItsItem() throws Exception {
+		addEntry("id1.metadata.json", "{\"mimeType\":\"text/plain\"}");
+		addEntry("id1", "content1");
+		addEntry("otherId.metadata.json", "{}");
+		addEntry("id2", "content2");
+		addEntry("id3.metadata.json", "x".repeat(64 * 1024 + 1));
+		addEntry("id3", "content3");
+		tarWriter.finish();
+		Files.write(tarFile, tar.toByteArray());
+		Map<String, String> metadataJsons = new HashMap<>();
+
+		source.forEachItem(id -> true, item -> {
+			metadataJsons.put(item.id(), String.valueOf(item.metadataJson()));
+			readAndDiscard(item);
+		});
+
+		assertEquals(metadataJsons, Map.of("id1", "{\"mimeType\":\"text/plain\"}", "id2",
+				"null", "id3", "null"));
+	}
+
+	@Test
+	public void testLongNameFromPaxHeader() throws Exception {
+		String longName = "n".repeat(150);
+		addEntry(longName, "content1");
+		addEntry("id2", "content2");
+		tarWriter.finish();
+		Files.write(tarFile, tar.toByteArray());
+
+		readItems();
+
+		assertEquals(itemsRead, List.of(longName + "=content1", "id2=content2"));
+	}
+
+	@Test
+	public void testLongNameFromGnuLongNameEntry() throws Exception {
+		String longName = "n".repeat(150);
+		addEntry("././@LongLink", longName + "\u0000");
+		addEntry("n".repeat(100), "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		bytes[156] = 'L';
+		Files.write(tarFile, bytes);
+
+		readItems();
+
+		assertEquals(itemsRead, List.of(longName + "=content1"));
+	}
+
+	@Test
+	public void testInvalidPaxHeader() throws Exception {
+		addEntry("n".repeat(150), "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		bytes[512] = 'x';
+		Files.write(tarFile, bytes);
+
+		try {
+			readItems();
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Invalid PAX extended header in tar archive " + tarFile);
+		}
+	}
+
+	@Test
+	public void testPrefixIsPartOfName() throws Exception {
+		addEntry("id1", "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		byte[] prefix = "somePrefix".getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(prefix, 0, bytes, 345, prefix.length);
+		Files.write(tarFile, bytes);
+
+		readItems();
+
+		assertEquals(itemsRead, List.of("somePrefix/id1=content1"));
+	}
+
+	@Test
+	public void testBase256Size() throws Exception {
+		addEntry("id1", "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		Arrays.fill(bytes, 124, 136, (byte) 0);
+		bytes[124] = (byte) 0x80;
+		bytes[135] = 8;
+		Files.write(tarFile, bytes);
+
+		readItems();
+
+		assertEquals(itemsRead, List.of("id1=content1"));
+	}
+
+	@Test
+	public void testOtherEntryTypesAreSkipped() throws Exception {
+		addEntry("someDirectory", "");
+		addEntry("id1", "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		bytes[156] = '5';
+		Files.write(tarFile, bytes);
+
+		readItems();
+
+		assertEquals(itemsRead, List.of("id1=content1"));
+	}
+
+	@Test
+	public void testTruncatedArchive() throws Exception {
+		addEntry("id1", "content1");
+		Files.write(tarFile, Arrays.copyOf(tar.toByteArray(), 515));
+
+		try {
+			readItems();
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Unexpected end of tar archive " + tarFile);
+		}
+	}
+
+	@Test
+	public void testInvalidSize() throws Exception {
+		addEntry("id1", "content1");
+		tarWriter.finish();
+		byte[] bytes = tar.toByteArray();
+		bytes[124] = 'x';
+		Files.write(tarFile, bytes);
+
+		try {
+			readItems();
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(),
+					"Invalid entry size x0000000010 in tar archive " + tarFile);
+		}
+	}
+}
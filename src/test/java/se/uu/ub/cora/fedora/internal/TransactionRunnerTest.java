@@ -0,0 +1,279 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.spy.FileUploaderSpy;
+import se.uu.ub.cora.fedora.spy.ResourceMetadataParserSpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
+
+public class TransactionRunnerTest {
+	private static final String BASE_URL = "http://localhost:38088/fcrepo/rest/";
+	private static final String TRANSACTION_URL = BASE_URL + "fcr:tx/someTransactionId";
+	private static final long KEEP_ALIVE_INTERVAL = 60_000;
+
+	private HttpHandlerFactorySpy httpHandlerFactory;
+	private HttpHandlerSpy startHandler;
+	private List<HttpHandlerSpy> transactionHandlers;
+	private int transactionResponseCode;
+	private CountDownLatch transactionUrlCalled;
+	private ResourceMetadataParserSpy resourceMetadataParser;
+	private FileUploaderSpy fileUploader;
+	private TransactionRunner runner;
+	private ExecutorService batchExecutor;
+
+	@BeforeMethod
+	public void setUp() {
+		batchExecutor = Executors.newCachedThreadPool();
+		httpHandlerFactory = new HttpHandlerFactorySpy();
+		startHandler = new HttpHandlerSpy();
+		startHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 201);
+		startHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> TRANSACTION_URL,
+				"Location");
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor", () -> startHandler,
+				BASE_URL + "fcr:tx");
+		transactionHandlers = Collections.synchronizedList(new ArrayList<>());
+		transactionResponseCode = 204;
+		transactionUrlCalled = new CountDownLatch(1);
+		httpHandlerFactory.MRV.setSpecificReturnValuesSupplier("factor",
+				this::createTransactionHandler, TRANSACTION_URL);
+		resourceMetadataParser = new ResourceMetadataParserSpy();
+		fileUploader = new FileUploaderSpy();
+		runner = new TransactionRunner(httpHandlerFactory, fileUploader, BASE_URL,
+				resourceMetadataParser, batchExecutor, KEEP_ALIVE_INTERVAL);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		batchExecutor.shutdownNow();
+	}
+
+	private HttpHandlerSpy createTransactionHandler() {
+		HttpHandlerSpy handler = new HttpHandlerSpy();
+		int responseCode = transactionResponseCode;
+		handler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> responseCode);
+		transactionHandlers.add(handler);
+		transactionUrlCalled.countDown();
+		return handler;
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(runner.onlyForTestGetHttpHandlerFactory(), httpHandlerFactory);
+		assertSame(runner.onlyForTestGetFileUploader(), fileUploader);
+		assertEquals(runner.onlyForTestGetBaseUrl(), BASE_URL);
+		assertSame(runner.onlyForTestGetResourceMetadataParser(), resourceMetadataParser);
+		assertEquals(runner.onlyForTestGetKeepAliveIntervalInMillis(), KEEP_ALIVE_INTERVAL);
+	}
+
+	@Test
+	public void testRunStartsAndCommitsTransaction() throws Exception {
+		runner.run(List.of(), 2);
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, BASE_URL + "fcr:tx");
+		startHandler.MCR.assertParameters("setRequestMethod", 0, "POST");
+		startHandler.MCR.assertParameters("getHeaderField", 0, "Location");
+		httpHandlerFactory.MCR.assertParameters("factor", 1, TRANSACTION_URL);
+		assertEquals(transactionHandlers.size(), 1);
+		transactionHandlers.get(0).MCR.assertParameters("setRequestMethod", 0, "PUT");
+	}
+
+	@Test
+	public void testOperationsGetAdapterInsideTransaction() throws Exception {
+		List<FedoraAdapter> adapters = Collections.synchronizedList(new ArrayList<>());
+
+		runner.run(List.of(adapters::add, adapters::add), 2);
+
+		assertEquals(adapters.size(), 2);
+		FedoraAdapterImp adapter = (FedoraAdapterImp) adapters.get(0);
+		assertSame(adapters.get(1), adapter);
+		assertEquals(adapter.onlyForTestGetBaseUrl(), BASE_URL);
+		assertSame(adapter.onlyForTestGetResourceMetadataParser(), resourceMetadataParser);
+		var transactionalFactory = (TransactionalHttpHandlerFactory) adapter
+				.onlyForTestGetHttpHandlerFactory();
+		assertSame(transactionalFactory.onlyForTestGetHttpHandlerFactory(), httpHandlerFactory);
+		assertEquals(transactionalFactory.onlyForTestGetTransactionUrl(), TRANSACTION_URL);
+		assertTrue(adapter.onlyForTestGetReadCoalescer() instanceof ReadCoalescerImp);
+		var transactionalUploader = (TransactionalFileUploader) adapter
+				.onlyForTestGetFileUploader();
+		assertSame(transactionalUploader.onlyForTestGetFileUploader(), fileUploader);
+		assertEquals(transactionalUploader.onlyForTestGetTransactionUrl(), TRANSACTION_URL);
+	}
+
+	@Test
+	public void testFailedOperationRollsBackAfterAllOperationsHaveRun() throws Exception {
+		List<String> ranOperations = Collections.synchronizedList(new ArrayList<>());
+		RuntimeException failure = new RuntimeException("errorFromOperation");
+		TransactionOperation failing = adapter -> {
+			throw failure;
+		};
+
+		try {
+			runner.run(List.of(failing, adapter -> ranOperations.add("second")), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error running operation in transaction "
+					+ TRANSACTION_URL + ", the transaction has been rolled back.");
+			assertSame(e.getCause(), failure);
+		}
+		assertEquals(ranOperations, List.of("second"));
+		assertEquals(transactionHandlers.size(), 1);
+		transactionHandlers.get(0).MCR.assertParameters("setRequestMethod", 0, "DELETE");
+	}
+
+	@Test
+	public void testFailedRollbackIsAddedAsSuppressed() throws Exception {
+		transactionResponseCode = 500;
+		TransactionOperation failing = adapter -> {
+			throw new RuntimeException("errorFromOperation");
+		};
+
+		try {
+			runner.run(List.of(failing), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getCause().getMessage(), "errorFromOperation");
+			assertEquals(e.getSuppressed()[0].getMessage(), "Error rolling back transaction in "
+					+ "Fedora failed due to error 500 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testStartTransactionErrorFromFedora() throws Exception {
+		startHandler.MRV.setDefaultReturnValuesSupplier("getResponseCode", () -> 500);
+		List<String> ranOperations = new ArrayList<>();
+
+		try {
+			runner.run(List.of(adapter -> ranOperations.add("operation")), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error starting transaction in Fedora failed due to "
+					+ "error 500 returned from Fedora");
+		}
+		assertTrue(ranOperations.isEmpty());
+	}
+
+	@Test
+	public void testStartTransactionWithoutLocation() throws Exception {
+		startHandler.MRV.setSpecificReturnValuesSupplier("getHeaderField", () -> null,
+				"Location");
+
+		try {
+			runner.run(List.of(), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "Error starting transaction in Fedora failed due to "
+					+ "error missing Location returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testStartTransactionErrorOnHttpHandler() throws Exception {
+		httpHandlerFactory.MRV.setThrowException("factor", new RuntimeException("errorFromSpy"),
+				BASE_URL + "fcr:tx");
+
+		try {
+			runner.run(List.of(), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(),
+					"Error starting transaction. An internal error has been thrown.");
+			assertEquals(e.getCause().getMessage(), "errorFromSpy");
+		}
+	}
+
+	@Test
+	public void testCommitErrorFromFedora() throws Exception {
+		transactionResponseCode = 409;
+
+		try {
+			runner.run(List.of(), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error committing transaction in Fedora failed due to "
+					+ "error 409 returned from Fedora");
+		}
+	}
+
+	@Test
+	public void testTransactionIsKeptAliveWhileOperationsRun() throws Exception {
+		runner = new TransactionRunner(httpHandlerFactory, fileUploader, BASE_URL,
+				resourceMetadataParser, batchExecutor, 10);
+
+		runner.run(List.of(adapter -> awaitTransactionUrlCalled()), 1);
+
+		int numberOfCalls = transactionHandlers.size();
+		assertTrue(numberOfCalls >= 2);
+		transactionHandlers.get(0).MCR.assertParameters("setRequestMethod", 0, "POST");
+		transactionHandlers.get(numberOfCalls - 1).MCR.assertParameters("setRequestMethod", 0,
+				"PUT");
+	}
+
+	private void awaitTransactionUrlCalled() {
+		try {
+			transactionUrlCalled.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testFailingKeepAliveDoesNotStopOperations() throws Exception {
+		transactionResponseCode = 500;
+		runner = new TransactionRunner(httpHandlerFactory, fileUploader, BASE_URL,
+				resourceMetadataParser, batchExecutor, 10);
+		List<String> ranOperations = new ArrayList<>();
+
+		try {
+			runner.run(List.of(adapter -> {
+				awaitTransactionUrlCalled();
+				ranOperations.add("operation");
+			}), 1);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "Error committing transaction in Fedora failed due to "
+					+ "error 500 returned from Fedora");
+		}
+		assertEquals(ranOperations, List.of("operation"));
+	}
+}
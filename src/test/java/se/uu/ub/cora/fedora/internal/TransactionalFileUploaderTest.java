@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.spy.FileUploaderSpy;
+
+public class TransactionalFileUploaderTest {
+	private static final String TRANSACTION_URL = "http://localhost:38088/fcrepo/rest/fcr:tx/tx1";
+
+	private FileUploaderSpy fileUploader;
+	private TransactionalFileUploader transactionalUploader;
+
+	@BeforeMethod
+	public void setUp() {
+		fileUploader = new FileUploaderSpy();
+		transactionalUploader = new TransactionalFileUploader(fileUploader, TRANSACTION_URL);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(transactionalUploader.onlyForTestGetFileUploader(), fileUploader);
+		assertEquals(transactionalUploader.onlyForTestGetTransactionUrl(), TRANSACTION_URL);
+	}
+
+	@Test
+	public void testUploadAddsAtomicIdHeader() throws Exception {
+		InputStream content = new ByteArrayInputStream(new byte[3]);
+		Map<String, String> requestProperties = Map.of("Content-Type", "text/plain");
+
+		int responseCode = transactionalUploader.upload("someUrl", "PUT", requestProperties,
+				content, 3);
+
+		fileUploader.MCR.assertParameters("upload", 0, "someUrl", "PUT",
+				Map.of("Content-Type", "text/plain", "Atomic-ID", TRANSACTION_URL), content, 3L);
+		fileUploader.MCR.assertReturn("upload", 0, responseCode);
+		assertEquals(requestProperties.size(), 1);
+	}
+}
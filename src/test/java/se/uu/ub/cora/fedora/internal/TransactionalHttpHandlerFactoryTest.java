@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.httphandler.HttpHandler;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerFactorySpy;
+import se.uu.ub.cora.httphandler.spies.HttpHandlerSpy;
+
+public class TransactionalHttpHandlerFactoryTest {
+	private static final String TRANSACTION_URL = "http://localhost:38088/fcrepo/rest/fcr:tx/tx1";
+
+	private HttpHandlerFactorySpy httpHandlerFactory;
+	private TransactionalHttpHandlerFactory transactionalFactory;
+
+	@BeforeMethod
+	public void setUp() {
+		httpHandlerFactory = new HttpHandlerFactorySpy();
+		transactionalFactory = new TransactionalHttpHandlerFactory(httpHandlerFactory,
+				TRANSACTION_URL);
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(transactionalFactory.onlyForTestGetHttpHandlerFactory(), httpHandlerFactory);
+		assertEquals(transactionalFactory.onlyForTestGetTransactionUrl(), TRANSACTION_URL);
+	}
+
+	@Test
+	public void testFactorSetsAtomicIdHeader() throws Exception {
+		HttpHandler httpHandler = transactionalFactory.factor("someUrl");
+
+		httpHandlerFactory.MCR.assertParameters("factor", 0, "someUrl");
+		httpHandlerFactory.MCR.assertReturn("factor", 0, httpHandler);
+		((HttpHandlerSpy) httpHandler).MCR.assertParameters("setRequestProperty", 0, "Atomic-ID",
+				TRANSACTION_URL);
+	}
+
+	@Test
+	public void testFactorHttpMultiPartUploaderIsRefused() throws Exception {
+		try {
+			transactionalFactory.factorHttpMultiPartUploader("someUrl");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error factoring HttpMultiPartUploader for url someUrl: "
+					+ "uploads can not be made inside the transaction " + TRANSACTION_URL + ".");
+			httpHandlerFactory.MCR.assertMethodNotCalled("factorHttpMultiPartUploader");
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraFixityException;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+
+public class VerifyingInputStreamTest {
+	private static final String CONTENT = "someContentToVerify";
+	private static final String RESOURCE_ID = "someResourceId";
+
+	private VerifyingInputStream createVerifyingStream(ResourceMetadata expectedMetadata) {
+		InputStream resource = new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+		return new VerifyingInputStream(RESOURCE_ID, resource, expectedMetadata);
+	}
+
+	private String sha512Hex(String content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512")
+				.digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		ResourceMetadata expectedMetadata = new ResourceMetadata("19", sha512Hex(CONTENT));
+		InputStream resource = new ByteArrayInputStream(new byte[0]);
+
+		VerifyingInputStream verifyingStream = new VerifyingInputStream(RESOURCE_ID, resource,
+				expectedMetadata);
+
+		assertSame(verifyingStream.onlyForTestGetResource(), resource);
+		assertSame(verifyingStream.onlyForTestGetExpectedMetadata(), expectedMetadata);
+	}
+
+	@Test
+	public void testReadMatchingResource() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("19", sha512Hex(CONTENT)));
+
+		byte[] read = verifyingStream.readAllBytes();
+
+		assertEquals(new String(read, StandardCharsets.UTF_8), CONTENT);
+	}
+
+	@Test
+	public void testReadMatchingResourceSingleBytes() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("19", sha512Hex(CONTENT)));
+
+		int numberOfBytes = 0;
+		while (verifyingStream.read() != -1) {
+			numberOfBytes++;
+		}
+
+		assertEquals(numberOfBytes, 19);
+	}
+
+	@Test
+	public void testChecksumIsComparedIgnoringCase() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("19", sha512Hex(CONTENT).toUpperCase()));
+
+		byte[] read = verifyingStream.readAllBytes();
+
+		assertEquals(read.length, 19);
+	}
+
+	@Test
+	public void testUnknownFileSizeIsNotVerified() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata(null, sha512Hex(CONTENT)));
+
+		byte[] read = verifyingStream.readAllBytes();
+
+		assertEquals(read.length, 19);
+	}
+
+	@Test
+	public void testChecksumMismatch() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("19", sha512Hex("otherContent")));
+
+		try {
+			verifyingStream.readAllBytes();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraFixityException);
+			assertEquals(e.getMessage(), "Error verifying fixity of resource id someResourceId: "
+					+ "read 19 bytes with checksum " + sha512Hex(CONTENT)
+					+ " but expected file size 19 and checksum " + sha512Hex("otherContent")
+					+ ".");
+		}
+	}
+
+	@Test
+	public void testFileSizeMismatch() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("20", sha512Hex(CONTENT)));
+
+		try {
+			verifyingStream.readAllBytes();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraFixityException);
+			assertEquals(e.getMessage(), "Error verifying fixity of resource id someResourceId: "
+					+ "read 19 bytes with checksum " + sha512Hex(CONTENT)
+					+ " but expected file size 20 and checksum " + sha512Hex(CONTENT) + ".");
+		}
+	}
+
+	@Test
+	public void testMismatchIsThrownAgainOnLaterReads() throws Exception {
+		VerifyingInputStream verifyingStream = createVerifyingStream(
+				new ResourceMetadata("19", sha512Hex("otherContent")));
+		try {
+			verifyingStream.readAllBytes();
+			fail("It should throw an exception");
+		} catch (FedoraFixityException e) {
+			// expected
+		}
+
+		try {
+			verifyingStream.read();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraFixityException);
+		}
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.internal.JournalEntry.Operation;
+
+public class WriteAheadJournalTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+
+	private Path directory;
+	private Path journalFile;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("writeAheadJournalTest");
+		journalFile = directory.resolve("journal.log");
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(this::delete);
+		}
+	}
+
+	private void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testJournalFileIsCreated() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.onlyForTestGetJournalFile(), journalFile);
+			assertTrue(journal.getRecoveredEntries().isEmpty());
+			assertEquals(journal.getDurableSequence(), 0L);
+		}
+
+		assertTrue(Files.exists(journalFile));
+	}
+
+	@Test
+	public void testWriteAssignsIncreasingSequences() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			JournalEntry first = journal.write(Operation.CREATE, DATA_DIVIDER, "id1", "<v1/>");
+			JournalEntry second = journal.write(Operation.UPDATE, DATA_DIVIDER, "id1", "<v2/>");
+
+			assertEquals(first, new JournalEntry(1, Operation.CREATE, DATA_DIVIDER, "id1",
+					"<v1/>"));
+			assertEquals(second, new JournalEntry(2, Operation.UPDATE, DATA_DIVIDER, "id1",
+					"<v2/>"));
+			assertEquals(second.key(), "someDataDivider:id1");
+		}
+	}
+
+	@Test
+	public void testAwaitDurableSyncsWrittenEntries() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			journal.write(Operation.CREATE, DATA_DIVIDER, "id1", "<v1/>");
+			JournalEntry entry = journal.write(Operation.CREATE, DATA_DIVIDER, "id2", "<v2/>");
+			assertEquals(journal.getDurableSequence(), 0L);
+
+			journal.awaitDurable(entry.sequence());
+
+			assertEquals(journal.getDurableSequence(), 2L);
+		}
+	}
+
+	@Test
+	public void testUnappliedEntriesAreRecovered() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			writeDurable(journal, Operation.CREATE, "id1", "<v1/>");
+			writeDurable(journal, Operation.UPDATE, "id1", "<v2 text=\"åäö\"/>");
+		}
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries(), List.of(
+					new JournalEntry(1, Operation.CREATE, DATA_DIVIDER, "id1", "<v1/>"),
+					new JournalEntry(2, Operation.UPDATE, DATA_DIVIDER, "id1",
+							"<v2 text=\"åäö\"/>")));
+			assertEquals(journal.getDurableSequence(), 2L);
+			JournalEntry next = journal.write(Operation.UPDATE, DATA_DIVIDER, "id1", "<v3/>");
+			assertEquals(next.sequence(), 3L);
+		}
+	}
+
+	private JournalEntry writeDurable(WriteAheadJournal journal, Operation operation,
+			String recordId, String recordXml) {
+		JournalEntry entry = journal.write(operation, DATA_DIVIDER, recordId, recordXml);
+		journal.awaitDurable(entry.sequence());
+		return entry;
+	}
+
+	@Test
+	public void testAppliedEntriesAreNotRecovered() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			JournalEntry first = writeDurable(journal, Operation.CREATE, "id1", "<v1/>");
+			writeDurable(journal, Operation.CREATE, "id2", "<v2/>");
+			journal.markApplied(first.sequence());
+		}
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries(),
+					List.of(new JournalEntry(2, Operation.CREATE, DATA_DIVIDER, "id2", "<v2/>")));
+		}
+	}
+
+	@Test
+	public void testFileIsTruncatedWhenAllEntriesAreApplied() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			JournalEntry first = writeDurable(journal, Operation.CREATE, "id1", "<v1/>");
+			JournalEntry second = writeDurable(journal, Operation.CREATE, "id2", "<v2/>");
+			journal.markApplied(second.sequence());
+			assertTrue(Files.size(journalFile) > 0);
+
+			journal.markApplied(first.sequence());
+
+			assertEquals(Files.size(journalFile), 0L);
+			JournalEntry next = writeDurable(journal, Operation.UPDATE, "id1", "<v3/>");
+			assertEquals(next.sequence(), 3L);
+		}
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries(),
+					List.of(new JournalEntry(3, Operation.UPDATE, DATA_DIVIDER, "id1", "<v3/>")));
+		}
+	}
+
+	@Test
+	public void testIncompleteLastEntryIsRemovedWhenOpened() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			writeDurable(journal, Operation.CREATE, "id1", "<v1/>");
+			writeDurable(journal, Operation.CREATE, "id2", "<v2/>");
+		}
+		long sizeWithTwoEntries = Files.size(journalFile);
+		truncateJournalFile(sizeWithTwoEntries - 3);
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries(),
+					List.of(new JournalEntry(1, Operation.CREATE, DATA_DIVIDER, "id1", "<v1/>")));
+			assertTrue(Files.size(journalFile) < sizeWithTwoEntries - 3);
+		}
+	}
+
+	private void truncateJournalFile(long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+
+	@Test
+	public void testCorruptLastEntryIsRemovedWhenOpened() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			writeDurable(journal, Operation.CREATE, "id1", "<v1/>");
+			writeDurable(journal, Operation.CREATE, "id2", "<v2/>");
+		}
+		byte[] content = Files.readAllBytes(journalFile);
+		content[content.length - 6] ^= 0x7f;
+		Files.write(journalFile, content);
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries().size(), 1);
+		}
+	}
+
+	@Test
+	public void testJournalFileCanOnlyBeUsedByOneJournal() throws Exception {
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			WriteAheadJournal.usingFile(journalFile);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to open journal " + journalFile
+					+ ", it is used by another journal.");
+		}
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertTrue(journal.getRecoveredEntries().isEmpty());
+		}
+	}
+
+	@Test
+	public void testErrorOpeningJournal() throws Exception {
+		Path journalInMissingDirectory = directory.resolve("missing").resolve("journal.log");
+
+		try {
+			WriteAheadJournal.usingFile(journalInMissingDirectory);
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error opening journal " + journalInMissingDirectory
+					+ ". An internal error has been thrown.");
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testConcurrentWritesAreAllDurable() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String recordId = "id" + i;
+				futures.add(executor.submit(() -> sequences.add(
+						writeDurable(journal, Operation.UPDATE, recordId, "<v/>").sequence())));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			assertEquals(journal.getDurableSequence(), 200L);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		try (WriteAheadJournal journal = WriteAheadJournal.usingFile(journalFile)) {
+			assertEquals(journal.getRecoveredEntries().size(), 200);
+			assertEquals(sequences.stream().distinct().count(), 200L);
+		}
+	}
+}
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.fedora.FedoraException;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.fedora.spy.FedoraAdapterSpy;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+
+public class WriteBehindFedoraAdapterTest {
+	private static final String DATA_DIVIDER = "someDataDivider";
+	private static final String ID = "someId";
+	private static final String MIME_TYPE = "someMimeType";
+
+	private GatedFedoraAdapterSpy fedoraAdapter;
+	private WriteBehindFedoraAdapterImp writeBehindAdapter;
+
+	@BeforeMethod
+	public void setUp() {
+		fedoraAdapter = new GatedFedoraAdapterSpy();
+		writeBehindAdapter = new WriteBehindFedoraAdapterImp(fedoraAdapter, 2);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		fedoraAdapter.openGate();
+		try {
+			writeBehindAdapter.close();
+		} catch (FedoraException e) {
+			// failures are asserted in the tests
+		}
+	}
+
+	@Test
+	public void testOnlyForTest() throws Exception {
+		assertSame(writeBehindAdapter.onlyForTestGetFedoraAdapter(), fedoraAdapter);
+		assertEquals(writeBehindAdapter.onlyForTestGetMaxParallelWrites(), 2);
+	}
+
+	@Test
+	public void testUpdateIsWrittenInBackground() throws Exception {
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		writeBehindAdapter.flush();
+
+		fedoraAdapter.MCR.assertParameters("updateRecord", 0, DATA_DIVIDER, ID, "<v1/>");
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+	}
+
+	@Test
+	public void testUpdateReturnsBeforeItIsWritten() throws Exception {
+		fedoraAdapter.closeGate();
+
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		fedoraAdapter.awaitWriteStarted();
+		assertTrue(fedoraAdapter.events.isEmpty());
+		fedoraAdapter.openGate();
+		writeBehindAdapter.flush();
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+	}
+
+	@Test
+	public void testRepeatedUpdatesOfSameRecordAreCoalesced() throws Exception {
+		fedoraAdapter.closeGate();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		fedoraAdapter.awaitWriteStarted();
+
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v2/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v3/>");
+		fedoraAdapter.openGate();
+		writeBehindAdapter.flush();
+
+		assertEquals(fedoraAdapter.events,
+				List.of("updated someId <v1/>", "updated someId <v3/>"));
+	}
+
+	@Test
+	public void testUpdatesOfDifferentRecordsAreAllWritten() throws Exception {
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, "id1", "<v1/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, "id2", "<v2/>");
+		writeBehindAdapter.updateRecord("otherDataDivider", "id1", "<v3/>");
+		writeBehindAdapter.flush();
+
+		List<String> events = new ArrayList<>(fedoraAdapter.events);
+		Collections.sort(events);
+		assertEquals(events, List.of("updated id1 <v1/>", "updated id1 <v3/>",
+				"updated id2 <v2/>"));
+	}
+
+	@Test
+	public void testWritesInParallelUpToMaxParallelWrites() throws Exception {
+		fedoraAdapter.closeGate();
+		for (int i = 0; i < 4; i++) {
+			writeBehindAdapter.updateRecord(DATA_DIVIDER, "id" + i, "<v/>");
+		}
+		fedoraAdapter.awaitInFlight(2);
+		fedoraAdapter.openGate();
+		writeBehindAdapter.flush();
+
+		assertEquals(fedoraAdapter.maxInFlight.get(), 2);
+		assertEquals(fedoraAdapter.events.size(), 4);
+	}
+
+	@Test
+	public void testReadRecordReturnsQueuedRecordXml() throws Exception {
+		fedoraAdapter.closeGate();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		fedoraAdapter.awaitWriteStarted();
+
+		assertEquals(writeBehindAdapter.readRecord(DATA_DIVIDER, ID), "<v1/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v2/>");
+		assertEquals(writeBehindAdapter.readRecord(DATA_DIVIDER, ID), "<v2/>");
+		fedoraAdapter.MCR.assertMethodNotCalled("readRecord");
+	}
+
+	@Test
+	public void testReadRecordReadsFromFedoraWhenNothingIsQueued() throws Exception {
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+		writeBehindAdapter.flush();
+
+		String recordXml = writeBehindAdapter.readRecord(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("readRecord", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readRecord", 0, recordXml);
+	}
+
+	@Test
+	public void testReadRecordsWithoutQueuedRecords() throws Exception {
+		List<String> ids = List.of("id1", "id2");
+
+		ReadRecordsResult result = writeBehindAdapter.readRecords(DATA_DIVIDER, ids, 3);
+
+		fedoraAdapter.MCR.assertParameters("readRecords", 0, DATA_DIVIDER, ids, 3);
+		fedoraAdapter.MCR.assertReturn("readRecords", 0, result);
+	}
+
+	@Test
+	public void testReadRecordsMergesQueuedRecords() throws Exception {
+		fedoraAdapter.MRV.setDefaultReturnValuesSupplier("readRecords",
+				() -> new ReadRecordsResult(Map.of("id1", "<fromFedora/>"), Set.of("id3")));
+		fedoraAdapter.closeGate();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, "id2", "<queued/>");
+
+		ReadRecordsResult result = writeBehindAdapter.readRecords(DATA_DIVIDER,
+				List.of("id1", "id2", "id3"), 3);
+
+		fedoraAdapter.MCR.assertParameters("readRecords", 0, DATA_DIVIDER, List.of("id1", "id3"),
+				3);
+		assertEquals(result.records(), Map.of("id1", "<fromFedora/>", "id2", "<queued/>"));
+		assertEquals(result.missingIds(), Set.of("id3"));
+	}
+
+	@Test
+	public void testReadVersionedRecordWaitsForQueuedUpdate() throws Exception {
+		fedoraAdapter.closeGate();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		Thread reader = startThread(
+				() -> writeBehindAdapter.readVersionedRecord(DATA_DIVIDER, ID));
+		fedoraAdapter.openGate();
+		reader.join(5_000);
+
+		assertEquals(fedoraAdapter.events,
+				List.of("updated someId <v1/>", "readVersionedRecord"));
+		fedoraAdapter.MCR.assertParameters("readVersionedRecord", 0, DATA_DIVIDER, ID);
+	}
+
+	private Thread startThread(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	public void testDeleteRecordWaitsForQueuedUpdate() throws Exception {
+		fedoraAdapter.closeGate();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		Thread deleter = startThread(() -> writeBehindAdapter.deleteRecord(DATA_DIVIDER, ID));
+		fedoraAdapter.openGate();
+		deleter.join(5_000);
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>", "deleteRecord"));
+		fedoraAdapter.MCR.assertParameters("deleteRecord", 0, DATA_DIVIDER, ID);
+	}
+
+	@Test
+	public void testFailedUpdateIsThrownFromFlush() throws Exception {
+		FedoraException error = FedoraException.withMessage("errorFromSpy");
+		fedoraAdapter.MRV.setThrowException("updateRecord", error, DATA_DIVIDER, "id1",
+				"<v1/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, "id1", "<v1/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, "id2", "<v2/>");
+
+		try {
+			writeBehindAdapter.flush();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Error writing queued updates to Fedora, updating "
+					+ "failed for records: someDataDivider:id1");
+			assertSame(e.getCause(), error);
+		}
+		writeBehindAdapter.flush();
+		assertEquals(fedoraAdapter.events, List.of("updated id2 <v2/>"));
+	}
+
+	@Test
+	public void testFailureIsForgottenWhenLaterUpdateIsWritten() throws Exception {
+		fedoraAdapter.MRV.setThrowException("updateRecord",
+				FedoraException.withMessage("errorFromSpy"), DATA_DIVIDER, ID, "<bad/>");
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<bad/>");
+		writeBehindAdapter.readVersionedRecord(DATA_DIVIDER, ID);
+
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<good/>");
+		writeBehindAdapter.flush();
+
+		assertEquals(fedoraAdapter.events,
+				List.of("readVersionedRecord", "updated someId <good/>"));
+	}
+
+	@Test
+	public void testCloseWritesQueuedUpdatesAndRejectsNewUpdates() throws Exception {
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		writeBehindAdapter.close();
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+		try {
+			writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v2/>");
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertTrue(e instanceof FedoraException);
+			assertEquals(e.getMessage(), "Unable to update record someDataDivider:someId, "
+					+ "the write-behind adapter is closed.");
+		}
+	}
+
+	@Test
+	public void testCloseThrowsFailedUpdates() throws Exception {
+		fedoraAdapter.MRV.setAlwaysThrowException("updateRecord",
+				FedoraException.withMessage("errorFromSpy"));
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		try {
+			writeBehindAdapter.close();
+			fail("It should throw an exception");
+		} catch (Exception e) {
+			assertEquals(e.getMessage(), "Error writing queued updates to Fedora, updating "
+					+ "failed for records: someDataDivider:someId");
+		}
+	}
+
+	@Test
+	public void testCreateRecord() throws Exception {
+		writeBehindAdapter.createRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		fedoraAdapter.MCR.assertParameters("createRecord", 0, DATA_DIVIDER, ID, "<v1/>");
+	}
+
+	@Test
+	public void testCreateRecords() throws Exception {
+		List<RecordToCreate> records = List.of(new RecordToCreate(DATA_DIVIDER, ID, "<v1/>"));
+
+		var results = writeBehindAdapter.createRecords(records, 4);
+
+		fedoraAdapter.MCR.assertParameters("createRecords", 0, records, 4);
+		fedoraAdapter.MCR.assertReturn("createRecords", 0, results);
+	}
+
+	@Test
+	public void testListIds() throws Exception {
+		var ids = writeBehindAdapter.listIds(DATA_DIVIDER);
+
+		fedoraAdapter.MCR.assertParameters("listIds", 0, DATA_DIVIDER);
+		fedoraAdapter.MCR.assertReturn("listIds", 0, ids);
+	}
+
+	@Test
+	public void testListIdsModifiedSinceWaitsForAllQueuedUpdates() throws Exception {
+		Instant since = Instant.now();
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		var ids = writeBehindAdapter.listIdsModifiedSince(DATA_DIVIDER, since, 3);
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+		fedoraAdapter.MCR.assertParameters("listIdsModifiedSince", 0, DATA_DIVIDER, since, 3);
+		fedoraAdapter.MCR.assertReturn("listIdsModifiedSince", 0, ids);
+	}
+
+	@Test
+	public void testReadRecordIfChanged() throws Exception {
+		var result = writeBehindAdapter.readRecordIfChanged(DATA_DIVIDER, ID, "someETag");
+
+		fedoraAdapter.MCR.assertParameters("readRecordIfChanged", 0, DATA_DIVIDER, ID,
+				"someETag");
+		fedoraAdapter.MCR.assertReturn("readRecordIfChanged", 0, result);
+	}
+
+	@Test
+	public void testResourceOperationsAreDelegated() throws Exception {
+		InputStream resource = new InputStreamSpy();
+		ResourceMetadataToUpdate metadataToUpdate = new ResourceMetadataToUpdate("someFileName",
+				MIME_TYPE);
+		List<ResourceMetadataUpdate> updates = List
+				.of(new ResourceMetadataUpdate(DATA_DIVIDER, ID, metadataToUpdate));
+
+		var createdMetadata = writeBehindAdapter.createResource(DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		InputStream readResource = writeBehindAdapter.readResource(DATA_DIVIDER, ID);
+		var metadata = writeBehindAdapter.readResourceMetadata(DATA_DIVIDER, ID);
+		writeBehindAdapter.updateResourceMetadata(DATA_DIVIDER, ID, metadataToUpdate);
+		var results = writeBehindAdapter.updateResourcesMetadata(updates, 3);
+		var updatedMetadata = writeBehindAdapter.updateResource(DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		writeBehindAdapter.deleteResource(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, readResource);
+		fedoraAdapter.MCR.assertReturn("readResourceMetadata", 0, metadata);
+		fedoraAdapter.MCR.assertParameters("updateResourceMetadata", 0, DATA_DIVIDER, ID,
+				metadataToUpdate);
+		fedoraAdapter.MCR.assertParameters("updateResourcesMetadata", 0, updates, 3);
+		fedoraAdapter.MCR.assertReturn("updateResourcesMetadata", 0, results);
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resource,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+		fedoraAdapter.MCR.assertParameters("deleteResource", 0, DATA_DIVIDER, ID);
+	}
+
+	@Test
+	public void testResourceOperationsFromFileAreDelegated() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var createdMetadata = writeBehindAdapter.createResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		var updatedMetadata = writeBehindAdapter.updateResource(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("createResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("createResource", 0, createdMetadata);
+		fedoraAdapter.MCR.assertParameters("updateResource", 0, DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResource", 0, updatedMetadata);
+	}
+
+	@Test
+	public void testUpdateResourceIfChanged() throws Exception {
+		Path resourceFile = Path.of("someResourceFile");
+
+		var result = writeBehindAdapter.updateResourceIfChanged(DATA_DIVIDER, ID, resourceFile,
+				MIME_TYPE);
+
+		fedoraAdapter.MCR.assertParameters("updateResourceIfChanged", 0, DATA_DIVIDER, ID,
+				resourceFile, MIME_TYPE);
+		fedoraAdapter.MCR.assertReturn("updateResourceIfChanged", 0, result);
+	}
+
+	@Test
+	public void testExternalResourceOperationsAreDelegated() throws Exception {
+		URI externalContent = URI.create("file:///someExternalContent");
+
+		writeBehindAdapter.createExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.PROXY);
+		writeBehindAdapter.updateExternalResource(DATA_DIVIDER, ID, externalContent, MIME_TYPE,
+				ExternalContentHandling.COPY);
+
+		fedoraAdapter.MCR.assertParameters("createExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.PROXY);
+		fedoraAdapter.MCR.assertParameters("updateExternalResource", 0, DATA_DIVIDER, ID,
+				externalContent, MIME_TYPE, ExternalContentHandling.COPY);
+	}
+
+	@Test
+	public void testReadResourceRanges() throws Exception {
+		List<ByteRange> ranges = List.of(new ByteRange(0, 10));
+
+		ResourceRange resourceRange = writeBehindAdapter.readResource(DATA_DIVIDER, ID, 0, 10);
+		List<ResourceRange> resourceRanges = writeBehindAdapter.readResource(DATA_DIVIDER, ID,
+				ranges);
+
+		fedoraAdapter.MCR.assertParameters("readResource", 0, DATA_DIVIDER, ID, 0L, 10L);
+		fedoraAdapter.MCR.assertReturn("readResource", 0, resourceRange);
+		fedoraAdapter.MCR.assertParameters("readResource", 1, DATA_DIVIDER, ID, ranges);
+		fedoraAdapter.MCR.assertReturn("readResource", 1, resourceRanges);
+	}
+
+	@Test
+	public void testDownloadResource() throws Exception {
+		Path target = Path.of("someTarget");
+
+		var metadata = writeBehindAdapter.downloadResource(DATA_DIVIDER, ID, target, 1024, 3);
+
+		fedoraAdapter.MCR.assertParameters("downloadResource", 0, DATA_DIVIDER, ID, target,
+				1024L, 3);
+		fedoraAdapter.MCR.assertReturn("downloadResource", 0, metadata);
+	}
+
+	@Test
+	public void testReadResumableResource() throws Exception {
+		InputStream readResource = writeBehindAdapter.readResumableResource(DATA_DIVIDER, ID, 3);
+
+		fedoraAdapter.MCR.assertParameters("readResumableResource", 0, DATA_DIVIDER, ID, 3);
+		fedoraAdapter.MCR.assertReturn("readResumableResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResource() throws Exception {
+		InputStream readResource = writeBehindAdapter.readVerifiedResource(DATA_DIVIDER, ID);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testReadVerifiedResourceWithExpectedMetadata() throws Exception {
+		var expectedMetadata = new ResourceMetadata("someFileSize", "someChecksum");
+
+		InputStream readResource = writeBehindAdapter.readVerifiedResource(DATA_DIVIDER, ID,
+				expectedMetadata);
+
+		fedoraAdapter.MCR.assertParameters("readVerifiedResource", 0, DATA_DIVIDER, ID,
+				expectedMetadata);
+		fedoraAdapter.MCR.assertReturn("readVerifiedResource", 0, readResource);
+	}
+
+	@Test
+	public void testRunInTransactionWaitsForAllQueuedUpdates() throws Exception {
+		List<TransactionOperation> operations = List.of(adapter -> {
+		});
+		writeBehindAdapter.updateRecord(DATA_DIVIDER, ID, "<v1/>");
+
+		writeBehindAdapter.runInTransaction(operations, 2);
+
+		assertEquals(fedoraAdapter.events, List.of("updated someId <v1/>"));
+		fedoraAdapter.MCR.assertParameters("runInTransaction", 0, operations, 2);
+	}
+
+	private static class GatedFedoraAdapterSpy extends FedoraAdapterSpy {
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+		private CountDownLatch writeStarted = new CountDownLatch(1);
+		private AtomicInteger inFlight = new AtomicInteger();
+		private AtomicInteger maxInFlight = new AtomicInteger();
+		private List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		void closeGate() {
+			gate = new CountDownLatch(1);
+		}
+
+		void openGate() {
+			gate.countDown();
+		}
+
+		void awaitWriteStarted() throws InterruptedException {
+			assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+		}
+
+		void awaitInFlight(int numberOfWrites) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (inFlight.get() < numberOfWrites && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+		}
+
+		@Override
+		public void updateRecord(String dataDivider, String recordId, String recordXml) {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			writeStarted.countDown();
+			awaitGate();
+			inFlight.decrementAndGet();
+			super.updateRecord(dataDivider, recordId, recordXml);
+			events.add("updated " + recordId + " " + recordXml);
+		}
+
+		private void awaitGate() {
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+			events.add("readVersionedRecord");
+			return super.readVersionedRecord(dataDivider, recordId);
+		}
+
+		@Override
+		public void deleteRecord(String dataDivider, String recordId) {
+			events.add("deleteRecord");
+			super.deleteRecord(dataDivider, recordId);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ZipArchiveWriterTest {
+	private ByteArrayOutputStream outputStream;
+	private ZipArchiveWriter zipWriter;
+
+	@BeforeMethod
+	public void setUp() {
+		outputStream = new ByteArrayOutputStream();
+		zipWriter = new ZipArchiveWriter(outputStream);
+	}
+
+	@Test
+	public void testWriteEntries() throws Exception {
+		zipWriter.writeEntry("first", 5, toStream("hello"));
+		zipWriter.writeEntry("second", 5, toStream("world"));
+		zipWriter.finish();
+
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(outputStream.toByteArray()))) {
+			assertNextEntry(zip, "first", "hello");
+			assertNextEntry(zip, "second", "world");
+			assertNull(zip.getNextEntry());
+		}
+	}
+
+	private ByteArrayInputStream toStream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void assertNextEntry(ZipInputStream zip, String name, String content)
+			throws IOException {
+		ZipEntry entry = zip.getNextEntry();
+		assertEquals(entry.getName(), name);
+		assertEquals(new String(zip.readAllBytes(), StandardCharsets.UTF_8), content);
+	}
+
+	@Test
+	public void testContentWithOtherSize() throws Exception {
+		try {
+			zipWriter.writeEntry("someName", 10, toStream("hello"));
+			fail("It should throw an exception");
+		} catch (IOException e) {
+			assertEquals(e.getMessage(), "Entry someName contained 5 bytes, expected 10");
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ZipImportSourceTest {
+	private Path zipFile;
+	private ZipImportSource source;
+	private List<String> itemsRead;
+
+	@BeforeMethod
+	public void setUp() throws IOException {
+		zipFile = Files.createTempFile("zipImportSourceTest", ".zip");
+		source = new ZipImportSource(zipFile);
+		itemsRead = new ArrayList<>();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException {
+		Files.delete(zipFile);
+	}
+
+	@Test
+	public void testEachFileEntryIsAnItem() throws Exception {
+		try (OutputStream file = Files.newOutputStream(zipFile);
+				ZipOutputStream zip = new ZipOutputStream(file)) {
+			addEntry(zip, "id1.metadata.json", "{}");
+			addEntry(zip, "id1", "content1");
+			addEntry(zip, "someDirectory/", "");
+			addEntry(zip, "unwantedId", "unwanted");
+			addEntry(zip, "id2", "content2");
+		}
+
+		source.forEachItem(id -> !id.startsWith("unwanted"), item -> itemsRead
+				.add(item.id() + "=" + readAndDiscard(item)));
+
+		assertEquals(itemsRead, List.of("id1=content1", "id2=content2"));
+	}
+
+	@Test
+	public void testMetadataIsHandedOnWithItsItem() throws Exception {
+		try (OutputStream file = Files.newOutputStream(zipFile);
+				ZipOutputStream zip = new ZipOutputStream(file)) {
+			addEntry(zip, "id1.metadata.json", "{\"mimeType\":\"text/plain\"}");
+			addEntry(zip, "id1", "content1");
+			addEntry(zip, "otherId.metadata.json", "{}");
+			addEntry(zip, "id2", "content2");
+			addEntry(zip, "id3.metadata.json", "x".repeat(64 * 1024 + 1));
+			addEntry(zip, "id3", "content3");
+		}
+		Map<String, String> metadataJsons = new HashMap<>();
+
+		source.forEachItem(id -> true, item -> {
+			metadataJsons.put(item.id(), String.valueOf(item.metadataJson()));
+			readAndDiscard(item);
+		});
+
+		assertEquals(metadataJsons, Map.of("id1", "{\"mimeType\":\"text/plain\"}", "id2",
+				"null", "id3", "null"));
+	}
+
+	private String readAndDiscard(ImportItem item) {
+		assertTrue(item.temporary());
+		try (InputStream content = item.openContent()) {
+			String read = new String(content.readAllBytes(), StandardCharsets.UTF_8);
+			item.discard();
+			assertFalse(Files.exists(item.file()));
+			return read;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void addEntry(ZipOutputStream zip, String name, String content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+}
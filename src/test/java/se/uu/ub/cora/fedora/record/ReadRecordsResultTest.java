@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+public class ReadRecordsResultTest {
+
+	@Test
+	public void testReadRecordsResult() throws Exception {
+		ReadRecordsResult result = new ReadRecordsResult(Map.of("someId", "<someXml/>"),
+				Set.of("missingId"));
+
+		assertEquals(result.records(), Map.of("someId", "<someXml/>"));
+		assertEquals(result.missingIds(), Set.of("missingId"));
+	}
+}
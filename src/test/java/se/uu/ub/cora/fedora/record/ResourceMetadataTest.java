@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Uppsala University Library
+ * Copyright 2023, 2026 Uppsala University Library
  *
  * This file is part of Cora.
  *
@@ -19,6 +19,7 @@
 package se.uu.ub.cora.fedora.record;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import org.testng.annotations.Test;
 
@@ -33,6 +34,17 @@ public class ResourceMetadataTest {
 
 		assertEquals(resourceMetadata.fileSize(), fileSize);
 		assertEquals(resourceMetadata.checksumSHA512(), checksumSHA512);
+		assertNull(resourceMetadata.mimeType());
+	}
+
+	@Test
+	public void testResourceMetadataWithMimeType() throws Exception {
+		ResourceMetadata resourceMetadata = new ResourceMetadata(fileSize, checksumSHA512,
+				"image/jpeg");
+
+		assertEquals(resourceMetadata.fileSize(), fileSize);
+		assertEquals(resourceMetadata.checksumSHA512(), checksumSHA512);
+		assertEquals(resourceMetadata.mimeType(), "image/jpeg");
 	}
 
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.record;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.testng.annotations.Test;
+
+public class ResourceRangeTest {
+
+	@Test
+	public void testResourceRange() throws Exception {
+		InputStream resource = new ByteArrayInputStream(new byte[50]);
+
+		ResourceRange resourceRange = new ResourceRange(resource, 100, 50, 1000);
+
+		assertSame(resourceRange.resource(), resource);
+		assertEquals(resourceRange.offset(), 100);
+		assertEquals(resourceRange.length(), 50);
+		assertEquals(resourceRange.totalLength(), 1000);
+	}
+
+}
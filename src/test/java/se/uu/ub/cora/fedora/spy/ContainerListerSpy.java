@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.internal.ContainerLister;
+import se.uu.ub.cora.fedora.internal.ListedChild;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class ContainerListerSpy implements ContainerLister {
+	public MethodCallRecorder MCR = new MethodCallRecorder();
+	public MethodReturnValues MRV = new MethodReturnValues();
+
+	public ContainerListerSpy() {
+		MCR.useMRV(MRV);
+		MRV.setDefaultReturnValuesSupplier("listIds", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("streamIds", Stream::empty);
+		MRV.setDefaultReturnValuesSupplier("streamRecordIds", Stream::empty);
+		MRV.setDefaultReturnValuesSupplier("streamResourceIds", Stream::empty);
+		MRV.setDefaultReturnValuesSupplier("streamChildrenWithLastModified", Stream::empty);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<String> listIds(String dataDivider) {
+		return (List<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Stream<String> streamIds(String dataDivider) {
+		return (Stream<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Stream<String> streamRecordIds(String dataDivider) {
+		return (Stream<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Stream<String> streamResourceIds(String dataDivider) {
+		return (Stream<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Stream<ListedChild> streamChildrenWithLastModified(String dataDivider) {
+		return (Stream<ListedChild>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import se.uu.ub.cora.fedora.FedoraAdapter;
+import se.uu.ub.cora.fedora.TransactionOperation;
+import se.uu.ub.cora.fedora.record.BatchItemResult;
+import se.uu.ub.cora.fedora.record.ByteRange;
+import se.uu.ub.cora.fedora.record.ExternalContentHandling;
+import se.uu.ub.cora.fedora.record.ReadRecordsResult;
+import se.uu.ub.cora.fedora.record.RecordToCreate;
+import se.uu.ub.cora.fedora.record.ResourceMetadata;
+import se.uu.ub.cora.fedora.record.ResourceMetadataToUpdate;
+import se.uu.ub.cora.fedora.record.ResourceMetadataUpdate;
+import se.uu.ub.cora.fedora.record.ResourceRange;
+import se.uu.ub.cora.fedora.record.ResourceUpdateResult;
+import se.uu.ub.cora.fedora.record.VersionedRecord;
+import se.uu.ub.cora.httphandler.spies.InputStreamSpy;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class FedoraAdapterSpy implements FedoraAdapter {
+	public MethodCallRecorder MCR = new MethodCallRecorder();
+	public MethodReturnValues MRV = new MethodReturnValues();
+
+	public FedoraAdapterSpy() {
+		MCR.useMRV(MRV);
+		MRV.setDefaultReturnValuesSupplier("createRecords", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("updateResourcesMetadata", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("readRecord", () -> "someRecordXmlFromSpy");
+		MRV.setDefaultReturnValuesSupplier("readRecords",
+				() -> new ReadRecordsResult(Collections.emptyMap(), Collections.emptySet()));
+		MRV.setDefaultReturnValuesSupplier("listIds", Stream::empty);
+		MRV.setDefaultReturnValuesSupplier("listIdsModifiedSince", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("readVersionedRecord",
+				() -> new VersionedRecord("someRecordXmlFromSpy", "someETagFromSpy"));
+		MRV.setDefaultReturnValuesSupplier("readRecordIfChanged", Optional::empty);
+		MRV.setDefaultReturnValuesSupplier("createResource",
+				() -> new ResourceMetadata("someFileSize", "someChecksum"));
+		MRV.setDefaultReturnValuesSupplier("updateResource",
+				() -> new ResourceMetadata("someFileSize", "someChecksum"));
+		MRV.setDefaultReturnValuesSupplier("updateResourceIfChanged",
+				() -> new ResourceUpdateResult(
+						new ResourceMetadata("someFileSize", "someChecksum"), false));
+		MRV.setDefaultReturnValuesSupplier("readResource", InputStreamSpy::new);
+		MRV.setDefaultReturnValuesSupplier("readResumableResource", InputStreamSpy::new);
+		MRV.setDefaultReturnValuesSupplier("readVerifiedResource", InputStreamSpy::new);
+		MRV.setDefaultReturnValuesSupplier("readResourceRange",
+				() -> new ResourceRange(new InputStreamSpy(), 0, 1, 1));
+		MRV.setDefaultReturnValuesSupplier("readResourceRanges", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("downloadResource",
+				() -> new ResourceMetadata("someFileSize", "someChecksum"));
+		MRV.setDefaultReturnValuesSupplier("readResourceMetadata",
+				() -> new ResourceMetadata("someFileSize", "someChecksum"));
+	}
+
+	@Override
+	public void createRecord(String dataDivider, String recordId, String recordXml) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "recordId", recordId, "recordXml",
+				recordXml);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<BatchItemResult> createRecords(List<RecordToCreate> records,
+			int maxParallelCreates) {
+		return (List<BatchItemResult>) MCR.addCallAndReturnFromMRV("records", records,
+				"maxParallelCreates", maxParallelCreates);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "resource", resource, "mimeType", mimeType);
+	}
+
+	@Override
+	public ResourceMetadata createResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "resource", resource, "mimeType", mimeType);
+	}
+
+	@Override
+	public void createExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "resourceId", resourceId,
+				"externalContent", externalContent, "mimeType", mimeType, "handling", handling);
+	}
+
+	@Override
+	public String readRecord(String dataDivider, String recordId) {
+		return (String) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "recordId",
+				recordId);
+	}
+
+	@Override
+	public ReadRecordsResult readRecords(String dataDivider, List<String> recordIds,
+			int maxParallelReads) {
+		return (ReadRecordsResult) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"recordIds", recordIds, "maxParallelReads", maxParallelReads);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Stream<String> listIds(String dataDivider) {
+		return (Stream<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<String> listIdsModifiedSince(String dataDivider, Instant since,
+			int maxParallelChecks) {
+		return (List<String>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "since",
+				since, "maxParallelChecks", maxParallelChecks);
+	}
+
+	@Override
+	public VersionedRecord readVersionedRecord(String dataDivider, String recordId) {
+		return (VersionedRecord) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"recordId", recordId);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Optional<VersionedRecord> readRecordIfChanged(String dataDivider, String recordId,
+			String etag) {
+		return (Optional<VersionedRecord>) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"recordId", recordId, "etag", etag);
+	}
+
+	@Override
+	public InputStream readResource(String dataDivider, String resourceId) {
+		return (InputStream) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId);
+	}
+
+	@Override
+	public InputStream readResumableResource(String dataDivider, String resourceId,
+			int maxResumeAttempts) {
+		return (InputStream) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "maxResumeAttempts", maxResumeAttempts);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId) {
+		return (InputStream) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId);
+	}
+
+	@Override
+	public InputStream readVerifiedResource(String dataDivider, String resourceId,
+			ResourceMetadata expectedMetadata) {
+		return (InputStream) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "expectedMetadata", expectedMetadata);
+	}
+
+	@Override
+	public ResourceRange readResource(String dataDivider, String resourceId, long offset,
+			long length) {
+		MCR.addCall("dataDivider", dataDivider, "resourceId", resourceId, "offset", offset,
+				"length", length);
+		ResourceRange resourceRange = (ResourceRange) MRV.getReturnValue("readResourceRange",
+				dataDivider, resourceId, offset, length);
+		MCR.addReturned(resourceRange);
+		return resourceRange;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<ResourceRange> readResource(String dataDivider, String resourceId,
+			List<ByteRange> ranges) {
+		MCR.addCall("dataDivider", dataDivider, "resourceId", resourceId, "ranges", ranges);
+		List<ResourceRange> resourceRanges = (List<ResourceRange>) MRV
+				.getReturnValue("readResourceRanges", dataDivider, resourceId, ranges);
+		MCR.addReturned(resourceRanges);
+		return resourceRanges;
+	}
+
+	@Override
+	public ResourceMetadata downloadResource(String dataDivider, String resourceId, Path target,
+			long rangeSize, int maxParallelReads) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "target", target, "rangeSize", rangeSize,
+				"maxParallelReads", maxParallelReads);
+	}
+
+	@Override
+	public ResourceMetadata readResourceMetadata(String dataDivider, String resourceId) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId);
+	}
+
+	@Override
+	public void updateResourceMetadata(String dataDivider, String resourceId,
+			ResourceMetadataToUpdate resourceMetadataToUpdate) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "resourceId", resourceId,
+				"resourceMetadataToUpdate", resourceMetadataToUpdate);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<BatchItemResult> updateResourcesMetadata(List<ResourceMetadataUpdate> updates,
+			int maxParallelUpdates) {
+		return (List<BatchItemResult>) MCR.addCallAndReturnFromMRV("updates", updates,
+				"maxParallelUpdates", maxParallelUpdates);
+	}
+
+	@Override
+	public void updateRecord(String dataDivider, String recordId, String recordXml) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "recordId", recordId, "recordXml",
+				recordXml);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId,
+			InputStream resource, String mimeType) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "resource", resource, "mimeType", mimeType);
+	}
+
+	@Override
+	public ResourceMetadata updateResource(String dataDivider, String resourceId, Path resource,
+			String mimeType) {
+		return (ResourceMetadata) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "resource", resource, "mimeType", mimeType);
+	}
+
+	@Override
+	public ResourceUpdateResult updateResourceIfChanged(String dataDivider, String resourceId,
+			Path resource, String mimeType) {
+		return (ResourceUpdateResult) MCR.addCallAndReturnFromMRV("dataDivider", dataDivider,
+				"resourceId", resourceId, "resource", resource, "mimeType", mimeType);
+	}
+
+	@Override
+	public void updateExternalResource(String dataDivider, String resourceId, URI externalContent,
+			String mimeType, ExternalContentHandling handling) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "resourceId", resourceId,
+				"externalContent", externalContent, "mimeType", mimeType, "handling", handling);
+	}
+
+	@Override
+	public void deleteRecord(String dataDivider, String recordId) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "recordId", recordId);
+	}
+
+	@Override
+	public void deleteResource(String dataDivider, String resourceId) {
+		MCR.addCallAndReturnFromMRV("dataDivider", dataDivider, "resourceId", resourceId);
+	}
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		MCR.addCallAndReturnFromMRV("operations", operations, "maxParallelOperations",
+				maxParallelOperations);
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import se.uu.ub.cora.fedora.internal.FileUploader;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class FileUploaderSpy implements FileUploader {
+	private static final int CREATED = 201;
+	public MethodCallRecorder MCR = new MethodCallRecorder();
+	public MethodReturnValues MRV = new MethodReturnValues();
+	public List<byte[]> uploadedContents = new ArrayList<>();
+
+	public FileUploaderSpy() {
+		MCR.useMRV(MRV);
+		MRV.setDefaultReturnValuesSupplier("upload", () -> CREATED);
+	}
+
+	@Override
+	public int upload(String url, String requestMethod, Map<String, String> requestProperties,
+			InputStream content, long contentLength) throws IOException {
+		uploadedContents.add(content.readAllBytes());
+		return (int) MCR.addCallAndReturnFromMRV("url", url, "requestMethod", requestMethod,
+				"requestProperties", requestProperties, "content", content, "contentLength",
+				contentLength);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.util.Collections;
+import java.util.List;
+
+import se.uu.ub.cora.fedora.cache.HotKey;
+import se.uu.ub.cora.fedora.cache.HotKeyTracker;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class HotKeyTrackerSpy implements HotKeyTracker {
+	public MethodCallRecorder MCR = new MethodCallRecorder();
+	public MethodReturnValues MRV = new MethodReturnValues();
+
+	public HotKeyTrackerSpy() {
+		MCR.useMRV(MRV);
+		MRV.setDefaultReturnValuesSupplier("getHotKeys", Collections::emptyList);
+		MRV.setDefaultReturnValuesSupplier("isHot", () -> false);
+	}
+
+	@Override
+	public void recordAccess(String key) {
+		MCR.addCall("key", key);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<HotKey> getHotKeys() {
+		return (List<HotKey>) MCR.addCallAndReturnFromMRV();
+	}
+
+	@Override
+	public boolean isHot(String key) {
+		return (boolean) MCR.addCallAndReturnFromMRV("key", key);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.util.Optional;
+
+import se.uu.ub.cora.fedora.cache.CachedRecord;
+import se.uu.ub.cora.fedora.cache.RecordCache;
+import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
+import se.uu.ub.cora.testutils.mrv.MethodReturnValues;
+
+public class RecordCacheSpy implements RecordCache {
+	public MethodCallRecorder MCR = new MethodCallRecorder();
+	public MethodReturnValues MRV = new MethodReturnValues();
+
+	public RecordCacheSpy() {
+		MCR.useMRV(MRV);
+		MRV.setDefaultReturnValuesSupplier("read", Optional::empty);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Optional<CachedRecord> read(String key) {
+		return (Optional<CachedRecord>) MCR.addCallAndReturnFromMRV("key", key);
+	}
+
+	@Override
+	public void write(String key, String recordXml, String etag) {
+		MCR.addCall("key", key, "recordXml", recordXml, "etag", etag);
+	}
+
+	@Override
+	public void markAsRevalidated(String key) {
+		MCR.addCall("key", key);
+	}
+
+	@Override
+	public void remove(String key) {
+		MCR.addCall("key", key);
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.fedora.spy;
+
+import java.util.List;
+
+import se.uu.ub.cora.fedora.TransactionOperation;
+
+/**
+ * TransactionRunningFedoraAdapterSpy is a FedoraAdapterSpy that runs the operations passed to
+ * runInTransaction, one after the other, using transactionAdapter.
+ */
+public class TransactionRunningFedoraAdapterSpy extends FedoraAdapterSpy {
+	public FedoraAdapterSpy transactionAdapter = new FedoraAdapterSpy();
+
+	@Override
+	public void runInTransaction(List<TransactionOperation> operations,
+			int maxParallelOperations) {
+		super.runInTransaction(operations, maxParallelOperations);
+		for (TransactionOperation operation : operations) {
+			operation.runUsing(transactionAdapter);
+		}
+	}
+}